@@ -84,8 +84,26 @@ public abstract class AbstractAggregateFunction extends AbstractFunction {
 
 
 
+  /**
+   * Returns an accumulator that folds the values of a group in to the
+   * result that is passed to 'postEvalAggregate'.  By default the values are
+   * folded by 'evalAggregate', but a function may return an accumulator that
+   * is faster for the common types of value, provided it gives the same
+   * result.
+   */
+  protected AggregateAccumulator createValueAccumulator(GroupResolver group,
+                                                        QueryContext context) {
+    return new FoldAccumulator(group, context);
+  }
+
   // ---------- Implemented from AbstractFunction ----------
 
+  public final AggregateAccumulator createAccumulator(GroupResolver group,
+                                                      QueryContext context) {
+    return new GroupAccumulator(group, context,
+                                createValueAccumulator(group, context));
+  }
+
   public final TObject evaluate(GroupResolver group,
                                 VariableResolver resolver,
                                 QueryContext context) {
@@ -94,7 +112,6 @@ public abstract class AbstractAggregateFunction extends AbstractFunction {
                              "' can only be used as an aggregate function.");
     }
 
-    TObject result = null;
     // All aggregates functions return 'null' if group size is 0
     int size = group.size();
     if (size == 0) {
@@ -102,14 +119,20 @@ public abstract class AbstractAggregateFunction extends AbstractFunction {
       return new TObject(returnTType(resolver, context), null);
     }
 
-    TObject val;
+    // If the group was already evaluated with the other aggregates of the
+    // function table, use that result.
+    TObject result = FunctionTable.groupAggregateResult(group, this);
+    if (result != null) {
+      return result;
+    }
+
+    AggregateAccumulator accumulator = createAccumulator(group, context);
     Variable v = getParameter(0).getVariable();
     // If the aggregate parameter is a simple variable, then use optimal
     // routine,
     if (v != null) {
       for (int i = 0; i < size; ++i) {
-        val = group.resolve(v, i);
-        result = evalAggregate(group, context, result, val);
+        accumulator.accumulate(group.resolve(v, i));
       }
     }
     else {
@@ -118,15 +141,65 @@ public abstract class AbstractAggregateFunction extends AbstractFunction {
       // work for a group.
       Expression exp = getParameter(0);
       for (int i = 0; i < size; ++i) {
-        val = exp.evaluate(null, group.getVariableResolver(i), context);
-        result = evalAggregate(group, context, result, val);
+        accumulator.accumulate(
+                   exp.evaluate(null, group.getVariableResolver(i), context));
       }
     }
 
-    // Post method.
-    result = postEvalAggregate(group, context, result);
+    return accumulator.result();
+  }
+
+  // ---------- Inner classes ----------
+
+  /**
+   * The accumulator that folds the values with 'evalAggregate'.
+   */
+  private final class FoldAccumulator extends AggregateAccumulator {
+
+    private final GroupResolver group;
+    private final QueryContext context;
+    private TObject result;
+
+    FoldAccumulator(GroupResolver group, QueryContext context) {
+      this.group = group;
+      this.context = context;
+    }
+
+    public void accumulate(TObject value) {
+      result = evalAggregate(group, context, result, value);
+    }
+
+    public TObject result() {
+      return result;
+    }
+
+  }
+
+  /**
+   * The accumulator returned by 'createAccumulator', which calls
+   * 'postEvalAggregate' on the folded result.
+   */
+  private final class GroupAccumulator extends AggregateAccumulator {
+
+    private final GroupResolver group;
+    private final QueryContext context;
+    private final AggregateAccumulator values;
+
+    GroupAccumulator(GroupResolver group, QueryContext context,
+                     AggregateAccumulator values) {
+      this.group = group;
+      this.context = context;
+      this.values = values;
+    }
+
+    public void accumulate(TObject value) {
+      values.accumulate(value);
+    }
+
+    public TObject result() {
+      return postEvalAggregate(group, context, values.result());
+    }
 
-    return result;
   }
 
 }
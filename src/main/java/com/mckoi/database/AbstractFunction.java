@@ -172,6 +172,20 @@ public abstract class AbstractFunction implements Function {
   public void init(VariableResolver resolver) {
   }
 
+  /**
+   * If this is an aggregate function that can be computed by being given the
+   * value of its first parameter for each set in a group, returns a new
+   * AggregateAccumulator for the given group.  Otherwise returns null.  By
+   * default this returns null.
+   * <p>
+   * FunctionTable uses accumulators to compute all the aggregates of a group
+   * with one pass over the group.
+   */
+  public AggregateAccumulator createAccumulator(GroupResolver group,
+                                                QueryContext context) {
+    return null;
+  }
+
 
   /**
    * By Default, we assume a function returns a Numeric object.
@@ -36,6 +36,12 @@ public abstract class AbstractQueryContext implements QueryContext {
    */
   private HashMap marked_tables;
 
+  /**
+   * The values of the parameters of the query, or null if the query has no
+   * parameters.
+   */
+  private TObject[] parameters;
+
 
   /**
    * Marks a table in a query plan.
@@ -87,4 +93,32 @@ public abstract class AbstractQueryContext implements QueryContext {
     }
   }
 
+  /**
+   * Sets the values of the parameters of the query being evaluated in this
+   * context.  The objects are converted to TObject values.
+   */
+  public void setParameterValues(Object[] vars) {
+    if (vars == null) {
+      parameters = null;
+    }
+    else {
+      parameters = new TObject[vars.length];
+      for (int i = 0; i < vars.length; ++i) {
+        parameters[i] = TObject.objectVal(vars[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the value of the parameter with the given id.
+   */
+  public TObject getParameterValue(int parameter_id) {
+    if (parameters == null ||
+        parameter_id < 0 || parameter_id >= parameters.length) {
+      throw new StatementException(
+                  "Parameter " + (parameter_id + 1) + " has not been set.");
+    }
+    return parameters[parameter_id];
+  }
+
 }
@@ -0,0 +1,50 @@
+/**
+ * com.mckoi.database.AggregateAccumulator  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+/**
+ * Computes the result of an aggregate function over a group by being given
+ * the value of the function parameter for each set in the group, one at a
+ * time.  An accumulator is created for a single group by
+ * AbstractFunction.createAccumulator.
+ * <p>
+ * Because the values are pushed to the accumulator rather than pulled by the
+ * function, FunctionTable can compute every aggregate of a group with a
+ * single pass over the rows of the group.
+ *
+ * @author Tobias Downer
+ */
+
+public abstract class AggregateAccumulator {
+
+  /**
+   * Adds the value of the function parameter for the next set in the group.
+   */
+  public abstract void accumulate(TObject value);
+
+  /**
+   * Returns the result of the aggregate function over all the values that
+   * have been accumulated.  This is only called if at least one value was
+   * accumulated.
+   */
+  public abstract TObject result();
+
+}
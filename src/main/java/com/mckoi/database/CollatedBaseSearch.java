@@ -277,6 +277,21 @@ public abstract class CollatedBaseSearch extends SelectableScheme {
 
   }
 
+  public IntegerVector selectFirstNonNull() {
+    // If no items in the set return an empty set
+    if (setSize() == 0) {
+      return new IntegerVector(0);
+    }
+    // The position of the first value after the NULL values
+    int p = positionOfRangePoint(SelectableRange.AFTER_LAST_VALUE,
+                                 TObject.nullVal());
+    if (p >= setSize()) {
+      return new IntegerVector(0);
+    }
+    int row = addRangeToSet(p, p, null).intAt(0);
+    return selectEqual(getCellContents(row));
+  }
+
   public IntegerVector selectRange(SelectableRange range) {
     // If no items in the set return an empty set
     if (setSize() == 0) {
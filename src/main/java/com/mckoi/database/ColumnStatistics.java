@@ -0,0 +1,564 @@
+/**
+ * com.mckoi.database.ColumnStatistics  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import com.mckoi.database.global.BlobAccessor;
+import com.mckoi.database.global.ByteLongObject;
+import com.mckoi.database.global.StringAccessor;
+import com.mckoi.database.global.StringObject;
+import com.mckoi.util.BigNumber;
+
+/**
+ * The statistics of the values in a column of a table that were found by
+ * the ANALYZE command.  This is the fraction of the values that are NULL, an
+ * estimate of the number of distinct values, the most common values and how
+ * often they occur, and an equi-depth histogram of the rest of the values.
+ * <p>
+ * The planner uses these to estimate the fraction of the rows of the table
+ * that a condition on the column selects.  Histograms and most common
+ * values are only made for numeric, string, date and boolean columns.
+ *
+ * @author Tobias Downer
+ */
+
+public final class ColumnStatistics {
+
+  /**
+   * The largest number of most common values that are kept.
+   */
+  static final int MAX_COMMON_VALUES = 10;
+
+  /**
+   * The largest number of buckets in a histogram.
+   */
+  static final int MAX_HISTOGRAM_BUCKETS = 100;
+
+  /**
+   * Strings longer than this are cut to this length in the histogram, and
+   * are never a most common value.
+   */
+  private static final int MAX_STRING_LENGTH = 128;
+
+  /**
+   * Sorts values in the order of the column index.
+   */
+  private static final Comparator VALUE_COMPARATOR = new Comparator() {
+    public int compare(Object ob1, Object ob2) {
+      return ((TObject) ob1).compareTo((TObject) ob2);
+    }
+  };
+
+  /**
+   * The name of the column.
+   */
+  private final String column_name;
+
+  /**
+   * The fraction of the rows that are NULL.
+   */
+  private final double null_fraction;
+
+  /**
+   * The estimated number of distinct non NULL values, or -1 if not known.
+   */
+  private final double distinct_count;
+
+  /**
+   * The most common values, and the fraction of the rows that have each
+   * value.
+   */
+  private final TObject[] common_values;
+  private final double[] common_fractions;
+
+  /**
+   * The bounds of the histogram buckets, or null if there is no histogram.
+   * Each bucket holds the same number of the values that are not NULL and
+   * not one of the most common values.
+   */
+  private final TObject[] histogram;
+
+  /**
+   * The fraction of the rows that the histogram covers.
+   */
+  private final double histogram_fraction;
+
+  /**
+   * Constructs the statistics.
+   */
+  ColumnStatistics(String column_name, double null_fraction,
+                   double distinct_count, TObject[] common_values,
+                   double[] common_fractions, TObject[] histogram) {
+    this.column_name = column_name;
+    this.null_fraction = null_fraction;
+    this.distinct_count = distinct_count;
+    this.common_values = common_values;
+    this.common_fractions = common_fractions;
+    this.histogram = histogram;
+
+    double fraction = 1.0 - null_fraction;
+    for (int i = 0; i < common_fractions.length; ++i) {
+      fraction -= common_fractions[i];
+    }
+    this.histogram_fraction = Math.max(0, fraction);
+  }
+
+  /**
+   * Returns the name of the column.
+   */
+  public String getColumnName() {
+    return column_name;
+  }
+
+  /**
+   * Returns the fraction of the rows that are NULL.
+   */
+  public double getNullFraction() {
+    return null_fraction;
+  }
+
+  /**
+   * Returns the estimated number of distinct non NULL values in the column,
+   * or -1 if it's not known.
+   */
+  public double getDistinctCount() {
+    return distinct_count;
+  }
+
+  /**
+   * Returns the number of most common values.
+   */
+  public int getCommonValueCount() {
+    return common_values.length;
+  }
+
+  /**
+   * Returns the number of buckets in the histogram.
+   */
+  public int getHistogramBucketCount() {
+    return histogram == null ? 0 : histogram.length - 1;
+  }
+
+  // ---------- Selectivity ----------
+
+  /**
+   * Returns true if the value can be compared with the values in these
+   * statistics.
+   */
+  private boolean isComparable(TObject value) {
+    TObject sample = null;
+    if (common_values.length > 0) {
+      sample = common_values[0];
+    }
+    else if (histogram != null) {
+      sample = histogram[0];
+    }
+    return sample != null && value.comparableTypes(sample);
+  }
+
+  /**
+   * Returns the fraction of the rows that equal a value that is not known.
+   */
+  public double equalSelectivity() {
+    if (distinct_count <= 0) {
+      return -1;
+    }
+    return (1.0 - null_fraction) / Math.max(1, distinct_count);
+  }
+
+  /**
+   * Returns the fraction of the rows that equal the given value.
+   */
+  private double equalSelectivity(TObject value) {
+    if (value.isNull()) {
+      return 0;
+    }
+    for (int i = 0; i < common_values.length; ++i) {
+      if (common_values[i].compareTo(value) == 0) {
+        return common_fractions[i];
+      }
+    }
+    // Not a common value, so it's one of the distinct values in the
+    // histogram.
+    double rest_count = distinct_count - common_values.length;
+    return Math.min(histogram_fraction,
+                    histogram_fraction / Math.max(1, rest_count));
+  }
+
+  /**
+   * Returns the position of the value in the histogram as a fraction from
+   * 0 (before the first bound) to 1 (after the last bound).
+   */
+  private double histogramPosition(TObject value) {
+    if (histogram == null) {
+      return 0.5;
+    }
+    int buckets = histogram.length - 1;
+    if (value.compareTo(histogram[0]) < 0) {
+      return 0;
+    }
+    if (buckets == 0 || value.compareTo(histogram[buckets]) >= 0) {
+      return 1;
+    }
+    // Find the bucket with the bounds that contain the value
+    int low = 0;
+    int high = buckets;
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (value.compareTo(histogram[mid]) < 0) {
+        high = mid;
+      }
+      else {
+        low = mid;
+      }
+    }
+    return (low + interpolate(histogram[low], histogram[high], value)) /
+           buckets;
+  }
+
+  /**
+   * Returns where the value is between the two bounds as a fraction from 0
+   * to 1.  Numbers and dates are interpolated, otherwise the value is
+   * assumed to be in the middle.
+   */
+  private static double interpolate(TObject low, TObject high,
+                                    TObject value) {
+    double l, h, v;
+    if (value.getTType() instanceof TNumericType) {
+      l = ((BigNumber) low.getObject()).doubleValue();
+      h = ((BigNumber) high.getObject()).doubleValue();
+      v = ((BigNumber) value.getObject()).doubleValue();
+    }
+    else if (value.getTType() instanceof TDateType) {
+      l = ((Date) low.getObject()).getTime();
+      h = ((Date) high.getObject()).getTime();
+      v = ((Date) value.getObject()).getTime();
+    }
+    else {
+      return 0.5;
+    }
+    if (!(h > l) || Double.isNaN(v)) {
+      return 0.5;
+    }
+    return Math.max(0, Math.min(1, (v - l) / (h - l)));
+  }
+
+  /**
+   * Returns the fraction of the rows that are less than the value, or less
+   * than or equal to the value if 'inclusive' is true.
+   */
+  private double lessSelectivity(TObject value, boolean inclusive) {
+    double fraction = 0;
+    for (int i = 0; i < common_values.length; ++i) {
+      int c = common_values[i].compareTo(value);
+      if (c < 0 || (inclusive && c == 0)) {
+        fraction += common_fractions[i];
+      }
+    }
+    return fraction + (histogram_fraction * histogramPosition(value));
+  }
+
+  /**
+   * Returns the estimated fraction of the rows of the table where the
+   * expression '[column] [op] [value]' is true, or -1 if it can't be
+   * estimated.  If 'value' is null then the value isn't known.
+   */
+  public double selectivity(Operator op, TObject value) {
+    double s;
+    if (op.is("is") || op.is("is not")) {
+      if (value == null || !value.isNull()) {
+        return -1;
+      }
+      s = op.is("is") ? null_fraction : 1.0 - null_fraction;
+    }
+    else if (value == null) {
+      if (op.is("=")) {
+        s = equalSelectivity();
+      }
+      else if (op.is("<>")) {
+        s = equalSelectivity();
+        s = (s < 0) ? -1 : (1.0 - null_fraction - s);
+      }
+      else {
+        return -1;
+      }
+    }
+    else if (value.isNull()) {
+      // Nothing is equal to or compares with NULL
+      s = 0;
+    }
+    else if (!isComparable(value)) {
+      return -1;
+    }
+    else if (op.is("=")) {
+      s = equalSelectivity(value);
+    }
+    else if (op.is("<>")) {
+      s = 1.0 - null_fraction - equalSelectivity(value);
+    }
+    else if (op.is("<")) {
+      s = lessSelectivity(value, false);
+    }
+    else if (op.is("<=")) {
+      s = lessSelectivity(value, true);
+    }
+    else if (op.is(">")) {
+      s = 1.0 - null_fraction - lessSelectivity(value, true);
+    }
+    else if (op.is(">=")) {
+      s = 1.0 - null_fraction - lessSelectivity(value, false);
+    }
+    else {
+      return -1;
+    }
+    return Math.max(0, Math.min(1, s));
+  }
+
+  // ---------- Analysis ----------
+
+  /**
+   * Returns true if statistics of the values can be made for columns of the
+   * given type.
+   */
+  private static boolean isOrderedType(TType type) {
+    return type instanceof TNumericType || type instanceof TStringType ||
+           type instanceof TDateType || type instanceof TBooleanType;
+  }
+
+  /**
+   * Returns a copy of the value that can be serialized.  Strings are cut to
+   * MAX_STRING_LENGTH characters.
+   */
+  private static TObject copyValue(TObject value) {
+    if (value.getTType() instanceof TStringType) {
+      String str = value.getObject().toString();
+      if (str.length() > MAX_STRING_LENGTH) {
+        str = str.substring(0, MAX_STRING_LENGTH);
+      }
+      return new TObject(value.getTType(), StringObject.fromString(str));
+    }
+    return value;
+  }
+
+  /**
+   * Returns true if the value is too long to be a most common value.
+   */
+  private static boolean isLongValue(TObject value) {
+    return value.getTType() instanceof TStringType &&
+           ((StringAccessor) value.getObject()).length() > MAX_STRING_LENGTH;
+  }
+
+  /**
+   * Makes the statistics of a column from the values of the column in a
+   * sample of the rows of a table.  'row_count' is the number of rows in
+   * the table.  The values in the sample array are sorted by this method.
+   */
+  static ColumnStatistics fromSample(String column_name, TType type,
+                                     TObject[] sample, long row_count) {
+    int sample_size = sample.length;
+    if (sample_size == 0) {
+      return new ColumnStatistics(column_name, 0, 0,
+                                  new TObject[0], new double[0], null);
+    }
+
+    // Move the NULL values to the start
+    Arrays.sort(sample, new Comparator() {
+      public int compare(Object ob1, Object ob2) {
+        boolean n1 = ((TObject) ob1).isNull();
+        boolean n2 = ((TObject) ob2).isNull();
+        return n1 == n2 ? 0 : (n1 ? -1 : 1);
+      }
+    });
+    int null_count = 0;
+    while (null_count < sample_size && sample[null_count].isNull()) {
+      ++null_count;
+    }
+    double null_fraction = (double) null_count / sample_size;
+    int n = sample_size - null_count;
+
+    if (!isOrderedType(type) || n == 0) {
+      return new ColumnStatistics(column_name, null_fraction, n == 0 ? 0 : -1,
+                                  new TObject[0], new double[0], null);
+    }
+
+    TObject[] values = new TObject[n];
+    System.arraycopy(sample, null_count, values, 0, n);
+    Arrays.sort(values, VALUE_COMPARATOR);
+
+    // Count the distinct values and the values that occur once
+    int distinct = 0;
+    int once = 0;
+    int[] run_start = new int[n];
+    int i = 0;
+    while (i < n) {
+      int end = i + 1;
+      while (end < n && values[end].compareTo(values[i]) == 0) {
+        ++end;
+      }
+      run_start[distinct] = i;
+      ++distinct;
+      if (end - i == 1) {
+        ++once;
+      }
+      i = end;
+    }
+
+    // Estimate the number of distinct values in the table from the sample
+    // (the Duj1 estimator of Haas and Stokes).
+    double total = Math.max(n, (double) row_count * n / sample_size);
+    double distinct_count;
+    if (n >= total) {
+      distinct_count = distinct;
+    }
+    else {
+      distinct_count = (n * (double) distinct) /
+                       (n - once + (once * n / total));
+      distinct_count = Math.max(distinct, Math.min(total, distinct_count));
+    }
+
+    // The most common values are the values that occur much more often
+    // than the average, or every value if there are only a few and none
+    // of them occur once.
+    boolean all_common = (distinct <= MAX_COMMON_VALUES && once == 0);
+    double common_limit = 1.25 * n / distinct;
+    int[] common_runs = new int[MAX_COMMON_VALUES];
+    int[] common_counts = new int[MAX_COMMON_VALUES];
+    int common_count = 0;
+    for (int r = 0; r < distinct; ++r) {
+      int start = run_start[r];
+      int count = ((r + 1 < distinct) ? run_start[r + 1] : n) - start;
+      if (isLongValue(values[start]) ||
+          (!all_common && (count < 2 || count <= common_limit))) {
+        continue;
+      }
+      // Insert by count in to the list of the most common values
+      int pos = common_count;
+      while (pos > 0 && common_counts[pos - 1] < count) {
+        --pos;
+      }
+      if (pos < MAX_COMMON_VALUES) {
+        int move = Math.min(common_count, MAX_COMMON_VALUES - 1) - pos;
+        System.arraycopy(common_runs, pos, common_runs, pos + 1, move);
+        System.arraycopy(common_counts, pos, common_counts, pos + 1, move);
+        common_runs[pos] = r;
+        common_counts[pos] = count;
+        common_count = Math.min(common_count + 1, MAX_COMMON_VALUES);
+      }
+    }
+
+    TObject[] common_values = new TObject[common_count];
+    double[] common_fractions = new double[common_count];
+    boolean[] is_common = new boolean[distinct];
+    for (int c = 0; c < common_count; ++c) {
+      int r = common_runs[c];
+      is_common[r] = true;
+      common_values[c] = copyValue(values[run_start[r]]);
+      common_fractions[c] = (double) common_counts[c] / sample_size;
+    }
+
+    // The histogram of the values that aren't common
+    int rest_size = 0;
+    for (int r = 0; r < distinct; ++r) {
+      if (!is_common[r]) {
+        int start = run_start[r];
+        int end = (r + 1 < distinct) ? run_start[r + 1] : n;
+        System.arraycopy(values, start, values, rest_size, end - start);
+        rest_size += end - start;
+      }
+    }
+    TObject[] histogram = null;
+    if (rest_size > 0) {
+      int buckets = Math.min(MAX_HISTOGRAM_BUCKETS, rest_size - 1);
+      histogram = new TObject[buckets + 1];
+      for (int b = 0; b <= buckets; ++b) {
+        int index = (buckets == 0) ? 0 :
+                           (int) ((long) b * (rest_size - 1) / buckets);
+        histogram[b] = copyValue(values[index]);
+      }
+    }
+
+    return new ColumnStatistics(column_name, null_fraction, distinct_count,
+                        common_values, common_fractions, histogram);
+  }
+
+  // ---------- Serialization ----------
+
+  /**
+   * Forms the most common values and the histogram of these statistics
+   * into a serialized ByteLongObject that can be stored in a table.
+   */
+  ByteLongObject serializeToBlob() {
+    try {
+      ByteArrayOutputStream byte_out = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(byte_out);
+      // Write the version number
+      out.writeInt(1);
+      out.writeObject(common_values);
+      out.writeObject(common_fractions);
+      out.writeObject(histogram);
+
+      out.flush();
+
+      return new ByteLongObject(byte_out.toByteArray());
+
+    }
+    catch (IOException e) {
+      throw new Error("IO Error: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Creates the statistics of a column from the given values and the blob
+   * that was made by 'serializeToBlob'.
+   */
+  static ColumnStatistics deserializeFromBlob(String column_name,
+                  double null_fraction, double distinct_count,
+                  BlobAccessor blob) {
+    InputStream blob_in = blob.getInputStream();
+    try {
+      ObjectInputStream in = new ObjectInputStream(blob_in);
+      // Read the version
+      int version = in.readInt();
+      if (version == 1) {
+        TObject[] common_values = (TObject[]) in.readObject();
+        double[] common_fractions = (double[]) in.readObject();
+        TObject[] histogram = (TObject[]) in.readObject();
+        return new ColumnStatistics(column_name, null_fraction,
+                  distinct_count, common_values, common_fractions, histogram);
+      }
+      else {
+        throw new IOException(
+                "Newer ColumnStatistics version serialization: " + version);
+      }
+
+    }
+    catch (IOException e) {
+      throw new Error("IO Error: " + e.getMessage());
+    }
+    catch (ClassNotFoundException e) {
+      throw new Error("Class not found: " + e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,375 @@
+/**
+ * com.mckoi.database.CompiledExpression  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import java.util.ArrayList;
+import com.mckoi.util.BigNumber;
+
+/**
+ * The compiled form of an Expression.  The postfix element list of an
+ * expression is turned into a tree of evaluator nodes so that evaluating the
+ * expression for a row doesn't need to walk the postfix list, test the type
+ * of each element, or use an evaluation stack.
+ * <p>
+ * When an expression is compiled, any operator that has constant operands is
+ * evaluated once and replaced with its result (constant folding).  'and' and
+ * 'or' nodes only evaluate their right operand when the left operand doesn't
+ * decide the result.  Comparisons between two numeric values compare the
+ * numbers directly.
+ * <p>
+ * The node tree holds no state between evaluations.
+ *
+ * @author Tobias Downer
+ */
+
+final class CompiledExpression {
+
+  /**
+   * The root node of the evaluator tree.
+   */
+  private final Node root;
+
+  /**
+   * Constructs the compiled expression.
+   */
+  private CompiledExpression(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Evaluates the compiled expression.
+   */
+  TObject evaluate(GroupResolver group, VariableResolver resolver,
+                   QueryContext context) {
+    return root.evaluate(group, resolver, context);
+  }
+
+  /**
+   * Compiles the given list of postfix expression elements.  The query
+   * context is used to fold constant operations.  Returns null if the
+   * element list contains an element that can't be compiled, in which case
+   * the expression must be interpreted.
+   */
+  static CompiledExpression compile(ArrayList elements, QueryContext context) {
+    ArrayList stack = new ArrayList();
+    int sz = elements.size();
+    for (int i = 0; i < sz; ++i) {
+      Object ob = elements.get(i);
+      Node node;
+      if (ob instanceof Operator) {
+        if (stack.size() < 2) {
+          return null;
+        }
+        Node right = (Node) stack.remove(stack.size() - 1);
+        Node left = (Node) stack.remove(stack.size() - 1);
+        node = operatorNode((Operator) ob, left, right, context);
+      }
+      else if (ob instanceof TObject) {
+        node = new ConstantNode((TObject) ob);
+      }
+      else if (ob instanceof Variable) {
+        node = new VariableNode((Variable) ob);
+      }
+      else if (ob instanceof CorrelatedVariable) {
+        node = new CorrelatedVariableNode((CorrelatedVariable) ob);
+      }
+      else if (ob instanceof FunctionDef) {
+        node = new FunctionNode((FunctionDef) ob);
+      }
+      else if (ob instanceof ParameterSubstitution) {
+        node = new ParameterNode((ParameterSubstitution) ob);
+      }
+      else {
+        return null;
+      }
+      stack.add(node);
+    }
+    if (stack.size() != 1) {
+      return null;
+    }
+    return new CompiledExpression((Node) stack.get(0));
+  }
+
+  /**
+   * Returns true if the value can be used as an operand when folding a
+   * constant operation.  Arrays and query plans are evaluated by the
+   * operator and are never folded.
+   */
+  private static boolean isFoldable(Node node) {
+    if (node instanceof ConstantNode) {
+      TType ttype = ((ConstantNode) node).value.getTType();
+      return !(ttype instanceof TArrayType ||
+               ttype instanceof TQueryPlanType);
+    }
+    return false;
+  }
+
+  /**
+   * Creates the node for the given operator and operands.  If both operands
+   * are constant, the operation is evaluated and a constant node is
+   * returned.
+   */
+  private static Node operatorNode(Operator op, Node left, Node right,
+                                   QueryContext context) {
+    Node node;
+    if (op.is("and") && !op.isSubQuery()) {
+      node = new AndNode(op, left, right);
+    }
+    else if (op.is("or") && !op.isSubQuery()) {
+      node = new OrNode(op, left, right);
+    }
+    else if (!op.isSubQuery() &&
+             (op.is("=") || op.is("<>") || op.is(">") || op.is("<") ||
+              op.is(">=") || op.is("<="))) {
+      node = new CompareNode(op, left, right);
+    }
+    else {
+      node = new OperatorNode(op, left, right);
+    }
+
+    // Constant folding
+    if (!op.isSubQuery() && isFoldable(left) && isFoldable(right)) {
+      try {
+        return new ConstantNode(node.evaluate(null, null, context));
+      }
+      catch (RuntimeException e) {
+        // If the operation fails then leave it to fail when it is evaluated
+      }
+    }
+    return node;
+  }
+
+  // ---------- Inner classes ----------
+
+  /**
+   * A node in the evaluator tree.
+   */
+  private static abstract class Node {
+
+    /**
+     * Evaluates this node.
+     */
+    abstract TObject evaluate(GroupResolver group, VariableResolver resolver,
+                              QueryContext context);
+
+  }
+
+  /**
+   * A constant value.
+   */
+  private static final class ConstantNode extends Node {
+
+    final TObject value;
+
+    ConstantNode(TObject value) {
+      this.value = value;
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      return value;
+    }
+
+  }
+
+  /**
+   * A variable that is resolved by the VariableResolver.
+   */
+  private static final class VariableNode extends Node {
+
+    private final Variable variable;
+
+    VariableNode(Variable variable) {
+      this.variable = variable;
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      return resolver.resolve(variable);
+    }
+
+  }
+
+  /**
+   * A correlated variable.
+   */
+  private static final class CorrelatedVariableNode extends Node {
+
+    private final CorrelatedVariable variable;
+
+    CorrelatedVariableNode(CorrelatedVariable variable) {
+      this.variable = variable;
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      return variable.getEvalResult();
+    }
+
+  }
+
+  /**
+   * A parameter of the query that is resolved by the QueryContext.
+   */
+  private static final class ParameterNode extends Node {
+
+    private final int param_id;
+
+    ParameterNode(ParameterSubstitution param) {
+      this.param_id = param.getID();
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      return context.getParameterValue(param_id);
+    }
+
+  }
+
+  /**
+   * A function call.
+   */
+  private static final class FunctionNode extends Node {
+
+    private final FunctionDef function_def;
+
+    FunctionNode(FunctionDef function_def) {
+      this.function_def = function_def;
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      Function fun = function_def.getFunction(context);
+      return fun.evaluate(group, resolver, context);
+    }
+
+  }
+
+  /**
+   * A binary operator that is evaluated by the Operator object.
+   */
+  private static class OperatorNode extends Node {
+
+    final Operator op;
+    final Node left;
+    final Node right;
+
+    OperatorNode(Operator op, Node left, Node right) {
+      this.op = op;
+      this.left = left;
+      this.right = right;
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      TObject v1 = left.evaluate(group, resolver, context);
+      TObject v2 = right.evaluate(group, resolver, context);
+      return op.eval(v1, v2, group, resolver, context);
+    }
+
+  }
+
+  /**
+   * A comparison operator ( =, <>, >, <, >=, <= ).  If both operands are
+   * numbers they are compared directly, otherwise the comparison is done by
+   * the Operator object.
+   */
+  private static final class CompareNode extends OperatorNode {
+
+    /**
+     * The results of the number comparison for less, equal and greater.
+     */
+    private final TObject less, equal, greater;
+
+    CompareNode(Operator op, Node left, Node right) {
+      super(op, left, right);
+      boolean lt = op.is("<") || op.is("<=") || op.is("<>");
+      boolean eq = op.is("=") || op.is("<=") || op.is(">=");
+      boolean gt = op.is(">") || op.is(">=") || op.is("<>");
+      less = TObject.booleanVal(lt);
+      equal = TObject.booleanVal(eq);
+      greater = TObject.booleanVal(gt);
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      TObject v1 = left.evaluate(group, resolver, context);
+      TObject v2 = right.evaluate(group, resolver, context);
+      Object n1 = v1.getObject();
+      Object n2 = v2.getObject();
+      if (n1 instanceof BigNumber && n2 instanceof BigNumber &&
+          v1.getTType() instanceof TNumericType &&
+          v2.getTType() instanceof TNumericType) {
+        int c = ((BigNumber) n1).compareTo((BigNumber) n2);
+        return c < 0 ? less : (c == 0 ? equal : greater);
+      }
+      return op.eval(v1, v2, group, resolver, context);
+    }
+
+  }
+
+  /**
+   * The logical 'and' operator.  The right operand isn't evaluated if the
+   * left operand is false.
+   */
+  private static final class AndNode extends OperatorNode {
+
+    AndNode(Operator op, Node left, Node right) {
+      super(op, left, right);
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      TObject v1 = left.evaluate(group, resolver, context);
+      Boolean b1 = v1.toBoolean();
+      if (b1 != null && !b1.booleanValue()) {
+        return TObject.BOOLEAN_FALSE;
+      }
+      TObject v2 = right.evaluate(group, resolver, context);
+      return op.eval(v1, v2, group, resolver, context);
+    }
+
+  }
+
+  /**
+   * The logical 'or' operator.  The right operand isn't evaluated if the
+   * left operand is true.
+   */
+  private static final class OrNode extends OperatorNode {
+
+    OrNode(Operator op, Node left, Node right) {
+      super(op, left, right);
+    }
+
+    TObject evaluate(GroupResolver group, VariableResolver resolver,
+                     QueryContext context) {
+      TObject v1 = left.evaluate(group, resolver, context);
+      Boolean b1 = v1.toBoolean();
+      if (b1 != null && b1.booleanValue()) {
+        return TObject.BOOLEAN_TRUE;
+      }
+      TObject v2 = right.evaluate(group, resolver, context);
+      return op.eval(v1, v2, group, resolver, context);
+    }
+
+  }
+
+}
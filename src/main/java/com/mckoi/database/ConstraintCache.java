@@ -0,0 +1,200 @@
+/**
+ * com.mckoi.database.ConstraintCache  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import java.util.HashMap;
+
+/**
+ * A cache of the constraints defined on the tables of a conglomerate.  The
+ * constraints of a table are stored in the constraint system tables
+ * (SYS_INFO.sUSRPKeyInfo, SYS_INFO.sUSRFKeyInfo, etc) and finding them means
+ * querying several of these tables.  Constraints are checked every time
+ * rows are added to or removed from a table so this cache keeps the
+ * constraints of a table once they have been read.
+ * <p>
+ * The cache has a version number.  When a transaction commits a change to
+ * the constraint system tables (or creates or drops a table) the version is
+ * incremented and the cache is cleared.  A transaction remembers the version
+ * of the cache when it was created and may only use the cache if the
+ * version has not changed since, and if it has not changed the constraint
+ * system tables itself.  This ensures a transaction always sees the
+ * constraints in its own view of the database.
+ *
+ * @author Tobias Downer
+ */
+
+final class ConstraintCache {
+
+  /**
+   * The system tables that define the constraints of a table.
+   */
+  static final TableName[] CONSTRAINT_TABLES = new TableName[] {
+    TableDataConglomerate.PRIMARY_INFO_TABLE,
+    TableDataConglomerate.PRIMARY_COLS_TABLE,
+    TableDataConglomerate.UNIQUE_INFO_TABLE,
+    TableDataConglomerate.UNIQUE_COLS_TABLE,
+    TableDataConglomerate.FOREIGN_INFO_TABLE,
+    TableDataConglomerate.FOREIGN_COLS_TABLE,
+    TableDataConglomerate.CHECK_INFO_TABLE
+  };
+
+  /**
+   * A map of TableName -> Constraints.
+   */
+  private final HashMap table_map;
+
+  /**
+   * The current version of the cache.
+   */
+  private long version;
+
+  /**
+   * Constructs the cache.
+   */
+  ConstraintCache() {
+    table_map = new HashMap();
+    version = 0;
+  }
+
+  /**
+   * Returns true if the given table is one of the constraint system tables.
+   */
+  static boolean isConstraintTable(TableName table_name) {
+    for (int i = 0; i < CONSTRAINT_TABLES.length; ++i) {
+      if (CONSTRAINT_TABLES[i].equals(table_name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the current version of the cache.
+   */
+  synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * Clears the cache and increments the version.  This is called when a
+   * transaction that changed the constraints of the database commits.
+   * <p>
+   * NOTE: This must be called inside the commit lock.
+   */
+  synchronized void invalidate() {
+    ++version;
+    table_map.clear();
+  }
+
+  /**
+   * Returns the constraints of the given table.  'tran_version' is the
+   * version of the cache when the transaction was created.  If the version
+   * has changed since then the constraints are read from the transaction
+   * and not put in the cache.
+   */
+  Constraints getConstraints(SimpleTransaction transaction,
+                             long tran_version, TableName table_name) {
+    synchronized (this) {
+      if (tran_version == version) {
+        Constraints constraints = (Constraints) table_map.get(table_name);
+        if (constraints != null) {
+          return constraints;
+        }
+      }
+    }
+
+    // Not in the cache so read the constraints from the system tables.
+    Constraints constraints = new Constraints(transaction, table_name);
+    synchronized (this) {
+      if (tran_version == version) {
+        table_map.put(table_name, constraints);
+      }
+    }
+    return constraints;
+  }
+
+  // ---------- Inner classes ----------
+
+  /**
+   * The constraints of a table.  The check expressions are prepared against
+   * the table definition.  The arrays must not be changed.
+   */
+  static final class Constraints {
+
+    /**
+     * The primary key of the table, or null if the table has no primary
+     * key.
+     */
+    final Transaction.ColumnGroup primary_key;
+
+    /**
+     * The unique constraints of the table.
+     */
+    final Transaction.ColumnGroup[] unique_groups;
+
+    /**
+     * The check constraints of the table.
+     */
+    final Transaction.CheckExpression[] check_expressions;
+
+    /**
+     * The foreign keys of the table.
+     */
+    final Transaction.ColumnGroupReference[] foreign_keys;
+
+    /**
+     * The foreign keys in other tables that reference this table.
+     */
+    final Transaction.ColumnGroupReference[] imported_foreign_keys;
+
+    /**
+     * Reads the constraints of the given table from the constraint system
+     * tables visible in the given transaction.
+     */
+    Constraints(SimpleTransaction transaction, TableName table_name) {
+      primary_key =
+             Transaction.queryTablePrimaryKeyGroup(transaction, table_name);
+      unique_groups =
+             Transaction.queryTableUniqueGroups(transaction, table_name);
+      foreign_keys =
+             Transaction.queryTableForeignKeyReferences(transaction,
+                                                        table_name);
+      imported_foreign_keys =
+             Transaction.queryTableImportedForeignKeyReferences(transaction,
+                                                                table_name);
+      check_expressions =
+             Transaction.queryTableCheckExpressions(transaction, table_name);
+
+      // Prepare the check expressions for the table.
+      if (check_expressions.length > 0) {
+        DataTableDef table_def =
+                transaction.getTableDataSource(table_name).getDataTableDef();
+        TransactionSystem system = transaction.getSystem();
+        for (int i = 0; i < check_expressions.length; ++i) {
+          check_expressions[i] = system.prepareTransactionCheckConstraint(
+                                           table_def, check_expressions[i]);
+        }
+      }
+    }
+
+  }
+
+}
@@ -731,6 +731,21 @@ public final class DataTable extends DefaultDataTable {
     return super.getSelectableSchemeFor(column, original_column, table);
   }
 
+  boolean hasColumnIndex(int column) {
+    checkSafeOperation();  // safe op
+
+    // Check the column definition so we don't load the index.
+    DataTableColumnDef col_def = getColumnDefAt(column);
+    return col_def.isIndexableType() &&
+           col_def.getIndexScheme().equals("InsertSearch");
+  }
+
+  MultiColumnIndex[] getMultiColumnIndexes() {
+    checkReadLock();  // read op
+
+    return data_source.getMultiColumnIndexes();
+  }
+
   RawTableInformation resolveToRawTable(RawTableInformation info) {
     checkReadLock();  // read op
 
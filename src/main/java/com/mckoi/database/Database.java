@@ -121,6 +121,12 @@ public final class Database implements DatabaseConstants {
   public static final TableName SYS_LABEL =
                           new TableName(SYSTEM_SCHEMA, "sUSRLabel");
 
+  /**
+   * The column statistics table.
+   */
+  public static final TableName SYS_COLUMN_STATISTICS =
+                      new TableName(SYSTEM_SCHEMA, "sUSRColumnStatistics");
+
   /**
    * The system internally generated 'sUSRTableColumns' table.
    */
@@ -1456,6 +1462,36 @@ public final class Database implements DatabaseConstants {
     connection.alterCreateTable(sUSRLabel, 91, 128);
     connection.alterCreateTable(sUSRDataTrigger, 91, 128);
 
+    createColumnStatisticsTable(connection);
+
+  }
+
+  /**
+   * Creates the system table that stores the column statistics made by the
+   * ANALYZE command.
+   */
+  private void createColumnStatisticsTable(DatabaseConnection connection)
+                                                   throws DatabaseException {
+    DataTableDef sUSRColumnStatistics = new DataTableDef();
+    sUSRColumnStatistics.setTableName(SYS_COLUMN_STATISTICS);
+    sUSRColumnStatistics.addColumn(
+                              DataTableColumnDef.createStringColumn("schema"));
+    sUSRColumnStatistics.addColumn(
+                                DataTableColumnDef.createStringColumn("name"));
+    sUSRColumnStatistics.addColumn(
+                              DataTableColumnDef.createStringColumn("column"));
+    sUSRColumnStatistics.addColumn(
+                          DataTableColumnDef.createNumericColumn("row_count"));
+    sUSRColumnStatistics.addColumn(
+                      DataTableColumnDef.createNumericColumn("null_fraction"));
+    sUSRColumnStatistics.addColumn(
+                     DataTableColumnDef.createNumericColumn("distinct_count"));
+    sUSRColumnStatistics.addColumn(
+                                DataTableColumnDef.createBinaryColumn("data"));
+    sUSRColumnStatistics.addColumn(
+                           DataTableColumnDef.createNumericColumn("analyzed"));
+
+    connection.alterCreateTable(sUSRColumnStatistics, 91, 128);
   }
 
   /**
@@ -1823,6 +1859,15 @@ public final class Database implements DatabaseConstants {
            "the README on how to convert the data files to the current " +
            "version.");
       }
+
+      // The column statistics table was added after version 1.4 was
+      // released, so create it if this database doesn't have it.  A read
+      // only database can't be changed so it is left without the table
+      // and ANALYZE can not be used.
+      if (!isReadOnly() &&
+          !connection.tableExists(SYS_COLUMN_STATISTICS)) {
+        createColumnStatisticsTable(connection);
+      }
       
       // Commit and close the connection.
       connection.commit();
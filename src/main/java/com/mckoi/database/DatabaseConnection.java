@@ -153,6 +153,11 @@ public class DatabaseConnection implements TriggerListener {
    * connection.
    */
   private ViewManager view_manager;
+
+  /**
+   * The StatisticsManager object for this connection.
+   */
+  private StatisticsManager statistics_manager;
   
   /**
    * The list of all TableBackedCache objects that have been attached to this
@@ -239,6 +244,8 @@ public class DatabaseConnection implements TriggerListener {
     connection_trigger_manager = new ConnectionTriggerManager(this);
     // Create the view manager
     view_manager = new ViewManager(this);
+    // Create the statistics manager
+    statistics_manager = new StatisticsManager(this);
   }
   
   /**
@@ -424,6 +431,14 @@ public class DatabaseConnection implements TriggerListener {
     return procedure_manager;
   }
   
+  /**
+   * Returns the StatisticsManager object that manages the table statistics
+   * made by the ANALYZE command for this connection.
+   */
+  public StatisticsManager getStatisticsManager() {
+    return statistics_manager;
+  }
+  
   /**
    * Sets the auto-commit mode.
    */
@@ -783,6 +798,23 @@ public class DatabaseConnection implements TriggerListener {
                                 data_sector_size, index_sector_size);
   }
 
+  /**
+   * Creates an index over the given columns of a table within the context
+   * of the current connection transaction.
+   */
+  public void createIndex(TableName table_name, String index_name,
+                          String[] columns, boolean unique) {
+    getTransaction().createIndex(table_name, index_name, columns, unique);
+  }
+
+  /**
+   * Drops an index from a table within the context of the current
+   * connection transaction.
+   */
+  public void dropIndex(TableName table_name, String index_name) {
+    getTransaction().dropIndex(table_name, index_name);
+  }
+
   /**
    * Given a DataTableDef, if the table exists then it is updated otherwise
    * if it doesn't exist then it is created.
@@ -45,6 +45,12 @@ public final class DatabaseSystem extends TransactionSystem {
    */
   private StatementCache statement_cache = null;
 
+  /**
+   * True if the literals of a query are replaced by parameters before the
+   * query is looked up in the statement cache.
+   */
+  private boolean parameterize_literals;
+
   /**
    * True if all queries on the database should be logged in the 'commands.log'
    * file in the log directory.
@@ -110,6 +116,13 @@ public final class DatabaseSystem extends TransactionSystem {
       Debug().write(Lvl.MESSAGE, DatabaseSystem.class,
                     "statement_cache = " + status);
 
+      // Should the literals of queries be replaced by parameters so queries
+      // that only differ by their literal values share a cached plan?
+      parameterize_literals =
+                          getConfigBoolean("parameterize_literals", false);
+      Debug().write(Lvl.MESSAGE, DatabaseSystem.class,
+                    "parameterize_literals = " + parameterize_literals);
+
       // The maximum number of worker threads.
       int max_worker_threads = getConfigInt("maximum_worker_threads", 4);
       if (max_worker_threads <= 0) {
@@ -173,6 +186,18 @@ public final class DatabaseSystem extends TransactionSystem {
     return statement_cache;
   }
 
+  /**
+   * Returns true if the literal values in a query should be replaced by
+   * parameters before the query is looked up in the statement cache, so that
+   * queries that only differ by their literal values share the same cached
+   * statement tree and plan.  This is set by the 'parameterize_literals'
+   * configuration property and has no effect if statement caching is
+   * disabled.
+   */
+  public boolean parameterizeLiterals() {
+    return parameterize_literals;
+  }
+
 
 
 
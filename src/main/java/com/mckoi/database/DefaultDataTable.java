@@ -260,6 +260,10 @@ public abstract class DefaultDataTable extends AbstractDataTable {
 
   }
 
+  boolean hasColumnIndex(int column) {
+    return getRootColumnScheme(column) instanceof InsertSearch;
+  }
+
   /**
    * Given a set, this trickles down through the Table hierarchy resolving
    * the given row_set to a form that the given ancestor understands.
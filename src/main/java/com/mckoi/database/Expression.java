@@ -84,6 +84,21 @@ public final class Expression implements java.io.Serializable, Cloneable {
    */
   private transient ArrayList eval_stack;
 
+  /**
+   * The compiled form of this expression, or null if the expression hasn't
+   * been compiled yet.  This is created the first time the expression is
+   * evaluated and is discarded whenever the element list is changed.  This
+   * is volatile because a cached expression is shared between queries, and
+   * another thread must see the fully built compiled form.
+   */
+  private transient volatile CompiledExpression compiled;
+
+  /**
+   * Set to true if this expression failed to compile and must be
+   * interpreted.
+   */
+  private transient volatile boolean compile_failed;
+
   /**
    * The expression as a plain human readable string.  This is in a form that
    * can be readily parsed to an Expression object.
@@ -206,6 +221,16 @@ public final class Expression implements java.io.Serializable, Cloneable {
       throw new Error("Unknown element type added to expression: " +
                       ob.getClass());
     }
+    elementsChanged();
+  }
+
+  /**
+   * Called whenever the element list changes.  This discards the compiled
+   * form of the expression.
+   */
+  private void elementsChanged() {
+    compiled = null;
+    compile_failed = false;
   }
 
   /**
@@ -220,6 +245,7 @@ public final class Expression implements java.io.Serializable, Cloneable {
    */
   public Expression concat(Expression expr) {
     elements.addAll(expr.elements);
+    elementsChanged();
     return this;
   }
 
@@ -231,6 +257,7 @@ public final class Expression implements java.io.Serializable, Cloneable {
    */
   public void addOperator(Operator op) {
     elements.add(op);
+    elementsChanged();
   }
 
   /**
@@ -264,6 +291,7 @@ public final class Expression implements java.io.Serializable, Cloneable {
    */
   public void setElementAt(int n, Object ob) {
     elements.set(n, ob);
+    elementsChanged();
   }
 
   /**
@@ -355,6 +383,7 @@ public final class Expression implements java.io.Serializable, Cloneable {
    *   reason you MUST call 'prepareFunctions' after this method.
    */
   public void prepare(ExpressionPreparer preparer) throws DatabaseException {
+    elementsChanged();
     for (int n = 0; n < elements.size(); ++n) {
       Object ob = elements.get(n);
 
@@ -672,6 +701,23 @@ public final class Expression implements java.io.Serializable, Cloneable {
    */
   public TObject evaluate(GroupResolver group, VariableResolver resolver,
                           QueryContext context) {
+    // Compile the expression the first time it is evaluated.  If two
+    // threads get here at the same time they both compile it, which is
+    // harmless.
+    CompiledExpression compiled_exp = compiled;
+    if (compiled_exp == null && !compile_failed) {
+      compiled_exp = CompiledExpression.compile(elements, context);
+      if (compiled_exp != null) {
+        compiled = compiled_exp;
+      }
+      else {
+        compile_failed = true;
+      }
+    }
+    if (compiled_exp != null) {
+      return compiled_exp.evaluate(group, resolver, context);
+    }
+
     // Optimization - trivial case of 'a' or 'ab*' postfix are tested for
     //   here.
     int element_count = elements.size();
@@ -720,7 +766,8 @@ public final class Expression implements java.io.Serializable, Cloneable {
    * Returns the element at the given position in the expression list.  If
    * the element is a variable then it is resolved on the VariableResolver.
    * If the element is a function then it is evaluated and the result is
-   * returned.
+   * returned.  If the element is a parameter then its value is returned from
+   * the QueryContext.
    */
   private Object elementToObject(int n, GroupResolver group,
                            VariableResolver resolver, QueryContext context) {
@@ -739,6 +786,10 @@ public final class Expression implements java.io.Serializable, Cloneable {
       Function fun = ((FunctionDef) ob).getFunction(context);
       return fun.evaluate(group, resolver, context);
     }
+    else if (ob instanceof ParameterSubstitution) {
+      int param_id = ((ParameterSubstitution) ob).getID();
+      return context.getParameterValue(param_id);
+    }
     else {
       if (ob == null) {
         throw new NullPointerException("Null element in expression");
@@ -802,6 +853,10 @@ public final class Expression implements java.io.Serializable, Cloneable {
       CorrelatedVariable variable = (CorrelatedVariable) ob;
       return variable.returnTType();
     }
+    else if (ob instanceof ParameterSubstitution) {
+      int param_id = ((ParameterSubstitution) ob).getID();
+      return context.getParameterValue(param_id).getTType();
+    }
     else {
       throw new Error("Unable to determine type for expression.");
     }
@@ -815,6 +870,8 @@ public final class Expression implements java.io.Serializable, Cloneable {
     // Shallow clone
     Expression v = (Expression) super.clone();
     v.eval_stack = null;
+    v.compiled = null;
+    v.compile_failed = false;
 //    v.text = new StringBuffer(new String(text));
     int size = elements.size();
     ArrayList cloned_elements = new ArrayList(size);
@@ -142,6 +142,14 @@ public class FilterTable extends Table {
     return scheme;
   }
 
+  boolean hasColumnIndex(int column) {
+    return parent.hasColumnIndex(column);
+  }
+
+  MultiColumnIndex[] getMultiColumnIndexes() {
+    return parent.getMultiColumnIndexes();
+  }
+
   /**
    * Given a set, this trickles down through the Table hierarchy resolving
    * the given row_set to a form that the given ancestor understands.
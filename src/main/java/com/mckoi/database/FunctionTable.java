@@ -26,7 +26,11 @@ import com.mckoi.util.Cache;
 import com.mckoi.util.IntegerVector;
 import com.mckoi.debug.*;
 import com.mckoi.util.BigNumber;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * A table that has a number of columns and as many rows as the refering
@@ -54,6 +58,14 @@ public class FunctionTable extends DefaultDataTable {
    */
   private static int UNIQUE_KEY_SEQ = 0;
 
+  /**
+   * The maximum number of groups that 'createGroupMatrix' will collect in a
+   * hash table.  If a grouping produces more groups than this, the hash
+   * table is abandoned and the groups are found by sorting the table
+   * instead.
+   */
+  private static final int HASH_GROUP_LIMIT = 65536;
+
   /**
    * The table name given to all function tables.
    */
@@ -136,6 +148,14 @@ public class FunctionTable extends DefaultDataTable {
    */
   private QueryContext context;
 
+  /**
+   * The aggregate functions in the expressions of this table that can be
+   * computed with an AggregateAccumulator, or null if there are none.  All
+   * these aggregates are computed with one pass over a group the first time
+   * one of them is evaluated for the group.
+   */
+  private AbstractFunction[] aggregate_list;
+
 
 
   /**
@@ -189,6 +209,16 @@ public class FunctionTable extends DefaultDataTable {
       fun_table_def.addVirtualColumn(column);
     }
 
+    // Find the aggregates that can be computed together
+    ArrayList aggregates = new ArrayList();
+    for (int i = 0; i < exp_list.length; ++i) {
+      findAggregates(exp_list[i], aggregates);
+    }
+    if (aggregates.size() > 0) {
+      aggregate_list = (AbstractFunction[]) aggregates.toArray(
+                                    new AbstractFunction[aggregates.size()]);
+    }
+
     // Make sure the table def isn't changed from this point on.
     fun_table_def.setImmutable();
 
@@ -205,6 +235,43 @@ public class FunctionTable extends DefaultDataTable {
          exp_list, col_names, context);
   }
 
+  /**
+   * Adds the aggregate functions in the given expression that are
+   * AbstractFunction objects to the list.  The functions are found in the
+   * parameters of the non-aggregate functions in the expression, but not in
+   * the parameters of the aggregates.
+   */
+  private void findAggregates(Expression exp, ArrayList list) {
+    FunctionLookup lookup = context.getFunctionLookup();
+    for (int n = 0; n < exp.size(); ++n) {
+      Object ob = exp.elementAt(n);
+      if (ob instanceof FunctionDef) {
+        FunctionDef fun_def = (FunctionDef) ob;
+        if (lookup.isAggregate(fun_def)) {
+          Function fun = fun_def.getFunction(context);
+          if (fun instanceof AbstractFunction && !list.contains(fun)) {
+            list.add(fun);
+          }
+        }
+        else {
+          Expression[] params = fun_def.getParameters();
+          for (int i = 0; i < params.length; ++i) {
+            findAggregates(params[i], list);
+          }
+        }
+      }
+      else if (ob instanceof TObject) {
+        TObject tob = (TObject) ob;
+        if (tob.getTType() instanceof TArrayType) {
+          Expression[] params = (Expression[]) tob.getObject();
+          for (int i = 0; i < params.length; ++i) {
+            findAggregates(params[i], list);
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Return a TObject that represents the value of the 'column', 'row' of
    * this table.  If 'cache' is not null then the resultant value is added to
@@ -267,6 +334,16 @@ public class FunctionTable extends DefaultDataTable {
     for (int i = col_list.length - 1; i >= 0; --i) {
       col_lookup[i] = root_table.findFieldName(col_list[i]);
     }
+
+    // If the group is on a single column that has an index, the sorted order
+    // is cheap to obtain so we group by walking the sorted rows.  Otherwise
+    // try to group the rows with a hash table.
+    if (col_lookup.length > 1 || !root_table.hasColumnIndex(col_lookup[0])) {
+      if (createHashGroupMatrix(root_table, col_lookup)) {
+        return;
+      }
+    }
+
     IntegerVector row_list = root_table.orderedRowList(col_lookup);
 
     // 'row_list' now contains rows in this table sorted by the columns to
@@ -319,6 +396,100 @@ public class FunctionTable extends DefaultDataTable {
 
   }
 
+  /**
+   * Creates the grouping matrix by collecting the rows of the reference
+   * table into groups in a hash table keyed by the values of the group
+   * columns.  This reads each cell of the group columns once and doesn't
+   * sort the table.  Once the groups are found, they are sorted by key so
+   * the groups are laid out in the same order as the sort based grouping.
+   * <p>
+   * Returns false if the group matrix was not created because a column can
+   * not be hashed (a string column with a locale collator) or there are more
+   * than HASH_GROUP_LIMIT groups.  In this case the caller must fall back to
+   * the sort based grouping.
+   */
+  private boolean createHashGroupMatrix(Table root_table, int[] col_lookup) {
+    // Strings that are compared by a collator may compare equal but have
+    // different hash codes.
+    for (int n = 0; n < col_lookup.length; ++n) {
+      TType ttype = root_table.getColumnDefAt(col_lookup[n]).getTType();
+      if (ttype instanceof TStringType &&
+          ((TStringType) ttype).getLocale() != null) {
+        return false;
+      }
+    }
+
+    int r_count = root_table.getRowCount();
+    // The group of each row (in the reference table row domain)
+    IntegerVector row_group = new IntegerVector(r_count);
+    // The rows of the table in the order they were enumerated
+    IntegerVector row_list = new IntegerVector(r_count);
+
+    HashMap group_map = new HashMap();
+    GroupKey search_key = new GroupKey(col_lookup.length);
+    RowEnumeration e = root_table.rowEnumeration();
+    while (e.hasMoreRows()) {
+      int row_index = e.nextRowIndex();
+      for (int n = 0; n < col_lookup.length; ++n) {
+        search_key.key[n] = root_table.getCellContents(col_lookup[n],
+                                                        row_index);
+      }
+      search_key.calcHashCode();
+      GroupKey group = (GroupKey) group_map.get(search_key);
+      if (group == null) {
+        if (group_map.size() >= HASH_GROUP_LIMIT) {
+          return false;
+        }
+        group = search_key;
+        group.group_id = group_map.size();
+        group_map.put(group, group);
+        search_key = new GroupKey(col_lookup.length);
+      }
+      ++group.row_count;
+      row_list.addInt(row_index);
+      row_group.placeIntAt(group.group_id, row_index);
+    }
+
+    // Sort the groups by their key
+    GroupKey[] groups = (GroupKey[]) group_map.values().toArray(
+                                             new GroupKey[group_map.size()]);
+    Arrays.sort(groups, GROUP_KEY_COMPARATOR);
+
+    // The position of the first entry of each group in 'group_links'.  This
+    // is the group number.
+    int[] group_start = new int[groups.length];
+    int pos = 0;
+    for (int i = 0; i < groups.length; ++i) {
+      group_start[groups[i].group_id] = pos;
+      pos += groups[i].row_count;
+    }
+    int[] group_fill = new int[groups.length];
+
+    group_lookup = new IntegerVector(r_count);
+    group_links = new IntegerVector(r_count);
+    int sz = row_list.size();
+    for (int i = 0; i < sz; ++i) {
+      int row_index = row_list.intAt(i);
+      int group_id = row_group.intAt(row_index);
+      int group_number = group_start[group_id];
+      group_links.placeIntAt(row_index,
+                             group_number + group_fill[group_id]);
+      ++group_fill[group_id];
+      group_lookup.placeIntAt(group_number, row_index);   // (val, pos)
+    }
+    // If end of group, set bit 30 on the last row of the group
+    for (int i = 0; i < groups.length; ++i) {
+      GroupKey group = groups[i];
+      int last = group_start[group.group_id] + group.row_count - 1;
+      group_links.setIntAt(group_links.intAt(last) | 0x040000000, last);
+    }
+
+    // Set up a group resolver for this method.
+    group_resolver = new TableGroupResolver();
+
+    return true;
+  }
+
 
 
   // ------ Methods intended for use by grouping functions ------
@@ -385,19 +556,7 @@ public class FunctionTable extends DefaultDataTable {
 
     if (whole_table_as_group) {
       // Whole table is group, so take top entry of table.
-
-      row_list = new IntegerVector(1);
-      RowEnumeration row_enum = table.rowEnumeration();
-      if (row_enum.hasMoreRows()) {
-        row_list.addInt(row_enum.nextRowIndex());
-      }
-      else {
-        // MAJOR HACK: If the referencing table has no elements then we choose
-        //   an arbitary index from the reference table to merge so we have
-        //   at least one element in the table.
-        //   This is to fix the 'SELECT COUNT(*) FROM empty_table' bug.
-        row_list.addInt(Integer.MAX_VALUE - 1);
-      }
+      row_list = firstReferenceRow();
     }
     else if (table.getRowCount() == 0) {
       row_list = new IntegerVector(0);
@@ -429,12 +588,7 @@ public class FunctionTable extends DefaultDataTable {
 
     // Create a virtual table that's the new group table merged with the
     // functions in this...
-
-    Table[] tabs = new Table[] { table, this };
-    IntegerVector[] row_sets = new IntegerVector[] { row_list, row_list };
-
-    VirtualTable out_table = new VirtualTable(tabs);
-    out_table.set(tabs, row_sets);
+    VirtualTable out_table = mergeRows(row_list);
 
     // Output this as debugging information
     if (DEBUG_QUERY) {
@@ -449,6 +603,49 @@ public class FunctionTable extends DefaultDataTable {
     return table;
   }
 
+  /**
+   * Returns a Table that is this function table merged with the first row of
+   * the reference table.  This is the same as 'mergeWithReference' when the
+   * whole table is the group, but the group isn't set up.  This must only be
+   * used when the expressions of this table don't need the group, for
+   * example when they are the results of aggregates found another way.
+   */
+  public Table mergeFirstRowWithReference() {
+    return mergeRows(firstReferenceRow());
+  }
+
+  /**
+   * Returns a list containing the first row of the reference table.
+   */
+  private IntegerVector firstReferenceRow() {
+    IntegerVector row_list = new IntegerVector(1);
+    RowEnumeration row_enum = getReferenceTable().rowEnumeration();
+    if (row_enum.hasMoreRows()) {
+      row_list.addInt(row_enum.nextRowIndex());
+    }
+    else {
+      // MAJOR HACK: If the referencing table has no elements then we choose
+      //   an arbitary index from the reference table to merge so we have
+      //   at least one element in the table.
+      //   This is to fix the 'SELECT COUNT(*) FROM empty_table' bug.
+      row_list.addInt(Integer.MAX_VALUE - 1);
+    }
+    return row_list;
+  }
+
+  /**
+   * Returns a virtual table of the given rows of the reference table merged
+   * with the same rows of this table.
+   */
+  private VirtualTable mergeRows(IntegerVector row_list) {
+    Table[] tabs = new Table[] { getReferenceTable(), this };
+    IntegerVector[] row_sets = new IntegerVector[] { row_list, row_list };
+
+    VirtualTable out_table = new VirtualTable(tabs);
+    out_table.set(tabs, row_sets);
+    return out_table;
+  }
+
   // ------ Package protected methods -----
 
   /**
@@ -635,6 +832,19 @@ public class FunctionTable extends DefaultDataTable {
 
   // ---------- Convenience statics ----------
 
+  /**
+   * If the given group is a group of a FunctionTable that computes the given
+   * aggregate function with its other aggregates, returns the result of the
+   * function for the group.  Otherwise returns null and the function must
+   * compute the result itself.
+   */
+  static TObject groupAggregateResult(GroupResolver group, Function fun) {
+    if (group instanceof TableGroupResolver) {
+      return ((TableGroupResolver) group).aggregateResult(fun);
+    }
+    return null;
+  }
+
   /**
    * Returns a FunctionTable that has a single Expression evaluated in it.
    * The column name is 'result'.
@@ -684,6 +894,83 @@ public class FunctionTable extends DefaultDataTable {
 
   // ---------- Inner classes ----------
 
+  /**
+   * The key of a group in the hash table used by 'createHashGroupMatrix'.
+   * Two keys are equal if each value of the key compares equal.
+   */
+  private static final class GroupKey {
+
+    /**
+     * The values of the group columns.
+     */
+    final TObject[] key;
+
+    /**
+     * The hash code of the key.
+     */
+    private int hash_code;
+
+    /**
+     * The order in which the group was found.
+     */
+    int group_id;
+
+    /**
+     * The number of rows in the group.
+     */
+    int row_count;
+
+    GroupKey(int size) {
+      key = new TObject[size];
+    }
+
+    /**
+     * Calculates the hash code of the key.  This must be called after the
+     * key values are set.  Values that compare equal have the same
+     * 'TObject.valueHash' so they are put in the same group.
+     */
+    void calcHashCode() {
+      int h = 0;
+      for (int i = 0; i < key.length; ++i) {
+        long v = key[i].valueHash();
+        h = (h * 31) + (int) (v ^ (v >>> 32));
+      }
+      hash_code = h;
+    }
+
+    public int hashCode() {
+      return hash_code;
+    }
+
+    public boolean equals(Object ob) {
+      TObject[] dest_key = ((GroupKey) ob).key;
+      for (int i = 0; i < key.length; ++i) {
+        if (key[i].compareTo(dest_key[i]) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
+  /**
+   * A Comparator that sorts GroupKey objects by their key values.
+   */
+  private static final Comparator GROUP_KEY_COMPARATOR = new Comparator() {
+    public int compare(Object ob1, Object ob2) {
+      TObject[] key1 = ((GroupKey) ob1).key;
+      TObject[] key2 = ((GroupKey) ob2).key;
+      for (int i = 0; i < key1.length; ++i) {
+        int c = key1[i].compareTo(key2[i]);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return 0;
+    }
+  };
+
   /**
    * Group resolver.  This is used to resolve group information in the
    * refering table.
@@ -711,6 +998,12 @@ public class FunctionTable extends DefaultDataTable {
      */
     private TableGVResolver tgv_resolver;
 
+    /**
+     * The result of each function in 'aggregate_list' for the current group,
+     * or null if they haven't been computed for the group yet.
+     */
+    private TObject[] aggregate_results;
+
 
     /**
      * Creates a resolver that resolves variables within a set of the group.
@@ -753,6 +1046,7 @@ public class FunctionTable extends DefaultDataTable {
         if (group_number != -2) {
           group_number = -2;
           group = null;
+          aggregate_results = null;
         }
       }
       else {
@@ -760,6 +1054,100 @@ public class FunctionTable extends DefaultDataTable {
         if (g != group_number) {
           group_number = g;
           group = null;
+          aggregate_results = null;
+        }
+      }
+    }
+
+    /**
+     * Returns the result of the given aggregate function for the current
+     * group, or null if the function isn't computed with the other
+     * aggregates of the table.  The first time this is called for a group,
+     * all the aggregates are computed with one pass over the group.
+     */
+    TObject aggregateResult(Function fun) {
+      if (aggregate_list == null) {
+        return null;
+      }
+      for (int i = 0; i < aggregate_list.length; ++i) {
+        if (aggregate_list[i] == fun) {
+          if (aggregate_results == null) {
+            computeAggregates();
+          }
+          return aggregate_results[i];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Computes the result of every function in 'aggregate_list' for the
+     * current group with one pass over the rows of the group.  A function
+     * that doesn't give an accumulator has a null result.
+     */
+    private void computeAggregates() {
+      final int agg_count = aggregate_list.length;
+      aggregate_results = new TObject[agg_count];
+      final int size = size();
+      if (size == 0) {
+        return;
+      }
+
+      // The accumulator of each aggregate, and either the column of the
+      // reference table or the expression that is the parameter.
+      AggregateAccumulator[] accumulators =
+                                        new AggregateAccumulator[agg_count];
+      int[] columns = new int[agg_count];
+      Expression[] params = new Expression[agg_count];
+      Table ref_table = getReferenceTable();
+      int active = 0;
+      for (int i = 0; i < agg_count; ++i) {
+        AbstractFunction fun = aggregate_list[i];
+        columns[i] = -1;
+        if (fun.parameterCount() == 0) {
+          continue;
+        }
+        accumulators[i] = fun.createAccumulator(this, context);
+        if (accumulators[i] != null) {
+          ++active;
+          Expression param = fun.getParameter(0);
+          Variable v = param.getVariable();
+          if (v != null) {
+            columns[i] = ref_table.fastFindFieldName(v);
+            if (columns[i] == -1) {
+              throw new Error("Can't find column: " + v);
+            }
+          }
+          else {
+            params[i] = param;
+          }
+        }
+      }
+      if (active == 0) {
+        return;
+      }
+
+      ensureGroup();
+      for (int n = 0; n < size; ++n) {
+        int row_index = (group != null) ? group.intAt(n) : n;
+        for (int i = 0; i < agg_count; ++i) {
+          AggregateAccumulator accumulator = accumulators[i];
+          if (accumulator != null) {
+            TObject val;
+            if (columns[i] != -1) {
+              val = ref_table.getCellContents(columns[i], row_index);
+            }
+            else {
+              val = params[i].evaluate(null, getVariableResolver(n), context);
+            }
+            accumulator.accumulate(val);
+          }
+        }
+      }
+
+      for (int i = 0; i < agg_count; ++i) {
+        if (accumulators[i] != null) {
+          aggregate_results[i] = accumulators[i].result();
         }
       }
     }
@@ -98,6 +98,10 @@ abstract class GTDataSource implements MutableTableDataSource {
   public void flushIndexChanges() {
     throw new RuntimeException("Functionality not available.");
   }
+
+  public MultiColumnIndex[] getMultiColumnIndexes() {
+    return new MultiColumnIndex[0];
+  }
   
   public void constraintIntegrityCheck() {
     throw new RuntimeException("Functionality not available.");
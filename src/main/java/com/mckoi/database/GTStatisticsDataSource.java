@@ -21,6 +21,7 @@
 package com.mckoi.database;
 
 import com.mckoi.util.Stats;
+import com.mckoi.store.LoggingBufferManager;
 
 /**
  * An implementation of MutableTableDataSource that presents database
@@ -63,6 +64,17 @@ final class GTStatisticsDataSource extends GTDataSource {
       stats.set((int) (Runtime.getRuntime().totalMemory() / 1024),
                                                     "Runtime.memory.totalKB");
 
+      // The buffer manager page cache counters
+      LoggingBufferManager buffer_manager = getSystem().getBufferManager();
+      if (buffer_manager != null) {
+        stats.set(buffer_manager.getCacheHitCount(),
+                                              "BufferManager.cache_hits");
+        stats.set(buffer_manager.getCacheMissCount(),
+                                              "BufferManager.cache_misses");
+        stats.set(buffer_manager.getCacheEvictionCount(),
+                                              "BufferManager.cache_evictions");
+      }
+
       String[] key_set = stats.keyList();
       int glob_length = key_set.length * 2;
       statistics_info = new String[glob_length];
@@ -384,4 +384,24 @@ public final class InsertSearch extends CollatedBaseSearch {
     return ivec;
   }
 
+  public IntegerVector selectTop(int count, boolean ascending) {
+    int list_size = set_list.size();
+    if (count >= list_size) {
+      return super.selectTop(count, ascending);
+    }
+    IntegerVector ivec = new IntegerVector(count);
+    if (count > 0) {
+      // Only read the rows at the start (or the end if descending) of the
+      // set.
+      if (ascending) {
+        addRangeToSet(0, count - 1, ivec);
+      }
+      else {
+        addRangeToSet(list_size - count, list_size - 1, ivec);
+        ivec.reverse();
+      }
+    }
+    return ivec;
+  }
+
 }
@@ -42,6 +42,7 @@ import com.mckoi.database.global.StringAccessor;
 import com.mckoi.database.global.ObjectTranslator;
 import com.mckoi.database.jdbc.SQLQuery;
 import com.mckoi.util.BigNumber;
+import com.mckoi.util.HyperLogLog;
 
 /**
  * A FunctionFactory for all internal SQL functions (including aggregate,
@@ -83,6 +84,14 @@ final class InternalFunctionFactory extends FunctionFactory {
     addFunction("count", CountFunction.class, FunctionInfo.AGGREGATE);
     addFunction("distinct_count",
                 DistinctCountFunction.class, FunctionInfo.AGGREGATE);
+    addFunction("approx_count_distinct",
+                ApproxCountDistinctFunction.class, FunctionInfo.AGGREGATE);
+    addFunction("approx_distinct_sketch",
+                ApproxDistinctSketchFunction.class, FunctionInfo.AGGREGATE);
+    addFunction("approx_distinct_merge",
+                ApproxDistinctMergeFunction.class, FunctionInfo.AGGREGATE);
+    addFunction("approx_distinct_estimate",
+                ApproxDistinctEstimateFunction.class);
     addFunction("avg", AvgFunction.class, FunctionInfo.AGGREGATE);
     addFunction("sum", SumFunction.class, FunctionInfo.AGGREGATE);
     addFunction("min", MinFunction.class, FunctionInfo.AGGREGATE);
@@ -154,6 +163,11 @@ final class InternalFunctionFactory extends FunctionFactory {
       if (size == 0 || isGlob()) {
         result = TObject.intVal(size);
       }
+      else if ((result = FunctionTable.groupAggregateResult(group, this))
+                                                                   != null) {
+        // The group was already counted with the other aggregates of the
+        // function table.
+      }
       else {
         // Otherwise we need to count the number of non-null entries in the
         // columns list(s).
@@ -175,6 +189,25 @@ final class InternalFunctionFactory extends FunctionFactory {
       return result;
     }
 
+    public AggregateAccumulator createAccumulator(GroupResolver group,
+                                                  QueryContext context) {
+      // count(*) doesn't need the values of the group
+      if (isGlob()) {
+        return null;
+      }
+      return new AggregateAccumulator() {
+        private int count = 0;
+        public void accumulate(TObject value) {
+          if (!value.isNull()) {
+            ++count;
+          }
+        }
+        public TObject result() {
+          return TObject.intVal(count);
+        }
+      };
+    }
+
   }
 
   // --
@@ -307,6 +340,229 @@ final class InternalFunctionFactory extends FunctionFactory {
 
   // --
 
+  /**
+   * The base of the aggregates that find the number of distinct values in a
+   * group with a HyperLogLog sketch.  The sketch has a fixed size, so the
+   * group is counted in constant memory.  The optional second argument is
+   * the precision of the sketch, which must be a constant between 4 and 16
+   * (default 14, which has an error of about 0.8%).
+   */
+  private static abstract class SketchAggregateFunction
+                                                   extends AbstractFunction {
+
+    public SketchAggregateFunction(String name, Expression[] params,
+                                   int max_params) {
+      super(name, params);
+      setAggregate(true);
+
+      if (parameterCount() < 1 || parameterCount() > max_params) {
+        throw new RuntimeException("'" + name +
+                            "' function must have " + (max_params == 1 ?
+                            "one argument." : "one or two arguments."));
+      }
+    }
+
+    /**
+     * Returns a new sketch for the group, or null if the sketch is made
+     * from the values.
+     */
+    HyperLogLog newSketch(QueryContext context) {
+      int precision = HyperLogLog.DEFAULT_PRECISION;
+      if (parameterCount() > 1) {
+        Expression exp = getParameter(1);
+        TObject ob = exp.isConstant() ? exp.evaluate(null, null, context)
+                                      : null;
+        BigNumber num = (ob == null) ? null : ob.toBigNumber();
+        if (num == null) {
+          throw new RuntimeException("The precision of '" + getName() +
+                                     "' must be a constant number.");
+        }
+        precision = num.intValue();
+        if (precision < HyperLogLog.MIN_PRECISION ||
+            precision > HyperLogLog.MAX_PRECISION) {
+          throw new RuntimeException("The precision of '" + getName() +
+                  "' must be between " + HyperLogLog.MIN_PRECISION +
+                  " and " + HyperLogLog.MAX_PRECISION + ".");
+        }
+      }
+      return new HyperLogLog(precision);
+    }
+
+    /**
+     * Adds the given value to the sketch and returns the sketch.
+     */
+    HyperLogLog add(HyperLogLog sketch, TObject value) {
+      if (!value.isNull()) {
+        sketch.add(value.valueHash());
+      }
+      return sketch;
+    }
+
+    /**
+     * Returns the result of the function for the sketch of a group.
+     */
+    abstract TObject result(HyperLogLog sketch);
+
+    public TObject evaluate(GroupResolver group, VariableResolver resolver,
+                            QueryContext context) {
+      if (group == null) {
+        throw new RuntimeException("'" + getName() +
+                             "' can only be used as an aggregate function.");
+      }
+
+      int size = group.size();
+      if (size == 0) {
+        return result(newSketch(context));
+      }
+
+      // If the group was already evaluated with the other aggregates of the
+      // function table, use that result.
+      TObject result = FunctionTable.groupAggregateResult(group, this);
+      if (result != null) {
+        return result;
+      }
+
+      AggregateAccumulator accumulator = createAccumulator(group, context);
+      Expression exp = getParameter(0);
+      for (int i = 0; i < size; ++i) {
+        accumulator.accumulate(
+                   exp.evaluate(null, group.getVariableResolver(i), context));
+      }
+      return accumulator.result();
+    }
+
+    public AggregateAccumulator createAccumulator(GroupResolver group,
+                                                  QueryContext context) {
+      final HyperLogLog new_sketch = newSketch(context);
+      return new AggregateAccumulator() {
+        private HyperLogLog sketch = new_sketch;
+        public void accumulate(TObject value) {
+          sketch = add(sketch, value);
+        }
+        public TObject result() {
+          return SketchAggregateFunction.this.result(sketch);
+        }
+      };
+    }
+
+  }
+
+  // APPROX_COUNT_DISTINCT(user_id [, precision])
+  private static class ApproxCountDistinctFunction
+                                            extends SketchAggregateFunction {
+
+    public ApproxCountDistinctFunction(Expression[] params) {
+      super("approx_count_distinct", params, 2);
+    }
+
+    TObject result(HyperLogLog sketch) {
+      return TObject.longVal(sketch.estimate());
+    }
+
+  }
+
+  // APPROX_DISTINCT_SKETCH(user_id [, precision]) returns the sketch of the
+  // group as a binary value, which can be stored and later combined with
+  // APPROX_DISTINCT_MERGE.
+  private static class ApproxDistinctSketchFunction
+                                            extends SketchAggregateFunction {
+
+    public ApproxDistinctSketchFunction(Expression[] params) {
+      super("approx_distinct_sketch", params, 2);
+    }
+
+    TObject result(HyperLogLog sketch) {
+      return new TObject(TType.BINARY_TYPE,
+                         new ByteLongObject(sketch.toByteArray()));
+    }
+
+    public TType returnTType(VariableResolver resolver, QueryContext context) {
+      return TType.BINARY_TYPE;
+    }
+
+  }
+
+  // APPROX_DISTINCT_MERGE(sketch) merges the sketches of a group made by
+  // APPROX_DISTINCT_SKETCH.  The result is NULL if there are no sketches.
+  private static class ApproxDistinctMergeFunction
+                                            extends SketchAggregateFunction {
+
+    public ApproxDistinctMergeFunction(Expression[] params) {
+      super("approx_distinct_merge", params, 1);
+    }
+
+    HyperLogLog newSketch(QueryContext context) {
+      // The precision is the precision of the sketches
+      return null;
+    }
+
+    HyperLogLog add(HyperLogLog sketch, TObject value) {
+      if (!value.isNull()) {
+        HyperLogLog value_sketch = toSketch(value);
+        if (sketch == null) {
+          sketch = value_sketch;
+        }
+        else {
+          sketch.merge(value_sketch);
+        }
+      }
+      return sketch;
+    }
+
+    TObject result(HyperLogLog sketch) {
+      return new TObject(TType.BINARY_TYPE, (sketch == null) ? null :
+                         new ByteLongObject(sketch.toByteArray()));
+    }
+
+    public TType returnTType(VariableResolver resolver, QueryContext context) {
+      return TType.BINARY_TYPE;
+    }
+
+  }
+
+  // APPROX_DISTINCT_ESTIMATE(sketch) returns the number of distinct values
+  // estimated by a sketch made by APPROX_DISTINCT_SKETCH.
+  private static class ApproxDistinctEstimateFunction
+                                                   extends AbstractFunction {
+
+    public ApproxDistinctEstimateFunction(Expression[] params) {
+      super("approx_distinct_estimate", params);
+
+      if (parameterCount() != 1) {
+        throw new RuntimeException(
+              "'approx_distinct_estimate' function must have one argument.");
+      }
+    }
+
+    public TObject evaluate(GroupResolver group, VariableResolver resolver,
+                            QueryContext context) {
+      TObject ob = getParameter(0).evaluate(group, resolver, context);
+      if (ob.isNull()) {
+        return new TObject(TType.NUMERIC_TYPE, null);
+      }
+      return TObject.longVal(toSketch(ob).estimate());
+    }
+
+  }
+
+  /**
+   * Returns the HyperLogLog sketch in the given binary value.
+   */
+  private static HyperLogLog toSketch(TObject value) {
+    Object ob = value.getObject();
+    if (!(ob instanceof ByteLongObject)) {
+      throw new RuntimeException("Not an approximate distinct sketch.");
+    }
+    try {
+      return HyperLogLog.fromByteArray(((ByteLongObject) ob).getByteArray());
+    }
+    catch (IllegalArgumentException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+  // --
+
   private static class AvgFunction extends AbstractAggregateFunction {
 
     public AvgFunction(Expression[] params) {
@@ -341,6 +597,11 @@ final class InternalFunctionFactory extends FunctionFactory {
       return result.operatorDivide(TObject.intVal(group.size()));
     }
 
+    protected AggregateAccumulator createValueAccumulator(
+                               GroupResolver group, QueryContext context) {
+      return new SumAccumulator(this, group, context);
+    }
+
   }
 
   // --
@@ -370,6 +631,11 @@ final class InternalFunctionFactory extends FunctionFactory {
       return ob2;
     }
 
+    protected AggregateAccumulator createValueAccumulator(
+                               GroupResolver group, QueryContext context) {
+      return new SumAccumulator(this, group, context);
+    }
+
   }
 
   // --
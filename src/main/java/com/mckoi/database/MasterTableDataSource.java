@@ -556,7 +556,64 @@ abstract class MasterTableDataSource {
     else {
       throw new RuntimeException("Unrecognised type.");
     }
-                 
+
+  }
+
+  /**
+   * Returns true if the given index is the anonymous index of a single
+   * column that is created for each column that is indexed by the
+   * DataTableDef.  All other indexes were explicitly created by a
+   * 'CREATE INDEX' command and are maintained as a MultiColumnIndex.
+   */
+  static boolean isColumnIndexDef(DataIndexDef index_def) {
+    return index_def.getName().startsWith("ANON-COLUMN:");
+  }
+
+  /**
+   * Creates a MultiColumnIndex object for the given index in the index set
+   * def in this table.  The index is read from the index set.
+   */
+  synchronized MultiColumnIndex createMultiColumnIndex(
+               IndexSet index_set, TableDataSource table, int index_i) {
+
+    // Get the IndexDef object
+    DataIndexDef index_def = getDataIndexSetDef().indexAt(index_i);
+
+    if (index_def.getType().equals("BLIST")) {
+      String[] cols = index_def.getColumnNames();
+      DataTableDef table_def = getDataTableDef();
+      int[] col_map = new int[cols.length];
+      for (int i = 0; i < cols.length; ++i) {
+        col_map[i] = table_def.findColumnName(cols[i]);
+      }
+      IntegerListInterface index_list =
+                                  index_set.getIndex(index_def.getPointer());
+      return new MultiColumnIndex(table, col_map,
+                                  index_def.isUniqueIndex(), index_list);
+    }
+    else {
+      throw new RuntimeException("Unrecognised type.");
+    }
+
+  }
+
+  /**
+   * Returns the position in the DataIndexSetDef of every index that is
+   * maintained as a MultiColumnIndex.
+   */
+  synchronized int[] multiColumnIndexList() {
+    DataIndexSetDef index_set_def = getDataIndexSetDef();
+    IntegerVector list = new IntegerVector();
+    for (int i = 0; i < index_set_def.indexCount(); ++i) {
+      if (!isColumnIndexDef(index_set_def.indexAt(i))) {
+        list.addInt(i);
+      }
+    }
+    int[] arr = new int[list.size()];
+    for (int i = 0; i < arr.length; ++i) {
+      arr[i] = list.intAt(i);
+    }
+    return arr;
   }
 
   /**
@@ -666,19 +723,34 @@ abstract class MasterTableDataSource {
     // A minimal TableDataSource for constructing the indexes
     TableDataSource min_table_source = minimalTableDataSource(master_index);
 
-    // Set up schemes for the index,
-    SelectableScheme scheme = createSelectableSchemeForIndex(index_set,
+    int row_count = rawRowCount();
+
+    if (isColumnIndexDef(index_set_def.indexAt(index_number))) {
+      // Set up schemes for the index,
+      SelectableScheme scheme = createSelectableSchemeForIndex(index_set,
                                               min_table_source, index_number);
 
-    // Rebuild the entire index
-    int row_count = rawRowCount();
-    for (int row_index = 0; row_index < row_count; ++row_index) {
+      // Rebuild the entire index
+      for (int row_index = 0; row_index < row_count; ++row_index) {
+
+        // If this row isn't deleted, set the index information for it,
+        if (!recordDeleted(row_index)) {
+          scheme.insert(row_index);
+        }
 
-      // If this row isn't deleted, set the index information for it,
-      if (!recordDeleted(row_index)) {
-        scheme.insert(row_index);
       }
+    }
+    else {
+      // An index created by 'CREATE INDEX'
+      MultiColumnIndex index = createMultiColumnIndex(index_set,
+                                              min_table_source, index_number);
 
+      // Rebuild the entire index
+      for (int row_index = 0; row_index < row_count; ++row_index) {
+        if (!recordDeleted(row_index)) {
+          index.insert(row_index);
+        }
+      }
     }
 
     // Commit the index
@@ -876,6 +948,45 @@ abstract class MasterTableDataSource {
       }
     }
   }
+
+  /**
+   * Adds the indexes created by 'CREATE INDEX' in the given DataIndexSetDef
+   * to the index definitions of this table.  Each index is given a new
+   * pointer in the index set after the column indexes.  An index that
+   * references a column that isn't in this table is not added.  This would
+   * typically only ever be called from the 'create' method.
+   */
+  protected synchronized void addDataIndexDefs(DataIndexSetDef src_def) {
+    int next_pointer = table_def.columnCount() + 1;
+    for (int i = 0; i < src_def.indexCount(); ++i) {
+      DataIndexDef def = src_def.indexAt(i);
+      if (!isColumnIndexDef(def)) {
+        String[] cols = def.getColumnNames();
+        boolean valid = true;
+        for (int n = 0; n < cols.length && valid; ++n) {
+          valid = table_def.findColumnName(cols[n]) != -1;
+        }
+        if (valid) {
+          index_def.addDataIndexDef(new DataIndexDef(def.getName(), cols,
+                        next_pointer, def.getType(), def.isUniqueIndex()));
+          ++next_pointer;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of index lists this table needs in its index set.
+   * This is one list for the master index plus one for each pointer in the
+   * DataIndexSetDef.
+   */
+  protected synchronized int indexListCount() {
+    int count = table_def.columnCount() + 1;
+    for (int i = 0; i < index_def.indexCount(); ++i) {
+      count = Math.max(count, index_def.indexAt(i).getPointer() + 1);
+    }
+    return count;
+  }
   
   /**
    * Sets up the DataTableDef.  This would typically only ever be called from
@@ -1387,6 +1498,18 @@ abstract class MasterTableDataSource {
      */
     private SelectableScheme[] column_schemes;
 
+    /**
+     * The indexes created by 'CREATE INDEX' within this transaction, or null
+     * if they haven't been created yet.
+     */
+    private MultiColumnIndex[] multi_indexes;
+
+    /**
+     * The 'recovery point' to which each of the 'multi_indexes' have
+     * rebuilt to.
+     */
+    private int[] multi_index_rebuilds;
+
     /**
      * A journal of changes to this source since it was created.
      */
@@ -1646,6 +1769,31 @@ abstract class MasterTableDataSource {
       scheme_rebuilds[column] = rebuild_index;
     }
 
+    /**
+     * Ensures the given MultiColumnIndex is as current as the latest journal
+     * change.
+     */
+    private void ensureMultiColumnIndexCurrent(int i) {
+      MultiColumnIndex index = multi_indexes[i];
+      int rebuild_index = multi_index_rebuilds[i];
+      int journal_count = table_journal.entries();
+      while (rebuild_index < journal_count) {
+        byte command = table_journal.getCommand(rebuild_index);
+        int row_index = table_journal.getRowIndex(rebuild_index);
+        if (MasterTableJournal.isAddCommand(command)) {
+          index.insert(row_index);
+        }
+        else if (MasterTableJournal.isRemoveCommand(command)) {
+          index.remove(row_index);
+        }
+        else {
+          throw new Error("Unrecognised journal command.");
+        }
+        ++rebuild_index;
+      }
+      multi_index_rebuilds[i] = rebuild_index;
+    }
+
     // ---------- Implemented from MutableTableDataSource ----------
 
     public TransactionSystem getSystem() {
@@ -1697,6 +1845,26 @@ abstract class MasterTableDataSource {
       return scheme;
     }
 
+    public MultiColumnIndex[] getMultiColumnIndexes() {
+      // Cache the indexes in this object.
+      if (multi_indexes == null) {
+        int[] index_list = multiColumnIndexList();
+        multi_indexes = new MultiColumnIndex[index_list.length];
+        multi_index_rebuilds = new int[index_list.length];
+        for (int i = 0; i < index_list.length; ++i) {
+          multi_indexes[i] =
+                   createMultiColumnIndex(index_set, this, index_list[i]);
+        }
+      }
+
+      // Update the indexes to the most current version.
+      for (int i = 0; i < multi_indexes.length; ++i) {
+        ensureMultiColumnIndexCurrent(i);
+      }
+
+      return multi_indexes;
+    }
+
     // ---------- Table Modification ----------
 
     public int addRow(RowData row_data) {
@@ -1795,6 +1963,8 @@ abstract class MasterTableDataSource {
       for (int i = 0; i < column_schemes.length; ++i) {
         getColumnScheme(i);
       }
+      // And the indexes created by 'CREATE INDEX'
+      getMultiColumnIndexes();
     }
     
     public void constraintIntegrityCheck() {
@@ -1847,8 +2017,8 @@ abstract class MasterTableDataSource {
         if (rows_deleted.size() > 0) {
           // Get all references on this table
           Transaction.ColumnGroupReference[] foreign_constraints =
-               Transaction.queryTableImportedForeignKeyReferences(transaction,
-                                                                  table_name);
+               Transaction.queryTableConstraints(transaction, table_name)
+                                                      .imported_foreign_keys;
 
           // For each foreign constraint
           for (int n = 0; n < foreign_constraints.length; ++n) {
@@ -1962,6 +2132,8 @@ abstract class MasterTableDataSource {
           column_schemes[i] = null;
         }
       }
+      multi_indexes = null;
+      multi_index_rebuilds = null;
       row_list = null;
       table_journal = null;
       scheme_rebuilds = null;
@@ -22,6 +22,7 @@ package com.mckoi.database;
 
 import com.mckoi.util.IntegerVector;
 import java.io.*;
+import java.util.Arrays;
 
 /**
  * A journal of changes that occured to a table in a data conglomerate during
@@ -72,6 +73,15 @@ final class MasterTableJournal {
    */
   private IntegerVector command_parameters;
 
+  /**
+   * The sorted list of rows removed in this journal, or null if it hasn't
+   * been made yet.  This is made the first time this journal is tested for a
+   * commit clash and is cleared when an entry is added or removed.  It is
+   * volatile because committed journals are tested by more than one
+   * thread.
+   */
+  private volatile int[] sorted_removed_rows;
+
   /**
    * Constructs the master table journal.
    */
@@ -138,6 +148,7 @@ final class MasterTableJournal {
   private void removeTopEntries(int n) {
     journal_entries = journal_entries - n;
     command_parameters.crop(0, command_parameters.size() - n);
+    sorted_removed_rows = null;
   }
   
   /**
@@ -146,6 +157,7 @@ final class MasterTableJournal {
   void addEntry(byte command, int row_index) {
     addCommand(command);
     addParameter(row_index);
+    sorted_removed_rows = null;
   }
 
   // ---------- Getters ----------
@@ -311,35 +323,57 @@ final class MasterTableJournal {
 
   // ---------- Testing methods ----------
 
+  /**
+   * Returns the rows removed in this journal sorted from lowest to highest.
+   */
+  private int[] sortedRemovedRows() {
+    int[] rows = sorted_removed_rows;
+    if (rows == null) {
+      IntegerVector list = new IntegerVector();
+      int size = entries();
+      for (int i = 0; i < size; ++i) {
+        if (isRemoveCommand(getCommand(i))) {
+          list.addInt(getRowIndex(i));
+        }
+      }
+      // NOTE: 'toIntArray' returns null for an empty list
+      rows = (list.size() == 0) ? new int[0] : list.toIntArray();
+      Arrays.sort(rows);
+      sorted_removed_rows = rows;
+    }
+    return rows;
+  }
+
   /**
    * Throws a transaction clash exception if it detects a clash between
    * journal entries.  It assumes that this journal is the journal that is
    * attempting to be compatible with the given journal.  A journal clashes
    * when they both contain a row that is deleted.
+   * <p>
+   * The sorted lists of removed rows of the journals are merged to find a
+   * row removed in both, so the cost is linear in the size of the journals.
    */
   void testCommitClash(DataTableDef table_def, MasterTableJournal journal)
                                                  throws TransactionException {
-    // Very nasty search here...
-//    int cost = entries() * journal.entries();
-//    System.out.print(" CLASH COST = " + cost + " ");
-
-    for (int i = 0; i < entries(); ++i) {
-      byte tc = getCommand(i);
-      if (isRemoveCommand(tc)) {   // command - row remove
-        int row_index = getRowIndex(i);
-//        System.out.println("* " + row_index);
-        for (int n = 0; n < journal.entries(); ++n) {
-//          System.out.print(" " + journal.getRowIndex(n));
-          if (isRemoveCommand(journal.getCommand(n)) &&
-              journal.getRowIndex(n) == row_index) {
-            throw new TransactionException(
-               TransactionException.ROW_REMOVE_CLASH,
-               "Concurrent Serializable Transaction Conflict(1): " +
-               "Current row remove clash ( row: " + row_index + ", table: " +
-               table_def.getTableName() + " )");
-          }
-        }
-//        System.out.println();
+    int[] rows1 = sortedRemovedRows();
+    int[] rows2 = journal.sortedRemovedRows();
+    int i = 0;
+    int n = 0;
+    while (i < rows1.length && n < rows2.length) {
+      int row_index = rows1[i];
+      int row_index2 = rows2[n];
+      if (row_index < row_index2) {
+        ++i;
+      }
+      else if (row_index > row_index2) {
+        ++n;
+      }
+      else {
+        throw new TransactionException(
+           TransactionException.ROW_REMOVE_CLASH,
+           "Concurrent Serializable Transaction Conflict(1): " +
+           "Current row remove clash ( row: " + row_index + ", table: " +
+           table_def.getTableName() + " )");
       }
     }
   }
@@ -358,6 +392,7 @@ final class MasterTableJournal {
     table_id = din.readInt();
 
     journal_entries = din.readInt();
+    sorted_removed_rows = null;
     command_journal = new byte[journal_entries];
     din.readFully(command_journal, 0, journal_entries);
     int size = din.readInt();
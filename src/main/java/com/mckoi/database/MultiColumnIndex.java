@@ -0,0 +1,355 @@
+/**
+ * com.mckoi.database.MultiColumnIndex  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import com.mckoi.util.IntegerListInterface;
+import com.mckoi.util.IntegerIterator;
+import com.mckoi.util.IntegerVector;
+import com.mckoi.util.IndexComparator;
+
+/**
+ * An index over a group of columns in a table.  The rows of the table are
+ * kept in an IntegerListInterface sorted by the composite key of the indexed
+ * columns, where the key is compared column by column in the order the
+ * columns were given when the index was defined.
+ * <p>
+ * Because the rows are sorted by the whole key, all the rows that share the
+ * same values in the leading columns of the key are next to each other in
+ * the list.  This lets us find the rows that match an equality on any prefix
+ * of the key, and within that group of rows the next column of the key is
+ * in sorted order so we can use it to resolve a range.
+ * <p>
+ * A key given to the search methods in this object is a TObject[] array
+ * that is either the complete key or a prefix of it.
+ *
+ * @author Tobias Downer
+ */
+
+public final class MultiColumnIndex {
+
+  /**
+   * The TableDataSource the index is over.
+   */
+  private TableDataSource table;
+
+  /**
+   * The columns of the key, in key order.
+   */
+  private int[] columns;
+
+  /**
+   * True if the index was defined as UNIQUE.
+   */
+  private boolean unique;
+
+  /**
+   * The sorted list of rows.
+   */
+  private IntegerListInterface set_list;
+
+  /**
+   * True if this index may not be changed.
+   */
+  private boolean immutable;
+
+  /**
+   * The comparator used to sort and search the rows in the list.  A key
+   * object given to this comparator is a TObject[] key or key prefix.
+   */
+  private final IndexComparator set_comparator = new IndexComparator() {
+    public int compare(int row, Object val) {
+      TObject[] key = (TObject[]) val;
+      for (int i = 0; i < key.length; ++i) {
+        TObject cell = table.getCellContents(columns[i], row);
+        int c = cell.compareTo(key[i]);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return 0;
+    }
+    public int compare(int row1, int row2) {
+      for (int i = 0; i < columns.length; ++i) {
+        TObject cell1 = table.getCellContents(columns[i], row1);
+        TObject cell2 = table.getCellContents(columns[i], row2);
+        int c = cell1.compareTo(cell2);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return 0;
+    }
+  };
+
+  /**
+   * Constructs the index over the given table and columns.  The list must
+   * either be empty or already sorted by the key.
+   */
+  MultiColumnIndex(TableDataSource table, int[] columns, boolean unique,
+                   IntegerListInterface list) {
+    this.table = table;
+    this.columns = columns;
+    this.unique = unique;
+    this.set_list = list;
+    this.immutable = false;
+  }
+
+  /**
+   * Returns the column index of the nth column in the key.
+   */
+  public int columnAt(int n) {
+    return columns[n];
+  }
+
+  /**
+   * Returns the number of columns in the key.
+   */
+  public int columnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Returns true if the index was defined as UNIQUE.
+   */
+  public boolean isUnique() {
+    return unique;
+  }
+
+  /**
+   * Sets this index as immutable.
+   */
+  void setImmutable() {
+    immutable = true;
+  }
+
+  /**
+   * Returns the complete key of the given row.
+   */
+  TObject[] keyOf(int row) {
+    TObject[] key = new TObject[columns.length];
+    for (int i = 0; i < key.length; ++i) {
+      key[i] = table.getCellContents(columns[i], row);
+    }
+    return key;
+  }
+
+  /**
+   * Inserts the given row into the index.
+   */
+  void insert(int row) {
+    if (immutable) {
+      throw new Error("Tried to change an immutable index.");
+    }
+    set_list.insertSort(keyOf(row), row, set_comparator);
+  }
+
+  /**
+   * Removes the given row from the index.
+   */
+  void remove(int row) {
+    if (immutable) {
+      throw new Error("Tried to change an immutable index.");
+    }
+    int removed = set_list.removeSort(keyOf(row), row, set_comparator);
+    if (removed != row) {
+      throw new Error("Removed value different than row asked to remove.  " +
+                      "To remove: " + row + "  Removed: " + removed);
+    }
+  }
+
+  /**
+   * Returns the number of rows in the index that have the same complete key
+   * as the given row.  This is used to check a UNIQUE index.
+   */
+  int countKey(int row) {
+    TObject[] key = keyOf(row);
+    int first = set_list.searchFirst(key, set_comparator);
+    if (first < 0) {
+      return 0;
+    }
+    int last = set_list.searchLast(key, set_comparator);
+    return (last - first) + 1;
+  }
+
+  /**
+   * Returns every row in the index in key order.
+   */
+  public IntegerVector selectAll() {
+    return new IntegerVector(set_list);
+  }
+
+  /**
+   * Returns the rows whose leading key columns are equal to the given key
+   * prefix, in key order.  If any value in the prefix is NULL then no rows
+   * are returned (NULL is never equal to anything).
+   */
+  public IntegerVector selectEqual(TObject[] prefix) {
+    for (int i = 0; i < prefix.length; ++i) {
+      if (prefix[i].isNull()) {
+        return new IntegerVector(0);
+      }
+    }
+    int first = set_list.searchFirst(prefix, set_comparator);
+    if (first < 0) {
+      return new IntegerVector(0);
+    }
+    int last = set_list.searchLast(prefix, set_comparator);
+    IntegerVector ivec = new IntegerVector((last - first) + 2);
+    IntegerIterator i = set_list.iterator(first, last);
+    while (i.hasNext()) {
+      ivec.addInt(i.next());
+    }
+    return ivec;
+  }
+
+  /**
+   * Returns a read-only SelectableScheme for the column after the given key
+   * prefix that only sees the rows whose leading key columns are equal to
+   * the prefix.  The scheme can be used to select a range of values of that
+   * column within the prefix group (for example, 'a = 3 AND b > 10' on an
+   * index over (a, b) is the range 'b > 10' of the scheme for prefix
+   * (3)).  The rows returned by the scheme are sorted by the column.
+   * <p>
+   * The prefix must be shorter than the key and must not contain NULL
+   * values.  The returned scheme must not be used after the index changes.
+   */
+  public SelectableScheme prefixScheme(TObject[] prefix) {
+    if (prefix.length >= columns.length) {
+      throw new Error("Prefix covers the whole key.");
+    }
+    int start, end;
+    if (prefix.length == 0) {
+      start = 0;
+      end = set_list.size() - 1;
+    }
+    else {
+      start = set_list.searchFirst(prefix, set_comparator);
+      if (start < 0) {
+        // Nothing in the group
+        start = 0;
+        end = -1;
+      }
+      else {
+        end = set_list.searchLast(prefix, set_comparator);
+      }
+    }
+    return new PrefixScheme(prefix, start, end);
+  }
+
+
+  /**
+   * A read-only CollatedBaseSearch over the sub-range of the index that
+   * contains the rows of a key prefix group.  Positions in the collated set
+   * are relative to the start of the group.
+   */
+  private final class PrefixScheme extends CollatedBaseSearch {
+
+    /**
+     * The prefix of the group.
+     */
+    private final TObject[] prefix;
+
+    /**
+     * The position of the first and last row of the group in the index.
+     */
+    private final int start, end;
+
+    PrefixScheme(TObject[] prefix, int start, int end) {
+      super(table, columns[prefix.length]);
+      this.prefix = prefix;
+      this.start = start;
+      this.end = end;
+      setImmutable();
+    }
+
+    /**
+     * Returns the prefix key with the given value appended to it.
+     */
+    private TObject[] keyFor(TObject val) {
+      TObject[] key = new TObject[prefix.length + 1];
+      System.arraycopy(prefix, 0, key, 0, prefix.length);
+      key[prefix.length] = val;
+      return key;
+    }
+
+    /**
+     * Converts a position in the index to a position in the group.
+     */
+    private int toGroupPosition(int pos) {
+      if (pos < 0) {
+        return -(((-(pos + 1)) - start) + 1);
+      }
+      return pos - start;
+    }
+
+    protected int searchFirst(TObject val) {
+      if (setSize() == 0) {
+        return -1;
+      }
+      return toGroupPosition(
+                       set_list.searchFirst(keyFor(val), set_comparator));
+    }
+
+    protected int searchLast(TObject val) {
+      if (setSize() == 0) {
+        return -1;
+      }
+      return toGroupPosition(
+                       set_list.searchLast(keyFor(val), set_comparator));
+    }
+
+    protected int setSize() {
+      return (end - start) + 1;
+    }
+
+    protected TObject firstInCollationOrder() {
+      return getCellContents(set_list.get(start));
+    }
+
+    protected TObject lastInCollationOrder() {
+      return getCellContents(set_list.get(end));
+    }
+
+    protected IntegerVector addRangeToSet(int s, int e, IntegerVector ivec) {
+      if (ivec == null) {
+        ivec = new IntegerVector((e - s) + 2);
+      }
+      IntegerIterator i = set_list.iterator(start + s, start + e);
+      while (i.hasNext()) {
+        ivec.addInt(i.next());
+      }
+      return ivec;
+    }
+
+    public IntegerVector selectAll() {
+      if (setSize() == 0) {
+        return new IntegerVector(0);
+      }
+      return addRangeToSet(0, setSize() - 1, null);
+    }
+
+    public SelectableScheme copy(TableDataSource table, boolean immutable) {
+      throw new Error("A prefix scheme can not be copied.");
+    }
+
+  }
+
+}
@@ -77,6 +77,14 @@ public interface MutableTableDataSource extends TableDataSource {
    */
   void flushIndexChanges();
 
+  /**
+   * Returns the indexes on groups of columns that were created on this
+   * source by 'CREATE INDEX'.  The returned indexes are current with all
+   * changes made to the source.  Returns an empty array if the source has
+   * no such indexes.
+   */
+  MultiColumnIndex[] getMultiColumnIndexes();
+
   /**
    * Performs all constraint integrity checks and actions to any modifications
    * based on any changes that happened to the table since that last call to
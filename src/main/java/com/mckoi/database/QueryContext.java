@@ -93,4 +93,14 @@ public interface QueryContext {
    */
   void clearCache();
 
+  // ---------- Parameters ----------
+
+  /**
+   * Returns the value of the parameter with the given id ('?' in the query)
+   * for the query being evaluated.  Parameters are only resolved by the
+   * context when a query plan is formed with the parameter substitutions
+   * left in the expressions.
+   */
+  TObject getParameterValue(int parameter_id);
+
 }
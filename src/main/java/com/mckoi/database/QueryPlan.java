@@ -22,6 +22,7 @@ package com.mckoi.database;
 
 import java.util.List;
 import java.util.ArrayList;
+import com.mckoi.util.IntegerVector;
 
 /**
  * Various helper methods for constructing a plan tree, and the plan node
@@ -443,15 +444,16 @@ public class QueryPlan {
      * <p>
      * If non 'and' operators are found then the reduction stops.
      */
-    private ArrayList createAndList(ArrayList list, Expression exp) {
+    private static ArrayList createAndList(ArrayList list, Expression exp) {
       return exp.breakByOperator(list, "and");
     }
 
     /**
      * Updates a range with the given expression.
      */
-    private void updateRange(QueryContext context, SelectableRangeSet range,
-                             DataTableColumnDef field, Expression e) {
+    private static void updateRange(QueryContext context,
+                                    SelectableRangeSet range,
+                                    DataTableColumnDef field, Expression e) {
       Operator op = (Operator) e.last();
       Expression[] exps = e.split();
       // Evaluate to an object
@@ -472,10 +474,10 @@ public class QueryPlan {
      * Calculates a list of SelectableRange objects that represent the range
      * of the expression.
      */
-    private void calcRange(final QueryContext context,
-                           final DataTableColumnDef field,
-                           final SelectableRangeSet range,
-                           final Expression exp) {
+    private static void calcRange(final QueryContext context,
+                                  final DataTableColumnDef field,
+                                  final SelectableRangeSet range,
+                                  final Expression exp) {
       Operator op = (Operator) exp.last();
       if (op.isLogical()) {
         if (op.is("and")) {
@@ -665,33 +667,177 @@ public class QueryPlan {
     public Table evaluate(QueryContext context) {
       Table t = child.evaluate(context);
 
-      // PENDING: Exploit multi-column indexes when they are implemented...
-
-      // We select each column in turn
-      Operator EQUALS_OP = Operator.get("=");
-      for (int i = 0; i < columns.length; ++i) {
-        t = t.simpleSelect(context, columns[i], EQUALS_OP, values[i]);
+      TObject[] eq_values = new TObject[values.length];
+      for (int i = 0; i < values.length; ++i) {
+        eq_values[i] = values[i].evaluate(null, null, context);
       }
 
-      return t;
+      // Use a multi-column index if there is one for the columns
+      return t.multiColumnSelect(context, columns, eq_values,
+                               new Variable[0], new SelectableRange[0][]);
     }
 
     public ArrayList discoverTableNames(ArrayList list) {
-      throw new Error("PENDING");
+      list = super.discoverTableNames(list);
+      for (int i = 0; i < values.length; ++i) {
+        list = values[i].discoverTableNames(list);
+      }
+      return list;
     }
 
     public ArrayList discoverCorrelatedVariables(int level, ArrayList list) {
-      throw new Error("PENDING");
+      list = super.discoverCorrelatedVariables(level, list);
+      for (int i = 0; i < values.length; ++i) {
+        list = values[i].discoverCorrelatedVariables(level, list);
+      }
+      return list;
     }
 
     public Object clone() throws CloneNotSupportedException {
       MultiColumnEquiSelectNode node =
                                  (MultiColumnEquiSelectNode) super.clone();
+      node.columns = (Variable[]) columns.clone();
+      node.values = (Expression[]) values.clone();
       cloneArray(node.columns);
       cloneArray(node.values);
       return node;
     }
 
+    public String titleString() {
+      StringBuffer buf = new StringBuffer();
+      buf.append("MULTI-COLUMN EQUI: ");
+      for (int i = 0; i < columns.length; ++i) {
+        if (i > 0) {
+          buf.append(" AND ");
+        }
+        buf.append(columns[i]);
+        buf.append(" = ");
+        buf.append(values[i]);
+      }
+      return new String(buf);
+    }
+
+  }
+
+  /**
+   * The node for performing a group of range selects on different columns of
+   * the child node.  Each expression is a range expression on a single
+   * column as described by RangeSelectNode.  The ranges are selected together
+   * so that a multi-column index can resolve an equality on its leading
+   * columns followed by a range on the next column (for example,
+   * 'a = 4 AND b > 10' with an index on (a, b)).
+   */
+  public static class MultiColumnRangeSelectNode extends SingleQueryPlanNode {
+
+    static final long serialVersionUID = 6216519432618436213L;
+
+    /**
+     * The range expression of each column.
+     */
+    private Expression[] expressions;
+
+    public MultiColumnRangeSelectNode(QueryPlanNode child,
+                                      Expression[] expressions) {
+      super(child);
+      this.expressions = expressions;
+    }
+
+    /**
+     * Returns true if the range is a single value (the range of an equality
+     * such as 'a = 4').
+     */
+    private static boolean isSingleValue(SelectableRange[] ranges) {
+      if (ranges.length != 1) {
+        return false;
+      }
+      SelectableRange range = ranges[0];
+      TObject start = range.getStart();
+      TObject end = range.getEnd();
+      return range.getStartFlag() == SelectableRange.FIRST_VALUE &&
+             range.getEndFlag() == SelectableRange.LAST_VALUE &&
+             start != SelectableRange.FIRST_IN_SET &&
+             start != SelectableRange.LAST_IN_SET &&
+             end != SelectableRange.FIRST_IN_SET &&
+             end != SelectableRange.LAST_IN_SET &&
+             !start.isNull() && start.compareTo(end) == 0;
+    }
+
+    public Table evaluate(QueryContext context) {
+      Table t = child.evaluate(context);
+
+      ArrayList eq_vars = new ArrayList();
+      ArrayList eq_values = new ArrayList();
+      ArrayList range_vars = new ArrayList();
+      ArrayList range_list = new ArrayList();
+
+      for (int i = 0; i < expressions.length; ++i) {
+        Expression exp = expressions[i];
+        Variable v = (Variable) exp.allVariables().get(0);
+        int col = t.findFieldName(v);
+        if (col == -1) {
+          throw new Error("Couldn't find column reference in table: " + v);
+        }
+        DataTableColumnDef field = t.getColumnDefAt(col);
+        // Calculate the range
+        SelectableRangeSet range = new SelectableRangeSet();
+        RangeSelectNode.calcRange(context, field, range, exp);
+        SelectableRange[] ranges = range.toSelectableRangeArray();
+
+        // A single value range can be used as part of an index key
+        if (isSingleValue(ranges)) {
+          eq_vars.add(v);
+          eq_values.add(ranges[0].getStart());
+        }
+        else {
+          range_vars.add(v);
+          range_list.add(ranges);
+        }
+      }
+
+      return t.multiColumnSelect(context,
+          (Variable[]) eq_vars.toArray(new Variable[eq_vars.size()]),
+          (TObject[]) eq_values.toArray(new TObject[eq_values.size()]),
+          (Variable[]) range_vars.toArray(new Variable[range_vars.size()]),
+          (SelectableRange[][]) range_list.toArray(
+                                new SelectableRange[range_list.size()][]));
+    }
+
+    public ArrayList discoverTableNames(ArrayList list) {
+      list = super.discoverTableNames(list);
+      for (int i = 0; i < expressions.length; ++i) {
+        list = expressions[i].discoverTableNames(list);
+      }
+      return list;
+    }
+
+    public ArrayList discoverCorrelatedVariables(int level, ArrayList list) {
+      list = super.discoverCorrelatedVariables(level, list);
+      for (int i = 0; i < expressions.length; ++i) {
+        list = expressions[i].discoverCorrelatedVariables(level, list);
+      }
+      return list;
+    }
+
+    public Object clone() throws CloneNotSupportedException {
+      MultiColumnRangeSelectNode node =
+                                (MultiColumnRangeSelectNode) super.clone();
+      node.expressions = (Expression[]) expressions.clone();
+      cloneArray(node.expressions);
+      return node;
+    }
+
+    public String titleString() {
+      StringBuffer buf = new StringBuffer();
+      buf.append("MULTI-COLUMN RANGE: ");
+      for (int i = 0; i < expressions.length; ++i) {
+        if (i > 0) {
+          buf.append(" AND ");
+        }
+        buf.append(expressions[i]);
+      }
+      return new String(buf);
+    }
+
   }
 
   /**
@@ -770,6 +916,13 @@ public class QueryPlan {
       return t.exhaustiveSelect(context, expression);
     }
 
+    /**
+     * Returns the search expression.
+     */
+    public Expression getExpression() {
+      return expression;
+    }
+
     public ArrayList discoverTableNames(ArrayList list) {
       return expression.discoverTableNames(super.discoverTableNames(list));
     }
@@ -1093,11 +1246,27 @@ public class QueryPlan {
      */
     private boolean[] correct_ascending;
 
+    /**
+     * The number of rows from the start of the sorted result that are
+     * needed, or 0 if all the rows are needed.
+     */
+    private int row_limit;
+
     public SortNode(QueryPlanNode child, Variable[] columns,
                     boolean[] ascending) {
+      this(child, columns, ascending, 0);
+    }
+
+    /**
+     * Constructs the sort node.  If 'row_limit' is greater than 0, only that
+     * number of rows from the start of the sorted result are returned.
+     */
+    public SortNode(QueryPlanNode child, Variable[] columns,
+                    boolean[] ascending, int row_limit) {
       super(child);
       this.columns = columns;
       this.correct_ascending = ascending;
+      this.row_limit = row_limit;
 
       // How we handle ascending/descending order
       // ----------------------------------------
@@ -1126,14 +1295,139 @@ public class QueryPlan {
 
     public Table evaluate(QueryContext context) {
       Table t = child.evaluate(context);
-      // Sort the results by the columns in reverse-safe order.
+
       int sz = correct_ascending.length;
+      boolean top_n = row_limit > 0 && row_limit < t.getRowCount();
+
+      // If we only need the first rows of a single column sort and the
+      // column is indexed, read the rows from the start (or end) of the
+      // index.
+      if (top_n && sz == 1) {
+        int col = t.findFieldName(columns[0]);
+        if (col != -1 && t.hasColumnIndex(col)) {
+          IntegerVector rows =
+                          t.selectTop(col, row_limit, correct_ascending[0]);
+          VirtualTable table = new VirtualTable(t);
+          table.set(t, rows);
+          return table;
+        }
+      }
+
+      // If all the columns are in the same direction, a multi-column index
+      // that starts with the sort columns can give us the order.  After the
+      // pre-processing in the constructor, all ascending is all true and all
+      // descending is false followed by all true.
+      if (sz > 1) {
+        boolean same_direction = true;
+        for (int n = 1; n < sz && same_direction; ++n) {
+          same_direction = correct_ascending[n];
+        }
+        if (same_direction) {
+          int[] col_map = new int[sz];
+          for (int n = 0; n < sz && col_map != null; ++n) {
+            col_map[n] = t.findFieldName(columns[n]);
+            if (col_map[n] == -1) {
+              col_map = null;
+            }
+          }
+          if (col_map != null) {
+            IntegerVector rows =
+                      t.orderedRowsFromIndex(col_map, correct_ascending[0]);
+            if (rows != null) {
+              if (top_n) {
+                rows.crop(0, row_limit);
+              }
+              VirtualTable table = new VirtualTable(t);
+              table.set(t, rows);
+              return table;
+            }
+          }
+        }
+      }
+
+      if (top_n) {
+        return topRows(t);
+      }
+
+      // Sort on more than one column in a single pass.
+      if (sz > 1) {
+        RowSorter sorter =
+                    new RowSorter(t, columnMap(t), userAscending());
+        sorter.sort();
+        VirtualTable table = new VirtualTable(t);
+        table.set(t, sorter.sortedRows());
+        return table;
+      }
+
+      // Sort the results by the columns in reverse-safe order.
       for (int n = sz - 1; n >= 0; --n) {
         t = t.orderByColumn(columns[n], correct_ascending[n]);
       }
       return t;
     }
 
+    /**
+     * Returns the index of each sort column in the given table.
+     */
+    private int[] columnMap(Table t) {
+      int sz = columns.length;
+      int[] col_map = new int[sz];
+      for (int n = 0; n < sz; ++n) {
+        col_map[n] = t.findFieldName(columns[n]);
+        if (col_map[n] == -1) {
+          throw new Error("Unknown column in sort ( " + columns[n] + " )");
+        }
+      }
+      return col_map;
+    }
+
+    /**
+     * Undoes the reverse-safe pre-processing done in the constructor and
+     * returns the direction the user specified for each column.
+     */
+    private boolean[] userAscending() {
+      int sz = correct_ascending.length;
+      boolean[] ascending = new boolean[sz];
+      boolean reversed = false;
+      for (int n = 0; n < sz; ++n) {
+        ascending[n] = correct_ascending[n] != reversed;
+        if (!correct_ascending[n]) {
+          reversed = !reversed;
+        }
+      }
+      return ascending;
+    }
+
+    /**
+     * Returns the first 'row_limit' rows of the table in the sort order.
+     * The table is read once and a heap of the best 'row_limit' rows found
+     * so far is kept, so only those rows are ever sorted.
+     */
+    private Table topRows(Table t) {
+      int sz = columns.length;
+      int[] col_map = columnMap(t);
+      boolean[] ascending = userAscending();
+
+      // A heap with the row that sorts last at the top.
+      RowHeap heap = new RowHeap(row_limit, ascending);
+      RowEnumeration e = t.rowEnumeration();
+      int seq = 0;
+      while (e.hasMoreRows()) {
+        int row_index = e.nextRowIndex();
+        TObject[] key = new TObject[sz];
+        for (int n = 0; n < sz; ++n) {
+          key[n] = t.getCellContents(col_map[n], row_index);
+        }
+        heap.offer(row_index, seq, key);
+        ++seq;
+      }
+
+      IntegerVector rows = heap.sortedRows();
+      VirtualTable table = new VirtualTable(t);
+      table.set(t, rows);
+      return table;
+    }
+
     public Object clone() throws CloneNotSupportedException {
       SortNode node = (SortNode) super.clone();
       cloneArray(node.columns);
@@ -1154,11 +1448,209 @@ public class QueryPlan {
         buf.append(", ");
       }
       buf.append(")");
+      if (row_limit > 0) {
+        buf.append(" TOP ");
+        buf.append(row_limit);
+      }
       return new String(buf);
     }
 
   }
 
+  /**
+   * A bounded heap of rows used to find the first rows of a sort.  The row
+   * at the top of the heap is the row that sorts last, so when the heap is
+   * full a new row only has to be compared against the top.  Rows with equal
+   * keys are kept in the order they were offered.
+   */
+  private static final class RowHeap {
+
+    private final boolean[] ascending;
+    private final int[] rows;
+    private final int[] seqs;
+    private final TObject[][] keys;
+    private int size;
+
+    RowHeap(int capacity, boolean[] ascending) {
+      this.ascending = ascending;
+      rows = new int[capacity];
+      seqs = new int[capacity];
+      keys = new TObject[capacity][];
+      size = 0;
+    }
+
+    /**
+     * Compares the entries at the two heap positions.  Returns > 0 if the
+     * entry at i sorts after the entry at j.
+     */
+    private int compare(int i, int j) {
+      return compare(keys[i], seqs[i], keys[j], seqs[j]);
+    }
+
+    private int compare(TObject[] key1, int seq1, TObject[] key2, int seq2) {
+      for (int n = 0; n < key1.length; ++n) {
+        int c = key1[n].compareTo(key2[n]);
+        if (c != 0) {
+          return ascending[n] ? c : -c;
+        }
+      }
+      return seq1 - seq2;
+    }
+
+    private void swap(int i, int j) {
+      int row = rows[i];
+      int seq = seqs[i];
+      TObject[] key = keys[i];
+      rows[i] = rows[j];
+      seqs[i] = seqs[j];
+      keys[i] = keys[j];
+      rows[j] = row;
+      seqs[j] = seq;
+      keys[j] = key;
+    }
+
+    private void siftUp(int i) {
+      while (i > 0) {
+        int parent = (i - 1) / 2;
+        if (compare(i, parent) <= 0) {
+          return;
+        }
+        swap(i, parent);
+        i = parent;
+      }
+    }
+
+    private void siftDown(int i) {
+      while (true) {
+        int child = (i * 2) + 1;
+        if (child >= size) {
+          return;
+        }
+        if (child + 1 < size && compare(child + 1, child) > 0) {
+          ++child;
+        }
+        if (compare(child, i) <= 0) {
+          return;
+        }
+        swap(i, child);
+        i = child;
+      }
+    }
+
+    /**
+     * Offers a row to the heap.  The row is kept if the heap isn't full or
+     * if it sorts before the last row in the heap.
+     */
+    void offer(int row, int seq, TObject[] key) {
+      if (size < rows.length) {
+        rows[size] = row;
+        seqs[size] = seq;
+        keys[size] = key;
+        ++size;
+        siftUp(size - 1);
+      }
+      else if (compare(key, seq, keys[0], seqs[0]) < 0) {
+        rows[0] = row;
+        seqs[0] = seq;
+        keys[0] = key;
+        siftDown(0);
+      }
+    }
+
+    /**
+     * Empties the heap and returns the rows in sorted order.
+     */
+    IntegerVector sortedRows() {
+      int[] sorted = new int[size];
+      while (size > 0) {
+        sorted[size - 1] = rows[0];
+        --size;
+        swap(0, size);
+        keys[size] = null;
+        siftDown(0);
+      }
+      IntegerVector ivec = new IntegerVector(sorted.length);
+      for (int i = 0; i < sorted.length; ++i) {
+        ivec.addInt(sorted[i]);
+      }
+      return ivec;
+    }
+
+  }
+
+  /**
+   * The node that limits the rows of the child node to a range of rows from
+   * the start of the result.  This is used for the LIMIT and OFFSET clauses
+   * of a SELECT.
+   */
+  public static class LimitNode extends SingleQueryPlanNode {
+
+    static final long serialVersionUID = 2170446213378921857L;
+
+    /**
+     * The number of rows to skip at the start of the result.
+     */
+    private int offset;
+
+    /**
+     * The maximum number of rows to return, or -1 if there is no limit.
+     */
+    private int limit;
+
+    public LimitNode(QueryPlanNode child, int offset, int limit) {
+      super(child);
+      this.offset = offset;
+      this.limit = limit;
+    }
+
+    public Table evaluate(QueryContext context) {
+      Table t = child.evaluate(context);
+      int row_count = t.getRowCount();
+      int start = Math.min(offset, row_count);
+      int end = row_count;
+      if (limit >= 0) {
+        end = (int) Math.min((long) start + limit, (long) row_count);
+      }
+      if (start == 0 && end == row_count) {
+        return t;
+      }
+
+      IntegerVector rows = new IntegerVector(end - start);
+      RowEnumeration e = t.rowEnumeration();
+      int i = 0;
+      while (i < end && e.hasMoreRows()) {
+        int row_index = e.nextRowIndex();
+        if (i >= start) {
+          rows.addInt(row_index);
+        }
+        ++i;
+      }
+      VirtualTable table = new VirtualTable(t);
+      table.set(t, rows);
+      return table;
+    }
+
+    /**
+     * Returns the number of rows to skip at the start of the result.
+     */
+    public int getOffset() {
+      return offset;
+    }
+
+    /**
+     * Returns the maximum number of rows to return, or -1 if there is no
+     * limit.
+     */
+    public int getLimit() {
+      return limit;
+    }
+
+    public String titleString() {
+      return "LIMIT: (" + limit + " OFFSET " + offset + ")";
+    }
+
+  }
+
   /**
    * The node for performing a grouping operation on the columns of the child
    * node.  As well as grouping, any aggregate functions must also be defined
@@ -1284,6 +1776,174 @@ public class QueryPlan {
 
   }
 
+  /**
+   * A node that computes aggregates over the entire child from the indexes
+   * of the child table, rather than by grouping the child.  This is used for
+   * a select with no GROUP BY or WHERE clause where every function is
+   * MIN(column), MAX(column) or COUNT(*).  MIN and MAX are the first and last
+   * values of an InsertSearch index, and COUNT(*) is the row count of the
+   * table, so the rows of the table aren't read.  The child must be a
+   * FetchTableNode, because the order of the rows of a fetched table is the
+   * order of the row indexes.
+   * <p>
+   * If a function can't be answered this way when the node is evaluated
+   * (for example, the column isn't indexed) then the child is grouped the
+   * same way GroupNode groups it.
+   */
+  public static class IndexAggregateNode extends SingleQueryPlanNode {
+
+    static final long serialVersionUID = -3087396014278341642L;
+
+    /**
+     * The aggregate functions.
+     */
+    private Expression[] function_list;
+
+    /**
+     * The list of names to give each function table.
+     */
+    private String[] name_list;
+
+    /**
+     * Constructor.
+     */
+    public IndexAggregateNode(QueryPlanNode child,
+                              Expression[] function_list, String[] name_list) {
+      super(child);
+      this.function_list = function_list;
+      this.name_list = name_list;
+    }
+
+    /**
+     * Returns true if the given expression is an aggregate this node can
+     * compute from an index.  Whether the column is indexed is only known
+     * when the node is evaluated.
+     */
+    public static boolean isIndexAggregate(Expression exp,
+                                           QueryContext context) {
+      if (exp.size() != 1 || !(exp.elementAt(0) instanceof FunctionDef)) {
+        return false;
+      }
+      Function fun = ((FunctionDef) exp.elementAt(0)).getFunction(context);
+      if (!(fun instanceof AbstractFunction)) {
+        return false;
+      }
+      AbstractFunction afun = (AbstractFunction) fun;
+      String name = afun.getName();
+      if (afun.parameterCount() != 1) {
+        return false;
+      }
+      if (name.equals("count")) {
+        return afun.isGlob();
+      }
+      return (name.equals("min") || name.equals("max")) &&
+             afun.getParameter(0).getVariable() != null;
+    }
+
+    /**
+     * Returns the result of the given aggregate over the table found from
+     * the index of the table, or null if it can't be found from the index.
+     */
+    private static TObject indexAggregate(Table table, Expression exp,
+                                          QueryContext context) {
+      AbstractFunction fun = (AbstractFunction)
+                    ((FunctionDef) exp.elementAt(0)).getFunction(context);
+      String name = fun.getName();
+      if (name.equals("count")) {
+        return TObject.intVal(table.getRowCount());
+      }
+
+      int col_index = table.findFieldName(fun.getParameter(0).getVariable());
+      if (col_index == -1) {
+        return null;
+      }
+      DataTableColumnDef col_def =
+                             table.getDataTableDef().columnAt(col_index);
+      if (!col_def.getIndexScheme().equals("InsertSearch")) {
+        return null;
+      }
+
+      IntegerVector rows;
+      if (name.equals("min")) {
+        rows = table.selectFirstNonNull(col_index);
+      }
+      else {
+        rows = table.selectLast(col_index);
+      }
+      TType return_type =
+                  fun.returnTType(table.getVariableResolver(), context);
+      if (rows.size() == 0) {
+        return new TObject(return_type, null);
+      }
+      // Values can compare equal and still be different (2.5 and 2.50).
+      // Grouping the table gives the last equal value in the order of the
+      // table, which is the highest row index.
+      int row_index = rows.intAt(0);
+      for (int i = 1; i < rows.size(); ++i) {
+        row_index = Math.max(row_index, rows.intAt(i));
+      }
+      return new TObject(return_type,
+                   table.getCellContents(col_index, row_index).getObject());
+    }
+
+    public Table evaluate(QueryContext context) {
+      Table child_table = child.evaluate(context);
+      DatabaseQueryContext db_context = (DatabaseQueryContext) context;
+
+      Expression[] results = new Expression[function_list.length];
+      for (int i = 0; i < function_list.length; ++i) {
+        TObject result =
+               indexAggregate(child_table, function_list[i], context);
+        if (result == null) {
+          // Group the child
+          FunctionTable fun_table = new FunctionTable(child_table,
+                                     function_list, name_list, db_context);
+          fun_table.setWholeTableAsGroup();
+          return fun_table.mergeWithReference(null);
+        }
+        results[i] = new Expression(result);
+      }
+
+      FunctionTable fun_table =
+               new FunctionTable(child_table, results, name_list, db_context);
+      return fun_table.mergeFirstRowWithReference();
+    }
+
+    public ArrayList discoverTableNames(ArrayList list) {
+      list = super.discoverTableNames(list);
+      for (int i = 0; i < function_list.length; ++i) {
+        list = function_list[i].discoverTableNames(list);
+      }
+      return list;
+    }
+
+    public ArrayList discoverCorrelatedVariables(int level, ArrayList list) {
+      list = super.discoverCorrelatedVariables(level, list);
+      for (int i = 0; i < function_list.length; ++i) {
+        list = function_list[i].discoverCorrelatedVariables(level, list);
+      }
+      return list;
+    }
+
+    public Object clone() throws CloneNotSupportedException {
+      IndexAggregateNode node = (IndexAggregateNode) super.clone();
+      cloneArray(node.function_list);
+      return node;
+    }
+
+    public String titleString() {
+      StringBuffer buf = new StringBuffer();
+      buf.append("INDEX AGGREGATE: [");
+      for (int i = 0; i < function_list.length; ++i) {
+        buf.append(function_list[i]);
+        buf.append(", ");
+      }
+      buf.append("]");
+      return new String(buf);
+    }
+
+  }
+
   /**
    * The node for merging the child node with a set of new function columns
    * over the entire result.  For example, we may want to add an expression
@@ -1483,7 +2143,12 @@ public class QueryPlan {
    * An equi-join is the most common type of join.
    * <p>
    * At query runtime, this decides the best best way to perform the join,
-   * either by
+   * either by iterating through one table and looking up the matching rows
+   * in the index of the other table, or by a hash join over all the join
+   * columns.  An index is only used when one side is a table with an
+   * InsertSearch scheme on the first join column.  Intermediate results
+   * (VirtualTable) are always hash joined because a scheme for them would
+   * have to be generated by sorting the column.
    */
   public static class EquiJoinNode extends BranchQueryPlanNode {
 
@@ -1499,11 +2164,78 @@ public class QueryPlan {
      */
     private Variable[] right_columns;
 
+    /**
+     * The join methods.  AUTO picks the method when the join is evaluated
+     * (an index join if either side is indexed, otherwise a hash join), and
+     * an index join looks up the rows of the smaller side in the index of
+     * the larger side when both are indexed.  HASH is set by the planner
+     * when it has estimated the size of both sides from the table
+     * statistics and a hash join is cheaper even if there is an index.
+     */
+    public static final int AUTO  = 0;
+    public static final int HASH  = 1;
+
+    /**
+     * The join method to use.
+     */
+    private int join_method;
+
     public EquiJoinNode(QueryPlanNode left, QueryPlanNode right,
                         Variable[] left_cols, Variable[] right_cols) {
       super(left, right);
       this.left_columns = left_cols;
       this.right_columns = right_cols;
+      this.join_method = AUTO;
+    }
+
+    /**
+     * Sets the join method to use (AUTO or HASH).  If a hash join can't be
+     * used when the join is evaluated then it falls back to AUTO.
+     */
+    public void setJoinMethod(int join_method) {
+      this.join_method = join_method;
+    }
+
+    /**
+     * Returns HASH if a hash join is cheaper than an index join for joining
+     * a table with 'left_rows' rows to a table with 'right_rows' rows,
+     * otherwise AUTO.  An index join looks up each row of the smaller table
+     * in the index of the larger one, and a hash join reads both tables
+     * once and builds a hash table.
+     */
+    public static int cheapestJoinMethod(double left_rows,
+                                         double right_rows) {
+      double small = Math.min(left_rows, right_rows);
+      double large = Math.max(left_rows, right_rows);
+      double index_cost = small * (Math.log(large + 1) / Math.log(2));
+      double hash_cost = 3 * (left_rows + right_rows);
+      return (hash_cost < index_cost) ? HASH : AUTO;
+    }
+
+    /**
+     * Returns true if the given column of the table is backed by an index
+     * that can be searched without generating it first.
+     */
+    private static boolean hasIndexOn(Table table, int column) {
+      return column != -1 && table.hasColumnIndex(column);
+    }
+
+    /**
+     * Returns true if all the column pairs can be hash joined.
+     */
+    private static boolean isHashJoinable(
+                        Table left_result, Table right_result,
+                        Variable[] left_cols, Variable[] right_cols) {
+      for (int i = 0; i < left_cols.length; ++i) {
+        int lcol = left_result.findFieldName(left_cols[i]);
+        int rcol = right_result.findFieldName(right_cols[i]);
+        if (lcol == -1 || rcol == -1 ||
+            !Table.isHashJoinable(left_result.getTTypeForColumn(lcol),
+                                  right_result.getTTypeForColumn(rcol))) {
+          return false;
+        }
+      }
+      return true;
     }
 
     public Table evaluate(QueryContext context) {
@@ -1512,16 +2244,52 @@ public class QueryPlan {
       // Solve the right branch result
       Table right_result = right.evaluate(context);
 
-      // PENDING: This needs to migrate to a better implementation that
-      //   exploits multi-column indexes if one is defined that can be used.
+      Variable[] left_cols = left_columns;
+      Variable[] right_cols = right_columns;
+      // Put the smallest table on the right, the same as 'JoinNode', so the
+      // rows of the result are ordered by the rows of the smallest table.
+      if (left_result.getRowCount() < right_result.getRowCount()) {
+        Table t = left_result;
+        left_result = right_result;
+        right_result = t;
+        left_cols = right_columns;
+        right_cols = left_columns;
+      }
+
+      boolean left_indexed = hasIndexOn(left_result,
+                                 left_result.findFieldName(left_cols[0]));
+      boolean right_indexed = hasIndexOn(right_result,
+                               right_result.findFieldName(right_cols[0]));
+
+      // If neither side has an index on the join column (or the planner
+      // found a hash join is cheaper) then hash join on all the columns at
+      // once.
+      boolean use_hash = (join_method == HASH) ||
+                         (!left_indexed && !right_indexed);
+      if (use_hash && isHashJoinable(left_result, right_result,
+                                     left_cols, right_cols)) {
+        return left_result.equiHashJoin(context, right_result,
+                                        left_cols, right_cols);
+      }
 
-      Variable first_left = left_columns[0];
-      Variable first_right = right_columns[0];
+      // Otherwise we look up the rows of the smallest table in the index of
+      // the largest, unless only the smallest table is indexed in which case
+      // the rows of the largest are looked up in it.  Either way the rows
+      // are in the order of 'simpleJoin'.
+      Variable first_left = left_cols[0];
+      Variable first_right = right_cols[0];
 
       Operator EQUALS_OP = Operator.get("=");
 
-      Table result = left_result.simpleJoin(context, right_result,
-           first_left, EQUALS_OP, new Expression(first_right));
+      Table result;
+      if (right_indexed && !left_indexed) {
+        result = left_result.reverseSimpleJoin(context, right_result,
+                                               first_left, first_right);
+      }
+      else {
+        result = left_result.simpleJoin(context, right_result,
+                         first_left, EQUALS_OP, new Expression(first_right));
+      }
 
       int sz = left_columns.length;
       // If there are columns left to equi-join, we resolve the rest with a
@@ -1531,8 +2299,8 @@ public class QueryPlan {
         // Form the expression
         Expression rest_expression = new Expression();
         for (int i = 1; i < sz; ++i) {
-          Variable left_var = left_columns[i];
-          Variable right_var = right_columns[i];
+          Variable left_var = left_cols[i];
+          Variable right_var = right_cols[i];
           rest_expression.addElement(left_var);
           rest_expression.addElement(right_var);
           rest_expression.addOperator(EQUALS_OP);
@@ -1549,11 +2317,30 @@ public class QueryPlan {
 
     public Object clone() throws CloneNotSupportedException {
       EquiJoinNode node = (EquiJoinNode) super.clone();
+      node.left_columns = (Variable[]) left_columns.clone();
+      node.right_columns = (Variable[]) right_columns.clone();
       cloneArray(node.left_columns);
       cloneArray(node.right_columns);
       return node;
     }
 
+    public String titleString() {
+      StringBuffer buf = new StringBuffer();
+      buf.append("EQUI JOIN: ");
+      for (int i = 0; i < left_columns.length; ++i) {
+        if (i > 0) {
+          buf.append(" AND ");
+        }
+        buf.append(left_columns[i]);
+        buf.append(" = ");
+        buf.append(right_columns[i]);
+      }
+      if (join_method == HASH) {
+        buf.append(" (HASH)");
+      }
+      return new String(buf);
+    }
+
   }
 
   /**
@@ -0,0 +1,535 @@
+/**
+ * com.mckoi.database.RowSorter  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import java.text.CollationKey;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import com.mckoi.util.IntegerVector;
+import com.mckoi.util.BigNumber;
+import com.mckoi.database.global.StringAccessor;
+
+/**
+ * Sorts the rows of a table by a list of columns in a single pass.  The
+ * values of the sort columns are read from the table once when the sorter
+ * is constructed and kept in a compact form for each column.  A column of
+ * integer numbers is stored as an array of longs, a column of strings is
+ * stored as an array of Strings (or CollationKeys if the strings have a
+ * locale), and any other column is stored as an array of TObject.  The rows
+ * are then sorted with a stable merge sort that compares the stored keys.
+ * <p>
+ * This is much quicker than sorting a table once for each column because
+ * the cells of the table are only read once and the rows are only sorted
+ * once.
+ * <p>
+ * A large sort is split into a run for each processor.  The runs are sorted
+ * by a shared pool of threads and then merged in pairs, also in parallel.
+ * The keys are not changed once they are read so the threads only share
+ * read only data and disjoint parts of the order arrays.
+ * <p>
+ * NULL values sort before non null values, the same as TObject.compareTo.
+ *
+ * @author Tobias Downer
+ */
+
+final class RowSorter {
+
+  /**
+   * Runs of this size or smaller are sorted with an insertion sort.
+   */
+  private static final int INSERTION_SORT_SIZE = 16;
+
+  /**
+   * The smallest number of rows that is sorted by a thread of its own.  A
+   * sort of less than twice this many rows is done in the calling thread.
+   */
+  private static final int PARALLEL_SORT_SIZE = 32768;
+
+  /**
+   * The number of threads in the sort thread pool.
+   */
+  private static final int SORT_THREAD_COUNT =
+                               Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The thread pool shared by all parallel sorts, or null if it hasn't been
+   * created yet.
+   */
+  private static ExecutorService sort_executor = null;
+
+  /**
+   * The row index in the table of each entry.
+   */
+  private int[] rows;
+
+  /**
+   * The keys of each column being sorted.
+   */
+  private SortKey[] keys;
+
+  /**
+   * The order of the entries after the sort.
+   */
+  private int[] order;
+
+  /**
+   * Constructs the sorter and reads the keys of the given columns for each
+   * row in the table.  'ascending' gives the sort direction of each column.
+   */
+  RowSorter(Table table, int[] columns, boolean[] ascending) {
+    int row_count = table.getRowCount();
+    rows = new int[row_count];
+    RowEnumeration e = table.rowEnumeration();
+    int i = 0;
+    while (e.hasMoreRows()) {
+      rows[i] = e.nextRowIndex();
+      ++i;
+    }
+    if (i != row_count) {
+      throw new Error("Internal Error, row count != enumerated row count");
+    }
+
+    keys = new SortKey[columns.length];
+    for (int n = 0; n < columns.length; ++n) {
+      keys[n] = createKey(table, columns[n], ascending[n]);
+    }
+  }
+
+  /**
+   * Reads the cells of the given column into the most compact key that can
+   * represent them.
+   */
+  private SortKey createKey(Table table, int column, boolean ascending) {
+    int row_count = rows.length;
+    TObject[] cells = new TObject[row_count];
+    boolean all_long = true;
+    boolean all_string = true;
+    for (int i = 0; i < row_count; ++i) {
+      TObject cell = table.getCellContents(column, rows[i]);
+      cells[i] = cell;
+      if (!cell.isNull()) {
+        Object ob = cell.getObject();
+        all_long = all_long && (cell.getTType() instanceof TNumericType) &&
+                   ((BigNumber) ob).canBeRepresentedAsLong();
+        all_string = all_string && (cell.getTType() instanceof TStringType) &&
+                     ((StringAccessor) ob).length() < 32 * 1024;
+      }
+    }
+
+    if (all_long) {
+      long[] values = new long[row_count];
+      boolean[] nulls = new boolean[row_count];
+      for (int i = 0; i < row_count; ++i) {
+        if (cells[i].isNull()) {
+          nulls[i] = true;
+        }
+        else {
+          values[i] = ((BigNumber) cells[i].getObject()).longValue();
+        }
+      }
+      return new LongKey(values, nulls, ascending);
+    }
+    else if (all_string) {
+      // The locale of the column is the locale of the first string that has
+      // one.
+      TStringType locale_type = null;
+      for (int i = 0; i < row_count && locale_type == null; ++i) {
+        if (!cells[i].isNull()) {
+          TStringType stype = (TStringType) cells[i].getTType();
+          if (stype.getLocale() != null) {
+            locale_type = stype;
+          }
+        }
+      }
+      Comparable[] values = new Comparable[row_count];
+      for (int i = 0; i < row_count; ++i) {
+        if (!cells[i].isNull()) {
+          StringAccessor str = (StringAccessor) cells[i].getObject();
+          if (locale_type == null) {
+            values[i] = str.toString();
+          }
+          else {
+            values[i] = locale_type.getCollationKey(str);
+          }
+        }
+      }
+      return new ComparableKey(values, ascending);
+    }
+    else {
+      return new ObjectKey(cells, ascending);
+    }
+  }
+
+  /**
+   * Compares the entries at the given positions over all the sort columns.
+   */
+  private int compare(int p1, int p2) {
+    for (int n = 0; n < keys.length; ++n) {
+      int c = keys[n].compare(p1, p2);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the rows.  Rows with equal keys stay in the order they were
+   * enumerated from the table.
+   */
+  void sort() {
+    int size = rows.length;
+    int[] src = new int[size];
+    for (int i = 0; i < size; ++i) {
+      src[i] = i;
+    }
+    int[] dst = new int[size];
+
+    int run_count = Math.min(SORT_THREAD_COUNT, size / PARALLEL_SORT_SIZE);
+    if (run_count <= 1) {
+      sortRange(src, dst, 0, size);
+      order = src;
+      return;
+    }
+
+    // Split the entries into runs of about the same size and sort the runs
+    // in parallel.
+    int[] bounds = new int[run_count + 1];
+    for (int i = 0; i <= run_count; ++i) {
+      bounds[i] = (int) (((long) size * i) / run_count);
+    }
+    final int[] sort_src = src;
+    final int[] sort_dst = dst;
+    Runnable[] tasks = new Runnable[run_count];
+    for (int i = 0; i < run_count; ++i) {
+      final int start = bounds[i];
+      final int end = bounds[i + 1];
+      tasks[i] = new Runnable() {
+        public void run() {
+          sortRange(sort_src, sort_dst, start, end);
+        }
+      };
+    }
+    runAll(tasks);
+
+    // Merge pairs of runs in parallel until there is one run
+    while (run_count > 1) {
+      final int[] merge_src = src;
+      final int[] merge_dst = dst;
+      int new_run_count = (run_count + 1) / 2;
+      int[] new_bounds = new int[new_run_count + 1];
+      tasks = new Runnable[new_run_count];
+      for (int i = 0; i < new_run_count; ++i) {
+        final int start = bounds[i * 2];
+        final int mid = bounds[Math.min((i * 2) + 1, run_count)];
+        final int end = bounds[Math.min((i * 2) + 2, run_count)];
+        new_bounds[i] = start;
+        tasks[i] = new Runnable() {
+          public void run() {
+            merge(merge_src, merge_dst, start, mid, end);
+          }
+        };
+      }
+      new_bounds[new_run_count] = size;
+      runAll(tasks);
+      bounds = new_bounds;
+      run_count = new_run_count;
+      src = merge_dst;
+      dst = merge_src;
+    }
+
+    order = src;
+  }
+
+  /**
+   * Sorts the entries of 'src' between 'start' and 'end' using 'tmp' for
+   * the merge passes.  The sorted entries are left in 'src'.
+   */
+  private void sortRange(int[] src, int[] tmp, int start, int end) {
+    // Insertion sort the small runs
+    for (int run = start; run < end; run += INSERTION_SORT_SIZE) {
+      int run_end = Math.min(run + INSERTION_SORT_SIZE, end);
+      for (int i = run + 1; i < run_end; ++i) {
+        int v = src[i];
+        int j = i - 1;
+        while (j >= run && compare(src[j], v) > 0) {
+          src[j + 1] = src[j];
+          --j;
+        }
+        src[j + 1] = v;
+      }
+    }
+
+    // Merge the runs
+    int[] from = src;
+    int[] to = tmp;
+    for (int width = INSERTION_SORT_SIZE; width < end - start; width *= 2) {
+      for (int run = start; run < end; run += width * 2) {
+        int mid = Math.min(run + width, end);
+        int run_end = Math.min(run + (width * 2), end);
+        merge(from, to, run, mid, run_end);
+      }
+      int[] t = from;
+      from = to;
+      to = t;
+    }
+    if (from != src) {
+      System.arraycopy(from, start, src, start, end - start);
+    }
+  }
+
+  /**
+   * Merges the sorted runs of 'src' from 'start' to 'mid' and from 'mid' to
+   * 'end' into 'dst'.  An entry of the first run goes before an equal entry
+   * of the second run.
+   */
+  private void merge(int[] src, int[] dst, int start, int mid, int end) {
+    // If the runs are already in order, copy them
+    if (mid >= end || compare(src[mid - 1], src[mid]) <= 0) {
+      System.arraycopy(src, start, dst, start, end - start);
+      return;
+    }
+    int i = start;
+    int j = mid;
+    int k = start;
+    while (i < mid && j < end) {
+      if (compare(src[j], src[i]) < 0) {
+        dst[k] = src[j];
+        ++j;
+      }
+      else {
+        dst[k] = src[i];
+        ++i;
+      }
+      ++k;
+    }
+    while (i < mid) {
+      dst[k] = src[i];
+      ++i;
+      ++k;
+    }
+    while (j < end) {
+      dst[k] = src[j];
+      ++j;
+      ++k;
+    }
+  }
+
+  /**
+   * Returns the thread pool used by parallel sorts.
+   */
+  private static synchronized ExecutorService sortExecutor() {
+    if (sort_executor == null) {
+      sort_executor = Executors.newFixedThreadPool(SORT_THREAD_COUNT,
+                                                   new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Mckoi - Sort");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return sort_executor;
+  }
+
+  /**
+   * Runs the given tasks in the sort thread pool and returns when they have
+   * all finished.  The first task is run in the calling thread.  If a task
+   * fails then the exception is thrown in the calling thread.
+   */
+  private static void runAll(Runnable[] tasks) {
+    Future[] futures = new Future[tasks.length];
+    ExecutorService executor = sortExecutor();
+    for (int i = 1; i < tasks.length; ++i) {
+      futures[i] = executor.submit(tasks[i]);
+    }
+    Throwable failure = null;
+    try {
+      tasks[0].run();
+    }
+    catch (RuntimeException e) {
+      failure = e;
+    }
+    catch (Error e) {
+      failure = e;
+    }
+    // Wait for all the tasks to finish, even if one failed, so no task is
+    // still using the arrays when this returns.
+    for (int i = 1; i < tasks.length; ++i) {
+      while (true) {
+        try {
+          futures[i].get();
+          break;
+        }
+        catch (InterruptedException e) {
+          /* ignore */
+        }
+        catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+          break;
+        }
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    else if (failure != null) {
+      throw new RuntimeException(failure.getMessage());
+    }
+  }
+
+  /**
+   * Returns the number of rows being sorted.
+   */
+  int size() {
+    return rows.length;
+  }
+
+  /**
+   * Returns the row index in the table of the given position in the sorted
+   * order.
+   */
+  int rowAt(int i) {
+    return rows[order[i]];
+  }
+
+  /**
+   * Returns true if the keys of the two given positions in the sorted order
+   * are equal.
+   */
+  boolean equalKeys(int i, int j) {
+    return compare(order[i], order[j]) == 0;
+  }
+
+  /**
+   * Returns the row indexes in the table in the sorted order.
+   */
+  IntegerVector sortedRows() {
+    int size = rows.length;
+    IntegerVector ivec = new IntegerVector(size);
+    for (int i = 0; i < size; ++i) {
+      ivec.addInt(rows[order[i]]);
+    }
+    return ivec;
+  }
+
+  // ---------- Inner classes ----------
+
+  /**
+   * The keys of a column being sorted.
+   */
+  private static abstract class SortKey {
+
+    /**
+     * Compares the keys of the entries at the given positions.
+     */
+    abstract int compare(int p1, int p2);
+
+  }
+
+  /**
+   * A column of integer numbers.
+   */
+  private static final class LongKey extends SortKey {
+
+    private final long[] values;
+    private final boolean[] nulls;
+    private final boolean ascending;
+
+    LongKey(long[] values, boolean[] nulls, boolean ascending) {
+      this.values = values;
+      this.nulls = nulls;
+      this.ascending = ascending;
+    }
+
+    int compare(int p1, int p2) {
+      int c;
+      if (nulls[p1] || nulls[p2]) {
+        c = (nulls[p1] ? 0 : 1) - (nulls[p2] ? 0 : 1);
+      }
+      else {
+        long v1 = values[p1];
+        long v2 = values[p2];
+        c = (v1 < v2) ? -1 : ((v1 == v2) ? 0 : 1);
+      }
+      return ascending ? c : -c;
+    }
+
+  }
+
+  /**
+   * A column of Comparable objects (String or CollationKey).  A null
+   * entry is a NULL value.
+   */
+  private static final class ComparableKey extends SortKey {
+
+    private final Comparable[] values;
+    private final boolean ascending;
+
+    ComparableKey(Comparable[] values, boolean ascending) {
+      this.values = values;
+      this.ascending = ascending;
+    }
+
+    int compare(int p1, int p2) {
+      Comparable v1 = values[p1];
+      Comparable v2 = values[p2];
+      int c;
+      if (v1 == null || v2 == null) {
+        c = (v1 == null ? 0 : 1) - (v2 == null ? 0 : 1);
+      }
+      else {
+        c = v1.compareTo(v2);
+      }
+      return ascending ? c : -c;
+    }
+
+  }
+
+  /**
+   * Any other column.  The TObject values are compared.
+   */
+  private static final class ObjectKey extends SortKey {
+
+    private final TObject[] values;
+    private final boolean ascending;
+
+    ObjectKey(TObject[] values, boolean ascending) {
+      this.values = values;
+      this.ascending = ascending;
+    }
+
+    int compare(int p1, int p2) {
+      int c = values[p1].compareTo(values[p2]);
+      return ascending ? c : -c;
+    }
+
+  }
+
+}
@@ -342,6 +342,23 @@ public abstract class SelectableScheme {
              SelectableRange.LAST_VALUE, SelectableRange.LAST_IN_SET));
   }
 
+  /**
+   * Returns the first 'count' rows of the sorted set, or the last 'count'
+   * rows in reverse order if 'ascending' is false.  This is the same as
+   * the start of 'selectAll' (reversed if descending) but a scheme may
+   * implement this without having to read the whole set.
+   */
+  public IntegerVector selectTop(int count, boolean ascending) {
+    IntegerVector ivec = selectAll();
+    if (!ascending) {
+      ivec.reverse();
+    }
+    if (ivec.size() > count) {
+      ivec.crop(0, count);
+    }
+    return ivec;
+  }
+
   public IntegerVector selectFirst() {
     // NOTE: This will find NULL at start which is probably wrong.  The
     //   first value should be the first non null value.
@@ -350,6 +367,23 @@ public abstract class SelectableScheme {
              SelectableRange.LAST_VALUE, SelectableRange.FIRST_IN_SET));
   }
 
+  /**
+   * Returns the rows with the lowest value in the column that isn't NULL,
+   * or an empty set if every value in the column is NULL.
+   */
+  public IntegerVector selectFirstNonNull() {
+    IntegerVector ivec = selectFirst();
+    if (ivec.size() == 0 || !getCellContents(ivec.intAt(0)).isNull()) {
+      return ivec;
+    }
+    // The first value is NULL so find the first value after it.
+    ivec = selectAllNonNull();
+    if (ivec.size() == 0) {
+      return ivec;
+    }
+    return selectEqual(getCellContents(ivec.intAt(0)));
+  }
+
   public IntegerVector selectNotFirst() {
     // NOTE: This will find NULL at start which is probably wrong.  The
     //   first value should be the first non null value.
@@ -302,6 +302,16 @@ public abstract class SimpleTransaction {
     table_cache.remove(table_name);
   }
 
+  /**
+   * Returns true if rows have been added to or removed from the given table
+   * in this transaction.
+   */
+  boolean hasChangedTable(TableName table_name) {
+    MutableTableDataSource table =
+                         (MutableTableDataSource) table_cache.get(table_name);
+    return table != null && table.getJournal().entries() > 0;
+  }
+
   /**
    * Adds a MasterTableDataSource and IndexSet to this transaction view.
    */
@@ -21,6 +21,7 @@
 package com.mckoi.database;
 
 import com.mckoi.util.Cache;
+import java.util.ArrayList;
 import com.mckoi.database.global.ObjectTranslator;
 import com.mckoi.database.global.ByteLongObject;
 import com.mckoi.debug.*;
@@ -31,6 +32,22 @@ import com.mckoi.debug.*;
  * performance of queries that are run repeatedly (for example, multiple
  * INSERT statements).
  * <p>
+ * This also maintains a cache of the query plans of SELECT statements so a
+ * query that is run repeatedly (for example, a prepared statement) isn't
+ * parsed and planned every time it is run.  A plan is keyed on the query
+ * string and the schema/case state of the connection that formed it.  The
+ * parameters of the query are left in the plan as ParameterSubstitution
+ * elements that are resolved by the QueryContext when the plan is
+ * evaluated.  A cached plan is only valid for as long as the tables it
+ * references have the same definition, so the DataTableDef of each
+ * referenced table is recorded with the plan.  Any DDL that is committed on
+ * a referenced table (drop, alter, etc) replaces the table definition, which
+ * invalidates the plan the next time it is looked up.  The plan is also
+ * invalidated when a referenced table is analyzed because the planner uses
+ * the table statistics to order joins.  Access privileges are
+ * not part of a plan because they are checked every time a plan is
+ * evaluated.
+ * <p>
  * SYNCHRONIZATION: This object is safe to use over multiple threads.
  *
  * @author Tobias Downer
@@ -48,6 +65,11 @@ public final class StatementCache {
    */
   private Cache cache;
 
+  /**
+   * The cache of query plans.  (PlanKey) -> (CachedPlan)
+   */
+  private Cache plan_cache;
+
   /**
    * Constructs the cache.
    */
@@ -55,6 +77,7 @@ public final class StatementCache {
                         int hash_size, int max_size, int clean_percentage) {
     this.system = system;
     cache = new Cache(hash_size, max_size, clean_percentage);
+    plan_cache = new Cache(hash_size, max_size, clean_percentage);
   }
 
   /**
@@ -107,4 +130,155 @@ public final class StatementCache {
     return null;
   }
 
+  /**
+   * Puts the query plan for a query string into the cache.  The plan is
+   * cloned so the given plan may be evaluated after this returns.  The plan
+   * is not cached if a table it references can't be found in the given
+   * connection.
+   */
+  public void putPlan(String query_string, DatabaseConnection connection,
+                      QueryPlanNode plan) {
+    // Record the definitions of all the tables the plan references.
+    ArrayList touched_tables = plan.discoverTableNames(new ArrayList());
+    int sz = touched_tables.size();
+    TableName[] table_names = new TableName[sz];
+    DataTableDef[] table_defs = new DataTableDef[sz];
+    long[] analyzed_times = new long[sz];
+    for (int i = 0; i < sz; ++i) {
+      table_names[i] = (TableName) touched_tables.get(i);
+      table_defs[i] = connection.getDataTableDef(table_names[i]);
+      if (table_defs[i] == null) {
+        return;
+      }
+      analyzed_times[i] = analyzedTime(connection, table_names[i]);
+    }
+
+    CachedPlan cached_plan;
+    try {
+      cached_plan = new CachedPlan((QueryPlanNode) plan.clone(),
+                                   table_names, table_defs, analyzed_times);
+    }
+    catch (CloneNotSupportedException e) {
+      Debug().writeException(e);
+      throw new Error("Unable to clone query plan: " + e.getMessage());
+    }
+    PlanKey key = new PlanKey(query_string, connection);
+    synchronized (this) {
+      plan_cache.put(key, cached_plan);
+    }
+  }
+
+  /**
+   * Returns a query plan for the query string if one is stored in the cache
+   * and the tables it references have not been changed, as seen by the given
+   * connection.  The returned plan is a clone of the cached plan that is
+   * owned by the caller.  Returns null if there is no valid plan in the
+   * cache.
+   */
+  public QueryPlanNode getPlan(String query_string,
+                               DatabaseConnection connection) {
+    PlanKey key = new PlanKey(query_string, connection);
+    CachedPlan cached_plan;
+    synchronized (this) {
+      cached_plan = (CachedPlan) plan_cache.get(key);
+    }
+
+    if (cached_plan != null) {
+      // Check the tables referenced by the plan are the same tables the
+      // plan was formed against.
+      boolean valid = true;
+      TableName[] table_names = cached_plan.table_names;
+      for (int i = 0; i < table_names.length && valid; ++i) {
+        valid = (connection.getDataTableDef(table_names[i]) ==
+                 cached_plan.table_defs[i]) &&
+                (analyzedTime(connection, table_names[i]) ==
+                 cached_plan.analyzed_times[i]);
+      }
+      if (valid) {
+        system.stats().increment("StatementCache.plan_hits");
+        try {
+          return (QueryPlanNode) cached_plan.plan.clone();
+        }
+        catch (CloneNotSupportedException e) {
+          Debug().writeException(e);
+          throw new Error("Unable to clone query plan: " + e.getMessage());
+        }
+      }
+      // A table the plan depends on has changed so remove the plan.
+      synchronized (this) {
+        if (plan_cache.get(key) == cached_plan) {
+          plan_cache.remove(key);
+        }
+      }
+    }
+    system.stats().increment("StatementCache.plan_misses");
+    return null;
+  }
+
+  /**
+   * Returns the time the table was last analyzed as seen by the connection,
+   * or -1 if it hasn't been analyzed.
+   */
+  private static long analyzedTime(DatabaseConnection connection,
+                                   TableName table_name) {
+    TableStatistics stats =
+         connection.getStatisticsManager().getTableStatistics(table_name);
+    return (stats == null) ? -1 : stats.getAnalyzedTime();
+  }
+
+  // ---------- Inner classes ----------
+
+  /**
+   * The key of a plan in the plan cache.  The plan of a query depends on the
+   * current schema and the case sensitivity of the connection because they
+   * determine how table and column names are resolved.
+   */
+  private static final class PlanKey {
+
+    private final String query_string;
+    private final String schema;
+    private final boolean case_insensitive;
+
+    PlanKey(String query_string, DatabaseConnection connection) {
+      this.query_string = query_string.trim();
+      this.schema = connection.getCurrentSchema();
+      this.case_insensitive = connection.isInCaseInsensitiveMode();
+    }
+
+    public int hashCode() {
+      return query_string.hashCode() + schema.hashCode() +
+             (case_insensitive ? 1 : 0);
+    }
+
+    public boolean equals(Object ob) {
+      PlanKey key = (PlanKey) ob;
+      return query_string.equals(key.query_string) &&
+             schema.equals(key.schema) &&
+             case_insensitive == key.case_insensitive;
+    }
+
+  }
+
+  /**
+   * A query plan in the plan cache, and the definitions of the tables the
+   * plan was formed against and when they were analyzed.
+   */
+  private static final class CachedPlan {
+
+    final QueryPlanNode plan;
+    final TableName[] table_names;
+    final DataTableDef[] table_defs;
+    final long[] analyzed_times;
+
+    CachedPlan(QueryPlanNode plan,
+               TableName[] table_names, DataTableDef[] table_defs,
+               long[] analyzed_times) {
+      this.plan = plan;
+      this.table_names = table_names;
+      this.table_defs = table_defs;
+      this.analyzed_times = analyzed_times;
+    }
+
+  }
+
 }
@@ -0,0 +1,271 @@
+/**
+ * com.mckoi.database.StatisticsManager  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import com.mckoi.database.global.BlobAccessor;
+import com.mckoi.util.IntegerVector;
+
+/**
+ * A DatabaseConnection statistics manager.  This analyzes tables for the
+ * ANALYZE command and stores the statistics in the system column statistics
+ * table, and provides the statistics of a table to the query planner.
+ * <p>
+ * A table is analyzed from a random sample of its rows.  The system table
+ * has a row for each column of an analyzed table with the number of rows
+ * in the table, the fraction of the values that are NULL, the estimated
+ * number of distinct values, a serialized blob of the most common values
+ * and the histogram (see ColumnStatistics), and the time of the analysis.
+ *
+ * @author Tobias Downer
+ */
+
+public class StatisticsManager {
+
+  /**
+   * The number of rows that are sampled from a table.
+   */
+  public static final int SAMPLE_SIZE = 30000;
+
+  /**
+   * The value cached for a table that has no statistics.
+   */
+  private static final Object NO_STATISTICS = new Object();
+
+  /**
+   * The DatabaseConnection.
+   */
+  private DatabaseConnection connection;
+
+  /**
+   * The context.
+   */
+  private DatabaseQueryContext context;
+
+  /**
+   * Set to true when the connection makes changes to the statistics table
+   * through this manager.
+   */
+  private boolean statistics_table_changed;
+
+  /**
+   * A local cache of TableStatistics objects mapped by table name.  This
+   * cache is invalidated when changes are committed to the system statistics
+   * table.
+   */
+  private HashMap local_cache;
+
+  /**
+   * Constructs the StatisticsManager for a DatabaseConnection.
+   */
+  StatisticsManager(DatabaseConnection connection) {
+    this.connection = connection;
+    this.context = new DatabaseQueryContext(connection);
+    this.local_cache = new HashMap();
+    this.statistics_table_changed = false;
+
+    // Attach a cache backed on the statistics table which will invalidate
+    // the connection cache whenever the statistics table is modified.
+    connection.attachTableBackedCache(
+                       new TableBackedCache(Database.SYS_COLUMN_STATISTICS) {
+      public void purgeCacheOfInvalidatedEntries(
+                        IntegerVector added_rows, IntegerVector removed_rows) {
+        // If there were changed then invalidate the cache
+        if (statistics_table_changed) {
+          local_cache.clear();
+          statistics_table_changed = false;
+        }
+        // Otherwise, if there were committed added or removed changes also
+        // invalidate the cache,
+        else if ((added_rows != null && added_rows.size() > 0) ||
+                 (removed_rows != null && removed_rows.size() > 0)) {
+          local_cache.clear();
+        }
+      }
+    });
+
+  }
+
+  /**
+   * Given the statistics table, this returns a new table that contains the
+   * entries of the table with the given name.
+   */
+  private Table findStatisticsEntries(DataTable table, TableName table_name) {
+
+    Operator EQUALS = Operator.get("=");
+
+    Variable schemav = table.getResolvedVariable(0);
+    Variable namev = table.getResolvedVariable(1);
+
+    Table t = table.simpleSelect(context, namev, EQUALS,
+                     new Expression(TObject.stringVal(table_name.getName())));
+    return t.exhaustiveSelect(context, Expression.simple(
+                 schemav, EQUALS, TObject.stringVal(table_name.getSchema())));
+
+  }
+
+  /**
+   * Analyzes the table with the given name and stores its statistics in the
+   * statistics table, replacing any statistics from an earlier analysis.
+   * Returns the statistics.
+   */
+  public TableStatistics analyzeTable(TableName table_name)
+                                                    throws DatabaseException {
+
+    DataTable table = connection.getTable(table_name);
+    DataTableDef table_def = table.getDataTableDef();
+    int row_count = table.getRowCount();
+
+    // Pick a random sample of the rows (reservoir sampling).
+    int sample_size = Math.min(row_count, SAMPLE_SIZE);
+    int[] sample = new int[sample_size];
+    Random random = new Random(row_count);
+    RowEnumeration e = table.rowEnumeration();
+    int seen = 0;
+    while (e.hasMoreRows()) {
+      int row = e.nextRowIndex();
+      if (seen < sample_size) {
+        sample[seen] = row;
+      }
+      else {
+        int i = random.nextInt(seen + 1);
+        if (i < sample_size) {
+          sample[i] = row;
+        }
+      }
+      ++seen;
+    }
+    // Read the rows in order
+    Arrays.sort(sample);
+
+    TableStatistics stats = new TableStatistics(table_name, row_count,
+                                                System.currentTimeMillis());
+    int col_count = table_def.columnCount();
+    for (int col = 0; col < col_count; ++col) {
+      DataTableColumnDef col_def = table_def.columnAt(col);
+      TObject[] values = new TObject[sample_size];
+      for (int i = 0; i < sample_size; ++i) {
+        values[i] = table.getCellContents(col, sample[i]);
+      }
+      stats.addColumnStatistics(ColumnStatistics.fromSample(
+                   col_def.getName(), col_def.getTType(), values, row_count));
+    }
+
+    // Replace the entries in the statistics table
+    DataTable stats_table =
+                      connection.getTable(Database.SYS_COLUMN_STATISTICS);
+    stats_table.delete(findStatisticsEntries(stats_table, table_name));
+    for (int col = 0; col < col_count; ++col) {
+      ColumnStatistics col_stats = stats.getColumnStatistics(
+                                          table_def.columnAt(col).getName());
+      RowData rdat = new RowData(stats_table);
+      rdat.setColumnDataFromObject(0, table_name.getSchema());
+      rdat.setColumnDataFromObject(1, table_name.getName());
+      rdat.setColumnDataFromObject(2, col_stats.getColumnName());
+      rdat.setColumnData(3, TObject.longVal(row_count));
+      rdat.setColumnData(4, TObject.doubleVal(col_stats.getNullFraction()));
+      rdat.setColumnData(5, TObject.longVal(
+                                 Math.round(col_stats.getDistinctCount())));
+      rdat.setColumnDataFromObject(6, col_stats.serializeToBlob());
+      rdat.setColumnData(7, TObject.longVal(stats.getAnalyzedTime()));
+      stats_table.add(rdat);
+    }
+
+    // Change to the statistics table
+    statistics_table_changed = true;
+    local_cache.put(table_name, stats);
+
+    return stats;
+  }
+
+  /**
+   * Deletes the statistics of the table with the given name.  This is
+   * called when the table is dropped.
+   */
+  public void deleteStatistics(TableName table_name)
+                                                    throws DatabaseException {
+    if (!connection.tableExists(Database.SYS_COLUMN_STATISTICS)) {
+      return;
+    }
+    DataTable stats_table =
+                      connection.getTable(Database.SYS_COLUMN_STATISTICS);
+    Table t = findStatisticsEntries(stats_table, table_name);
+    if (t.getRowCount() > 0) {
+      stats_table.delete(t);
+      statistics_table_changed = true;
+      local_cache.remove(table_name);
+    }
+  }
+
+  /**
+   * Returns the statistics of the table with the given name, or null if the
+   * table hasn't been analyzed.
+   * <p>
+   * We assume the access to the cache is limited to the current thread
+   * calling this method.  We don't synchronize over the cache at any time.
+   */
+  public TableStatistics getTableStatistics(TableName table_name) {
+    Object ob = local_cache.get(table_name);
+    if (ob == null) {
+      ob = loadTableStatistics(table_name);
+      local_cache.put(table_name, ob == null ? NO_STATISTICS : ob);
+    }
+    return ob == NO_STATISTICS ? null : (TableStatistics) ob;
+  }
+
+  /**
+   * Reads the statistics of the table with the given name from the
+   * statistics table, or returns null if there are none.
+   */
+  private TableStatistics loadTableStatistics(TableName table_name) {
+    if (!connection.tableExists(Database.SYS_COLUMN_STATISTICS)) {
+      return null;
+    }
+    DataTable stats_table =
+                      connection.getTable(Database.SYS_COLUMN_STATISTICS);
+    if (stats_table.getRowCount() == 0) {
+      return null;
+    }
+    Table t = findStatisticsEntries(stats_table, table_name);
+    TableStatistics stats = null;
+    RowEnumeration e = t.rowEnumeration();
+    while (e.hasMoreRows()) {
+      int row = e.nextRowIndex();
+      if (stats == null) {
+        stats = new TableStatistics(table_name,
+                         t.getCellContents(3, row).toBigNumber().longValue(),
+                         t.getCellContents(7, row).toBigNumber().longValue());
+      }
+      String column = t.getCellContents(2, row).getObject().toString();
+      double null_fraction =
+                     t.getCellContents(4, row).toBigNumber().doubleValue();
+      double distinct_count =
+                     t.getCellContents(5, row).toBigNumber().doubleValue();
+      BlobAccessor blob = (BlobAccessor) t.getCellContents(6, row).getObject();
+      stats.addColumnStatistics(ColumnStatistics.deserializeFromBlob(
+                               column, null_fraction, distinct_count, blob));
+    }
+    return stats;
+  }
+
+}
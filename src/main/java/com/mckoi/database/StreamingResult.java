@@ -0,0 +1,311 @@
+/**
+ * com.mckoi.database.StreamingResult  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import com.mckoi.util.IntegerVector;
+import java.util.ArrayList;
+
+/**
+ * The result of a query where the rows are found as they are read, rather
+ * than all at once when the query is evaluated.  This is used to send the
+ * first rows of a large result to a client without scanning the whole table
+ * first.
+ * <p>
+ * A plan can be streamed if it is a SUBSET (possibly under a LIMIT) over
+ * one or more EXHAUSTIVE selects, possibly with a FUNCTIONS node in
+ * between, over a child that only fetches and selects from a single table.
+ * Plans that sort, group, join or make a result distinct can't be streamed.
+ * The child is evaluated when the result is created, but the exhaustive
+ * select expressions are only evaluated against each row as 'nextRowIndex'
+ * is called.  A LIMIT stops the search as soon as enough rows are found.
+ * <p>
+ * The rows are found as the client reads the result, after the query has
+ * returned (and possibly been committed) and outside the lock of the
+ * connection.  So a plan is only streamed if its select expressions can't
+ * fail and don't depend on the state of the connection.  These are
+ * expressions made only of columns, constants, arithmetic, comparisons, AND
+ * and OR.  Arithmetic on values that aren't numbers, and comparisons of
+ * values that can't be compared, are NULL rather than errors.  Any other
+ * plan is evaluated normally, so its errors are reported when the query is
+ * executed.
+ * <p>
+ * The rows of the child are collected when the result is created because
+ * the row index of a table is only valid while the query holds the lock.
+ * The cells of the result table must be accessed under a root lock in the
+ * same way as any other result.
+ *
+ * @author Tobias Downer
+ */
+
+public final class StreamingResult {
+
+  /**
+   * The name used to mark the table the select expressions are evaluated
+   * against.
+   */
+  private static final String FILTER_MARK = "StreamingResult.filter";
+
+  /**
+   * The result table.  This contains every row of the child, the rows in
+   * the result are those returned by 'nextRowIndex'.
+   */
+  private final Table table;
+
+  /**
+   * The select expressions, in the order they are evaluated.
+   */
+  private final Expression[] filter_list;
+
+  /**
+   * The context the expressions are evaluated in.
+   */
+  private final QueryContext context;
+
+  /**
+   * The resolver for the variables in the expressions.
+   */
+  private final Table.TableVariableResolver resolver;
+
+  /**
+   * The rows of the table the select expressions are evaluated against, in
+   * the order they are searched, or null if the table has a
+   * SimpleRowEnumeration.  The table has the same rows as 'table'.  This is
+   * set to null when the search finishes.
+   */
+  private IntegerVector row_list;
+
+  /**
+   * The number of rows to search.
+   */
+  private final int row_count;
+
+  /**
+   * The number of rows that have been searched.
+   */
+  private int position;
+
+  /**
+   * The number of rows still to skip, and the number of rows still to
+   * return (-1 for no limit).
+   */
+  private int offset, limit;
+
+  /**
+   * Constructs the result.
+   */
+  private StreamingResult(Table table, Table filter_table,
+                          Expression[] filter_list, QueryContext context,
+                          int offset, int limit) {
+    this.table = table;
+    this.filter_list = filter_list;
+    this.context = context;
+    this.resolver = filter_table.getVariableResolver();
+    this.offset = offset;
+    this.limit = limit;
+
+    RowEnumeration e = filter_table.rowEnumeration();
+    if (e instanceof SimpleRowEnumeration) {
+      row_list = null;
+      row_count = filter_table.getRowCount();
+    }
+    else {
+      row_list = new IntegerVector(filter_table.getRowCount());
+      while (e.hasMoreRows()) {
+        row_list.addInt(e.nextRowIndex());
+      }
+      row_count = row_list.size();
+    }
+    position = 0;
+  }
+
+  /**
+   * Returns the result table.  Only the rows returned by 'nextRowIndex' are
+   * part of the result.
+   */
+  public Table getTable() {
+    return table;
+  }
+
+  /**
+   * Returns the row index in the result table of the next row in the
+   * result, or -1 if there are no more rows.  The select expressions are
+   * evaluated against the rows of the table until a row is found where they
+   * are all true.
+   */
+  public int nextRowIndex() {
+    while (limit != 0 && position < row_count) {
+      int row_index = (row_list == null) ? position
+                                         : row_list.intAt(position);
+      ++position;
+      if (isSelected(row_index)) {
+        if (offset > 0) {
+          --offset;
+        }
+        else {
+          if (limit > 0) {
+            --limit;
+          }
+          return row_index;
+        }
+      }
+    }
+    // The search is finished
+    row_list = null;
+    position = row_count;
+    return -1;
+  }
+
+  /**
+   * Returns true if all the select expressions evaluate to true for the
+   * given row.
+   */
+  private boolean isSelected(int row_index) {
+    resolver.setRow(row_index);
+    for (int i = 0; i < filter_list.length; ++i) {
+      TObject val = filter_list[i].evaluate(resolver, context);
+      if (val.isNull() || !(val.getTType() instanceof TBooleanType) ||
+          !val.getObject().equals(Boolean.TRUE)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // ---------- Static methods ----------
+
+  /**
+   * Returns true if the given select expression can be evaluated against
+   * any row without failing and without using the connection.  This is true
+   * if the expression is made only of variables, constants, arithmetic
+   * (not string concatenation), comparisons, AND and OR.
+   */
+  private static boolean isSafeFilter(Expression exp) {
+    int sz = exp.size();
+    for (int i = 0; i < sz; ++i) {
+      Object ob = exp.elementAt(i);
+      if (ob instanceof Operator) {
+        Operator op = (Operator) ob;
+        boolean arithmetic = op.isMathematical() && !op.is("||");
+        if (!arithmetic && !op.isCondition() && !op.isLogical()) {
+          return false;
+        }
+      }
+      else if (ob instanceof TObject) {
+        if (((TObject) ob).getTType() instanceof TArrayType) {
+          return false;
+        }
+      }
+      else if (!(ob instanceof Variable)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the given plan only fetches and selects from a single
+   * table, so it can be evaluated before the rows are streamed.
+   */
+  private static boolean isStreamableChild(QueryPlanNode node) {
+    if (node instanceof QueryPlan.FetchTableNode) {
+      return true;
+    }
+    if (node instanceof QueryPlan.RangeSelectNode ||
+        node instanceof QueryPlan.SimpleSelectNode ||
+        node instanceof QueryPlan.MultiColumnEquiSelectNode ||
+        node instanceof QueryPlan.MultiColumnRangeSelectNode ||
+        node instanceof QueryPlan.FunctionalSelectNode ||
+        node instanceof QueryPlan.ExhaustiveSelectNode ||
+        node instanceof QueryPlan.ConstantSelectNode ||
+        node instanceof QueryPlan.SimplePatternSelectNode ||
+        node instanceof QueryPlan.CachePointNode ||
+        node instanceof QueryPlan.MarkerNode) {
+      return isStreamableChild(
+                         ((QueryPlan.SingleQueryPlanNode) node).child());
+    }
+    return false;
+  }
+
+  /**
+   * Evaluates the given plan as a StreamingResult.  Returns null if the plan
+   * can't be streamed, in which case it should be evaluated normally.
+   */
+  public static StreamingResult evaluate(QueryPlanNode plan,
+                                         QueryContext context) {
+    int offset = 0;
+    int limit = -1;
+    if (plan instanceof QueryPlan.LimitNode) {
+      QueryPlan.LimitNode limit_node = (QueryPlan.LimitNode) plan;
+      offset = limit_node.getOffset();
+      limit = limit_node.getLimit();
+      plan = limit_node.child();
+    }
+    if (!(plan instanceof QueryPlan.SubsetNode)) {
+      return null;
+    }
+
+    // The selects are removed from a copy of the plan
+    QueryPlan.SubsetNode subset;
+    try {
+      subset = (QueryPlan.SubsetNode) plan.clone();
+    }
+    catch (CloneNotSupportedException e) {
+      throw new Error("Unable to clone query plan: " + e.getMessage());
+    }
+
+    QueryPlan.SingleQueryPlanNode parent = subset;
+    QueryPlanNode child = subset.child();
+    if (child instanceof QueryPlan.CreateFunctionsNode) {
+      parent = (QueryPlan.SingleQueryPlanNode) child;
+      child = parent.child();
+    }
+    ArrayList filters = new ArrayList();
+    while (child instanceof QueryPlan.ExhaustiveSelectNode) {
+      QueryPlan.ExhaustiveSelectNode select =
+                                     (QueryPlan.ExhaustiveSelectNode) child;
+      Expression exp = select.getExpression();
+      // Expressions that could fail, or that use the connection (such as
+      // sub-queries and functions), must be evaluated when the query is
+      // executed.
+      if (!isSafeFilter(exp)) {
+        return null;
+      }
+      // The select nearest the table is evaluated first
+      filters.add(0, exp);
+      child = select.child();
+    }
+    if (filters.size() == 0 || !isStreamableChild(child)) {
+      return null;
+    }
+
+    // Remove the selects and mark the table they are evaluated against.
+    parent.child = child;
+    subset.child = new QueryPlan.MarkerNode(subset.child, FILTER_MARK);
+
+    Table table = subset.evaluate(context);
+    Table filter_table = context.getMarkedTable(FILTER_MARK);
+    Expression[] filter_list =
+                (Expression[]) filters.toArray(new Expression[filters.size()]);
+    return new StreamingResult(table, filter_table, filter_list, context,
+                               offset, limit);
+  }
+
+}
@@ -166,6 +166,15 @@ public final class SubsetColumnTable extends FilterTable
                                         mapped_original_column, table);
   }
 
+  boolean hasColumnIndex(int column) {
+    return super.hasColumnIndex(column_map[column]);
+  }
+
+  MultiColumnIndex[] getMultiColumnIndexes() {
+    // The columns of this table are not the columns of the indexes
+    return null;
+  }
+
   /**
    * Given a set, this trickles down through the Table hierarchy resolving
    * the given row_set to a form that the given ancestor understands.
@@ -0,0 +1,198 @@
+/**
+ * com.mckoi.database.SumAccumulator  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import com.mckoi.util.BigNumber;
+import java.math.BigDecimal;
+
+/**
+ * An accumulator that sums numeric values without creating a TObject and
+ * BigNumber for each value added.  While the values are integers that fit
+ * in a long, the sum is kept in a long.  When a value with a scale is added,
+ * or the sum overflows a long, the sum is moved to a BigDecimal.
+ * <p>
+ * The result is exactly the value, scale and type that folding the values
+ * with TObject.operatorAdd gives.  NULL values are ignored, and if a value
+ * that isn't a number is added the rest of the group is folded with the
+ * 'evalAggregate' method of the function.
+ *
+ * @author Tobias Downer
+ */
+
+final class SumAccumulator extends AggregateAccumulator {
+
+  /**
+   * The function this accumulator is summing the values of.
+   */
+  private final AbstractAggregateFunction function;
+
+  /**
+   * The group and context the function is being evaluated in.
+   */
+  private final GroupResolver group;
+  private final QueryContext context;
+
+  /**
+   * The first value added to the accumulator.
+   */
+  private TObject first_value;
+
+  /**
+   * The first non NULL value that was summed.
+   */
+  private TObject first_summed;
+
+  /**
+   * The number of non NULL values that were summed.
+   */
+  private int count;
+
+  /**
+   * The widest type of the values that were summed.
+   */
+  private TType result_type;
+
+  /**
+   * The sum of the integer values while it fits in a long, and the sum of
+   * the values once it doesn't ('big_sum' is not null).  'long_values' is
+   * true if 'long_sum' has any values summed in to it.
+   */
+  private long long_sum;
+  private boolean long_values;
+  private BigDecimal big_sum;
+
+  /**
+   * If an infinity or NaN value was summed then this is the first of them.
+   * The sum is this value from then on.
+   */
+  private BigNumber special_value;
+
+  /**
+   * If a value that isn't a number was added then this is the result of
+   * folding the group with 'evalAggregate'.
+   */
+  private TObject fold_result;
+  private boolean folding;
+
+  /**
+   * Constructs the accumulator.
+   */
+  SumAccumulator(AbstractAggregateFunction function,
+                 GroupResolver group, QueryContext context) {
+    this.function = function;
+    this.group = group;
+    this.context = context;
+  }
+
+  /**
+   * Returns the sum of the values added so far.
+   */
+  private TObject currentResult() {
+    if (count <= 1) {
+      // A single value is returned as it is, or if all the values were NULL
+      // then the first NULL is returned.
+      return (count == 0) ? first_value : first_summed;
+    }
+    BigNumber sum;
+    if (special_value != null) {
+      sum = special_value;
+    }
+    else if (big_sum != null) {
+      sum = BigNumber.fromBigDecimal(big_sum);
+    }
+    else {
+      sum = BigNumber.fromLong(long_sum);
+    }
+    return new TObject(result_type, sum);
+  }
+
+  // ---------- Implemented from AggregateAccumulator ----------
+
+  public void accumulate(TObject value) {
+    if (folding) {
+      fold_result = function.evalAggregate(group, context, fold_result, value);
+      return;
+    }
+    boolean is_first = (first_value == null);
+    if (is_first) {
+      first_value = value;
+    }
+    if (value.isNull()) {
+      return;
+    }
+    if (!(value.getTType() instanceof TNumericType)) {
+      // Fold the rest of the group with the function
+      folding = true;
+      fold_result = function.evalAggregate(group, context,
+                              is_first ? null : currentResult(), value);
+      return;
+    }
+
+    BigNumber num = (BigNumber) value.getObject();
+    if (count == 0) {
+      first_summed = value;
+      result_type = value.getTType();
+    }
+    else {
+      result_type = TType.getWidestType(result_type, value.getTType());
+    }
+    ++count;
+
+    if (special_value != null) {
+      // Infinity or NaN stays that way
+    }
+    else if (num.getState() != 0) {
+      special_value = num;
+    }
+    else if (big_sum == null && num.canBeRepresentedAsLong()) {
+      long v = num.longValue();
+      long r = long_sum + v;
+      long_values = true;
+      // Overflow if both arguments have the opposite sign of the result
+      if (((long_sum ^ r) & (v ^ r)) < 0) {
+        big_sum = BigDecimal.valueOf(long_sum).add(BigDecimal.valueOf(v));
+      }
+      else {
+        long_sum = r;
+      }
+    }
+    else {
+      // The scale of the sum is the largest scale of the values summed,
+      // so the long sum is only included if it has values.
+      if (big_sum == null) {
+        big_sum = long_values ? BigDecimal.valueOf(long_sum).add(
+                                                  num.asBigDecimal())
+                              : num.asBigDecimal();
+      }
+      else {
+        big_sum = big_sum.add(num.asBigDecimal());
+      }
+    }
+  }
+
+  public TObject result() {
+    if (folding) {
+      return fold_result;
+    }
+    return currentResult();
+  }
+
+}
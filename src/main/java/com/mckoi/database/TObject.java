@@ -20,15 +20,20 @@
 
 package com.mckoi.database;
 
+import java.io.InputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
 import java.util.Locale;
 import com.mckoi.util.BigNumber;
+import com.mckoi.util.HyperLogLog;
 import com.mckoi.database.global.ByteLongObject;
+import com.mckoi.database.global.BlobAccessor;
 import com.mckoi.database.global.BlobRef;
 import com.mckoi.database.global.ClobRef;
 import com.mckoi.database.global.SQLTypes;
 import com.mckoi.database.global.StringObject;
+import com.mckoi.database.global.StringAccessor;
 
 /**
  * A TObject is a strongly typed object in a database engine.  A TObject must
@@ -314,6 +319,82 @@ public final class TObject implements java.io.Serializable {
     }
   }
 
+  /**
+   * Returns a 64-bit hash of the value of this object.  Two objects that
+   * compare as equal with 'compareTo' have the same hash, so numbers that
+   * differ only by trailing zeros (eg. 2.5 and 2.50) have the same hash,
+   * booleans have the hash of the numbers 1 and 0, and a string with a
+   * collation is hashed by its collation key.  Every bit of the hash depends
+   * on the value so it may be used for a HyperLogLog sketch, and the lower
+   * bits may be used for a hash table.
+   */
+  public long valueHash() {
+    if (isNull()) {
+      return 0;
+    }
+    TType type = getTType();
+    Object ob = getObject();
+    if (type instanceof TNumericType) {
+      BigNumber num = (BigNumber) ob;
+      if (num.getState() != 0) {
+        return HyperLogLog.hash(-num.getState());
+      }
+      if (num.canBeRepresentedAsLong()) {
+        return HyperLogLog.hash(num.longValue());
+      }
+      // Numbers that differ only by trailing zeros are equal
+      BigDecimal dec = num.asBigDecimal();
+      if (dec.signum() == 0) {
+        return HyperLogLog.hash(0);
+      }
+      dec = dec.stripTrailingZeros();
+      if (dec.scale() <= 0 && dec.precision() - dec.scale() < 19) {
+        return HyperLogLog.hash(dec.longValue());
+      }
+      return HyperLogLog.hash(dec.unscaledValue().toByteArray()) ^
+             HyperLogLog.hash(dec.scale());
+    }
+    else if (type instanceof TStringType) {
+      TStringType str_type = (TStringType) type;
+      if (str_type.getLocale() == null) {
+        return HyperLogLog.hash(ob.toString());
+      }
+      // Strings that are equal in the collation have the same key
+      return HyperLogLog.hash(
+           str_type.getCollationKey((StringAccessor) ob).toByteArray());
+    }
+    else if (type instanceof TDateType) {
+      return HyperLogLog.hash(((java.util.Date) ob).getTime());
+    }
+    else if (type instanceof TBooleanType) {
+      // Booleans compare equal to the numbers 1 and 0
+      return HyperLogLog.hash(((Boolean) ob).booleanValue() ? 1 : 0);
+    }
+    else if (ob instanceof ByteLongObject) {
+      return HyperLogLog.hash(((ByteLongObject) ob).getByteArray());
+    }
+    else if (ob instanceof BlobAccessor) {
+      BlobAccessor blob = (BlobAccessor) ob;
+      byte[] buf = new byte[blob.length()];
+      try {
+        InputStream in = blob.getInputStream();
+        int pos = 0;
+        while (pos < buf.length) {
+          int read = in.read(buf, pos, buf.length - pos);
+          if (read < 0) {
+            break;
+          }
+          pos += read;
+        }
+      }
+      catch (IOException e) {
+        throw new RuntimeException("IO Error: " + e.getMessage());
+      }
+      return HyperLogLog.hash(buf);
+    }
+    return HyperLogLog.hash(ob.toString());
+  }
+
   /**
    * Equality test.  This will throw an exception if it is used.  The reason
    * for this is because it's not clear what we would be testing the equality
@@ -22,6 +22,7 @@ package com.mckoi.database;
 
 import java.util.Locale;
 import java.text.Collator;
+import java.text.CollationKey;
 import com.mckoi.database.global.StringAccessor;
 import java.io.Reader;
 import java.io.IOException;
@@ -256,6 +257,16 @@ public final class TStringType extends TType {
     }
   }
   
+  /**
+   * Returns the CollationKey of the given string in the locale of this type.
+   * Comparing two keys gives the same result as comparing the strings with
+   * 'compareObs' but is quicker when the same strings are compared many
+   * times (eg. when sorting).
+   */
+  CollationKey getCollationKey(StringAccessor str) {
+    return getCollator().getCollationKey(str.toString());
+  }
+
   // ---------- Overwritten from TType ----------
   
   /**
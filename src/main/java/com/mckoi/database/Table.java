@@ -21,9 +21,11 @@
 package com.mckoi.database;
 
 import com.mckoi.util.IntegerVector;
+import com.mckoi.util.IntegerHashList;
 import com.mckoi.debug.*;
 
 //import com.mckoi.database.sql.SelectStatement;    // Evaluating sub-selects
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.io.IOException;
@@ -122,6 +124,215 @@ public abstract class Table implements TableDataSource {
    */
   abstract SelectableScheme getSelectableSchemeFor(int column, int original_column, Table table);
 
+  /**
+   * Returns true if the given column is backed by an index that can be
+   * searched without having to generate it first.  This is true when the
+   * column resolves to an InsertSearch scheme in a root table.  An
+   * intermediate result (such as a VirtualTable) returns false because a
+   * scheme for it must be generated by sorting the column.
+   */
+  boolean hasColumnIndex(int column) {
+    return false;
+  }
+
+  /**
+   * Returns the indexes created by 'CREATE INDEX' over the rows of this
+   * table, or null if there are none that can be used.  Only a table that
+   * has the same columns and rows as the underlying data source returns
+   * the indexes, so the columns of the indexes are the columns of this table
+   * and the rows returned are in this table's row domain.
+   */
+  MultiColumnIndex[] getMultiColumnIndexes() {
+    return null;
+  }
+
+  /**
+   * Returns the number of leading columns in the given index that are all
+   * in 'columns'.
+   */
+  private static int leadingColumnCount(MultiColumnIndex index,
+                                        int[] columns) {
+    int n = 0;
+    while (n < index.columnCount() &&
+           indexOfColumn(columns, index.columnAt(n)) != -1) {
+      ++n;
+    }
+    return n;
+  }
+
+  /**
+   * Returns the position of the given column in the list, or -1 if it isn't
+   * in the list.
+   */
+  private static int indexOfColumn(int[] columns, int column) {
+    for (int i = 0; i < columns.length; ++i) {
+      if (columns[i] == column) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index created by 'CREATE INDEX' on this table that resolves
+   * the most of a search with an equality on each column in 'eq_columns'
+   * and a range on each column in 'range_columns'.  An index resolves the
+   * longest leading group of its columns that are all in 'eq_columns', plus
+   * the column after that if it's in 'range_columns'.  Returns null if no
+   * index resolves at least two of the columns (in which case the index of
+   * a single column is just as good).
+   */
+  final MultiColumnIndex findMultiColumnIndex(int[] eq_columns,
+                                              int[] range_columns) {
+    MultiColumnIndex[] indexes = getMultiColumnIndexes();
+    if (indexes == null) {
+      return null;
+    }
+    MultiColumnIndex best = null;
+    int best_count = 1;
+    for (int i = 0; i < indexes.length; ++i) {
+      MultiColumnIndex index = indexes[i];
+      int count = leadingColumnCount(index, eq_columns);
+      if (count < index.columnCount() &&
+          indexOfColumn(range_columns, index.columnAt(count)) != -1) {
+        ++count;
+      }
+      if (count > best_count) {
+        best = index;
+        best_count = count;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Selects the rows of this table where each column in 'eq_vars' is equal
+   * to the value at the same position in 'eq_values', and each column in
+   * 'range_vars' is within the normalized ranges at the same position in
+   * 'ranges'.  If there is an index created by 'CREATE INDEX' on this table
+   * whose leading columns are in 'eq_vars', optionally followed by a column
+   * in 'range_vars', then the index resolves those columns in a single
+   * search.  Any columns not covered by the index are then selected one at
+   * a time.
+   */
+  public final Table multiColumnSelect(QueryContext context,
+                    Variable[] eq_vars, TObject[] eq_values,
+                    Variable[] range_vars, SelectableRange[][] ranges) {
+
+    int[] eq_cols = new int[eq_vars.length];
+    for (int i = 0; i < eq_cols.length; ++i) {
+      eq_cols[i] = findFieldName(eq_vars[i]);
+      if (eq_cols[i] == -1) {
+        throw new RuntimeException(
+           "Unable to find the column given to select: " + eq_vars[i]);
+      }
+    }
+    int[] range_cols = new int[range_vars.length];
+    for (int i = 0; i < range_cols.length; ++i) {
+      range_cols[i] = findFieldName(range_vars[i]);
+      if (range_cols[i] == -1) {
+        throw new RuntimeException(
+           "Unable to find the column given to select: " + range_vars[i]);
+      }
+    }
+
+    boolean[] eq_done = new boolean[eq_cols.length];
+    boolean[] range_done = new boolean[range_cols.length];
+
+    Table result = this;
+    MultiColumnIndex index = findMultiColumnIndex(eq_cols, range_cols);
+    if (index != null) {
+      IntegerVector rows = null;
+      // The key prefix from the leading equality columns of the index
+      TObject[] prefix = new TObject[leadingColumnCount(index, eq_cols)];
+      for (int i = 0; i < prefix.length; ++i) {
+        int col = index.columnAt(i);
+        int n = indexOfColumn(eq_cols, col);
+        prefix[i] = eq_values[n];
+        eq_done[n] = true;
+        // A NULL or a value that can't be compared with the column is never
+        // equal to anything.
+        if (prefix[i].isNull() ||
+            !prefix[i].getTType().comparableTypes(getTTypeForColumn(col))) {
+          rows = new IntegerVector(0);
+        }
+      }
+      // Is the column after the prefix a range?
+      int r = -1;
+      if (prefix.length < index.columnCount()) {
+        r = indexOfColumn(range_cols, index.columnAt(prefix.length));
+      }
+      if (r != -1) {
+        range_done[r] = true;
+        if (rows == null) {
+          rows = index.prefixScheme(prefix).selectRange(ranges[r]);
+        }
+      }
+      else if (rows == null) {
+        rows = index.selectEqual(prefix);
+      }
+
+      VirtualTable table = new VirtualTable(this);
+      table.set(this, rows);
+      result = table;
+
+      if (DEBUG_QUERY) {
+        if (Debug().isInterestedIn(Lvl.INFORMATION)) {
+          Debug().write(Lvl.INFORMATION, this,
+                      table + " = " + this + ".multiColumnSelect(" +
+                      prefix.length + " columns of a " +
+                      index.columnCount() + " column index )");
+        }
+      }
+    }
+
+    // Select anything the index didn't cover
+    Operator EQUALS_OP = Operator.get("=");
+    for (int i = 0; i < eq_cols.length; ++i) {
+      if (!eq_done[i]) {
+        result = result.simpleSelect(context, eq_vars[i], EQUALS_OP,
+                                     new Expression(eq_values[i]));
+      }
+    }
+    for (int i = 0; i < range_cols.length; ++i) {
+      if (!range_done[i]) {
+        result = result.rangeSelect(range_vars[i], ranges[i]);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the rows of this table in the order of the given columns by
+   * reading them from an index created by 'CREATE INDEX', or null if no
+   * index on this table starts with the columns.  If 'ascending' is false
+   * the rows are in reverse order.
+   */
+  final IntegerVector orderedRowsFromIndex(int[] columns, boolean ascending) {
+    MultiColumnIndex[] indexes = getMultiColumnIndexes();
+    if (indexes == null) {
+      return null;
+    }
+    for (int i = 0; i < indexes.length; ++i) {
+      MultiColumnIndex index = indexes[i];
+      if (index.columnCount() >= columns.length) {
+        boolean match = true;
+        for (int n = 0; n < columns.length && match; ++n) {
+          match = index.columnAt(n) == columns[n];
+        }
+        if (match) {
+          IntegerVector rows = index.selectAll();
+          if (!ascending) {
+            rows.reverse();
+          }
+          return rows;
+        }
+      }
+    }
+    return null;
+  }
+
   /**
    * Given a set, this trickles down through the Table hierarchy resolving
    * the given row_set to a form that the given ancestor understands.
@@ -585,6 +796,299 @@ public abstract class Table implements TableDataSource {
 
   }
 
+  /**
+   * An equi-join operation solved with a hash join.  The join condition is
+   * the conjunction of 'lhs_vars[n] = rhs_vars[n]' for every column pair,
+   * where the lhs columns are in this table and the rhs columns are in the
+   * given table.
+   * <p>
+   * The join algorithm works as follows:  A hash of the join key of every row
+   * in the smaller of the two tables is put in an IntegerHashList.  Every row
+   * of the larger table is then iterated through and the rows with the same
+   * hash are looked up and checked for equality on all the join columns.
+   * <p>
+   * The rows of the result are in the same order as the result of
+   * 'simpleJoin', that is, ordered by the row in the given table then by the
+   * row in this table.
+   * <p>
+   * This does not use any SelectableScheme so it is a good choice when
+   * neither column is indexed, or when the tables are intermediate results
+   * where an index would have to be generated by sorting the column.
+   * <p>
+   * The type of every column pair must pass 'isHashJoinable'.
+   */
+  public final Table equiHashJoin(QueryContext context, Table table,
+                                  Variable[] lhs_vars, Variable[] rhs_vars) {
+
+    int key_count = lhs_vars.length;
+    int[] lhs_columns = new int[key_count];
+    int[] rhs_columns = new int[key_count];
+    for (int i = 0; i < key_count; ++i) {
+      lhs_columns[i] = findFieldName(lhs_vars[i]);
+      if (lhs_columns[i] == -1) {
+        throw new RuntimeException(
+           "Unable to find the LHS column specified in the condition: " +
+           lhs_vars[i].toString());
+      }
+      rhs_columns[i] = table.findFieldName(rhs_vars[i]);
+      if (rhs_columns[i] == -1) {
+        throw new RuntimeException(
+           "Unable to find the RHS column specified in the condition: " +
+           rhs_vars[i].toString());
+      }
+    }
+
+    // The hash is built on the smallest table.
+    boolean build_on_this = getRowCount() <= table.getRowCount();
+    Table build_table = build_on_this ? this : table;
+    Table probe_table = build_on_this ? table : this;
+    int[] build_columns = build_on_this ? lhs_columns : rhs_columns;
+    int[] probe_columns = build_on_this ? rhs_columns : lhs_columns;
+
+    TObject[] key = new TObject[key_count];
+
+    // Build phase.  Rows with a NULL in the key are left out because NULL
+    // is never equal to anything.
+    IntegerHashList hash_list =
+                            new IntegerHashList(build_table.getRowCount());
+    RowEnumeration e = build_table.rowEnumeration();
+    while (e.hasMoreRows()) {
+      int row_index = e.nextRowIndex();
+      if (readJoinKey(build_table, build_columns, row_index, key)) {
+        hash_list.add(joinKeyHash(key), row_index);
+      }
+    }
+
+    IntegerVector this_row_set = new IntegerVector();
+    IntegerVector table_row_set = new IntegerVector();
+
+    // Probe phase.
+    if (hash_list.size() > 0) {
+      IntegerVector matches = new IntegerVector();
+      e = probe_table.rowEnumeration();
+      while (e.hasMoreRows()) {
+        int row_index = e.nextRowIndex();
+        if (!readJoinKey(probe_table, probe_columns, row_index, key)) {
+          continue;
+        }
+        int hash = joinKeyHash(key);
+        matches.clear();
+        for (int n = hash_list.first(hash); n != -1; n = hash_list.next(n)) {
+          int build_row = hash_list.valueAt(n);
+          if (joinKeyMatches(build_table, build_columns, build_row, key)) {
+            matches.addInt(build_row);
+          }
+        }
+        // The hash list returns the most recently added entry first, so
+        // the matches are in reverse build order.
+        for (int i = matches.size() - 1; i >= 0; --i) {
+          int build_row = matches.intAt(i);
+          if (build_on_this) {
+            this_row_set.addInt(build_row);
+            table_row_set.addInt(row_index);
+          }
+          else {
+            this_row_set.addInt(row_index);
+            table_row_set.addInt(build_row);
+          }
+        }
+      }
+    }
+
+    // If this table was probed then put the rows in the order of the given
+    // table.
+    if (!build_on_this) {
+      sortJoinRows(this_row_set, table_row_set);
+    }
+
+    // Create the new VirtualTable with the joined tables.
+
+    Table[] tabs = new Table[] { this, table };
+    IntegerVector[] row_sets = new IntegerVector[]
+                                              { this_row_set, table_row_set };
+
+    VirtualTable out_table = new VirtualTable(tabs);
+    out_table.set(tabs, row_sets);
+
+    if (DEBUG_QUERY) {
+      if (Debug().isInterestedIn(Lvl.INFORMATION)) {
+        StringBuffer buf = new StringBuffer();
+        for (int i = 0; i < key_count; ++i) {
+          if (i > 0) {
+            buf.append(", ");
+          }
+          buf.append(lhs_vars[i]);
+          buf.append(" = ");
+          buf.append(rhs_vars[i]);
+        }
+        Debug().write(Lvl.INFORMATION, this,
+                    out_table + " = " + this + ".equiHashJoin(" + table +
+                    ", " + buf + " )");
+      }
+    }
+
+    return out_table;
+
+  }
+
+  /**
+   * A join of this table with the given table on 'lhs_var = rhs_var' that
+   * returns the same rows in the same order as 'simpleJoin', but looks up
+   * each row of this table in the index of the given table rather than each
+   * row of the given table in the index of this table.  This is used when
+   * the given table is indexed on the column and this table isn't.
+   */
+  public final Table reverseSimpleJoin(QueryContext context, Table table,
+                                       Variable lhs_var, Variable rhs_var) {
+
+    int lhs_column = findFieldName(lhs_var);
+    if (lhs_column == -1) {
+      throw new RuntimeException(
+         "Unable to find the LHS column specified in the condition: " +
+         lhs_var.toString());
+    }
+    int rhs_column = table.findFieldName(rhs_var);
+    if (rhs_column == -1) {
+      throw new RuntimeException(
+         "Unable to find the RHS column specified in the condition: " +
+         rhs_var.toString());
+    }
+
+    Operator EQUALS_OP = Operator.get("=");
+
+    IntegerVector this_row_set = new IntegerVector();
+    IntegerVector table_row_set = new IntegerVector();
+
+    RowEnumeration e = rowEnumeration();
+    while (e.hasMoreRows()) {
+      int row_index = e.nextRowIndex();
+      TObject lhs_val = getCellContents(lhs_column, row_index);
+
+      // Select all the rows in the given table that match this row.
+      IntegerVector selected_set =
+                          table.selectRows(rhs_column, EQUALS_OP, lhs_val);
+
+      int size = selected_set.size();
+      for (int i = 0; i < size; ++i) {
+        this_row_set.addInt(row_index);
+      }
+      table_row_set.append(selected_set);
+    }
+
+    // Put the rows in the order 'simpleJoin' would have found them.
+    sortJoinRows(this_row_set, table_row_set);
+
+    // Create the new VirtualTable with the joined tables.
+
+    Table[] tabs = new Table[] { this, table };
+    IntegerVector[] row_sets = new IntegerVector[]
+                                              { this_row_set, table_row_set };
+
+    VirtualTable out_table = new VirtualTable(tabs);
+    out_table.set(tabs, row_sets);
+
+    if (DEBUG_QUERY) {
+      if (Debug().isInterestedIn(Lvl.INFORMATION)) {
+        Debug().write(Lvl.INFORMATION, this,
+                    out_table + " = " + this + ".reverseSimpleJoin(" + table +
+                    ", " + lhs_var + ", " + rhs_var + " )");
+      }
+    }
+
+    return out_table;
+
+  }
+
+  /**
+   * Sorts the rows of a join of this table with another table so they are
+   * ordered by the row of the other table and then by the row of this
+   * table.  This is the order 'simpleJoin' finds the rows in, because
+   * a row enumeration and an index lookup of equal values both normally
+   * return rows in ascending order.
+   */
+  private static void sortJoinRows(IntegerVector this_row_set,
+                                   IntegerVector table_row_set) {
+    int size = this_row_set.size();
+    long[] pairs = new long[size];
+    for (int i = 0; i < size; ++i) {
+      pairs[i] = (((long) table_row_set.intAt(i)) << 32) |
+                 (this_row_set.intAt(i) & 0x0FFFFFFFFL);
+    }
+    Arrays.sort(pairs);
+    for (int i = 0; i < size; ++i) {
+      table_row_set.setIntAt((int) (pairs[i] >>> 32), i);
+      this_row_set.setIntAt((int) pairs[i], i);
+    }
+  }
+
+  /**
+   * Returns true if values of the two given types can be equi-joined by
+   * 'equiHashJoin'.  Two values that are equal under the '=' operator must
+   * produce the same join hash.  This isn't true for strings compared with a
+   * collator, so these (and any types that can't be compared) must be joined
+   * some other way.
+   */
+  static boolean isHashJoinable(TType type1, TType type2) {
+    if (type1 instanceof TNumericType && type2 instanceof TNumericType) {
+      return true;
+    }
+    else if (type1 instanceof TStringType && type2 instanceof TStringType) {
+      return ((TStringType) type1).getLocale() == null &&
+             ((TStringType) type2).getLocale() == null;
+    }
+    else if (type1 instanceof TDateType && type2 instanceof TDateType) {
+      return true;
+    }
+    else if (type1 instanceof TBooleanType && type2 instanceof TBooleanType) {
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Reads the join key of the given row into the 'key' array.  Returns false
+   * if any value in the key is NULL.
+   */
+  private static boolean readJoinKey(Table table, int[] columns, int row,
+                                     TObject[] key) {
+    for (int i = 0; i < columns.length; ++i) {
+      TObject cell = table.getCellContents(columns[i], row);
+      if (cell.isNull()) {
+        return false;
+      }
+      key[i] = cell;
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the join key of the given row is equal to 'key'.
+   */
+  private static boolean joinKeyMatches(Table table, int[] columns, int row,
+                                        TObject[] key) {
+    for (int i = 0; i < columns.length; ++i) {
+      TObject cell = table.getCellContents(columns[i], row);
+      if (cell.isNull() || cell.compareToNoNulls(key[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Calculates the hash of a join key from 'TObject.valueHash' of each value
+   * so values of different types or scales that are equal (eg. 1 and 1.00)
+   * produce the same hash.
+   */
+  private static int joinKeyHash(TObject[] key) {
+    int hash = 0;
+    for (int i = 0; i < key.length; ++i) {
+      long h = key[i].valueHash();
+      hash = (31 * hash) + (int) (h ^ (h >>> 32));
+    }
+    return hash;
+  }
+
   /**
    * Exhaustively searches through this table for rows that match the
    * expression given.  This is the slowest type of query and is not able to
@@ -1233,32 +1737,47 @@ public abstract class Table implements TableDataSource {
    */
   public final Table distinct(int[] col_map) {
     IntegerVector result_list = new IntegerVector();
-    IntegerVector row_list = orderedRowList(col_map);
 
-    int r_count = row_list.size();
-    int previous_row = -1;
-    for (int i = 0; i < r_count; ++i) {
-      int row_index = row_list.intAt(i);
+    // If there is more than one column, sort the rows in a single pass and
+    // compare the sorted keys.
+    if (col_map.length > 1) {
+      RowSorter sorter = new RowSorter(this, col_map, allAscending(col_map));
+      sorter.sort();
+      int r_count = sorter.size();
+      for (int i = 0; i < r_count; ++i) {
+        if (i == 0 || !sorter.equalKeys(i - 1, i)) {
+          result_list.addInt(sorter.rowAt(i));
+        }
+      }
+    }
+    else {
+      IntegerVector row_list = orderedRowList(col_map);
 
-      if (previous_row != -1) {
+      int r_count = row_list.size();
+      int previous_row = -1;
+      for (int i = 0; i < r_count; ++i) {
+        int row_index = row_list.intAt(i);
 
-        boolean equal = true;
-        // Compare cell in column in this row with previous row.
-        for (int n = 0; n < col_map.length && equal; ++n) {
-          TObject c1 = getCellContents(col_map[n], row_index);
-          TObject c2 = getCellContents(col_map[n], previous_row);
-          equal = equal && (c1.compareTo(c2) == 0);
-        }
+        if (previous_row != -1) {
+
+          boolean equal = true;
+          // Compare cell in column in this row with previous row.
+          for (int n = 0; n < col_map.length && equal; ++n) {
+            TObject c1 = getCellContents(col_map[n], row_index);
+            TObject c2 = getCellContents(col_map[n], previous_row);
+            equal = equal && (c1.compareTo(c2) == 0);
+          }
 
-        if (!equal) {
+          if (!equal) {
+            result_list.addInt(row_index);
+          }
+        }
+        else {
           result_list.addInt(row_index);
         }
-      }
-      else {
-        result_list.addInt(row_index);
-      }
 
-      previous_row = row_index;
+        previous_row = row_index;
+      }
     }
 
     // Return the new table with distinct rows only.
@@ -1317,6 +1836,17 @@ public abstract class Table implements TableDataSource {
     return (ivec.size() == getRowCount());
   }
 
+  /**
+   * Returns an array of 'true' values for each column in the given map.
+   */
+  private static boolean[] allAscending(int[] col_map) {
+    boolean[] ascending = new boolean[col_map.length];
+    for (int i = 0; i < ascending.length; ++i) {
+      ascending[i] = true;
+    }
+    return ascending;
+  }
+
   /**
    * Returns a table that is ordered by the given column numbers.  This
    * can be used by various functions from grouping to distinction to
@@ -1341,6 +1871,13 @@ public abstract class Table implements TableDataSource {
    * table in sorted order by the given column map.
    */
   public final IntegerVector orderedRowList(int[] col_map) {
+    // If there is more than one column, sort the rows in a single pass.
+    if (col_map.length > 1) {
+      RowSorter sorter = new RowSorter(this, col_map, allAscending(col_map));
+      sorter.sort();
+      return sorter.sortedRows();
+    }
+
     Table work = orderByColumns(col_map);
     // 'work' is now sorted by the columns,
     // Get the rows in this tables domain,
@@ -1578,6 +2115,15 @@ public abstract class Table implements TableDataSource {
     return ss.selectAll();
   }
 
+  /**
+   * Returns the first 'count' rows in the sorted order of the given column,
+   * or the last 'count' rows in reverse order if 'ascending' is false.
+   */
+  final IntegerVector selectTop(int column, int count, boolean ascending) {
+    SelectableScheme ss = getSelectableSchemeFor(column, column, this);
+    return ss.selectTop(count, ascending);
+  }
+
   /**
    * Returns a list of rows that represents the enumerator order of this
    * table.
@@ -1621,6 +2167,15 @@ public abstract class Table implements TableDataSource {
     return ss.selectFirst();
   }
 
+  /**
+   * Returns an array that represents the first sorted element(s) of the given
+   * column number that aren't NULL.
+   */
+  public final IntegerVector selectFirstNonNull(int column) {
+    SelectableScheme ss = getSelectableSchemeFor(column, column, this);
+    return ss.selectFirstNonNull();
+  }
+
   /**
    * Returns an array that represents the rest of the sorted element(s) of the
    * given column number.  (not the 'first' set).
@@ -22,6 +22,8 @@ package com.mckoi.database;
 
 import java.io.*;
 import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -171,7 +173,13 @@ public class TableDataConglomerate {
    * transactions.
    */
   private ArrayList namespace_journal_list;
-  
+
+  /**
+   * The cache of the constraints defined on the tables in this
+   * conglomerate.
+   */
+  private ConstraintCache constraint_cache;
+
   // ---------- Table event listener ----------
   
   /**
@@ -192,6 +200,40 @@ public class TableDataConglomerate {
    */
   final Object commit_lock = new Object();
 
+  /**
+   * The lock used to coordinate group commit.  When group commit is enabled,
+   * a commit that has made its changes permanent waits on this lock until a
+   * check point that covers it has been set.
+   */
+  private final Object group_commit_lock = new Object();
+
+  /**
+   * The sequence number of the last commit that made changes to the
+   * conglomerate.  Incremented inside 'commit_lock' and 'group_commit_lock'.
+   */
+  private long group_commit_sequence = 0;
+
+  /**
+   * The sequence number of the last commit covered by a check point set by
+   * the group commit process.
+   */
+  private long group_check_point_sequence = 0;
+
+  /**
+   * The sequence number of the last commit covered by a check point that
+   * failed, and the message of the failure.  A commit that was covered by
+   * the failed check point and hasn't since been covered by a successful
+   * check point fails with this message.
+   */
+  private long group_failed_sequence = 0;
+  private String group_check_point_failure = null;
+
+  /**
+   * True when a thread is the leader of a commit group (it is collecting
+   * commits or setting the check point for the group).
+   */
+  private boolean group_commit_leader = false;
+
 //  // ---------- Shutdown hook thread ----------
 //  
 //  /**
@@ -213,6 +255,7 @@ public class TableDataConglomerate {
     this.open_transactions = new OpenTransactionList(system);
     this.modification_listeners = new HashMap();
     this.namespace_journal_list = new ArrayList();
+    this.constraint_cache = new ConstraintCache();
 
     this.sequence_manager = new SequenceManager(this);
 
@@ -233,6 +276,13 @@ public class TableDataConglomerate {
     return store_system;
   }
 
+  /**
+   * Returns the ConstraintCache object for this conglomerate.
+   */
+  final ConstraintCache getConstraintCache() {
+    return constraint_cache;
+  }
+
   /**
    * Returns the SequenceManager object for this conglomerate.
    */
@@ -1642,94 +1692,215 @@ public class TableDataConglomerate {
   }
 
   /**
-   * Checks the uniqueness of the columns in the row of the table.  If
-   * the given column information in the row data is not unique then it
-   * returns false.  We also check for a NULL values - a PRIMARY KEY constraint
-   * does not allow NULL values, whereas a UNIQUE constraint does.
+   * Returns true if the key of the given row in the given MultiColumnIndex
+   * is unique in the index.  A key that contains a NULL value is always
+   * unique.
    */
-  private static boolean isUniqueColumns(
-                       TableDataSource table, int rindex, String[] cols,
-                       boolean nulls_are_allowed) {
-
-    DataTableDef table_def = table.getDataTableDef();
-    // 'identical_rows' keeps a tally of the rows that match our added cell.
-    IntegerVector identical_rows = null;
-
-    // Resolve the list of column names to column indexes
-    int[] col_indexes = findColumnIndices(table_def, cols);
-
-    // If the value being tested for uniqueness contains NULL, we return true
-    // if nulls are allowed.
-    for (int i = 0; i < col_indexes.length; ++i) {
-      TObject cell = table.getCellContents(col_indexes[i], rindex);
-      if (cell.isNull()) {
-        return nulls_are_allowed;
+  private static boolean isUniqueIndexKey(TableDataSource table,
+                                    MultiColumnIndex index, int rindex) {
+    for (int i = 0; i < index.columnCount(); ++i) {
+      if (table.getCellContents(index.columnAt(i), rindex).isNull()) {
+        return true;
       }
     }
-    
-    
-    for (int i = 0; i < col_indexes.length; ++i) {
-
-      int col_index = col_indexes[i];
-
-      // Get the column definition and the cell being inserted,
-//      DataTableColumnDef column_def = table_def.columnAt(col_index);
-      TObject cell = table.getCellContents(col_index, rindex);
+    return index.countKey(rindex) <= 1;
+  }
 
-      // We are assured of uniqueness if 'identical_rows != null &&
-      // identical_rows.size() == 0'  This is because 'identical_rows' keeps
-      // a running tally of the rows in the table that contain unique columns
-      // whose cells match the record being added.
+  /**
+   * A Comparator that sorts keys (TObject[]) by their values.
+   */
+  private static final Comparator KEY_COMPARATOR = new Comparator() {
+    public int compare(Object ob1, Object ob2) {
+      return compareKeys((TObject[]) ob1, (TObject[]) ob2);
+    }
+  };
 
-      if (identical_rows == null || identical_rows.size() > 0) {
+  /**
+   * Compares two keys of the same size.
+   */
+  private static int compareKeys(TObject[] key1, TObject[] key2) {
+    for (int i = 0; i < key1.length; ++i) {
+      int c = key1[i].compareTo(key2[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
 
-        // Ask SelectableScheme to return pointers to row(s) if there is
-        // already a cell identical to this in the table.
+  /**
+   * Returns the keys in the given columns of the given rows sorted from
+   * lowest to highest.  Keys that contain a NULL value are not included in
+   * the list.  If 'has_null' is not null then 'has_null[0]' is set to true
+   * if any key contained a NULL value.
+   */
+  private static TObject[][] sortedRowKeys(TableDataSource table,
+                            int[] col_indexes, int[] row_indices,
+                            boolean[] has_null) {
+    TObject[][] keys = new TObject[row_indices.length][];
+    int key_count = 0;
+    for (int rn = 0; rn < row_indices.length; ++rn) {
+      TObject[] key = new TObject[col_indexes.length];
+      boolean null_key = false;
+      for (int n = 0; n < col_indexes.length && !null_key; ++n) {
+        key[n] = table.getCellContents(col_indexes[n], row_indices[rn]);
+        null_key = key[n].isNull();
+      }
+      if (!null_key) {
+        keys[key_count] = key;
+        ++key_count;
+      }
+      else if (has_null != null) {
+        has_null[0] = true;
+      }
+    }
+    if (key_count < keys.length) {
+      TObject[][] new_keys = new TObject[key_count][];
+      System.arraycopy(keys, 0, new_keys, 0, key_count);
+      keys = new_keys;
+    }
+    Arrays.sort(keys, KEY_COMPARATOR);
+    return keys;
+  }
 
-        SelectableScheme ss = table.getColumnScheme(col_index);
-        IntegerVector ivec = ss.selectEqual(cell);
+  /**
+   * Removes the duplicate keys from a sorted list of keys.
+   */
+  private static TObject[][] distinctKeys(TObject[][] sorted_keys) {
+    if (sorted_keys.length <= 1) {
+      return sorted_keys;
+    }
+    int key_count = 1;
+    for (int i = 1; i < sorted_keys.length; ++i) {
+      if (compareKeys(sorted_keys[key_count - 1], sorted_keys[i]) != 0) {
+        sorted_keys[key_count] = sorted_keys[i];
+        ++key_count;
+      }
+    }
+    TObject[][] keys = new TObject[key_count][];
+    System.arraycopy(sorted_keys, 0, keys, 0, key_count);
+    return keys;
+  }
 
-        // If 'identical_rows' hasn't been set up yet then set it to 'ivec'
-        // (the list of rows where there is a cell which is equal to the one
-        //  being added)
-        // If 'identical_rows' has been set up, then perform an
-        // 'intersection' operation on the two lists (only keep the numbers
-        // that are repeated in both lists).  Therefore we keep the rows
-        // that match the row being added.
+  /**
+   * Returns true if comparing the values of a column of type 'type1' with the
+   * values of a column of type 'type2' orders the values in the same way as
+   * the values are ordered in their own columns.  This is not true for
+   * strings with different locales.
+   */
+  private static boolean isSameOrdering(TType type1, TType type2) {
+    if (type1 instanceof TStringType || type2 instanceof TStringType) {
+      if (!(type1 instanceof TStringType && type2 instanceof TStringType)) {
+        return false;
+      }
+      java.util.Locale locale1 = ((TStringType) type1).getLocale();
+      java.util.Locale locale2 = ((TStringType) type2).getLocale();
+      return locale1 == null ? locale2 == null : locale1.equals(locale2);
+    }
+    return true;
+  }
 
-        if (identical_rows == null) {
-          identical_rows = ivec;
+  /**
+   * Counts the number of rows in the table with each of the given keys.  The
+   * keys are sorted from lowest to highest and are distinct.
+   * <p>
+   * If there are many keys compared to the size of the table, and the key
+   * is a single column, the sorted index of the column is walked alongside
+   * the list of keys.  Otherwise the index is searched for each key.
+   * 'merge_allowed' must only be true if the keys are ordered in the same
+   * way as the values in the column.
+   */
+  private static int[] countKeys(TableDataSource table, int[] col_indexes,
+                                 TObject[][] keys, boolean merge_allowed) {
+    int[] counts = new int[keys.length];
+    if (keys.length == 0) {
+      return counts;
+    }
+
+    // Only an InsertSearch index knows its size without reading the table.
+    boolean merge = false;
+    SelectableScheme ss = table.getColumnScheme(col_indexes[0]);
+    if (merge_allowed && col_indexes.length == 1 &&
+        ss instanceof InsertSearch) {
+      // The number of values in the table read by searching the index for
+      // each key is roughly keys * log2(row_count).
+      int row_count = ((InsertSearch) ss).setSize();
+      long search_reads = 0;
+      for (int n = row_count; n > 0; n >>= 1) {
+        search_reads += keys.length;
+      }
+      merge = search_reads > row_count;
+    }
+
+    if (merge) {
+      int col_index = col_indexes[0];
+      IntegerVector rows = ss.selectAllNonNull();
+      int size = rows.size();
+      int p = 0;
+      for (int i = 0; i < keys.length; ++i) {
+        TObject key = keys[i][0];
+        int c = -1;
+        while (p < size && (c = table.getCellContents(
+                          col_index, rows.intAt(p)).compareTo(key)) < 0) {
+          ++p;
         }
-        else {
-          ivec.quickSort();
-          int row_index = identical_rows.size() - 1;
-          while (row_index >= 0) {
-            int val = identical_rows.intAt(row_index);
-            int found_index = ivec.sortedIndexOf(val);
-            // If we _didn't_ find the index in the array
-            if (found_index >= ivec.size() ||
-                ivec.intAt(found_index) != val) {
-              identical_rows.removeIntAt(row_index);
-            }
-            --row_index;
+        while (p < size && c == 0) {
+          ++counts[i];
+          ++p;
+          if (p < size) {
+            c = table.getCellContents(
+                                col_index, rows.intAt(p)).compareTo(key);
           }
         }
-
       }
+    }
+    else {
+      for (int i = 0; i < keys.length; ++i) {
+        counts[i] = findKeys(table, col_indexes, keys[i]).size();
+      }
+    }
+    return counts;
+  }
 
-    } // for each column
+  /**
+   * Checks the uniqueness of the columns of the given rows in the table.
+   * Returns false if the key of any of the rows is not unique.  We also check
+   * for a NULL values - a PRIMARY KEY constraint does not allow NULL values,
+   * whereas a UNIQUE constraint does.
+   * <p>
+   * The keys of the rows are sorted so that rows with the same key are
+   * found without searching the table.  The table is then searched once for
+   * each key.
+   */
+  private static boolean isUniqueColumns(
+                       TableDataSource table, int[] row_indices, String[] cols,
+                       boolean nulls_are_allowed) {
 
-    // If there is 1 (the row we added) then we are unique, otherwise we are
-    // not.
-    if (identical_rows != null) {
-      int sz = identical_rows.size();
-      if (sz == 1) {
-        return true;
+    // Resolve the list of column names to column indexes
+    int[] col_indexes = findColumnIndices(table.getDataTableDef(), cols);
+
+    boolean[] has_null = new boolean[1];
+    TObject[][] keys =
+                    sortedRowKeys(table, col_indexes, row_indices, has_null);
+    if (has_null[0] && !nulls_are_allowed) {
+      return false;
+    }
+
+    // Are there any rows with the same key?
+    for (int i = 1; i < keys.length; ++i) {
+      if (compareKeys(keys[i - 1], keys[i]) == 0) {
+        return false;
       }
-      if (sz > 1) {
+    }
+
+    // The only row in the table with each key must be the row we are
+    // testing.
+    int[] counts = countKeys(table, col_indexes, keys, true);
+    for (int i = 0; i < counts.length; ++i) {
+      if (counts[i] > 1) {
         return false;
       }
-      else if (sz == 0) {
+      else if (counts[i] == 0) {
         throw new Error("Assertion failed: We must be able to find the " +
                         "row we are testing uniqueness against!");
       }
@@ -1777,66 +1948,6 @@ public class TableDataConglomerate {
     return list;
   }
 
-  /**
-   * Finds the number of rows that are referenced between the given row of
-   * table1 and that match table2.  This method is used to determine if
-   * there are referential links.
-   * <p>
-   * If this method returns -1 it means the value being searched for is NULL
-   * therefore we can't determine if there are any referenced links.
-   * <p>
-   * HACK: If 'check_source_table_key' is set then the key is checked for in
-   * the source table and if it exists returns 0.  Otherwise it looks for
-   * references to the key in table2.
-   */
-  private static int rowCountOfReferenceTable(
-                 SimpleTransaction transaction,
-                 int row_index, TableName table1, String[] cols1,
-                                TableName table2, String[] cols2,
-                                boolean check_source_table_key) {
-
-    // Get the tables
-    TableDataSource t1 = transaction.getTableDataSource(table1);
-    TableDataSource t2 = transaction.getTableDataSource(table2);
-    // The table defs
-    DataTableDef dtd1 = t1.getDataTableDef();
-    DataTableDef dtd2 = t2.getDataTableDef();
-    // Resolve the list of column names to column indexes
-    int[] col1_indexes = findColumnIndices(dtd1, cols1);
-    int[] col2_indexes = findColumnIndices(dtd2, cols2);
-
-    int key_size = col1_indexes.length;
-    // Get the data from table1
-    TObject[] key_value = new TObject[key_size];
-    int null_count = 0;
-    for (int n = 0; n < key_size; ++n) {
-      key_value[n] = t1.getCellContents(col1_indexes[n], row_index);
-      if (key_value[n].isNull()) {
-        ++null_count;
-      }
-    }
-
-    // If we are searching for null then return -1;
-    if (null_count > 0) {
-      return -1;
-    }
-
-    // HACK: This is a hack.  The purpose is if the key exists in the source
-    //   table we return 0 indicating to the delete check that there are no
-    //   references and it's valid.  To the semantics of the method this is
-    //   incorrect.
-    if (check_source_table_key) {
-      IntegerVector keys = findKeys(t1, col1_indexes, key_value);
-      int key_count = keys.size();
-      if (key_count > 0) {
-        return 0;
-      }
-    }
-
-    return findKeys(t2, col2_indexes, key_value).size();
-  }
-
-
   /**
    * Checks that the nullibility and class of the fields in the given
    * rows are valid.  Should be used as part of the insert procedure.
@@ -1943,78 +2054,107 @@ public class TableDataConglomerate {
     DataTableDef table_def = table.getDataTableDef();
     TableName table_name = table_def.getTableName();
 
+    // The constraints of the table
+    ConstraintCache.Constraints constraints =
+               Transaction.queryTableConstraints(transaction, table_name);
+
     // ---- Constraint checking ----
 
     // Check any primary key constraint.
-    Transaction.ColumnGroup primary_key =
-               Transaction.queryTablePrimaryKeyGroup(transaction, table_name);
+    Transaction.ColumnGroup primary_key = constraints.primary_key;
     if (primary_key != null &&
         (deferred == Transaction.INITIALLY_DEFERRED ||
          primary_key.deferred == Transaction.INITIALLY_IMMEDIATE)) {
 
-      // For each row added to this column
-      for (int rn = 0; rn < row_indices.length; ++rn) {
-        if (!isUniqueColumns(table, row_indices[rn],
-                             primary_key.columns, false)) {
-          throw new DatabaseConstraintViolationException(
-            DatabaseConstraintViolationException.PRIMARY_KEY_VIOLATION,
-            deferredString(deferred) + " primary Key constraint violation (" +
-            primary_key.name + ") Columns = ( " +
-            stringColumnList(primary_key.columns) +
-            " ) Table = ( " + table_name.toString() + " )");
-        }
-      } // For each row being added
+      if (!isUniqueColumns(table, row_indices,
+                           primary_key.columns, false)) {
+        throw new DatabaseConstraintViolationException(
+          DatabaseConstraintViolationException.PRIMARY_KEY_VIOLATION,
+          deferredString(deferred) + " primary Key constraint violation (" +
+          primary_key.name + ") Columns = ( " +
+          stringColumnList(primary_key.columns) +
+          " ) Table = ( " + table_name.toString() + " )");
+      }
 
     }
 
     // Check any unique constraints.
-    Transaction.ColumnGroup[] unique_constraints =
-                  Transaction.queryTableUniqueGroups(transaction, table_name);
+    Transaction.ColumnGroup[] unique_constraints = constraints.unique_groups;
     for (int i = 0; i < unique_constraints.length; ++i) {
       Transaction.ColumnGroup unique = unique_constraints[i];
       if (deferred == Transaction.INITIALLY_DEFERRED ||
           unique.deferred == Transaction.INITIALLY_IMMEDIATE) {
 
-        // For each row added to this column
-        for (int rn = 0; rn < row_indices.length; ++rn) {
-          if (!isUniqueColumns(table, row_indices[rn], unique.columns, true)) {
-            throw new DatabaseConstraintViolationException(
-              DatabaseConstraintViolationException.UNIQUE_VIOLATION,
-              deferredString(deferred) + " unique constraint violation (" +
-              unique.name + ") Columns = ( " +
-              stringColumnList(unique.columns) + " ) Table = ( " +
-              table_name.toString() + " )");
-          }
-        } // For each row being added
+        if (!isUniqueColumns(table, row_indices, unique.columns, true)) {
+          throw new DatabaseConstraintViolationException(
+            DatabaseConstraintViolationException.UNIQUE_VIOLATION,
+            deferredString(deferred) + " unique constraint violation (" +
+            unique.name + ") Columns = ( " +
+            stringColumnList(unique.columns) + " ) Table = ( " +
+            table_name.toString() + " )");
+        }
 
       }
     }
 
+    // Check any UNIQUE indexes created by 'CREATE UNIQUE INDEX'.  These
+    // are always checked immediately.
+    if (table instanceof MutableTableDataSource) {
+      MultiColumnIndex[] indexes =
+                   ((MutableTableDataSource) table).getMultiColumnIndexes();
+      for (int i = 0; i < indexes.length; ++i) {
+        MultiColumnIndex index = indexes[i];
+        if (index.isUnique()) {
+          for (int rn = 0; rn < row_indices.length; ++rn) {
+            if (!isUniqueIndexKey(table, index, row_indices[rn])) {
+              String[] cols = new String[index.columnCount()];
+              for (int n = 0; n < cols.length; ++n) {
+                cols[n] = table_def.columnAt(index.columnAt(n)).getName();
+              }
+              throw new DatabaseConstraintViolationException(
+                DatabaseConstraintViolationException.UNIQUE_VIOLATION,
+                deferredString(deferred) + " unique index violation " +
+                "Columns = ( " + stringColumnList(cols) + " ) Table = ( " +
+                table_name.toString() + " )");
+            }
+          } // For each row being added
+        }
+      }
+    }
+
     // Check any foreign key constraints.
     // This ensures all foreign references in the table are referenced
     // to valid records.
     Transaction.ColumnGroupReference[] foreign_constraints =
-          Transaction.queryTableForeignKeyReferences(transaction, table_name);
+                                                     constraints.foreign_keys;
     for (int i = 0; i < foreign_constraints.length; ++i) {
       Transaction.ColumnGroupReference ref = foreign_constraints[i];
       if (deferred == Transaction.INITIALLY_DEFERRED ||
           ref.deferred == Transaction.INITIALLY_IMMEDIATE) {
-        // For each row added to this column
-        for (int rn = 0; rn < row_indices.length; ++rn) {
-          // Make sure the referenced record exists
-
-          // Return the count of records where the given row of
-          //   table_name(columns, ...) IN
-          //                    ref_table_name(ref_columns, ...)
-          int row_count = rowCountOfReferenceTable(transaction,
-                                     row_indices[rn],
-                                     ref.key_table_name, ref.key_columns,
-                                     ref.ref_table_name, ref.ref_columns,
-                                     false);
-          if (row_count == -1) {
-            // foreign key is NULL
-          }
-          if (row_count == 0) {
+        // Make sure the referenced record exists for each key added
+
+        TableDataSource t1 =
+                       transaction.getTableDataSource(ref.key_table_name);
+        TableDataSource t2 =
+                       transaction.getTableDataSource(ref.ref_table_name);
+        int[] col1_indexes =
+                   findColumnIndices(t1.getDataTableDef(), ref.key_columns);
+        int[] col2_indexes =
+                   findColumnIndices(t2.getDataTableDef(), ref.ref_columns);
+
+        // The distinct keys of the added rows (a NULL foreign key is not
+        // checked).
+        TObject[][] keys = distinctKeys(
+                     sortedRowKeys(t1, col1_indexes, row_indices, null));
+
+        // Count of the records in ref_table_name(ref_columns, ...) with
+        // each key
+        boolean merge_allowed = isSameOrdering(
+           t1.getDataTableDef().columnAt(col1_indexes[0]).getTType(),
+           t2.getDataTableDef().columnAt(col2_indexes[0]).getTType());
+        int[] counts = countKeys(t2, col2_indexes, keys, merge_allowed);
+        for (int n = 0; n < counts.length; ++n) {
+          if (counts[n] == 0) {
             throw new DatabaseConstraintViolationException(
               DatabaseConstraintViolationException.FOREIGN_KEY_VIOLATION,
               deferredString(deferred)+" foreign key constraint violation (" +
@@ -2024,16 +2164,14 @@ public class TableDataConglomerate {
               ref.ref_table_name.toString() + "( " +
               stringColumnList(ref.ref_columns) + " )");
           }
-        } // For each row being added.
+        }
       }
     }
 
-    // Any general checks of the inserted data
+    // Any general checks of the inserted data.  The check expressions are
+    // already prepared against the table.
     Transaction.CheckExpression[] check_constraints =
-               Transaction.queryTableCheckExpressions(transaction, table_name);
-
-    // The TransactionSystem object
-    TransactionSystem system = transaction.getSystem();
+                                                constraints.check_expressions;
 
     // For each check constraint, check that it evaluates to true.
     for (int i = 0; i < check_constraints.length; ++i) {
@@ -2041,35 +2179,38 @@ public class TableDataConglomerate {
       if (deferred == Transaction.INITIALLY_DEFERRED ||
           check.deferred == Transaction.INITIALLY_IMMEDIATE) {
 
-        check = system.prepareTransactionCheckConstraint(table_def, check);
         Expression exp = check.expression;
 
-        // For each row being added to this column
-        for (int rn = 0; rn < row_indices.length; ++rn) {
-          TableRowVariableResolver resolver =
-                        new TableRowVariableResolver(table, row_indices[rn]);
-          TObject ob = exp.evaluate(null, resolver, context);
-          Boolean b = ob.toBoolean();
-
-          if (b != null) {
-            if (b.equals(Boolean.FALSE)) {
-              // Evaluated to false so don't allow this row to be added.
-              throw new DatabaseConstraintViolationException(
-                 DatabaseConstraintViolationException.CHECK_VIOLATION,
-                 deferredString(deferred) + " check constraint violation (" +
-                 check.name + ") - '" + exp.text() +
-                 "' evaluated to false for inserted/updated row.");
+        // The expression may be shared with other transactions through the
+        // constraint cache and evaluating an expression is not thread safe.
+        synchronized (exp) {
+          // For each row being added to this column
+          for (int rn = 0; rn < row_indices.length; ++rn) {
+            TableRowVariableResolver resolver =
+                          new TableRowVariableResolver(table, row_indices[rn]);
+            TObject ob = exp.evaluate(null, resolver, context);
+            Boolean b = ob.toBoolean();
+
+            if (b != null) {
+              if (b.equals(Boolean.FALSE)) {
+                // Evaluated to false so don't allow this row to be added.
+                throw new DatabaseConstraintViolationException(
+                   DatabaseConstraintViolationException.CHECK_VIOLATION,
+                   deferredString(deferred) + " check constraint violation (" +
+                   check.name + ") - '" + exp.text() +
+                   "' evaluated to false for inserted/updated row.");
+              }
             }
-          }
-          else {
-            // NOTE: This error will pass the row by default
-            transaction.Debug().write(Lvl.ERROR,
-              TableDataConglomerate.class,
-              deferredString(deferred) + " check constraint violation (" +
-              check.name + ") - '" + exp.text() +
-              "' returned a non boolean or NULL result.");
-          }
-        } // For each row being added
+            else {
+              // NOTE: This error will pass the row by default
+              transaction.Debug().write(Lvl.ERROR,
+                TableDataConglomerate.class,
+                deferredString(deferred) + " check constraint violation (" +
+                check.name + ") - '" + exp.text() +
+                "' returned a non boolean or NULL result.");
+            }
+          } // For each row being added
+        }
 
       }
     }
@@ -2131,27 +2272,50 @@ public class TableDataConglomerate {
     // This ensures that a referential reference can not be removed making
     // it invalid.
     Transaction.ColumnGroupReference[] foreign_constraints =
-           Transaction.queryTableImportedForeignKeyReferences(
-                                                     transaction, table_name);
+            Transaction.queryTableConstraints(transaction, table_name)
+                                                    .imported_foreign_keys;
     for (int i = 0; i < foreign_constraints.length; ++i) {
       Transaction.ColumnGroupReference ref = foreign_constraints[i];
       if (deferred == Transaction.INITIALLY_DEFERRED ||
           ref.deferred == Transaction.INITIALLY_IMMEDIATE) {
-        // For each row removed from this column
-        for (int rn = 0; rn < row_indices.length; ++rn) {
-          // Make sure the referenced record exists
-
-          // Return the count of records where the given row of
-          //   ref_table_name(columns, ...) IN
-          //                    table_name(ref_columns, ...)
-          int row_count = rowCountOfReferenceTable(transaction,
-                                     row_indices[rn],
-                                     ref.ref_table_name, ref.ref_columns,
-                                     ref.key_table_name, ref.key_columns,
-                                     true);
-          // There must be 0 references otherwise the delete isn't allowed to
-          // happen.
-          if (row_count > 0) {
+
+        TableDataSource t1 =
+                       transaction.getTableDataSource(ref.ref_table_name);
+        TableDataSource t2 =
+                       transaction.getTableDataSource(ref.key_table_name);
+        int[] col1_indexes =
+                   findColumnIndices(t1.getDataTableDef(), ref.ref_columns);
+        int[] col2_indexes =
+                   findColumnIndices(t2.getDataTableDef(), ref.key_columns);
+
+        // The distinct keys of the removed rows (a NULL key can't be
+        // referenced).
+        TObject[][] keys = distinctKeys(
+                     sortedRowKeys(t1, col1_indexes, row_indices, null));
+
+        // If the key is still in the source table (another row has the same
+        // key) then removing the row doesn't remove the key.
+        int[] source_counts = countKeys(t1, col1_indexes, keys, true);
+        int key_count = 0;
+        for (int n = 0; n < keys.length; ++n) {
+          if (source_counts[n] == 0) {
+            keys[key_count] = keys[n];
+            ++key_count;
+          }
+        }
+        TObject[][] removed_keys = new TObject[key_count][];
+        System.arraycopy(keys, 0, removed_keys, 0, key_count);
+
+        // Count of the records in key_table_name(key_columns, ...) that
+        // reference each removed key.  There must be 0 references otherwise
+        // the delete isn't allowed to happen.
+        boolean merge_allowed = isSameOrdering(
+           t1.getDataTableDef().columnAt(col1_indexes[0]).getTType(),
+           t2.getDataTableDef().columnAt(col2_indexes[0]).getTType());
+        int[] counts =
+                 countKeys(t2, col2_indexes, removed_keys, merge_allowed);
+        for (int n = 0; n < counts.length; ++n) {
+          if (counts[n] > 0) {
             throw new DatabaseConstraintViolationException(
               DatabaseConstraintViolationException.FOREIGN_KEY_VIOLATION,
               deferredString(deferred)+" foreign key constraint violation " +
@@ -2162,7 +2326,7 @@ public class TableDataConglomerate {
               ref.ref_table_name.toString() + "( " +
               stringColumnList(ref.ref_columns) + " )");
           }
-        } // For each row being added.
+        }
       }
     }
 
@@ -2466,6 +2630,16 @@ public class TableDataConglomerate {
     IntegerVector constraint_altered_tables =
                          journal.getTablesConstraintAltered();
 
+    // True if this transaction changes the constraints of the database.
+    boolean constraints_changed =
+             created_tables.size() > 0 || dropped_tables.size() > 0;
+    for (int i = 0; i < changed_tables.length && !constraints_changed; ++i) {
+      MasterTableDataSource master =
+                              getMasterTable(changed_tables[i].getTableID());
+      constraints_changed =
+                   ConstraintCache.isConstraintTable(master.getTableName());
+    }
+
     // Exit early if nothing changed (this is a read-only transaction)
     if (changed_tables.length == 0 &&
         created_tables.size() == 0 && dropped_tables.size() == 0 &&
@@ -2482,6 +2656,42 @@ public class TableDataConglomerate {
     // The tables that were actually changed (MasterTableDataSource)
     ArrayList changed_tables_list = new ArrayList();
 
+    // True if the check point for this commit may be shared with other
+    // commits.
+    boolean group_commit = getSystem().groupCommitBatchSize() > 1;
+    // The group commit sequence number of this commit.
+    long commit_sequence = 0;
+
+    // Test the changed tables for row remove clashes with the changes that
+    // have already been committed before the commit lock is taken.  Testing
+    // a large journal can take some time so only the changes committed after
+    // this point are tested inside the commit lock.  A clash found here is
+    // thrown when the table is checked inside the lock so the transaction is
+    // rolled back in the usual way.
+    long[] clash_tested_to = new long[changed_tables.length];
+    TransactionException[] clash_errors =
+                               new TransactionException[changed_tables.length];
+    for (int i = 0; i < changed_tables.length; ++i) {
+      MasterTableJournal change_journal = changed_tables[i];
+      MasterTableDataSource master =
+                                getMasterTable(change_journal.getTableID());
+      long tested_to = transaction.getCommitID();
+      MasterTableJournal[] journals_since =
+                                     master.findAllJournalsSince(tested_to);
+      try {
+        for (int n = 0; n < journals_since.length; ++n) {
+          change_journal.testCommitClash(master.getDataTableDef(),
+                                         journals_since[n]);
+          tested_to = Math.max(tested_to,
+                               journals_since[n].getCommitID() + 1);
+        }
+      }
+      catch (TransactionException e) {
+        clash_errors[i] = e;
+      }
+      clash_tested_to[i] = tested_to;
+    }
+
     // Grab the commit lock.
     synchronized (commit_lock) {
 
@@ -2596,12 +2806,19 @@ public class TableDataConglomerate {
                   "Table altered/dropped: " + master.getName());
           }
 
+          // If a clash was found before the commit lock was taken then throw
+          // it now.
+          if (clash_errors[i] != null) {
+            throw clash_errors[i];
+          }
+
           // Since this journal was created, check to see if any changes to the
-          // tables have been committed since.
+          // tables have been committed since.  The changes committed before
+          // the commit lock was taken have already been tested.
           // This will return all journals on the table with the same commit_id
           // or greater.
           MasterTableJournal[] journals_since =
-                                 master.findAllJournalsSince(tran_commit_id);
+                            master.findAllJournalsSince(clash_tested_to[i]);
 
           // For each journal, determine if there's any clashes.
           for (int n = 0; n < journals_since.length; ++n) {
@@ -2728,6 +2945,11 @@ public class TableDataConglomerate {
         // Create a new transaction of the database which will represent the
         // committed view if this commit is successful.
         check_transaction = createTransaction();
+        // If the constraints are changed, the cached constraints are not
+        // the constraints of this view.
+        if (constraints_changed) {
+          check_transaction.disableConstraintCache();
+        }
 
         // Overwrite this view with tables from this transaction that have
         // changed or have been added or dropped.
@@ -2927,6 +3149,11 @@ n_loop:
         // Set flag to indicate we have committed entries.
         entries_committed = true;
 
+        // Any constraints cached before this commit are now out of date.
+        if (constraints_changed) {
+          constraint_cache.invalidate();
+        }
+
         // For each change to each table,
         for (int i = 0; i < norm_changed_tables_count; ++i) {
           CommitTableInfo table_info =
@@ -3028,12 +3255,132 @@ n_loop:
         }
       }
 
-      // Set a check point in the store system.  This means that the
-      // persistance state is now stable.
-      store_system.setCheckPoint();
+      // If group commit is enabled, the check point is set after the commit
+      // lock is released and may cover the changes of other commits.
+      if (group_commit) {
+        synchronized (group_commit_lock) {
+          commit_sequence = ++group_commit_sequence;
+          group_commit_lock.notifyAll();
+        }
+      }
+      else {
+        // Set a check point in the store system.  This means that the
+        // persistance state is now stable.
+        store_system.setCheckPoint();
+      }
 
     }  // synchronized (commit_lock)
 
+    if (group_commit) {
+      waitForGroupCheckPoint(commit_sequence);
+    }
+
+  }
+
+  /**
+   * Blocks until a check point has been set in the store system that covers
+   * the commit with the given group commit sequence number.
+   * <p>
+   * The first commit to arrive when no group is forming becomes the leader
+   * of a new group.  The leader waits until either 'group_commit_batch_size'
+   * commits are waiting to be made stable or 'group_commit_max_wait'
+   * milliseconds have passed, and then sets a single check point under the
+   * commit lock for every commit made so far.  All other commits wait for the
+   * leader to finish.  This means commit throughput is bounded by the number
+   * of concurrent commits rather than by the latency of the disk sync.
+   * <p>
+   * If the check point fails then every commit it covered fails, and a
+   * commit made after the failed check point started becomes the leader of
+   * the next group.
+   */
+  private void waitForGroupCheckPoint(long commit_sequence) {
+    int batch_size = getSystem().groupCommitBatchSize();
+    long max_wait = getSystem().groupCommitMaxWait();
+
+    synchronized (group_commit_lock) {
+      while (group_check_point_sequence < commit_sequence) {
+        if (group_failed_sequence >= commit_sequence) {
+          // The check point that covered this commit failed
+          throw new RuntimeException("Group check point failed: " +
+                                     group_check_point_failure);
+        }
+        if (group_commit_leader) {
+          // Wait for the leader of the current group to set the check point
+          try {
+            group_commit_lock.wait();
+          }
+          catch (InterruptedException e) { /* ignore */ }
+        }
+        else {
+          // Become the leader of a new group.
+          group_commit_leader = true;
+          // Wait until the batch is full or the maximum wait time is up.
+          long time_end = System.currentTimeMillis() + max_wait;
+          while (group_commit_sequence - group_check_point_sequence <
+                                                                 batch_size) {
+            long time_left = time_end - System.currentTimeMillis();
+            if (time_left <= 0) {
+              break;
+            }
+            try {
+              group_commit_lock.wait(time_left);
+            }
+            catch (InterruptedException e) { /* ignore */ }
+          }
+          break;
+        }
+      }
+      if (group_check_point_sequence >= commit_sequence) {
+        // A leader has covered this commit
+        return;
+      }
+    }
+
+    // We are the leader of this group.  Set the check point for every commit
+    // made so far.
+    long covered_sequence = -1;
+    String failure = "Unknown error";
+    boolean success = false;
+    try {
+      synchronized (commit_lock) {
+        synchronized (group_commit_lock) {
+          covered_sequence = group_commit_sequence;
+        }
+        store_system.setCheckPoint();
+        success = true;
+      }
+    }
+    catch (RuntimeException e) {
+      failure = e.getMessage();
+      throw e;
+    }
+    finally {
+      synchronized (group_commit_lock) {
+        if (success) {
+          if (covered_sequence > group_check_point_sequence) {
+            getSystem().stats().increment(
+                                "TableDataConglomerate.group_check_points");
+            getSystem().stats().add(
+                  (int) (covered_sequence - group_check_point_sequence),
+                  "TableDataConglomerate.group_committed");
+            group_check_point_sequence = covered_sequence;
+          }
+        }
+        else {
+          // The check point failed so the commits it covered are not
+          // stable.  They fail with the same error, and the commits made
+          // after it will set a new check point.
+          getSystem().stats().increment(
+                        "TableDataConglomerate.group_check_point_failures");
+          if (covered_sequence > group_failed_sequence) {
+            group_failed_sequence = covered_sequence;
+          }
+          group_check_point_failure = failure;
+        }
+        group_commit_leader = false;
+        group_commit_lock.notifyAll();
+      }
+    }
   }
 
   /**
@@ -3166,6 +3513,19 @@ n_loop:
    */
   MasterTableDataSource createMasterTable(DataTableDef table_def,
                                 int data_sector_size, int index_sector_size) {
+    return createMasterTable(table_def, null,
+                             data_sector_size, index_sector_size);
+  }
+
+  /**
+   * Creates a table store in this conglomerate with the given name and
+   * returns a reference to the table.  This is the same as above except the
+   * indexes created by 'CREATE INDEX' in the given DataIndexSetDef are also
+   * defined on the new table.  'index_set_def' may be null.
+   */
+  MasterTableDataSource createMasterTable(DataTableDef table_def,
+                                DataIndexSetDef index_set_def,
+                                int data_sector_size, int index_sector_size) {
     synchronized (commit_lock) {
       try {
 
@@ -3180,7 +3540,7 @@ n_loop:
         V2MasterTableDataSource master_table =
             new V2MasterTableDataSource(getSystem(),
                  storeSystem(), open_transactions, blob_store);
-        master_table.create(table_id, table_def);
+        master_table.create(table_id, table_def, index_set_def);
 
         // Add to the list of all tables.
         table_list.add(master_table);
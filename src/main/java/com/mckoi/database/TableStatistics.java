@@ -0,0 +1,103 @@
+/**
+ * com.mckoi.database.TableStatistics  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database;
+
+import java.util.HashMap;
+
+/**
+ * The statistics of a table that were found by the last ANALYZE of the
+ * table.  This is the number of rows in the table when it was analyzed and
+ * a ColumnStatistics object for each column.
+ *
+ * @author Tobias Downer
+ */
+
+public final class TableStatistics {
+
+  /**
+   * The name of the table.
+   */
+  private final TableName table_name;
+
+  /**
+   * The number of rows in the table when it was analyzed.
+   */
+  private final long row_count;
+
+  /**
+   * The time the table was analyzed.
+   */
+  private final long analyzed_time;
+
+  /**
+   * The ColumnStatistics of each column mapped by column name.
+   */
+  private final HashMap columns;
+
+  /**
+   * Constructs the statistics.
+   */
+  TableStatistics(TableName table_name, long row_count,
+                  long analyzed_time) {
+    this.table_name = table_name;
+    this.row_count = row_count;
+    this.analyzed_time = analyzed_time;
+    this.columns = new HashMap();
+  }
+
+  /**
+   * Adds the statistics of a column.
+   */
+  void addColumnStatistics(ColumnStatistics column) {
+    columns.put(column.getColumnName(), column);
+  }
+
+  /**
+   * Returns the name of the table.
+   */
+  public TableName getTableName() {
+    return table_name;
+  }
+
+  /**
+   * Returns the number of rows the table had when it was analyzed.
+   */
+  public long getRowCount() {
+    return row_count;
+  }
+
+  /**
+   * Returns the time the table was analyzed (in milliseconds since the
+   * epoch).  This identifies the analysis the statistics are from.
+   */
+  public long getAnalyzedTime() {
+    return analyzed_time;
+  }
+
+  /**
+   * Returns the statistics of the column with the given name, or null if
+   * the column wasn't analyzed.
+   */
+  public ColumnStatistics getColumnStatistics(String column_name) {
+    return (ColumnStatistics) columns.get(column_name);
+  }
+
+}
@@ -124,6 +124,12 @@ public class Transaction extends SimpleTransaction {
    */
   private boolean transaction_error_on_dirty_select;
 
+  /**
+   * The version of the conglomerate's ConstraintCache when this transaction
+   * was created, or -1 if this transaction may not use the cache.
+   */
+  private long constraint_cache_version;
+
   /**
    * True if this transaction is closed.
    */
@@ -141,6 +147,8 @@ public class Transaction extends SimpleTransaction {
 
     this.conglomerate = conglomerate;
     this.commit_id = commit_id;
+    this.constraint_cache_version =
+                           conglomerate.getConstraintCache().getVersion();
     this.closed = false;
 
     this.created_database_objects = new ArrayList();
@@ -439,6 +447,20 @@ public class Transaction extends SimpleTransaction {
    */
   public void createTable(DataTableDef table_def,
                           int data_sector_size, int index_sector_size) {
+    createTable(table_def, null, data_sector_size, index_sector_size);
+  }
+
+  /**
+   * Creates a new table within this transaction with the given sector size
+   * and the indexes created by 'CREATE INDEX' in the given DataIndexSetDef
+   * (which may be null).  If the table already exists then an exception is
+   * thrown.
+   * <p>
+   * This should only be called under an exclusive lock on the connection.
+   */
+  private void createTable(DataTableDef table_def,
+                           DataIndexSetDef index_set_def,
+                           int data_sector_size, int index_sector_size) {
 
     TableName table_name = table_def.getTableName();
     MasterTableDataSource master = findVisibleTable(table_name, false);
@@ -457,8 +479,8 @@ public class Transaction extends SimpleTransaction {
     }
 
     // Create the new master table and add to list of visible tables.
-    master = conglomerate.createMasterTable(table_def, data_sector_size,
-                                            index_sector_size);
+    master = conglomerate.createMasterTable(table_def, index_set_def,
+                                       data_sector_size, index_sector_size);
     // Add this table (and an index set) for this table.
     addVisibleTable(master, master.createIndexSet());
 
@@ -602,6 +624,24 @@ public class Transaction extends SimpleTransaction {
    */
   public void alterTable(TableName table_name, DataTableDef table_def,
                          int data_sector_size, int index_sector_size) {
+    // Carry the existing indexes over to the altered table
+    MasterTableDataSource master = findVisibleTable(table_name, false);
+    DataIndexSetDef index_set_def = null;
+    if (master != null) {
+      index_set_def = master.getDataIndexSetDef();
+    }
+    alterTable(table_name, table_def, index_set_def,
+               data_sector_size, index_sector_size);
+  }
+
+  /**
+   * Alter the table with the given name to the new definition and the given
+   * set of indexes created by 'CREATE INDEX'.  Indexes in 'index_set_def'
+   * that reference columns not in the new definition are dropped.
+   */
+  private void alterTable(TableName table_name, DataTableDef table_def,
+                          DataIndexSetDef index_set_def,
+                          int data_sector_size, int index_sector_size) {
 
     table_def.setImmutable();
 
@@ -616,7 +656,7 @@ public class Transaction extends SimpleTransaction {
     MutableTableDataSource c_table = getTable(table_name);
     dropTable(table_name);
     // And create the table table
-    createTable(table_def);
+    createTable(table_def, index_set_def, 251, 1024);
     MutableTableDataSource altered_table = getTable(table_name);
 
     // Get the new MasterTableDataSource object
@@ -662,9 +702,6 @@ public class Transaction extends SimpleTransaction {
         throw new RuntimeException(e.getMessage());
       }
 
-      // PENDING: We need to copy any existing index definitions that might
-      //   have been set on the table being altered.
-      
       // Rebuild the indexes in the new master table,
       new_master_table.buildIndexes();
 
@@ -727,6 +764,83 @@ public class Transaction extends SimpleTransaction {
 
 
 
+  /**
+   * Creates an index with the given name over the given columns of a table
+   * within this transaction.  If 'unique' is true then the index does not
+   * allow two rows with the same key (keys that contain a NULL are
+   * ignored).  The table is rebuilt with the new index in the same way as
+   * when a table is altered.  If the table does not exist, or an index with
+   * the name already exists on the table, an exception is thrown.
+   * <p>
+   * This should only be called under an exclusive lock on the connection.
+   */
+  public void createIndex(TableName table_name, String index_name,
+                          String[] columns, boolean unique) {
+
+    MasterTableDataSource master = findVisibleTable(table_name, false);
+    if (master == null) {
+      throw new StatementException(
+                               "Table '" + table_name + "' doesn't exist.");
+    }
+    DataTableDef table_def = master.getDataTableDef();
+    DataIndexSetDef index_set_def =
+                           new DataIndexSetDef(master.getDataIndexSetDef());
+
+    if (index_name.startsWith("ANON-COLUMN:") ||
+        index_set_def.findIndexWithName(index_name) != -1) {
+      throw new StatementException(
+          "Index '" + index_name + "' already exists on '" + table_name + "'");
+    }
+    for (int i = 0; i < columns.length; ++i) {
+      DataTableColumnDef col_def =
+                  table_def.columnAt(table_def.findColumnName(columns[i]));
+      if (!col_def.isIndexableType()) {
+        throw new StatementException("Can not index column '" + columns[i] +
+                     "' of type " + col_def.getSQLTypeString());
+      }
+    }
+
+    // The pointer is assigned when the table is created
+    index_set_def.addDataIndexDef(
+                new DataIndexDef(index_name, columns, -1, "BLIST", unique));
+
+    alterTable(table_name, table_def, index_set_def, 251, 2043);
+
+    // Check the existing rows against the new unique index
+    if (unique) {
+      checkAllConstraints(table_name);
+    }
+
+  }
+
+  /**
+   * Drops the index with the given name from a table within this
+   * transaction.  If the table or the index does not exist then an
+   * exception is thrown.
+   * <p>
+   * This should only be called under an exclusive lock on the connection.
+   */
+  public void dropIndex(TableName table_name, String index_name) {
+
+    MasterTableDataSource master = findVisibleTable(table_name, false);
+    if (master == null) {
+      throw new StatementException(
+                               "Table '" + table_name + "' doesn't exist.");
+    }
+    DataIndexSetDef index_set_def =
+                           new DataIndexSetDef(master.getDataIndexSetDef());
+    int i = index_set_def.findIndexWithName(index_name);
+    if (i == -1 || index_name.startsWith("ANON-COLUMN:")) {
+      throw new StatementException(
+          "Index '" + index_name + "' doesn't exist on '" + table_name + "'");
+    }
+    index_set_def.removeDataIndexDef(i);
+
+    alterTable(table_name, master.getDataTableDef(), index_set_def,
+               251, 2043);
+
+  }
+
   /**
    * Checks all the rows in the table for immediate constraint violations
    * and when the transaction is next committed check for all deferred
@@ -1663,6 +1777,45 @@ public class Transaction extends SimpleTransaction {
 
   }
 
+  /**
+   * Stops this transaction from using the conglomerate's ConstraintCache.
+   * This is used when the view of this transaction includes constraint
+   * changes that have not been committed yet.
+   */
+  void disableConstraintCache() {
+    constraint_cache_version = -1;
+  }
+
+  /**
+   * Returns the constraints of the given table in this transaction.  If
+   * the constraints this transaction sees are the same as the constraints
+   * last committed, they are taken from the conglomerate's ConstraintCache.
+   * Otherwise they are read from the constraint system tables.
+   */
+  ConstraintCache.Constraints queryTableConstraints(TableName table_name) {
+    boolean use_cache = (constraint_cache_version >= 0);
+    for (int i = 0; use_cache &&
+                    i < ConstraintCache.CONSTRAINT_TABLES.length; ++i) {
+      use_cache = !hasChangedTable(ConstraintCache.CONSTRAINT_TABLES[i]);
+    }
+    if (use_cache) {
+      return conglomerate.getConstraintCache().getConstraints(this,
+                                  constraint_cache_version, table_name);
+    }
+    return new ConstraintCache.Constraints(this, table_name);
+  }
+
+  /**
+   * Returns the constraints of the given table in the given transaction.
+   */
+  static ConstraintCache.Constraints queryTableConstraints(
+                  SimpleTransaction transaction, TableName table_name) {
+    if (transaction instanceof Transaction) {
+      return ((Transaction) transaction).queryTableConstraints(table_name);
+    }
+    return new ConstraintCache.Constraints(transaction, table_name);
+  }
+
   /**
    * Returns the list of tables (as a TableName array) that are dependant
    * on the data in the given table to maintain referential consistancy.  The
@@ -1677,15 +1830,16 @@ public class Transaction extends SimpleTransaction {
   public static TableName[] queryTablesRelationallyLinkedTo(
                        SimpleTransaction transaction, TableName table) {
     ArrayList list = new ArrayList();
-    ColumnGroupReference[] refs =
-                            queryTableForeignKeyReferences(transaction, table);
+    ConstraintCache.Constraints constraints =
+                              queryTableConstraints(transaction, table);
+    ColumnGroupReference[] refs = constraints.foreign_keys;
     for (int i = 0; i < refs.length; ++i) {
       TableName tname = refs[i].ref_table_name;
       if (!list.contains(tname)) {
         list.add(tname);
       }
     }
-    refs = queryTableImportedForeignKeyReferences(transaction, table);
+    refs = constraints.imported_foreign_keys;
     for (int i = 0; i < refs.length; ++i) {
       TableName tname = refs[i].key_table_name;
       if (!list.contains(tname)) {
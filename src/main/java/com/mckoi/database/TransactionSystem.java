@@ -124,6 +124,19 @@ public class TransactionSystem {
    */
   private boolean transaction_error_on_dirty_select = true;
 
+  /**
+   * The maximum number of committed transactions that are covered by a
+   * single check point when group commit is enabled.  Group commit is
+   * disabled if this is 1 or less (the default).
+   */
+  private int group_commit_batch_size = 1;
+
+  /**
+   * The maximum time (in milliseconds) a commit will wait for other commits
+   * to join its group before the check point is set.
+   */
+  private int group_commit_max_wait = 5;
+
   /**
    * The DataCellCache that is a shared resource between on database's.
    */
@@ -475,6 +488,14 @@ public class TransactionSystem {
       Debug().write(Lvl.MESSAGE, this,
               "ignore_case_for_identifiers = " + ignore_case_for_identifiers);
 
+      // Group commit (one check point covers a batch of commits)
+      group_commit_batch_size = getConfigInt("group_commit_batch_size", 1);
+      group_commit_max_wait = getConfigInt("group_commit_max_wait", 5);
+      Debug().write(Lvl.MESSAGE, this,
+              "group_commit_batch_size = " + group_commit_batch_size);
+      Debug().write(Lvl.MESSAGE, this,
+              "group_commit_max_wait = " + group_commit_max_wait);
+
       // ---- Store system setup ----
 
       // See if this JVM supports the java.nio interface
@@ -524,13 +545,16 @@ public class TransactionSystem {
         boolean use_nio_if_available =
                                 getConfigBoolean("use_nio_if_available", false);
         boolean force_use_nio = getConfigBoolean("force_use_nio", false);
+        // NIO is disabled unless the configuration property 'disable_nio' is
+        // set to 'disabled' (default to 'enabled').  When NIO is disabled
+        // the other NIO properties are ignored.
+        boolean disable_nio = getConfigBoolean("disable_nio", true);
       
         String api_to_use;
         int page_size;
         int max_pages;
+        boolean memory_mapped;
 
-        final boolean disable_nio = true;
-        
         // If NIO interface available and configuration tells us to use NIO and
         // we are not running on an OS where NIO is buggy, we set the NIO options
         // here.
@@ -544,6 +568,7 @@ public class TransactionSystem {
           page_size = getConfigInt("buffered_nio_page_size", 1024 * 1024);
           max_pages = getConfigInt("buffered_nio_max_pages", 64);
           api_to_use = "Java NIO";
+          memory_mapped = true;
         }
         else {
           Debug().write(Lvl.MESSAGE, this,
@@ -551,6 +576,7 @@ public class TransactionSystem {
           page_size = getConfigInt("buffered_io_page_size", 8192);
           max_pages = getConfigInt("buffered_io_max_pages", 256);
           api_to_use = "Java IO";
+          memory_mapped = false;
         }
 
         // Output this information to the log
@@ -561,6 +587,14 @@ public class TransactionSystem {
         Debug().write(Lvl.MESSAGE, this,
                       "[Buffer Manager] Max pages: " + max_pages);
 
+        // The page replacement policy of the buffer manager ('sort' or
+        // 'clock').  The default is 'sort'.
+        String replacement_policy =
+            getConfigString("buffer_replacement_policy",
+                            LoggingBufferManager.SORT_POLICY);
+        Debug().write(Lvl.MESSAGE, this,
+              "[Buffer Manager] Replacement policy: " + replacement_policy);
+
         // Journal path is currently always the same as database path.
         final File journal_path = db_path;
         // Max slice size is 1 GB for file scattering class
@@ -571,7 +605,8 @@ public class TransactionSystem {
         // Set up the BufferManager
         buffer_manager = new LoggingBufferManager(
               db_path, journal_path, read_only_access, max_pages, page_size,
-              first_file_ext, max_slice_size, Debug(), enable_logging);
+              replacement_policy, memory_mapped, first_file_ext,
+              max_slice_size, Debug(), enable_logging);
         // ^ This is a big constructor.  It sets up the logging manager and
         //   sets a resource store data accessor converter to a scattering
         //   implementation with a max slice size of 1 GB
@@ -774,6 +809,23 @@ public class TransactionSystem {
     return ignore_case_for_identifiers;
   }
 
+  /**
+   * Returns the maximum number of commits that may be grouped under a single
+   * check point.  If this is 1 or less then group commit is disabled and
+   * every commit sets its own check point.
+   */
+  public int groupCommitBatchSize() {
+    return group_commit_batch_size;
+  }
+
+  /**
+   * Returns the maximum time in milliseconds that a commit will wait for
+   * other commits to join its group before setting a check point.
+   */
+  public int groupCommitMaxWait() {
+    return group_commit_max_wait;
+  }
+
   /**
    * Returns the LoggingBufferManager object enabling us to create no file
    * stores in the file system.  This provides access to the buffer scheme that
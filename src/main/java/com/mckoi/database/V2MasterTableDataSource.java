@@ -34,6 +34,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.io.*;
 
 /**
@@ -118,6 +121,14 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
    */
   private FixedRecordList list_structure;
 
+  /**
+   * A directory of the record pointers of rows that have been read.  A
+   * reader looks up the record of a row here without locking
+   * 'list_structure'.  An entry is only ever set while 'list_structure' is
+   * locked, and it is cleared when the row is deleted.
+   */
+  private RecordPointerDirectory record_directory;
+
   /**
    * The first delete chain element.
    */
@@ -299,7 +310,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
       //   the index store.
       index_store = new IndexSetStore(store, getSystem());
       index_header_p = index_store.create();
-      index_store.addIndexLists(table_def.columnCount() + 1, (byte) 1, 1024);
+      index_store.addIndexLists(indexListCount(), (byte) 1, 1024);
       header_area.position(32);
       header_area.putLong(index_header_p);
       header_area.position(0);
@@ -314,9 +325,23 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
    * to store data in.
    */
   void create(int table_id, DataTableDef table_def) throws IOException {
+    create(table_id, table_def, null);
+  }
+
+  /**
+   * Create this master table in the file system at the given path.  This is
+   * the same as above except the indexes created by 'CREATE INDEX' in the
+   * given DataIndexSetDef (if it isn't null) are also set up on the table.
+   */
+  void create(int table_id, DataTableDef table_def,
+              DataIndexSetDef src_index_def) throws IOException {
 
     // Set the data table def object
     setupDataTableDef(table_def);
+    // And any indexes on groups of columns
+    if (src_index_def != null) {
+      addDataIndexDefs(src_index_def);
+    }
 
     // Initially set the table sequence_id to 1
     this.sequence_id = 1;
@@ -332,6 +357,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
       // Setup the list structure
       list_structure = new FixedRecordList(store, 12);
+      record_directory = new RecordPointerDirectory();
     }
     finally {
       store.unlockForWrite();
@@ -342,7 +368,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
     // Initialize the store to an empty state,
     setupInitialStore();
-    index_store.addIndexLists(table_def.columnCount() + 1, (byte) 1, 1024);
+    index_store.addIndexLists(indexListCount(), (byte) 1, 1024);
     
     // Load internal state
     loadInternal();
@@ -375,6 +401,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
     // Setup the list structure
     list_structure = new FixedRecordList(store, 12);
+    record_directory = new RecordPointerDirectory();
     
     // Read and setup the pointers
     readStoreHeaders();
@@ -485,7 +512,8 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
             IndexSet index_set) throws IOException {
 
     // Basically we need to copy all the data and then set the new index view.
-    create(table_id, src_master_table.getDataTableDef());
+    create(table_id, src_master_table.getDataTableDef(),
+           src_master_table.getDataIndexSetDef());
       
     // The record list.
     IntegerListInterface master_index = index_set.getIndex(0);
@@ -819,6 +847,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
     // Setup the list structure
     list_structure = new FixedRecordList(store, 12);
+    record_directory = new RecordPointerDirectory();
     
     try {
       // Read and setup the pointers
@@ -868,7 +897,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
     // Check indexes
     terminal.println("- Rebuilding all table index information.");
 
-    int index_count = table_def.columnCount() + 1;
+    int index_count = indexListCount();
     for (int i = 0; i < index_count; ++i) {
       index_store.commitDropIndex(i);
     }
@@ -927,6 +956,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
       block_area.putLong(first_delete_chain_record);
       block_area.checkOut();
       first_delete_chain_record = row_index;
+      record_directory.clear(row_index);
 
       return false;
 
@@ -1204,6 +1234,7 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
         first_delete_chain_record = row_index;
         // Update the first_delete_chain_record field in the header
         list_structure.setReservedLong(first_delete_chain_record);
+        record_directory.clear(row_index);
 
         // If the record contains any references to blobs, remove the reference
         // here.
@@ -1211,6 +1242,10 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
         // Free the record from the store
         store.deleteArea(record_p);
+        // The area may be reused so forget it if it's buffered
+        if (record_buffer != null && record_buffer.record_p == record_p) {
+          record_buffer = null;
+        }
 
       }
       finally {
@@ -1284,7 +1319,24 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
   
 //  private short s_run_total_hits = 0;
-  private short s_run_file_hits = Short.MAX_VALUE;
+  /**
+   * The number of cell reads that went to the store.  This is added to the
+   * database statistics every 100 reads.
+   */
+  private final AtomicInteger s_run_file_hits = new AtomicInteger(0);
+
+  /**
+   * Records of this size (in bytes) or smaller are read whole into a
+   * RecordBuffer.  Larger records are read as a stream.
+   */
+  private static final int MAX_RECORD_BUFFER_SIZE = 4096;
+
+  /**
+   * The last record that was read whole from the store.  When the cells of
+   * a row are read one after the other (eg. a 'SELECT *'), the cells after
+   * the first are decoded from this buffer.
+   */
+  private volatile RecordBuffer record_buffer;
 
   // ---- Optimization that saves some cycles -----
 
@@ -1331,74 +1383,79 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
     long record_p = -1;
     try {
-      synchronized (list_structure) {
-
-        // Increment the file hits counter
-        ++s_run_file_hits;
+      // Increment the file hits counter.
+      if (s_run_file_hits.incrementAndGet() % 100 == 0) {
+        getSystem().stats().add(100, file_hits_key);
+      }
 
-        if (s_run_file_hits >= 100) {
-          getSystem().stats().add(s_run_file_hits, file_hits_key);
-          s_run_file_hits = 0;
-        }
+      // Look up the record pointer in the directory.  If it's not there,
+      // find it in the list structure and put it in the directory.
+      record_p = record_directory.get(row);
+      if (record_p == -1) {
+        synchronized (list_structure) {
+
+          // Get the node for the record
+          Area list_block = list_structure.positionOnNode(row);
+          int status = list_block.getInt();
+          // Check it's not deleted
+          if ((status & 0x020000) != 0) {
+            throw new Error("Unable to read deleted record.");
+          }
+          // Get the pointer to the record we are reading
+          record_p = list_block.getLong();
+          record_directory.set(row, record_p);
 
-        // Get the node for the record
-        Area list_block = list_structure.positionOnNode(row);
-        int status = list_block.getInt();
-        // Check it's not deleted
-        if ((status & 0x020000) != 0) {
-          throw new Error("Unable to read deleted record.");
         }
-        // Get the pointer to the record we are reading
-        record_p = list_block.getLong();
-
       }
-        
-      // Open a stream to the record
-      DataInputStream din = getDIn(store.getAreaInputStream(record_p));
 
-      skipStream(din, 4 + (column * 8));
-      int cell_type = din.readInt();
-      int cell_offset = din.readInt();
-  
-      int cur_at = 8 + 4 + (column * 8);
-      int be_at = 4 + (column_count * 8);
-      int skip_amount = (be_at - cur_at) + cell_offset;
-
-      skipStream(din, skip_amount);
-        
-      Object ob;
-      if (cell_type == 1) {
-        // If standard object type
-        ob = ObjectTransfer.readFrom(din);
+      // Is this the record we last read?
+      RecordBuffer record = record_buffer;
+      if (record != null && record.record_p != record_p) {
+        record = null;
       }
-      else if (cell_type == 2) {
-        // If reference to a blob in the BlobStore
-        int f_type = din.readInt();
-        int f_reserved = din.readInt();
-        long ref_id = din.readLong();
-        if (f_type == 0) {
-          // Resolve the reference
-          ob = blob_store_interface.getLargeObject(ref_id);
-        }
-        else if (f_type == 1) {
-          ob = null;
-        }
-        else {
-          throw new RuntimeException("Unknown blob type.");
+
+      if (record == null) {
+        // Read the whole record area if it's small enough.  The other cells
+        // of the row can then be decoded without reading the store again.
+        Area record_area = store.getArea(record_p);
+        int record_size = record_area.capacity();
+        if (record_size <= MAX_RECORD_BUFFER_SIZE) {
+          byte[] buf = new byte[record_size];
+          record_area.get(buf, 0, record_size);
+          record = new RecordBuffer(record_p, buf);
+          record_buffer = record;
         }
       }
+
+      if (record != null) {
+        // Decode the cell from the record buffer
+        int header_p = 4 + (column * 8);
+        int cell_type = record.getInt(header_p);
+        int cell_offset = record.getInt(header_p + 4);
+        int cell_p = 4 + (column_count * 8) + cell_offset;
+        DataInputStream din = new DataInputStream(new ByteArrayInputStream(
+                             record.data, cell_p, record.data.length - cell_p));
+        cell = readCell(din, cell_type, column);
+      }
       else {
-        throw new RuntimeException("Unrecognised cell type in data.");
+        // Open a stream to the record
+        DataInputStream din = getDIn(store.getAreaInputStream(record_p));
+
+        skipStream(din, 4 + (column * 8));
+        int cell_type = din.readInt();
+        int cell_offset = din.readInt();
+
+        int cur_at = 8 + 4 + (column * 8);
+        int be_at = 4 + (column_count * 8);
+        int skip_amount = (be_at - cur_at) + cell_offset;
+
+        skipStream(din, skip_amount);
+
+        cell = readCell(din, cell_type, column);
+
+        // And close the reader.
+        din.close();
       }
-        
-      // Get the TType for this column
-      // NOTE: It's possible this call may need optimizing?
-      TType ttype = getDataTableDef().columnAt(column).getTType();
-      // Wrap it around a TObject
-      cell = new TObject(ttype, ob);
-  
-      // And close the reader.
-      din.close();
 
     }
     catch (IOException e) {
@@ -1417,6 +1474,43 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
 
   }
 
+  /**
+   * Reads a cell of the given type and column from the record stream.  The
+   * stream must be positioned at the start of the cell.
+   */
+  private TObject readCell(DataInputStream din, int cell_type, int column)
+                                                          throws IOException {
+    Object ob;
+    if (cell_type == 1) {
+      // If standard object type
+      ob = ObjectTransfer.readFrom(din);
+    }
+    else if (cell_type == 2) {
+      // If reference to a blob in the BlobStore
+      int f_type = din.readInt();
+      int f_reserved = din.readInt();
+      long ref_id = din.readLong();
+      if (f_type == 0) {
+        // Resolve the reference
+        ob = blob_store_interface.getLargeObject(ref_id);
+      }
+      else if (f_type == 1) {
+        ob = null;
+      }
+      else {
+        throw new RuntimeException("Unknown blob type.");
+      }
+    }
+    else {
+      throw new RuntimeException("Unrecognised cell type in data.");
+    }
+
+    // Get the TType for this column
+    // NOTE: It's possible this call may need optimizing?
+    TType ttype = getDataTableDef().columnAt(column).getTType();
+    // Wrap it around a TObject
+    return new TObject(ttype, ob);
+  }
 
   long currentUniqueID() {
     synchronized (list_structure) {
@@ -1528,5 +1622,125 @@ public final class V2MasterTableDataSource extends MasterTableDataSource {
     return "[V2MasterTableDataSource: " + file_name + "]";
   }
 
+  // ---------- Inner classes ----------
+
+  /**
+   * A directory that maps a row index to the pointer of its record area.
+   * The directory is split into blocks of pointers, and holds at most
+   * SLOT_COUNT blocks.  Each block has a slot it must be kept in, and a
+   * block that is put in a slot replaces the block that was there, so the
+   * size of the directory is bounded however many rows the table has.  A
+   * row that isn't in the directory is looked up in the list structure.
+   * <p>
+   * The slots are read and written atomically and the pointers in a block
+   * are read and written atomically, so a reader doesn't need to lock.  All
+   * changes must be made while 'list_structure' is locked.
+   */
+  private static final class RecordPointerDirectory {
+
+    /**
+     * The number of rows in each block.
+     */
+    private static final int BLOCK_SIZE = 1024;
+
+    /**
+     * The maximum number of blocks in the directory.  This must be a power
+     * of 2.
+     */
+    private static final int SLOT_COUNT = 64;
+
+    /**
+     * The blocks of the directory.  The block with index 'n' can only be put
+     * in the slot 'n % SLOT_COUNT'.
+     */
+    private final AtomicReferenceArray slots =
+                                       new AtomicReferenceArray(SLOT_COUNT);
+
+    /**
+     * Returns the record pointer of the given row, or -1 if it is not in the
+     * directory.
+     */
+    long get(int row) {
+      int block_i = row / BLOCK_SIZE;
+      Block block = (Block) slots.get(block_i & (SLOT_COUNT - 1));
+      if (block == null || block.block_i != block_i) {
+        return -1;
+      }
+      return block.pointers.get(row % BLOCK_SIZE) - 1;
+    }
+
+    /**
+     * Sets the record pointer of the given row.  If the slot of the row's
+     * block holds another block then it is replaced.
+     */
+    void set(int row, long record_p) {
+      int block_i = row / BLOCK_SIZE;
+      int slot = block_i & (SLOT_COUNT - 1);
+      Block block = (Block) slots.get(slot);
+      if (block == null || block.block_i != block_i) {
+        block = new Block(block_i);
+        slots.set(slot, block);
+      }
+      block.pointers.set(row % BLOCK_SIZE, record_p + 1);
+    }
+
+    /**
+     * Removes the given row from the directory.
+     */
+    void clear(int row) {
+      int block_i = row / BLOCK_SIZE;
+      Block block = (Block) slots.get(block_i & (SLOT_COUNT - 1));
+      if (block != null && block.block_i == block_i) {
+        block.pointers.set(row % BLOCK_SIZE, 0);
+      }
+    }
+
+    /**
+     * A block of record pointers.  An entry is the record pointer + 1, or 0
+     * if the pointer of the row is not known.
+     */
+    private static final class Block {
+
+      final int block_i;
+      final AtomicLongArray pointers;
+
+      Block(int block_i) {
+        this.block_i = block_i;
+        this.pointers = new AtomicLongArray(BLOCK_SIZE);
+      }
+
+    }
+
+  }
+
+  /**
+   * The contents of a record area that was read whole from the store.
+   */
+  private static final class RecordBuffer {
+
+    /**
+     * The pointer to the record area in the store.
+     */
+    final long record_p;
+
+    /**
+     * The contents of the record area.
+     */
+    final byte[] data;
+
+    RecordBuffer(long record_p, byte[] data) {
+      this.record_p = record_p;
+      this.data = data;
+    }
+
+    /**
+     * Returns the int at the given position in the record.
+     */
+    int getInt(int p) {
+      return ByteArrayUtil.getInt(data, p);
+    }
+
+  }
+
 }
 
@@ -161,8 +161,16 @@ public class TCPJDBCServer {
    */
   public synchronized void start() {
     if (server == null) {
+      // The 'tcp_connection_pool_thread_model' property determines the
+      // connection pool object to use.  This is either 'multi_threaded'
+      // (the default), 'single_threaded' or 'nio'.
+      String connection_pool_model = system.getConfig().getValue(
+                                         "tcp_connection_pool_thread_model");
+      if (connection_pool_model == null) {
+        connection_pool_model = "multi_threaded";
+      }
       server = new TCPServer(system.getDatabase());
-      server.start(bind_address, tcp_port, "multi_threaded");
+      server.start(bind_address, tcp_port, connection_pool_model);
     }
     else {
       throw new RuntimeException(
@@ -0,0 +1,110 @@
+/**
+ * com.mckoi.database.interpret.Analyze  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.interpret;
+
+import com.mckoi.database.*;
+
+/**
+ * Statement that handles the ANALYZE sql command.  This samples the rows of
+ * a table and stores the column statistics used by the query planner.  If
+ * no table is given then every table in the user schemas that the user may
+ * select from is analyzed.
+ *
+ * @author Tobias Downer
+ */
+
+public class Analyze extends Statement {
+
+  /**
+   * The name the table that we are to analyze, or null for all tables.
+   */
+  String table_name;
+
+  // ---------- Implemented from Statement ----------
+
+  public void prepare() throws DatabaseException {
+    table_name = (String) cmd.getObject("table_name");
+  }
+
+  public Table evaluate() throws DatabaseException {
+
+    DatabaseQueryContext context = new DatabaseQueryContext(database);
+    StatisticsManager statistics = database.getStatisticsManager();
+
+    // The statistics are stored in a table so a read only database can not
+    // be analyzed.
+    if (database.getDatabase().isReadOnly()) {
+      throw new DatabaseException("Can not analyze a read only database.");
+    }
+    // The statistics table is created when a database from before the table
+    // was added is opened with read/write access.
+    if (!database.tableExists(Database.SYS_COLUMN_STATISTICS)) {
+      throw new DatabaseException(
+            "Can not analyze because the column statistics table '" +
+            Database.SYS_COLUMN_STATISTICS + "' doesn't exist.");
+    }
+
+    if (table_name != null) {
+      TableName tname = resolveTableName(table_name, database);
+      // Does the table exist?
+      if (!database.tableExists(tname)) {
+        throw new DatabaseException("Table '" + tname + "' does not exist.");
+      }
+      if (!database.getTableType(tname).equals("TABLE") ||
+          tname.getSchema().equals(Database.SYSTEM_SCHEMA)) {
+        throw new DatabaseException("'" + tname + "' is not a user table.");
+      }
+
+      // Does the user have privs to select from this table?
+      if (!database.getDatabase().canUserSelectFromTableObject(context,
+                                              user, tname, null)) {
+        throw new UserAccessException(
+           "User not permitted to analyze table: " + table_name);
+      }
+
+      statistics.analyzeTable(tname);
+
+      // Return '1' (the number of tables analyzed) if success.
+      return FunctionTable.resultTable(context, 1);
+    }
+
+    // Analyze all the tables the user can select from,
+    int count = 0;
+    TableName[] list = database.getTableList();
+    for (int i = 0; i < list.length; ++i) {
+      TableName tname = list[i];
+      String schema = tname.getSchema();
+      if (!schema.equals(Database.SYSTEM_SCHEMA) &&
+          !schema.equals(Database.JDBC_SCHEMA) &&
+          database.getTableType(tname).equals("TABLE") &&
+          database.getDatabase().canUserSelectFromTableObject(context,
+                                              user, tname, null)) {
+        statistics.analyzeTable(tname);
+        ++count;
+      }
+    }
+
+    return FunctionTable.resultTable(context, count);
+
+  }
+
+
+}
@@ -0,0 +1,107 @@
+/**
+ * com.mckoi.database.interpret.CreateIndex  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.interpret;
+
+import com.mckoi.database.*;
+import java.util.ArrayList;
+
+/**
+ * The logic of the 'CREATE INDEX' SQL command.  This builds an index over
+ * one or more columns of a table.
+ *
+ * @author Tobias Downer
+ */
+
+public class CreateIndex extends Statement {
+
+  /**
+   * The name of the index.
+   */
+  String index_name;
+
+  /**
+   * The name of the table to create the index on.
+   */
+  String table_name;
+
+  /**
+   * The list of columns in the index.
+   */
+  ArrayList column_list;
+
+  /**
+   * True if the index is UNIQUE.
+   */
+  boolean unique;
+
+  /**
+   * The resolved table name.
+   */
+  private TableName tname;
+
+
+  // ---------- Implemented from Statement ----------
+
+  public void prepare() throws DatabaseException {
+    index_name = (String) cmd.getObject("index_name");
+    table_name = (String) cmd.getObject("table_name");
+    column_list = (ArrayList) cmd.getObject("column_list");
+    unique = cmd.getBoolean("unique");
+
+    tname = resolveTableName(table_name, database);
+    if (!database.tableExists(tname)) {
+      throw new DatabaseException("Table '" + tname + "' does not exist.");
+    }
+
+    // Resolve the columns of the index
+    ColumnChecker checker =
+                         ColumnChecker.standardColumnChecker(database, tname);
+    ColumnChecker.stripColumnList(tname.getName(), column_list);
+    checker.checkColumnList(column_list);
+    for (int i = 0; i < column_list.size(); ++i) {
+      Object check = column_list.get(i);
+      for (int n = i + 1; n < column_list.size(); ++n) {
+        if (column_list.get(n).equals(check)) {
+          throw new DatabaseException("Duplicate column in index: " + check);
+        }
+      }
+    }
+  }
+
+  public Table evaluate() throws DatabaseException {
+
+    DatabaseQueryContext context = new DatabaseQueryContext(database);
+
+    // Does the user have privs to alter this table?
+    if (!database.getDatabase().canUserAlterTableObject(context, user, tname)) {
+      throw new UserAccessException(
+         "User not permitted to alter table: " + tname);
+    }
+
+    String[] columns = (String[]) column_list.toArray(
+                                            new String[column_list.size()]);
+    database.createIndex(tname, index_name, columns, unique);
+
+    return FunctionTable.resultTable(context, 0);
+  }
+
+
+}
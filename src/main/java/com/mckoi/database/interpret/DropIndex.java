@@ -0,0 +1,77 @@
+/**
+ * com.mckoi.database.interpret.DropIndex  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.interpret;
+
+import com.mckoi.database.*;
+
+/**
+ * The logic of the 'DROP INDEX' SQL command.
+ *
+ * @author Tobias Downer
+ */
+
+public class DropIndex extends Statement {
+
+  /**
+   * The name of the index.
+   */
+  String index_name;
+
+  /**
+   * The name of the table the index is on.
+   */
+  String table_name;
+
+  /**
+   * The resolved table name.
+   */
+  private TableName tname;
+
+
+  // ---------- Implemented from Statement ----------
+
+  public void prepare() throws DatabaseException {
+    index_name = (String) cmd.getObject("index_name");
+    table_name = (String) cmd.getObject("table_name");
+
+    tname = resolveTableName(table_name, database);
+    if (!database.tableExists(tname)) {
+      throw new DatabaseException("Table '" + tname + "' does not exist.");
+    }
+  }
+
+  public Table evaluate() throws DatabaseException {
+
+    DatabaseQueryContext context = new DatabaseQueryContext(database);
+
+    // Does the user have privs to alter this table?
+    if (!database.getDatabase().canUserAlterTableObject(context, user, tname)) {
+      throw new UserAccessException(
+         "User not permitted to alter table: " + tname);
+    }
+
+    database.dropIndex(tname, index_name);
+
+    return FunctionTable.resultTable(context, 0);
+  }
+
+
+}
@@ -152,6 +152,8 @@ public class DropTable extends Statement {
                                       GrantManager.TABLE, tname.toString());
         // Drop all constraints from the schema
         database.dropAllConstraintsForTable(tname);
+        // Drop the statistics of the table
+        database.getStatisticsManager().deleteStatistics(tname);
         ++dropped_table_count;
       }
     }
@@ -22,6 +22,7 @@ package com.mckoi.database.interpret;
 
 import java.util.Collections;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import com.mckoi.database.*;
@@ -272,6 +273,19 @@ public class Planner {
         TableSelectExpression expression, TableExpressionFromSet from_set,
         ArrayList order_by)
                                                    throws DatabaseException {
+    return formQueryPlan(db, expression, from_set, order_by, -1, 0);
+  }
+
+  /**
+   * Forms a query plan as above with a LIMIT and OFFSET clause.  The result
+   * contains at most 'limit' rows (no limit if 'limit' is -1) after the first
+   * 'offset' rows.  If there is an ORDER BY, the sort only keeps the rows
+   * that are needed.
+   */
+  public static QueryPlanNode formQueryPlan(DatabaseConnection db,
+        TableSelectExpression expression, TableExpressionFromSet from_set,
+        ArrayList order_by, int limit, int offset)
+                                                   throws DatabaseException {
 
     QueryContext context = new DatabaseQueryContext(db);
                                                      
@@ -346,7 +360,7 @@ public class Planner {
     // Set up plans for each table in the from clause of the query.  For
     // sub-queries, we recurse.
 
-    QueryTableSetPlanner table_planner = new QueryTableSetPlanner();
+    QueryTableSetPlanner table_planner = new QueryTableSetPlanner(db);
 
     for (int i = 0; i < from_set.setCount(); ++i) {
       FromTableInterface table = from_set.getTable(i);
@@ -577,8 +591,24 @@ public class Planner {
       // If there is no GROUP BY clause then assume the entire result is the
       // group.
       if (gsz == 0) {
-        node = new QueryPlan.GroupNode(node, groupmax_column,
-                                       def_fun_list, def_fun_names);
+        // If there is no WHERE clause and every function is MIN(column),
+        // MAX(column) or COUNT(*) then the aggregates can be found from the
+        // indexes of the table.
+        boolean index_aggregates = (node instanceof QueryPlan.FetchTableNode &&
+                                    groupmax_column == null &&
+                                    def_fun_list.length > 0);
+        for (int i = 0; i < def_fun_list.length && index_aggregates; ++i) {
+          index_aggregates = QueryPlan.IndexAggregateNode.isIndexAggregate(
+                                                    def_fun_list[i], context);
+        }
+        if (index_aggregates) {
+          node = new QueryPlan.IndexAggregateNode(node,
+                                                def_fun_list, def_fun_names);
+        }
+        else {
+          node = new QueryPlan.GroupNode(node, groupmax_column,
+                                         def_fun_list, def_fun_names);
+        }
       }
       else {
         // Do we have any group by functions that need to be planned first?
@@ -641,6 +671,14 @@ public class Planner {
 
     }
 
+    // The number of rows from the start of the sorted result that are
+    // needed, or 0 if all the rows are needed.
+    int row_limit = 0;
+    if (limit > 0) {
+      row_limit = (int) Math.min((long) limit + offset,
+                                 (long) Integer.MAX_VALUE);
+    }
+
     // Do we do a final subset column?
     Variable[] aliases = null;
     if (do_subset_column) {
@@ -663,7 +701,8 @@ public class Planner {
       // after the distinct because distinct can affect the ordering of the
       // result.
       if (right_composite == null && order_by != null) {
-        node = planForOrderBy(node, order_by, from_set, s_col_list);
+        node = planForOrderBy(node, order_by, from_set, s_col_list,
+                              row_limit);
       }
       
       // Rename the columns as specified in the SELECT
@@ -673,7 +712,8 @@ public class Planner {
     else {
       // Process the ORDER BY?
       if (right_composite == null && order_by != null) {
-        node = planForOrderBy(node, order_by, from_set, s_col_list);
+        node = planForOrderBy(node, order_by, from_set, s_col_list,
+                              row_limit);
       }
     }
 
@@ -684,7 +724,8 @@ public class Planner {
                   expression.composite_function, expression.is_composite_all);
       // Final order by?
       if (order_by != null) {
-        node = planForOrderBy(node, order_by, from_set, s_col_list);
+        node = planForOrderBy(node, order_by, from_set, s_col_list,
+                              row_limit);
       }
       // Ensure a final subset node
       if (!(node instanceof QueryPlan.SubsetNode) && aliases != null) {
@@ -693,6 +734,11 @@ public class Planner {
 
     }
 
+    // Limit the rows of the result?
+    if (limit >= 0 || offset > 0) {
+      node = new QueryPlan.LimitNode(node, offset, limit);
+    }
+
     return node;
   }
 
@@ -706,6 +752,17 @@ public class Planner {
                   ArrayList order_by, TableExpressionFromSet from_set,
                   ArrayList s_col_list)
                                                    throws DatabaseException {
+    return planForOrderBy(plan, order_by, from_set, s_col_list, 0);
+  }
+
+  /**
+   * Plans an ORDER BY set where only the first 'row_limit' rows of the
+   * sorted result are needed.  If 'row_limit' is 0 all the rows are needed.
+   */
+  public static QueryPlanNode planForOrderBy(QueryPlanNode plan,
+                  ArrayList order_by, TableExpressionFromSet from_set,
+                  ArrayList s_col_list, int row_limit)
+                                                   throws DatabaseException {
 
     TableName FUNCTION_TABLE = new TableName("FUNCTIONTABLE");
 
@@ -777,7 +834,8 @@ public class Planner {
           // Defines the sort functions
           plan = new QueryPlan.CreateFunctionsNode(plan, funs, fnames);
           // Then plan the sort
-          plan = new QueryPlan.SortNode(plan, order_list, ascending_list);
+          plan = new QueryPlan.SortNode(plan, order_list, ascending_list,
+                                         row_limit);
           // Then plan the subset
           plan = new QueryPlan.SubsetNode(plan, mapped_names, mapped_names);
         }
@@ -785,14 +843,16 @@ public class Planner {
           // Defines the sort functions
           plan = new QueryPlan.CreateFunctionsNode(plan, funs, fnames);
           // Plan the sort
-          plan = new QueryPlan.SortNode(plan, order_list, ascending_list);
+          plan = new QueryPlan.SortNode(plan, order_list, ascending_list,
+                                         row_limit);
         }
 
       }
       else {
         // No functional orders so we only need to sort by the columns
         // defined.
-        plan = new QueryPlan.SortNode(plan, order_list, ascending_list);
+        plan = new QueryPlan.SortNode(plan, order_list, ascending_list,
+                                         row_limit);
       }
 
     }
@@ -1084,14 +1144,58 @@ public class Planner {
      */
     private boolean has_join_occurred;
 
+    /**
+     * The connection used to find the statistics of the tables, or null if
+     * statistics aren't used.
+     */
+    private DatabaseConnection database;
+
+    /**
+     * The TableStatistics of the analyzed tables being planned mapped by the
+     * TableName the columns of the table are referenced by.  This is shared
+     * by the copies of this planner.
+     */
+    private HashMap table_statistics;
 
+    /**
+     * The context used to evaluate constant expressions for estimating
+     * selectivity.
+     */
+    private QueryContext context;
+
+    /**
+     * The default selectivity of expressions that can't be estimated from
+     * the column statistics.
+     */
+    private static final double DEFAULT_EQUAL_SELECTIVITY = 0.005;
+    private static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+    private static final double DEFAULT_PATTERN_SELECTIVITY = 0.05;
+    private static final double DEFAULT_SELECTIVITY = 0.5;
+
+    /**
+     * The smallest selectivity of a range between two bounds.
+     */
+    private static final double MIN_RANGE_SELECTIVITY = 0.0001;
 
     /**
      * Constructor.
      */
-    public QueryTableSetPlanner() {
+    public QueryTableSetPlanner(DatabaseConnection database) {
+      this(database, new HashMap());
+    }
+
+    /**
+     * Constructs the planner with the table statistics of another planner.
+     */
+    private QueryTableSetPlanner(DatabaseConnection database,
+                                 HashMap table_statistics) {
       this.table_list = new ArrayList();
       has_join_occurred = false;
+      this.database = database;
+      this.table_statistics = table_statistics;
+      if (database != null) {
+        context = new DatabaseQueryContext(database);
+      }
     }
 
     /**
@@ -1118,7 +1222,197 @@ public class Planner {
                                FromTableInterface from_def) {
       Variable[] all_cols = from_def.allColumns();
       String[] unique_names = new String[] { from_def.getUniqueName() };
-      addPlanTableSource(new PlanTableSource(plan, all_cols, unique_names));
+      PlanTableSource source =
+                         new PlanTableSource(plan, all_cols, unique_names);
+      // If the table was analyzed then we can estimate the size of the
+      // source.
+      if (database != null && from_def instanceof FromTableDirectSource) {
+        FromTableDirectSource ds_table = (FromTableDirectSource) from_def;
+        TableName root_name = ds_table.getRootTableName();
+        TableStatistics stats =
+           database.getStatisticsManager().getTableStatistics(root_name);
+        if (stats != null) {
+          table_statistics.put(ds_table.getGivenTableName(), stats);
+          source.estimated_rows = database.getTable(root_name).getRowCount();
+        }
+      }
+      addPlanTableSource(source);
+    }
+
+    // ---------- Estimates ----------
+
+    /**
+     * Returns the statistics of the column the variable references, or null
+     * if the table of the column wasn't analyzed.
+     */
+    private ColumnStatistics getColumnStatistics(Variable v) {
+      TableStatistics stats =
+                 (TableStatistics) table_statistics.get(v.getTableName());
+      return (stats == null) ? null : stats.getColumnStatistics(v.getName());
+    }
+
+    /**
+     * Returns the value of the expression if it only contains constants
+     * and operators, otherwise returns null.
+     */
+    private TObject constantValue(Expression exp) {
+      for (int i = 0; i < exp.size(); ++i) {
+        Object ob = exp.elementAt(i);
+        if (!(ob instanceof TObject) &&
+            !(ob instanceof Operator && !((Operator) ob).isSubQuery())) {
+          return null;
+        }
+      }
+      try {
+        return exp.evaluate(null, null, context);
+      }
+      catch (RuntimeException e) {
+        return null;
+      }
+    }
+
+    /**
+     * Returns the default selectivity of an expression with the given
+     * operator.
+     */
+    private static double defaultSelectivity(Operator op) {
+      if (op.isSubQuery()) {
+        return DEFAULT_SELECTIVITY;
+      }
+      else if (op.is("=") || op.is("is")) {
+        return DEFAULT_EQUAL_SELECTIVITY;
+      }
+      else if (op.is("<>") || op.is("is not")) {
+        return 1.0 - DEFAULT_EQUAL_SELECTIVITY;
+      }
+      else if (op.is("<") || op.is("<=") || op.is(">") || op.is(">=")) {
+        return DEFAULT_RANGE_SELECTIVITY;
+      }
+      else if (op.isPattern()) {
+        return DEFAULT_PATTERN_SELECTIVITY;
+      }
+      return DEFAULT_SELECTIVITY;
+    }
+
+    /**
+     * If the expression is a range on a single column (eg. 'a > 9') then
+     * returns 1 if it is a lower bound, 2 if it is an upper bound, otherwise
+     * returns 0.
+     */
+    private static int rangeBound(Expression exp) {
+      Object ob = exp.last();
+      if (ob instanceof Operator && exp.split()[0].getVariable() != null) {
+        Operator op = (Operator) ob;
+        if (op.is(">") || op.is(">=")) {
+          return 1;
+        }
+        else if (op.is("<") || op.is("<=")) {
+          return 2;
+        }
+      }
+      return 0;
+    }
+
+    /**
+     * Returns the estimated fraction of the rows of a table source that
+     * the expression selects.  The expression must reference the columns of
+     * a single table.  Returns -1 if the table of the columns wasn't
+     * analyzed.
+     */
+    private double estimateSelectivity(Expression exp) {
+      List vars = exp.allVariables();
+      if (vars.size() == 0 || !table_statistics.containsKey(
+                             ((Variable) vars.get(0)).getTableName())) {
+        return -1;
+      }
+      Object last = exp.last();
+      if (!(last instanceof Operator)) {
+        return DEFAULT_SELECTIVITY;
+      }
+      Operator op = (Operator) last;
+      Expression[] exps = exp.split();
+
+      if (op.is("and") || op.is("or")) {
+        double s1 = estimateSelectivity(exps[0]);
+        double s2 = estimateSelectivity(exps[1]);
+        if (s1 < 0 || s2 < 0) {
+          return -1;
+        }
+        if (op.is("or")) {
+          return s1 + s2 - (s1 * s2);
+        }
+        // A lower and upper bound of a range on the same column (eg.
+        // 'a > 3 AND a < 9') are not independent.
+        int b1 = rangeBound(exps[0]);
+        int b2 = rangeBound(exps[1]);
+        if (b1 != 0 && b2 != 0 && b1 != b2 &&
+            exps[0].split()[0].getVariable().equals(
+                                      exps[1].split()[0].getVariable())) {
+          return Math.max(MIN_RANGE_SELECTIVITY, s1 + s2 - 1);
+        }
+        return s1 * s2;
+      }
+
+      if (!op.isSubQuery()) {
+        // The column and the value (if it's known)
+        Variable v = exps[0].getVariable();
+        TObject value = null;
+        if (v != null) {
+          value = constantValue(exps[1]);
+        }
+        else {
+          v = (Variable) vars.get(0);
+        }
+        ColumnStatistics col_stats = getColumnStatistics(v);
+        if (col_stats != null) {
+          double s = col_stats.selectivity(op, value);
+          if (s >= 0) {
+            return s;
+          }
+        }
+      }
+      return defaultSelectivity(op);
+    }
+
+    /**
+     * Returns the estimated number of distinct values of the variable in the
+     * given source.  If this isn't known then it's assumed every row is
+     * distinct.
+     */
+    private double estimateDistinct(Variable v, PlanTableSource source) {
+      ColumnStatistics col_stats = getColumnStatistics(v);
+      double distinct = (col_stats == null) ? -1 :
+                                              col_stats.getDistinctCount();
+      if (distinct <= 0) {
+        return Math.max(1, source.estimated_rows);
+      }
+      return Math.max(1, Math.min(distinct, source.estimated_rows));
+    }
+
+    /**
+     * Returns the estimated number of rows of the equi-join of the two
+     * sources on the given columns, or -1 if it isn't known.  If the sources
+     * are the same then this is the number of rows that are selected by the
+     * join condition.
+     */
+    private double estimateEquiJoin(PlanTableSource lhs_plan,
+                                    PlanTableSource rhs_plan,
+                                    List lhs_vars, List rhs_vars) {
+      if (lhs_plan.estimated_rows < 0 || rhs_plan.estimated_rows < 0) {
+        return -1;
+      }
+      double rows = lhs_plan.estimated_rows;
+      if (lhs_plan != rhs_plan) {
+        rows = rows * rhs_plan.estimated_rows;
+      }
+      for (int i = 0; i < lhs_vars.size(); ++i) {
+        double l_distinct =
+                    estimateDistinct((Variable) lhs_vars.get(i), lhs_plan);
+        double r_distinct =
+                    estimateDistinct((Variable) rhs_vars.get(i), rhs_plan);
+        rows = rows / Math.max(l_distinct, r_distinct);
+      }
+      return Math.max(1, rows);
     }
 
     /**
@@ -1474,7 +1768,11 @@ public class Planner {
         // Perform a natural join
         QueryPlanNode node = new QueryPlan.NaturalJoinNode(
                                            plan1.getPlan(), plan2.getPlan());
-        return mergeTables(plan1, plan2, node);
+        PlanTableSource c_plan = mergeTables(plan1, plan2, node);
+        if (plan1.estimated_rows >= 0 && plan2.estimated_rows >= 0) {
+          c_plan.estimated_rows = plan1.estimated_rows * plan2.estimated_rows;
+        }
+        return c_plan;
       }
 
       // This means plan1 and plan2 are linked by a common join and ON
@@ -1502,7 +1800,8 @@ public class Planner {
       }
 
       // Make a Planner object for joining these plans.
-      QueryTableSetPlanner planner = new QueryTableSetPlanner();
+      QueryTableSetPlanner planner =
+                     new QueryTableSetPlanner(database, table_statistics);
       planner.addPlanTableSource(left_plan.copy());
       planner.addPlanTableSource(right_plan.copy());
 
@@ -1586,6 +1885,21 @@ public class Planner {
       Variable single_var;
       Variable variable;
       Expression expression;
+      double selectivity;
+    }
+
+    /**
+     * Sets the optimizable value and the selectivity of an expression plan.
+     * If the selectivity is known then the more selective plans are given
+     * a slightly smaller value so they are evaluated first.
+     */
+    private static void setPlanValues(ExpressionPlan plan, float value,
+                                      double selectivity) {
+      if (selectivity >= 0) {
+        value += (float) (selectivity * 0.01);
+      }
+      plan.setOptimizableValue(value);
+      plan.setSelectivity(selectivity);
     }
 
     /**
@@ -1653,6 +1967,7 @@ public class Planner {
         PlanTableSource table_source = findTableSource(single_var);
         table_source.updatePlan(new QueryPlan.SimpleSelectNode(
                    table_source.getPlan(), single_var, op, expression));
+        table_source.applySelectivity(getSelectivity());
       }
     }
 
@@ -1668,6 +1983,57 @@ public class Planner {
         PlanTableSource table_source = findTableSource(single_var);
         table_source.updatePlan(new QueryPlan.RangeSelectNode(
                                         table_source.getPlan(), expression));
+        table_source.applySelectivity(getSelectivity());
+      }
+    }
+
+    private class MultiColumnExpressionPlan extends ExpressionPlan {
+      private ArrayList var_plans = new ArrayList();
+      public void addVarPlan(SingleVarPlan var_plan) {
+        // If the selectivity is known then keep the most selective columns
+        // first so they are selected first.
+        int i = var_plans.size();
+        if (var_plan.selectivity >= 0) {
+          while (i > 0 && ((SingleVarPlan) var_plans.get(i - 1)).selectivity
+                                                    > var_plan.selectivity) {
+            --i;
+          }
+        }
+        var_plans.add(i, var_plan);
+      }
+      public void addToPlanTree() {
+        int sz = var_plans.size();
+        // Are all the expressions an equality with a single column?
+        boolean all_equi = true;
+        for (int i = 0; i < sz && all_equi; ++i) {
+          Expression exp = ((SingleVarPlan) var_plans.get(i)).expression;
+          Operator op = (Operator) exp.last();
+          all_equi = op.is("=") && exp.split()[0].getVariable() != null;
+        }
+        // Find the table source for the variables
+        SingleVarPlan first = (SingleVarPlan) var_plans.get(0);
+        PlanTableSource table_source = findTableSource(first.single_var);
+        if (all_equi) {
+          Variable[] columns = new Variable[sz];
+          Expression[] values = new Expression[sz];
+          for (int i = 0; i < sz; ++i) {
+            SingleVarPlan var_plan = (SingleVarPlan) var_plans.get(i);
+            Expression[] exps = var_plan.expression.split();
+            columns[i] = exps[0].getVariable();
+            values[i] = exps[1];
+          }
+          table_source.updatePlan(new QueryPlan.MultiColumnEquiSelectNode(
+                                  table_source.getPlan(), columns, values));
+        }
+        else {
+          Expression[] expressions = new Expression[sz];
+          for (int i = 0; i < sz; ++i) {
+            expressions[i] = ((SingleVarPlan) var_plans.get(i)).expression;
+          }
+          table_source.updatePlan(new QueryPlan.MultiColumnRangeSelectNode(
+                                  table_source.getPlan(), expressions));
+        }
+        table_source.applySelectivity(getSelectivity());
       }
     }
 
@@ -1683,6 +2049,7 @@ public class Planner {
         PlanTableSource table_source = findTableSource(single_var);
         table_source.updatePlan(new QueryPlan.ExhaustiveSelectNode(
                                         table_source.getPlan(), expression));
+        table_source.applySelectivity(getSelectivity());
       }
     }
 
@@ -1698,6 +2065,7 @@ public class Planner {
         PlanTableSource table_source = findTableSource(single_var);
         table_source.updatePlan(new QueryPlan.SimplePatternSelectNode(
                                         table_source.getPlan(), expression));
+        table_source.applySelectivity(getSelectivity());
       }
     }
 
@@ -1806,19 +2174,25 @@ public class Planner {
             // If rhs_v is a single variable and lhs_v is not then we must
             // reverse the expression.
             QueryPlan.JoinNode join_node;
+            PlanTableSource c_plan;
             if (lhs_v == null && rhs_v != null) {
               // Reverse the expressions and the operator
               join_node = new QueryPlan.JoinNode(
                             rhs_plan.getPlan(), lhs_plan.getPlan(),
                             rhs_v, op.reverse(), exps[0]);
-              mergeTables(rhs_plan, lhs_plan, join_node);
+              c_plan = mergeTables(rhs_plan, lhs_plan, join_node);
             }
             else {
               // Otherwise, use it as it is.
               join_node = new QueryPlan.JoinNode(
                             lhs_plan.getPlan(), rhs_plan.getPlan(),
                             lhs_v, op, exps[1]);
-              mergeTables(lhs_plan, rhs_plan, join_node);
+              c_plan = mergeTables(lhs_plan, rhs_plan, join_node);
+            }
+            if (lhs_plan.estimated_rows >= 0 &&
+                rhs_plan.estimated_rows >= 0) {
+              c_plan.estimated_rows = lhs_plan.estimated_rows *
+                       rhs_plan.estimated_rows * defaultSelectivity(op);
             }
             // Return because we are done
             return;
@@ -1842,6 +2216,83 @@ public class Planner {
       }
     }
 
+    private class EquiJoinExpressionPlan extends ExpressionPlan {
+      private ArrayList lhs_vars;
+      private ArrayList rhs_vars;
+      private ArrayList expressions;
+      public EquiJoinExpressionPlan() {
+        lhs_vars = new ArrayList();
+        rhs_vars = new ArrayList();
+        expressions = new ArrayList();
+      }
+      public void addJoinColumn(Variable lhs_v, Variable rhs_v,
+                                Expression e) {
+        lhs_vars.add(lhs_v);
+        rhs_vars.add(rhs_v);
+        expressions.add(e);
+      }
+      /**
+       * Returns the estimated number of rows that result from adding this
+       * join to the plan as the table sources currently are, or -1 if this
+       * isn't known.
+       */
+      public double estimateRows() {
+        PlanTableSource lhs_plan = findCommonTableSource(lhs_vars);
+        PlanTableSource rhs_plan = findCommonTableSource(rhs_vars);
+        if (lhs_plan == null || rhs_plan == null) {
+          return -1;
+        }
+        return estimateEquiJoin(lhs_plan, rhs_plan, lhs_vars, rhs_vars);
+      }
+      public void addToPlanTree() {
+
+        // Get the left and right plan for the variables in the join.  Note
+        // that these methods may perform natural joins on the table.
+        PlanTableSource lhs_plan = joinAllPlansWithVariables(lhs_vars);
+        PlanTableSource rhs_plan = joinAllPlansWithVariables(rhs_vars);
+        double rows =
+                 estimateEquiJoin(lhs_plan, rhs_plan, lhs_vars, rhs_vars);
+
+        // If the lhs and rhs plans are different then join all the columns
+        // with a single equi-join.
+        if (lhs_plan != rhs_plan) {
+          int sz = lhs_vars.size();
+          Variable[] left_cols = new Variable[sz];
+          Variable[] right_cols = new Variable[sz];
+          for (int i = 0; i < sz; ++i) {
+            left_cols[i] = (Variable) lhs_vars.get(i);
+            right_cols[i] = (Variable) rhs_vars.get(i);
+          }
+          QueryPlan.EquiJoinNode join_node = new QueryPlan.EquiJoinNode(
+                        lhs_plan.getPlan(), rhs_plan.getPlan(),
+                        left_cols, right_cols);
+          // If the size of both sides is known then decide if a hash join
+          // is cheaper than an index join
+          if (rows >= 0) {
+            join_node.setJoinMethod(QueryPlan.EquiJoinNode.cheapestJoinMethod(
+                    lhs_plan.estimated_rows, rhs_plan.estimated_rows));
+          }
+          PlanTableSource c_plan =
+                              mergeTables(lhs_plan, rhs_plan, join_node);
+          c_plan.estimated_rows = rows;
+          return;
+        }
+
+        // Otherwise the variables are already in the same plan (the tables
+        // were joined by something else), so this is an exhaustive select.
+        Expression expression = (Expression) expressions.get(0);
+        for (int i = 1; i < expressions.size(); ++i) {
+          expression = new Expression(expression, Operator.get("and"),
+                                      (Expression) expressions.get(i));
+        }
+        lhs_plan.updatePlan(new QueryPlan.ExhaustiveSelectNode(
+                                           lhs_plan.getPlan(), expression));
+        if (rows >= 0) {
+          lhs_plan.estimated_rows = rows;
+        }
+      }
+    }
+
     private class SubLogicExpressionPlan extends ExpressionPlan {
       private Expression expression;
       public SubLogicExpressionPlan(Expression e) {
@@ -1909,14 +2360,14 @@ public class Planner {
           if (single_var != null) {
             ExpressionPlan exp_plan = new SimpleSelectExpressionPlan(
                                                      single_var, op, exps[1]);
-            exp_plan.setOptimizableValue(0.2f);
+            setPlanValues(exp_plan, 0.2f, estimateSelectivity(andexp));
             evaluate_order.add(exp_plan);
           }
           else {
             single_var = (Variable) exps[0].allVariables().get(0);
             ExpressionPlan exp_plan = new ComplexSingleExpressionPlan(
                                                         single_var, andexp);
-            exp_plan.setOptimizableValue(0.8f);
+            setPlanValues(exp_plan, 0.8f, estimateSelectivity(andexp));
             evaluate_order.add(exp_plan);
           }
         }
@@ -1951,12 +2402,48 @@ public class Planner {
       }
 
       // We now have a list of simple and complex plans for each table,
+      // Simple plans on different columns of the same table are planned
+      // together so a multi-column index can be used to resolve them.
       int sz = simple_plan_list.size();
       for (int i = 0; i < sz; ++i) {
         SingleVarPlan var_plan = (SingleVarPlan) simple_plan_list.get(i);
-        ExpressionPlan exp_plan = new SimpleSingleExpressionPlan(
+        var_plan.selectivity = estimateSelectivity(var_plan.expression);
+      }
+      for (int i = 0; i < sz; ++i) {
+        SingleVarPlan var_plan = (SingleVarPlan) simple_plan_list.get(i);
+        if (var_plan == null) {
+          continue;
+        }
+        MultiColumnExpressionPlan multi_plan = null;
+        for (int n = i + 1; n < sz; ++n) {
+          SingleVarPlan other = (SingleVarPlan) simple_plan_list.get(n);
+          if (other != null && other.table_source == var_plan.table_source) {
+            if (multi_plan == null) {
+              multi_plan = new MultiColumnExpressionPlan();
+              multi_plan.addVarPlan(var_plan);
+            }
+            multi_plan.addVarPlan(other);
+            simple_plan_list.set(n, null);
+          }
+        }
+        ExpressionPlan exp_plan;
+        double selectivity;
+        if (multi_plan != null) {
+          exp_plan = multi_plan;
+          // The columns are assumed to be independent
+          selectivity = 1;
+          for (int n = 0; n < multi_plan.var_plans.size(); ++n) {
+            double s = ((SingleVarPlan)
+                               multi_plan.var_plans.get(n)).selectivity;
+            selectivity = (s < 0 || selectivity < 0) ? -1 : selectivity * s;
+          }
+        }
+        else {
+          exp_plan = new SimpleSingleExpressionPlan(
                                    var_plan.single_var, var_plan.expression);
-        exp_plan.setOptimizableValue(0.2f);
+          selectivity = var_plan.selectivity;
+        }
+        setPlanValues(exp_plan, 0.2f, selectivity);
         evaluate_order.add(exp_plan);
       }
 
@@ -1965,7 +2452,8 @@ public class Planner {
         SingleVarPlan var_plan = (SingleVarPlan) complex_plan_list.get(i);
         ExpressionPlan exp_plan = new ComplexSingleExpressionPlan(
                                    var_plan.single_var, var_plan.expression);
-        exp_plan.setOptimizableValue(0.8f);
+        setPlanValues(exp_plan, 0.8f,
+                      estimateSelectivity(var_plan.expression));
         evaluate_order.add(exp_plan);
       }
 
@@ -1997,7 +2485,7 @@ public class Planner {
         else if (lhs_v != null && exps[1].isConstant()) {
           ExpressionPlan expr_plan =
                                  new SimplePatternExpressionPlan(lhs_v, expr);
-          expr_plan.setOptimizableValue(0.25f);
+          setPlanValues(expr_plan, 0.25f, estimateSelectivity(expr));
           evaluate_order.add(expr_plan);
         }
         else {
@@ -2128,11 +2616,16 @@ public class Planner {
      */
     void evaluateMultiples(ArrayList multi_vars, ArrayList evaluate_order) {
 
-      // FUTURE OPTIMIZATION:
-      //   This join order planner is a little primitive in design.  It orders
-      //   optimizable joins first and least optimizable last, but does not
-      //   take into account other factors that we could use to optimize
-      //   joins in the future.
+      // This orders optimizable joins first and least optimizable last.  If
+      // the tables were analyzed then the order of the equi-joins is chosen
+      // from the estimated size of the joins when they are added to the
+      // plan (see 'chooseNextEquiJoin').
+
+      // The equi-join plans for each pair of table sources.  All the
+      // 'a = b' conditions between the same two sources are joined by one
+      // plan.
+      ArrayList equi_join_sources = new ArrayList();
+      ArrayList equi_join_plans = new ArrayList();
 
       // For each single variable expression
       for (int i = 0; i < multi_vars.size(); ++i) {
@@ -2145,6 +2638,43 @@ public class Planner {
         Variable lhs_v = exps[0].getVariable();
         Variable rhs_v = exps[1].getVariable();
 
+        // Is this an equi-join between two different table sources?
+        if (lhs_v != null && rhs_v != null &&
+            ((Operator) expr.last()).is("=")) {
+          PlanTableSource lhs_source = findTableSource(lhs_v);
+          PlanTableSource rhs_source = findTableSource(rhs_v);
+          if (lhs_source != rhs_source) {
+            // Find the equi-join plan between these sources
+            EquiJoinExpressionPlan exp_plan = null;
+            for (int n = 0; n < equi_join_sources.size(); n += 2) {
+              Object s1 = equi_join_sources.get(n);
+              Object s2 = equi_join_sources.get(n + 1);
+              if (s1 == lhs_source && s2 == rhs_source) {
+                exp_plan = (EquiJoinExpressionPlan) equi_join_plans.get(n / 2);
+                break;
+              }
+              else if (s1 == rhs_source && s2 == lhs_source) {
+                // Reverse the join condition so it matches the plan
+                Variable temp_v = lhs_v;
+                lhs_v = rhs_v;
+                rhs_v = temp_v;
+                exp_plan = (EquiJoinExpressionPlan) equi_join_plans.get(n / 2);
+                break;
+              }
+            }
+            if (exp_plan == null) {
+              exp_plan = new EquiJoinExpressionPlan();
+              exp_plan.setOptimizableValue(0.60f);
+              evaluate_order.add(exp_plan);
+              equi_join_sources.add(lhs_source);
+              equi_join_sources.add(rhs_source);
+              equi_join_plans.add(exp_plan);
+            }
+            exp_plan.addJoinColumn(lhs_v, rhs_v, expr);
+            continue;
+          }
+        }
+
         // Work out how optimizable the join is.
         // The calculation is as follows;
         // a) If both the lhs and rhs are a single variable then the
@@ -2246,6 +2776,38 @@ each_logic_expr:
 
     // -----
 
+    /**
+     * Given the evaluation order and the index of an equi-join in the order,
+     * this picks the equi-join in the run of equi-joins starting at the
+     * index that results in the fewest rows and moves it to the index.  If
+     * the number of rows of any of the joins can not be estimated then the
+     * order is not changed.
+     * <p>
+     * Choosing each join this way means the joins between the smallest
+     * results are made first and large intermediate results are avoided.
+     */
+    private void chooseNextEquiJoin(ArrayList evaluate_order, int index) {
+      int best = -1;
+      double best_rows = 0;
+      int sz = evaluate_order.size();
+      for (int i = index; i < sz &&
+                   evaluate_order.get(i) instanceof EquiJoinExpressionPlan;
+           ++i) {
+        double rows =
+               ((EquiJoinExpressionPlan) evaluate_order.get(i)).estimateRows();
+        if (rows < 0) {
+          return;
+        }
+        if (best == -1 || rows < best_rows) {
+          best = i;
+          best_rows = rows;
+        }
+      }
+      if (best > index) {
+        evaluate_order.add(index, evaluate_order.remove(best));
+      }
+    }
+
     /**
      * Generates a plan to evaluate the given list of expressions
      * (logically separated with AND).
@@ -2356,6 +2918,9 @@ each_logic_expr:
       Collections.sort(evaluate_order);
       // And add each expression to the plan
       for (int i = 0; i < evaluate_order.size(); ++i) {
+        if (evaluate_order.get(i) instanceof EquiJoinExpressionPlan) {
+          chooseNextEquiJoin(evaluate_order, i);
+        }
         ExpressionPlan plan = (ExpressionPlan) evaluate_order.get(i);
         plan.addToPlanTree();
       }
@@ -2562,7 +3127,8 @@ each_logic_expr:
      * Makes an exact duplicate copy (deep clone) of this planner object.
      */
     private QueryTableSetPlanner copy() {
-      QueryTableSetPlanner copy = new QueryTableSetPlanner();
+      QueryTableSetPlanner copy =
+                     new QueryTableSetPlanner(database, table_statistics);
       int sz = table_list.size();
       for (int i = 0; i < sz; ++i) {
         copy.table_list.add(((PlanTableSource) table_list.get(i)).copy());
@@ -2638,6 +3204,12 @@ each_logic_expr:
     int left_join_type, right_join_type;
     Expression left_on_expr, right_on_expr;
 
+    /**
+     * The estimated number of rows of this plan, or -1 if it isn't known.
+     * This is only known when the tables in the plan were analyzed.
+     */
+    double estimated_rows;
+
 
     /**
      * Constructor.
@@ -2650,6 +3222,7 @@ each_logic_expr:
       left_join_type = -1;
       right_join_type = -1;
       is_updated = false;
+      estimated_rows = -1;
     }
 
     /**
@@ -2750,6 +3323,17 @@ each_logic_expr:
       setUpdated();
     }
 
+    /**
+     * Updates the estimated number of rows after an expression with the
+     * given selectivity is added to the plan.
+     */
+    public void applySelectivity(double selectivity) {
+      if (estimated_rows >= 0) {
+        estimated_rows = (selectivity >= 0) ?
+                    Math.max(1, estimated_rows * selectivity) : -1;
+      }
+    }
+
     /**
      * Returns the plan for this table source.
      */
@@ -2768,7 +3352,10 @@ each_logic_expr:
      * Makes a copy of this table source.
      */
     public PlanTableSource copy() {
-      return new PlanTableSource(plan, var_list, unique_names);
+      PlanTableSource copy =
+                        new PlanTableSource(plan, var_list, unique_names);
+      copy.estimated_rows = estimated_rows;
+      return copy;
     }
 
   }
@@ -2789,6 +3376,12 @@ each_logic_expr:
      */
     private float optimizable_value;
 
+    /**
+     * The estimated fraction of the rows the expression selects, or -1 if
+     * it isn't known.
+     */
+    private double selectivity = -1;
+
     /**
      * Sets the optimizable value of this plan.
      */
@@ -2803,6 +3396,21 @@ each_logic_expr:
       return optimizable_value;
     }
 
+    /**
+     * Sets the estimated selectivity of this plan.
+     */
+    public void setSelectivity(double s) {
+      selectivity = s;
+    }
+
+    /**
+     * Returns the estimated selectivity of this plan, or -1 if it isn't
+     * known.
+     */
+    public double getSelectivity() {
+      return selectivity;
+    }
+
     /**
      * Adds this expression into the plan tree.
      */
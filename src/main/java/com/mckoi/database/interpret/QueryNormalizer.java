@@ -0,0 +1,362 @@
+/**
+ * com.mckoi.database.interpret.QueryNormalizer  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.interpret;
+
+import com.mckoi.database.TObject;
+import com.mckoi.database.jdbc.SQLQuery;
+import com.mckoi.database.sql.SQLConstants;
+import com.mckoi.database.sql.SQLTokenManager;
+import com.mckoi.database.sql.SimpleCharStream;
+import com.mckoi.database.sql.Token;
+import com.mckoi.database.sql.TokenMgrError;
+import com.mckoi.database.sql.Util;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Stack;
+
+/**
+ * Lifts the literal values out of the text of a query and replaces them with
+ * parameter substitutions.  For example,
+ * "SELECT * FROM Part WHERE id = 4711" becomes
+ * "SELECT * FROM Part WHERE id = ?" with 4711 as the value of the parameter.
+ * Queries that only differ by their literal values then share the same
+ * statement tree and plan in the StatementCache.
+ * <p>
+ * Only SELECT, INSERT, UPDATE and DELETE queries are normalized, and only
+ * the number and string literals in a WHERE, HAVING, ON, SET or VALUES
+ * clause are lifted.  The literals of a select list are left in the query
+ * because the text of a column expression is the name of the column.  LIKE
+ * patterns, type sizes and date/time literals are also left in the query
+ * because the grammar or the planner needs them as literals.
+ * <p>
+ * A literal may still be lifted from a place where the grammar doesn't allow
+ * a parameter.  In this case the normalized query won't parse and the query
+ * must be parsed as it was given.
+ *
+ * @author Tobias Downer
+ */
+
+final class QueryNormalizer {
+
+  /**
+   * Returns a copy of the given query with its literals replaced by
+   * parameters, or null if there are no literals that can be lifted.  The
+   * parameters of the returned query are the parameters of the given query
+   * with the values of the lifted literals inserted in the order they appear
+   * in the text.
+   */
+  static SQLQuery normalize(SQLQuery query) {
+    String text = query.getQuery();
+    if (text == null) {
+      return null;
+    }
+
+    // Split the query into tokens
+    ArrayList tokens = new ArrayList();
+    try {
+      SQLTokenManager lexer =
+               new SQLTokenManager(new SimpleCharStream(new StringReader(text)));
+      Token t = lexer.getNextToken();
+      while (t.kind != SQLConstants.EOF) {
+        tokens.add(t);
+        t = lexer.getNextToken();
+      }
+    }
+    catch (TokenMgrError e) {
+      // The query will fail to parse anyway
+      return null;
+    }
+    if (tokens.size() == 0) {
+      return null;
+    }
+    int statement_kind = ((Token) tokens.get(0)).kind;
+    if (statement_kind != SQLConstants.SELECT &&
+        statement_kind != SQLConstants.INSERT &&
+        statement_kind != SQLConstants.UPDATE &&
+        statement_kind != SQLConstants.DELETE) {
+      return null;
+    }
+
+    // The line and column of each character, as they are counted by
+    // SimpleCharStream, so the tokens can be found in the text.
+    int[] line_of = new int[text.length()];
+    int[] column_of = new int[text.length()];
+    countLinesAndColumns(text, line_of, column_of);
+
+    Object[] vars = query.getVars();
+    int var_index = 0;
+    ArrayList params = new ArrayList();
+    StringBuffer buf = new StringBuffer(text.length());
+    int copied_to = 0;
+    boolean lifted = false;
+
+    // True if the literals of the current clause can be lifted.  The state
+    // of the enclosing clause is kept for each open parenthesis.
+    boolean lift = false;
+    Stack lift_stack = new Stack();
+
+    final int size = tokens.size();
+    for (int i = 0; i < size; ++i) {
+      Token t = (Token) tokens.get(i);
+      Token prev = (i > 0) ? (Token) tokens.get(i - 1) : null;
+
+      if (t.kind == SQLConstants.PARAMETER_REF) {
+        params.add((var_index < vars.length) ? vars[var_index] : null);
+        ++var_index;
+      }
+      else if (t.image.equals("(")) {
+        lift_stack.push(new Boolean(lift));
+        // The sizes of a type and the arguments of TRIM must be literals
+        if (prev != null &&
+            (isSizedType(prev.kind) || prev.kind == SQLConstants.TRIM)) {
+          lift = false;
+        }
+      }
+      else if (t.image.equals(")")) {
+        if (!lift_stack.isEmpty()) {
+          lift = ((Boolean) lift_stack.pop()).booleanValue();
+        }
+      }
+      else if (t.kind == SQLConstants.WHERE ||
+               t.kind == SQLConstants.HAVING ||
+               t.kind == SQLConstants.ON ||
+               t.kind == SQLConstants.SET ||
+               t.kind == SQLConstants.VALUES) {
+        lift = true;
+      }
+      else if (t.kind == SQLConstants.SELECT ||
+               t.kind == SQLConstants.FROM ||
+               t.kind == SQLConstants.INTO ||
+               t.kind == SQLConstants.GROUPBY ||
+               t.kind == SQLConstants.ORDERBY ||
+               t.kind == SQLConstants.LIMIT) {
+        lift = false;
+      }
+      else if (lift && prev != null && !isLiteralPrefix(prev.kind) &&
+               (t.kind == SQLConstants.NUMBER_LITERAL ||
+                t.kind == SQLConstants.STRING_LITERAL)) {
+
+        Token start = t;
+        Object value;
+        if (t.kind == SQLConstants.NUMBER_LITERAL) {
+          // A sign before a number is part of the literal unless it's an
+          // operator.
+          boolean negative = false;
+          if ((prev.kind == SQLConstants.ADD ||
+               prev.kind == SQLConstants.SUBTRACT) && i >= 2 &&
+              isBeforeOperand((Token) tokens.get(i - 2))) {
+            start = prev;
+            negative = (prev.kind == SQLConstants.SUBTRACT);
+          }
+          value = Util.parseNumberToken(t, negative).getObject();
+        }
+        else {
+          value = ((TObject) Util.toParamObject(t, false)).getObject();
+        }
+
+        int start_offset = offsetOf(line_of, column_of,
+                                    start.beginLine, start.beginColumn);
+        int end_offset = offsetOf(line_of, column_of,
+                                  t.endLine, t.endColumn);
+        if (start_offset < copied_to || end_offset < start_offset) {
+          // Shouldn't happen, but don't risk changing the query
+          return null;
+        }
+        buf.append(text.substring(copied_to, start_offset));
+        buf.append('?');
+        copied_to = end_offset + 1;
+        params.add(value);
+        lifted = true;
+      }
+    }
+
+    if (!lifted) {
+      return null;
+    }
+    buf.append(text.substring(copied_to));
+
+    SQLQuery normal_query = new SQLQuery(new String(buf));
+    for (int i = 0; i < params.size(); ++i) {
+      normal_query.addVar(params.get(i));
+    }
+    return normal_query;
+  }
+
+  /**
+   * Returns true if the token of the given kind is a type that may be
+   * followed by a size, such as VARCHAR(100).
+   */
+  private static boolean isSizedType(int kind) {
+    switch (kind) {
+      case SQLConstants.CHAR:
+      case SQLConstants.CHARACTER:
+      case SQLConstants.VARYING:
+      case SQLConstants.VARCHAR:
+      case SQLConstants.LONGVARCHAR:
+      case SQLConstants.TEXT:
+      case SQLConstants.STRING:
+      case SQLConstants.CLOB:
+      case SQLConstants.INT:
+      case SQLConstants.INTEGER:
+      case SQLConstants.TINYINT:
+      case SQLConstants.SMALLINT:
+      case SQLConstants.BIGINT:
+      case SQLConstants.FLOAT:
+      case SQLConstants.REAL:
+      case SQLConstants.DOUBLE:
+      case SQLConstants.NUMERIC:
+      case SQLConstants.DECIMAL:
+      case SQLConstants.BINARY:
+      case SQLConstants.VARBINARY:
+      case SQLConstants.LONGVARBINARY:
+      case SQLConstants.BLOB:
+      case SQLConstants.JAVA_OBJECT:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns true if a literal after a token of the given kind must be left
+   * in the query.
+   */
+  private static boolean isLiteralPrefix(int kind) {
+    switch (kind) {
+      case SQLConstants.LIKE:
+      case SQLConstants.REGEX:
+      case SQLConstants.DATE:
+      case SQLConstants.TIME:
+      case SQLConstants.TIMESTAMP:
+      case SQLConstants.COLLATE:
+      case SQLConstants.LEADING:
+      case SQLConstants.TRAILING:
+      case SQLConstants.BOTH:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns true if the given token can only be followed by an operand, so
+   * a '+' or '-' after it is the sign of a number rather than an operator.
+   */
+  private static boolean isBeforeOperand(Token t) {
+    switch (t.kind) {
+      case SQLConstants.ASSIGNMENT:
+      case SQLConstants.EQUALS:
+      case SQLConstants.GR:
+      case SQLConstants.LE:
+      case SQLConstants.GREQ:
+      case SQLConstants.LEEQ:
+      case SQLConstants.NOTEQ:
+      case SQLConstants.STAR:
+      case SQLConstants.DIVIDE:
+      case SQLConstants.ADD:
+      case SQLConstants.SUBTRACT:
+      case SQLConstants.CONCAT:
+      case SQLConstants.AND:
+      case SQLConstants.OR:
+      case SQLConstants.NOT:
+      case SQLConstants.BETWEEN:
+      case SQLConstants.WHERE:
+      case SQLConstants.HAVING:
+      case SQLConstants.ON:
+      case SQLConstants.SET:
+        return true;
+      default:
+        return t.image.equals("(") || t.image.equals(",");
+    }
+  }
+
+  /**
+   * Sets the line and column of each character of the given text, counted
+   * the same way as SimpleCharStream counts them.
+   */
+  private static void countLinesAndColumns(String text,
+                                           int[] line_of, int[] column_of) {
+    int line = 1;
+    int column = 0;
+    boolean prev_lf = false;
+    boolean prev_cr = false;
+    final int len = text.length();
+    for (int i = 0; i < len; ++i) {
+      char c = text.charAt(i);
+      ++column;
+      if (prev_lf) {
+        prev_lf = false;
+        line += (column = 1);
+      }
+      else if (prev_cr) {
+        prev_cr = false;
+        if (c == '\n') {
+          prev_lf = true;
+        }
+        else {
+          line += (column = 1);
+        }
+      }
+      switch (c) {
+        case '\r':
+          prev_cr = true;
+          break;
+        case '\n':
+          prev_lf = true;
+          break;
+        case '\t':
+          --column;
+          column += (8 - (column & 07));
+          break;
+        default:
+          break;
+      }
+      line_of[i] = line;
+      column_of[i] = column;
+    }
+  }
+
+  /**
+   * Returns the offset in the text of the character at the given line and
+   * column, or -1 if there is no such character.
+   */
+  private static int offsetOf(int[] line_of, int[] column_of,
+                              int line, int column) {
+    int low = 0;
+    int high = line_of.length - 1;
+    while (low <= high) {
+      int mid = (low + high) / 2;
+      int cmp = (line_of[mid] != line) ? line_of[mid] - line
+                                       : column_of[mid] - column;
+      if (cmp < 0) {
+        low = mid + 1;
+      }
+      else if (cmp > 0) {
+        high = mid - 1;
+      }
+      else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+}
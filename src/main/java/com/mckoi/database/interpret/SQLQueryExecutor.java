@@ -27,10 +27,11 @@ import com.mckoi.database.sql.ParseException;
 
 import java.io.StringReader;
 import java.sql.SQLException;
+import java.util.ArrayList;
 
 /**
  * An object used to execute SQL queries against a given DatabaseConnection
- * object.  The object maintains an SQL parser object as state which is
+ * object.  The object maintains a pool of SQL parser objects which are
  * reused as necessary.
  * <p>
  * This object is a convenient way to execute SQL queries.
@@ -41,15 +42,17 @@ import java.sql.SQLException;
 public class SQLQueryExecutor {
 
   /**
-   * The SQL parser state.
+   * The maximum number of idle SQL parsers kept in 'parser_pool'.
    */
-  private static SQL sql_parser;
+  private static final int MAXIMUM_IDLE_PARSERS = 16;
+
+  /**
+   * The SQL parsers that are not being used.  A parser is taken from the
+   * pool to parse a query and put back when it has finished, so queries on
+   * different connections are parsed at the same time.
+   */
+  private static final ArrayList parser_pool = new ArrayList();
 
-  static {
-    // Set up the sql parser.
-    sql_parser = new SQL(new StringReader(""));
-  }
-  
   /**
    * Constructs the executor.
    */
@@ -69,32 +72,98 @@ public class SQLQueryExecutor {
   public Table execute(DatabaseConnection connection, SQLQuery query)
                throws SQLException, DatabaseException, TransactionException,
                       ParseException {
+    return (Table) execute(connection, query, false);
+  }
+
+  /**
+   * Executes the given SQLQuery object on the given DatabaseConnection
+   * object.  If 'streaming' is true and the query is a SELECT with a plan
+   * that can be streamed, returns a StreamingResult.  Otherwise returns a
+   * Table object that contains the result of the execution.
+   * <p>
+   * The same locking requirements as 'execute' apply.
+   */
+  public Object execute(DatabaseConnection connection, SQLQuery query,
+                        boolean streaming)
+               throws SQLException, DatabaseException, TransactionException,
+                      ParseException {
 
     // StatementTree caching
 
     // Create a new parser and set the parameters...
     String query_str = query.getQuery();
     StatementTree statement_tree = null;
-    StatementCache statement_cache =
-                                  connection.getSystem().getStatementCache();
+    DatabaseSystem system = connection.getSystem();
+    StatementCache statement_cache = system.getStatementCache();
 
     if (statement_cache != null) {
-      // Is this query cached?
-      statement_tree = statement_cache.get(query_str);
+      // Is there a valid cached plan for this query?
+      QueryPlanNode plan = statement_cache.getPlan(query_str, connection);
+      if (plan == null) {
+        // Is this query cached?
+        statement_tree = statement_cache.get(query_str);
+      }
+
+      // If the query isn't cached, replace its literals with parameters so
+      // it may share a cached tree and plan with other queries that only
+      // differ by their literal values.
+      if (plan == null && statement_tree == null &&
+          system.parameterizeLiterals()) {
+        SQLQuery normal_query = QueryNormalizer.normalize(query);
+        if (normal_query != null) {
+          String normal_str = normal_query.getQuery();
+          plan = statement_cache.getPlan(normal_str, connection);
+          if (plan == null) {
+            statement_tree = statement_cache.get(normal_str);
+          }
+          if (plan == null && statement_tree == null) {
+            try {
+              statement_tree = parse(normal_str);
+              statement_cache.put(normal_str, statement_tree);
+            }
+            catch (ParseException e) {
+              // A literal was replaced where a parameter isn't allowed so
+              // the query is parsed as it was given.  The query as given is
+              // then cached, so it isn't normalized again.
+            }
+          }
+          if (plan != null || statement_tree != null) {
+            query = normal_query;
+            query_str = normal_str;
+          }
+        }
+      }
+
+      if (plan != null) {
+        // Plans are only cached for SELECT statements so evaluate the plan
+        // with the parameters of this query.
+        if (streaming) {
+          StreamingResult result = Select.evaluateStreamingPlan(connection,
+                               connection.getUser(), plan, query.getVars());
+          if (result != null) {
+            return result;
+          }
+        }
+        return Select.evaluatePlan(connection, connection.getUser(),
+                                   plan, query.getVars());
+      }
     }
     if (statement_tree == null) {
-      synchronized (sql_parser) {
-        sql_parser.ReInit(new StringReader(query_str));
-        sql_parser.reset();
-        // Parse the statement.
-        statement_tree = sql_parser.Statement();
-      }
+      // Parse the statement.
+      statement_tree = parse(query_str);
       // Put the statement tree in the cache
       if (statement_cache != null) {
         statement_cache.put(query_str, statement_tree);
       }
     }
 
+    // If this is a SELECT statement, the parameters are left in the plan so
+    // the plan can be cached and evaluated with other parameter values.
+    String statement_class = statement_tree.getClassName();
+    boolean cache_plan = statement_cache != null &&
+                         statement_class.equals(Select.class.getName()) &&
+                         Select.isPlanCacheable(statement_tree);
+
     // Substitute all parameter substitutions in the statement tree.
     final Object[] vars = query.getVars();
     ExpressionPreparer preparer = new ExpressionPreparer() {
@@ -107,11 +176,12 @@ public class SQLQueryExecutor {
         return TObject.objectVal(vars[param_id]);
       }
     };
-    statement_tree.prepareAllExpressions(preparer);
+    if (!cache_plan) {
+      statement_tree.prepareAllExpressions(preparer);
+    }
 
     // Convert the StatementTree to a statement object
     Statement statement;
-    String statement_class = statement_tree.getClassName();
     try {
       Class c = Class.forName(statement_class);
       statement = (Statement) c.newInstance();
@@ -139,11 +209,52 @@ public class SQLQueryExecutor {
     // Prepare the statement.
     statement.prepare();
 
+    // Put the plan in the cache
+    if (cache_plan) {
+      statement_cache.putPlan(query_str, connection,
+                              ((Select) statement).getQueryPlan());
+    }
+
     // Evaluate the SQL statement.
+    if (streaming && statement instanceof Select) {
+      StreamingResult result = ((Select) statement).evaluateStreaming();
+      if (result != null) {
+        return result;
+      }
+    }
     Table result = statement.evaluate();
 
     return result;
 
   }
 
+  /**
+   * Parses the given query string with a parser from the pool and returns
+   * the StatementTree of the statement.
+   */
+  private static StatementTree parse(String query_str) throws ParseException {
+    SQL sql_parser = null;
+    synchronized (parser_pool) {
+      int size = parser_pool.size();
+      if (size > 0) {
+        sql_parser = (SQL) parser_pool.remove(size - 1);
+      }
+    }
+    if (sql_parser == null) {
+      sql_parser = new SQL(new StringReader(""));
+    }
+    try {
+      sql_parser.ReInit(new StringReader(query_str));
+      sql_parser.reset();
+      return sql_parser.Statement();
+    }
+    finally {
+      synchronized (parser_pool) {
+        if (parser_pool.size() < MAXIMUM_IDLE_PARSERS) {
+          parser_pool.add(sql_parser);
+        }
+      }
+    }
+  }
+
 }
@@ -83,6 +83,35 @@ public class Select extends Statement {
     }
   }
 
+  /**
+   * Returns true if the query plan of the given SELECT statement tree can be
+   * formed with the parameters of the query left unsubstituted, in which
+   * case the plan may be cached and evaluated with other parameter values.
+   * This is not possible if an ORDER BY column is a parameter because a
+   * number in the ORDER BY list is resolved to a column reference when the
+   * plan is formed.
+   */
+  static boolean isPlanCacheable(StatementTree cmd) {
+    ArrayList order_by = (ArrayList) cmd.getObject("order_by");
+    if (order_by != null) {
+      for (int i = 0; i < order_by.size(); ++i) {
+        Expression exp = ((ByColumn) order_by.get(i)).exp;
+        if (exp.size() == 1 && exp.last() instanceof ParameterSubstitution) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the plan for evaluating this select expression.  This is only
+   * valid after 'prepare' has been called.
+   */
+  QueryPlanNode getQueryPlan() {
+    return plan;
+  }
+
   /**
    * Prepares the select statement with a Database object.  This sets up
    * internal state so that it correctly maps to a database.  Also, this
@@ -110,13 +139,17 @@ public class Select extends Statement {
                   (TableSelectExpression) cmd.getObject("table_expression");
     // The order by information
     order_by = (ArrayList) cmd.getObject("order_by");
+    // The limit and offset information
+    int limit = cmd.getInt("limit");
+    int offset = cmd.getInt("offset");
 
     // Generate the TableExpressionFromSet hierarchy for the expression,
     TableExpressionFromSet from_set =
                              Planner.generateFromSet(select_expression, db);
 
     // Form the plan
-    plan = Planner.formQueryPlan(db, select_expression, from_set, order_by);
+    plan = Planner.formQueryPlan(db, select_expression, from_set, order_by,
+                                 limit, offset);
     
   }
 
@@ -125,8 +158,21 @@ public class Select extends Statement {
    * Evaluates the select statement with the given Database context.
    */
   public Table evaluate() throws DatabaseException {
+    Object[] vars = (query == null) ? null : query.getVars();
+    return evaluatePlan(database, user, plan, vars);
+  }
+
+  /**
+   * Evaluates the given query plan of a select statement for the user of a
+   * connection.  'vars' are the values of any parameters that were left in
+   * the plan.
+   */
+  static Table evaluatePlan(DatabaseConnection database, User user,
+                            QueryPlanNode plan, Object[] vars)
+                                                  throws DatabaseException {
 
     DatabaseQueryContext context = new DatabaseQueryContext(database);
+    context.setParameterValues(vars);
 
     // Check the permissions for this user to select from the tables in the
     // given plan.
@@ -141,12 +187,13 @@ public class Select extends Statement {
     finally {
       // If an error occured, dump the query plan to the debug log.
       // Or just dump the query plan if debug level = INFORMATION
-      if (Debug().isInterestedIn(Lvl.INFORMATION) ||
-          (error && Debug().isInterestedIn(Lvl.WARNING))) {
+      DebugLogger debug = database.Debug();
+      if (debug.isInterestedIn(Lvl.INFORMATION) ||
+          (error && debug.isInterestedIn(Lvl.WARNING))) {
         StringBuffer buf = new StringBuffer();
         plan.debugString(0, buf);
 
-        Debug().write(Lvl.WARNING, this,
+        debug.write(Lvl.WARNING, Select.class,
                     "Query Plan debug:\n" +
                     buf.toString());
       }
@@ -155,6 +202,34 @@ public class Select extends Statement {
   }
 
 
+  /**
+   * Evaluates the select statement as a StreamingResult.  Returns null if
+   * the plan of the statement can't be streamed.
+   */
+  public StreamingResult evaluateStreaming() throws DatabaseException {
+    Object[] vars = (query == null) ? null : query.getVars();
+    return evaluateStreamingPlan(database, user, plan, vars);
+  }
+
+  /**
+   * Evaluates the given query plan of a select statement as a
+   * StreamingResult.  Returns null if the plan can't be streamed, in which
+   * case it must be evaluated with 'evaluatePlan'.
+   */
+  static StreamingResult evaluateStreamingPlan(DatabaseConnection database,
+                  User user, QueryPlanNode plan, Object[] vars)
+                                                  throws DatabaseException {
+
+    DatabaseQueryContext context = new DatabaseQueryContext(database);
+    context.setParameterValues(vars);
+
+    // Check the permissions for this user to select from the tables in the
+    // given plan.
+    checkUserSelectPermissions(context, user, plan);
+
+    return StreamingResult.evaluate(plan, context);
+  }
+
   /**
    * Outputs information for debugging.
    */
@@ -77,6 +77,21 @@ public interface DatabaseInterface {
    */
   QueryResponse execQuery(SQLQuery sql) throws SQLException;
 
+  /**
+   * Executes a batch of queries and returns the update count of each query
+   * in the batch.  The queries are executed in order as if 'execQuery' was
+   * called for each query, however a remote interface sends the whole batch
+   * to the server in a single command.  If a query fails, the queries after
+   * it are not executed and an SQLException is thrown.  If a query doesn't
+   * return an update count then its entry is Statement.SUCCESS_NO_INFO.
+   * This method will block until all the queries have completed.
+   * <p>
+   * Each query is still parsed (unless it is found in the statement cache),
+   * prepared and executed on its own, so a batch only saves the round trips
+   * to the server.
+   */
+  int[] execBatch(SQLQuery[] queries) throws SQLException;
+
   /**
    * Returns a part of a result set.  The result set part is referenced via the
    * 'result id' found in the QueryResponse.  This is used to read parts
@@ -114,6 +114,13 @@ public class MConnection implements Connection, DatabaseCallBack {
    */
   private boolean case_insensitive_identifiers;
 
+  /**
+   * If this is true then result sets on this connection request the next
+   * block of rows from the server before they are needed.  This is only
+   * available on remote connections.
+   */
+  private boolean result_prefetch;
+
   /**
    * A mapping from a streamable object id to InputStream used to represent
    * the object when being uploaded to the database engine.
@@ -146,6 +153,7 @@ public class MConnection implements Connection, DatabaseCallBack {
     strict_get_object = true;
     verbose_column_names = false;
     case_insensitive_identifiers = false;
+    result_prefetch = false;
     row_cache = new RowCache(cache_size, max_size);
     s_object_hold = new HashMap();
     s_object_id = 0;
@@ -190,6 +198,30 @@ public class MConnection implements Connection, DatabaseCallBack {
     return verbose_column_names;
   }
 
+  /**
+   * Toggles result prefetch.
+   * <p>
+   * If this is set to true, a result set that is read forward requests the
+   * next block of rows from the server while the application is reading the
+   * current block, and adapts the number of rows it fetches to the round
+   * trip time of the connection.  This only has an effect on connections
+   * to a remote server.
+   * <p>
+   * The default is false.
+   */
+  public void setResultPrefetch(boolean status) {
+    result_prefetch = status;
+  }
+
+  /**
+   * Returns true if result sets on this connection should prefetch rows
+   * from the server.
+   */
+  boolean isResultPrefetch() {
+    return result_prefetch &&
+           db_interface instanceof RemoteDatabaseInterface;
+  }
+
   /**
    * Toggles whether this connection is handling identifiers as case
    * insensitive or not.  If this is true then 'getString("app.id")' will
@@ -431,6 +463,32 @@ public class MConnection implements Connection, DatabaseCallBack {
     }
   }
 
+  /**
+   * Returns true if a batch of queries can be sent to the database with
+   * 'executeBatch'.  This is false when connected to a server that doesn't
+   * understand the BATCH_QUERY command.
+   */
+  boolean isBatchQuerySupported() {
+    return !(db_interface instanceof RemoteDatabaseInterface) ||
+           ((RemoteDatabaseInterface) db_interface).isBatchQuerySupported();
+  }
+
+  /**
+   * Sends the batch of SQLQuery objects to the database to be executed as a
+   * single command and returns the update count of each query.  Unlike
+   * 'executeQueries', the results of the queries are not returned so the
+   * whole batch can be processed by the database in one request.
+   * <p>
+   * This method blocks until all of the queries have been processed by the
+   * database.
+   */
+  int[] executeBatch(SQLQuery[] queries) throws SQLException {
+    for (int i = 0; i < queries.length; ++i) {
+      uploadStreamableObjects(queries[i]);
+    }
+    return db_interface.execBatch(queries);
+  }
+
   /**
    * Sends the SQL string to the database to be executed.  The given MResultSet
    * is the consumer for the results from the database.  We are guarenteed
@@ -467,6 +525,28 @@ public class MConnection implements Connection, DatabaseCallBack {
     return db_interface.getResultPart(result_id, start_row, count_rows);
   }
 
+  /**
+   * Sends a request for a part of a result set to the server without
+   * waiting for the response.  Returns the dispatch id used to receive the
+   * part with 'receiveResultPart'.  This may only be used when
+   * 'isResultPrefetch' is true.
+   */
+  int sendResultPartRequest(int result_id, int start_row, int count_rows)
+                                                          throws SQLException {
+    return ((RemoteDatabaseInterface) db_interface).sendResultPartRequest(
+                                          result_id, start_row, count_rows);
+  }
+
+  /**
+   * Blocks until the part of a result set requested by
+   * 'sendResultPartRequest' has been received and returns it.
+   */
+  ResultPart receiveResultPart(int dispatch_id, int count_rows)
+                                                          throws SQLException {
+    return ((RemoteDatabaseInterface) db_interface).receiveResultPart(
+                                                     dispatch_id, count_rows);
+  }
+
   /**
    * Requests a part of a streamable object from the server.
    */
@@ -57,6 +57,25 @@ import java.util.logging.Logger;
  *  'create=true' assignment in the URL encoding.
  *
  *  eg.  jdbc:mckoi:local://D:/dbdata/db.conf?create=true
+ *
+ *  To have result sets from a remote database server fetch the next block
+ *  of rows while the current block is read, supply a 'prefetch=true'
+ *  assignment in the URL encoding.
+ *
+ *  eg.  jdbc:mckoi://db.mckoi.com/?prefetch=true
+ *
+ *  Blocks of rows sent by a remote database server are compressed if
+ *  'compress=true' is supplied.
+ *
+ *  eg.  jdbc:mckoi://db.mckoi.com/?prefetch=true&compress=true
+ *
+ *  A remote database server finds the rows of a simple query (one that
+ *  doesn't sort, group or join) as they are read rather than when the query
+ *  is executed if 'streaming=true' is supplied.  The first rows of a large
+ *  result arrive sooner, but the row count of the result isn't known until
+ *  the last row is read or the count is asked for.
+ *
+ *  eg.  jdbc:mckoi://db.mckoi.com/?streaming=true
  * </pre>
  * <p>
  * A local database runs within the JVM of this JDBC driver.  To boot a
@@ -575,6 +594,12 @@ public class MDriver implements Driver {
       // Make the connection
       TCPStreamDatabaseInterface tcp_db_interface =
                                    new TCPStreamDatabaseInterface(host, port);
+      // Should the server compress large result parts?
+      tcp_db_interface.setCompressResults(
+                          info.getProperty("compress", "").equals("true"));
+      // Should the server stream the rows of results?
+      tcp_db_interface.setStreamResults(
+                          info.getProperty("streaming", "").equals("true"));
       // Attempt to open a socket to the database.
       tcp_db_interface.connectToDatabase();
 
@@ -591,6 +616,9 @@ public class MDriver implements Driver {
     // Create the connection object on the given database,
     MConnection connection = new MConnection(url, db_interface,
                                         row_cache_size, max_row_cache_size);
+    // Should result sets prefetch rows?
+    connection.setResultPrefetch(
+                          info.getProperty("prefetch", "").equals("true"));
     // Try and login (throws an SQLException if fails).
     connection.login(info, default_schema);
 
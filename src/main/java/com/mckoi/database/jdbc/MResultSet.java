@@ -57,6 +57,12 @@ public final class MResultSet implements ResultSet {
    */
   private static final int MAXIMUM_FETCH_SIZE = 512;
 
+  /**
+   * The maximum size in bytes of a block of rows when the fetch size is
+   * adapted by result prefetch.
+   */
+  private static final int MAXIMUM_PREFETCH_BLOCK_SIZE = 256 * 1024;
+
   /**
    * The current unique id key.
    */
@@ -105,7 +111,8 @@ public final class MResultSet implements ResultSet {
   private int query_time_ms;
 
   /**
-   * The number of rows in the result set.
+   * The number of rows in the result set, or -1 if the result is streamed by
+   * the server and its end hasn't been found yet.
    */
   private int result_row_count;
 
@@ -164,6 +171,41 @@ public final class MResultSet implements ResultSet {
    */
   private boolean closed_on_server;
 
+  /**
+   * The dispatch id of the request for the next block of rows that has been
+   * sent to the server but not yet received, or -1 if there is no such
+   * request.  Only used when result prefetch is enabled on the connection.
+   */
+  private int prefetch_dispatch_id = -1;
+
+  /**
+   * The first row and the number of rows requested by the prefetch request.
+   */
+  private int prefetch_row;
+  private int prefetch_row_count;
+
+  /**
+   * The time the prefetch request was sent to the server.
+   */
+  private long prefetch_send_time;
+
+  /**
+   * The time the current block was received by 'prefetchResultPart', or 0 if
+   * the current block was not received by prefetch.
+   */
+  private long block_receive_time;
+
+  /**
+   * The last measured round trip time in ms of a request for a block of rows,
+   * or 0 if it is not known.
+   */
+  private long round_trip_ms;
+
+  /**
+   * The average size in bytes of a row in this result, or 0 if not known.
+   */
+  private int row_width;
+
 
 
 
@@ -217,11 +259,16 @@ public final class MResultSet implements ResultSet {
     this.col_list = col_list;
     this.result_row_count = total_row_count;
     block_top_row = -1;
+    block_row_count = 0;
     result_block.removeAllElements();
 
     real_index = -1;
     fetch_size = DEFAULT_FETCH_SIZE;
     closed_on_server = false;
+    prefetch_dispatch_id = -1;
+    block_receive_time = 0;
+    round_trip_ms = 0;
+    row_width = 0;
   }
 
   /**
@@ -355,6 +402,147 @@ public final class MResultSet implements ResultSet {
 
   }
 
+  /**
+   * Downloads the block of rows starting at the given row when result
+   * prefetch is enabled.  This is used when the result is read forward.
+   * If the block was requested by the last call to this method then the
+   * response is received, otherwise a new request is made.  Once the block
+   * is received, a request for the block after it is sent to the server so
+   * that it is transferred while the application reads this block.
+   * <p>
+   * The fetch size is adapted so that a block lasts the application about
+   * twice the round trip time of a request, so the next block has normally
+   * arrived by the time it is needed.  The size of a block is limited by
+   * MAXIMUM_FETCH_SIZE and by MAXIMUM_PREFETCH_BLOCK_SIZE bytes.
+   * <p>
+   * The rows are not put in the row cache because a result read this way
+   * is usually too large to benefit from it.
+   */
+  private void prefetchResultPart(int row_index) throws SQLException {
+
+    if (row_index >= rowCount()) {
+      throw new SQLException(
+                           "ResultSet row index is after the end of the set.");
+    }
+    if (result_id == -1) {
+      throw new SQLException("result_id == -1.  No result to get from.");
+    }
+
+    final long request_time = System.currentTimeMillis();
+    // The time the application took to read the last block
+    final long read_ms = request_time - block_receive_time;
+    final boolean read_measured = (block_receive_time != 0);
+    final int read_rows = block_row_count;
+
+    int dispatch_id;
+    int row_count;
+    long send_time;
+    if (prefetch_dispatch_id != -1 && prefetch_row == row_index) {
+      // We requested this block previously
+      dispatch_id = prefetch_dispatch_id;
+      row_count = prefetch_row_count;
+      send_time = prefetch_send_time;
+      prefetch_dispatch_id = -1;
+    }
+    else {
+      // The prefetched block isn't the one we need so discard it and
+      // request the block.
+      cancelPrefetch();
+      row_count = Math.min(fetch_size, rowCount() - row_index);
+      send_time = request_time;
+      dispatch_id = connection.sendResultPartRequest(
+                                             result_id, row_index, row_count);
+    }
+
+    // Receive the block (blocks if it hasn't arrived yet).
+    ResultPart block = connection.receiveResultPart(dispatch_id, row_count);
+    final long receive_time = System.currentTimeMillis();
+
+    // If we had to wait for the block then the response has only just
+    // arrived and the time since the request was sent is the round trip
+    // time.
+    if (receive_time > request_time) {
+      round_trip_ms = receive_time - send_time;
+    }
+
+    // Measure the size of the rows
+    if (row_count > 0) {
+      try {
+        long bytes = 0;
+        int size = block.size();
+        for (int i = 0; i < size; ++i) {
+          bytes += ObjectTransfer.size(block.elementAt(i));
+        }
+        int width = (int) Math.max(1, bytes / row_count);
+        row_width = (row_width == 0) ? width : (row_width + width) / 2;
+      }
+      catch (IOException e) {
+        e.printStackTrace();
+        throw new SQLException("IO Error: " + e.getMessage());
+      }
+    }
+
+    result_block = block;
+    block_top_row = row_index;
+    block_row_count = row_count;
+    block_receive_time = receive_time;
+
+    // Adapt the fetch size.  The application reads about
+    // 'read_rows * round_trip_ms / read_ms' rows in a round trip so a block
+    // of twice that many rows hides the latency of the next request.
+    if (read_measured && round_trip_ms > 0 && read_rows > 0) {
+      long target;
+      if (read_ms <= 0) {
+        target = MAXIMUM_FETCH_SIZE;
+      }
+      else {
+        target = (2 * read_rows * round_trip_ms) / read_ms;
+      }
+      target = Math.max(DEFAULT_FETCH_SIZE,
+                        Math.min(target, MAXIMUM_FETCH_SIZE));
+      if (row_width > 0) {
+        target = Math.min(target,
+                          Math.max(1, MAXIMUM_PREFETCH_BLOCK_SIZE / row_width));
+      }
+      fetch_size = (int) target;
+    }
+
+    // Request the next block
+    int next_row = row_index + row_count;
+    if (next_row < rowCount()) {
+      prefetch_row = next_row;
+      prefetch_row_count = Math.min(fetch_size, rowCount() - next_row);
+      prefetch_send_time = System.currentTimeMillis();
+      prefetch_dispatch_id = connection.sendResultPartRequest(
+                               result_id, prefetch_row, prefetch_row_count);
+    }
+
+  }
+
+  /**
+   * If a block of rows has been requested from the server by result prefetch
+   * and not yet received, this waits for the response and discards it.  This
+   * must be called before the result is disposed, or when the result is no
+   * longer being read forward, so the response is not left in the command
+   * list of the connection.
+   */
+  private void cancelPrefetch() {
+    if (prefetch_dispatch_id != -1) {
+      int dispatch_id = prefetch_dispatch_id;
+      prefetch_dispatch_id = -1;
+      try {
+        // There's no response to wait for if the connection is closed
+        if (!connection.isClosed()) {
+          connection.receiveResultPart(dispatch_id, prefetch_row_count);
+        }
+      }
+      catch (SQLException e) {
+        // Ignore
+        // We ignore exceptions because the block isn't needed.
+      }
+    }
+  }
+
   /**
    * Closes the current server side result for this result set ready for a
    * new one.  This should be called before we execute a query.  It sends a
@@ -367,6 +555,8 @@ public final class MResultSet implements ResultSet {
    */
   void closeCurrentResult() throws SQLException {
     if (getResultID() != -1) {
+      // Discard any block being prefetched
+      cancelPrefetch();
       if (!closed_on_server) {
         // Request to close the current result set
         connection.disposeResult(result_id);
@@ -391,9 +581,28 @@ public final class MResultSet implements ResultSet {
   }
 
   /**
-   * The total number of rows in the result set.
+   * Returns true if the number of rows in the result is known.  It isn't
+   * known if the server is streaming the result and the end of the result
+   * hasn't been read.
+   */
+  boolean isRowCountKnown() {
+    return result_row_count != -1;
+  }
+
+  /**
+   * The total number of rows in the result set.  If the result is streamed
+   * and the row count isn't known yet, the server is asked to find the end
+   * of the result.
    */
-  int rowCount() {
+  int rowCount() throws SQLException {
+    if (result_row_count == -1) {
+      if (result_id == -1) {
+        throw new SQLException("result_id == -1.  No result to get from.");
+      }
+      // A part of 0 rows finds the end of the result
+      result_row_count = connection.requestResultPart(
+                                   result_id, 0, 0).getResultRowCount();
+    }
     // The row count is whatever is the least between max_row_count (the
     // maximum the user has set) and result_row_count (the actual number of
     // rows in the result.
@@ -427,8 +636,9 @@ public final class MResultSet implements ResultSet {
    */
   boolean isUpdate() {
     // Must have 1 col and 1 row and the title of the column must be
-    // 'result' aliased.
-    return (columnCount() == 1 && rowCount() == 1 &&
+    // 'result' aliased.  The result of an update is never streamed.
+    return (columnCount() == 1 && result_row_count != -1 &&
+            Math.min(result_row_count, max_row_count) == 1 &&
             getColumn(0).getName().equals("@aresult"));
   }
 
@@ -470,6 +680,53 @@ public final class MResultSet implements ResultSet {
     result_block = null;
   }
 
+  /**
+   * Moves to the next row of a result that is streamed by the server and
+   * whose row count isn't known yet.  Blocks of rows are downloaded as they
+   * are reached, and the row count is learned when a block has fewer rows
+   * than were asked for.  Returns false if there are no more rows.
+   * <p>
+   * The blocks are not put in the row cache and result prefetch isn't used
+   * until the row count is known.
+   */
+  private boolean nextStreamed() throws SQLException {
+    if (real_index >= max_row_count) {
+      return false;
+    }
+    ++real_index;
+    if (real_index >= max_row_count) {
+      return false;
+    }
+
+    int row_offset = real_index - block_top_row;
+    if (row_offset < 0 || row_offset >= block_row_count) {
+      if (result_id == -1) {
+        throw new SQLException("result_id == -1.  No result to get from.");
+      }
+      cancelPrefetch();
+      block_receive_time = 0;
+      int row_count = Math.min(fetch_size, max_row_count - real_index);
+      ResultPart block =
+               connection.requestResultPart(result_id, real_index, row_count);
+      int part_rows = (columnCount() == 0) ? 0 : block.size() / columnCount();
+      if (block.getResultRowCount() != -1) {
+        result_row_count = block.getResultRowCount();
+      }
+      else if (part_rows < row_count) {
+        result_row_count = real_index + part_rows;
+      }
+      result_block = block;
+      block_top_row = real_index;
+      block_row_count = part_rows;
+      if (part_rows == 0) {
+        // The end of the result
+        return false;
+      }
+    }
+    realIndexUpdate();
+    return true;
+  }
+
   /**
    * Ensures that the row index pointed to by 'real_index' is actually loaded
    * into the 'result_block'.  If not, we send a request to the database to
@@ -484,12 +741,20 @@ public final class MResultSet implements ResultSet {
     int row_offset = real_index - block_top_row;
     if (row_offset >= block_row_count) {
       // Need to download the next block from the server.
-      updateResultPart(real_index, fetch_size);
+      if (connection.isResultPrefetch()) {
+        prefetchResultPart(real_index);
+      }
+      else {
+        updateResultPart(real_index, fetch_size);
+      }
       // Set up the index into the downloaded block.
       row_offset = real_index - block_top_row;
       real_index_offset = row_offset * columnCount();
     }
     else if (row_offset < 0) {
+      // Not reading forward so discard any block being prefetched
+      cancelPrefetch();
+      block_receive_time = 0;
       int fs_dif = Math.min(fetch_size, 8);
       // Need to download the next block from the server.
       updateResultPart(real_index - fetch_size + fs_dif, fetch_size);
@@ -790,6 +1055,9 @@ public final class MResultSet implements ResultSet {
   // ---------- Implemented from ResultSet ----------
 
   public boolean next() throws SQLException {
+    if (result_row_count == -1) {
+      return nextStreamed();
+    }
     int row_count = rowCount();
     if (real_index < row_count) {
       ++real_index;
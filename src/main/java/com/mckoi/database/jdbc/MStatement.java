@@ -199,9 +199,14 @@ class MStatement implements Statement {
       // Does the result set contain large objects?  We can't cache a
       // result that contains binary data.
       boolean contains_large_objects = result_set.containsLargeObjects();
+      // If the result is streamed by the server then the rows are
+      // downloaded as they are read.
+      if (!result_set.isRowCountKnown()) {
+        // Nothing to do
+      }
       // If the result row count < 40 then download and store locally in the
       // result set and dispose the resources on the server.
-      if (!contains_large_objects && result_set.rowCount() < 40) {
+      else if (!contains_large_objects && result_set.rowCount() < 40) {
         result_set.storeResultLocally();
       }
       else {
@@ -426,17 +431,28 @@ class MStatement implements Statement {
       batch_query_list[i] = (SQLQuery) batch_list.get(i);
     }
     try {
-      // Execute the batch and find the results in the resultant array
-      MResultSet[] batch_results = executeQueries(batch_query_list);
+      if (!connection.isBatchQuerySupported()) {
+        // The server doesn't understand BATCH_QUERY so execute the batch and
+        // find the results in the resultant array
+        MResultSet[] batch_results = executeQueries(batch_query_list);
+
+        // Put the result into an update array
+        int[] update_result = new int[sz];
+        for (int i = 0; i < sz; ++i) {
+          update_result[i] = batch_results[i].intValue();
+          batch_results[i].closeCurrentResult();
+        }
 
-      // Put the result into an update array
-      int[] update_result = new int[sz];
-      for (int i = 0; i < sz; ++i) {
-        update_result[i] = batch_results[i].intValue();
-        batch_results[i].closeCurrentResult();
+        return update_result;
       }
 
-      return update_result;
+      // Prepare each query
+      for (int i = 0; i < sz; ++i) {
+        batch_query_list[i].prepare(escape_processing);
+      }
+      // Execute the batch in one request to the database and return the
+      // update counts.
+      return connection.executeBatch(batch_query_list);
     }
     finally {
       // Make sure we clear the batch list.
@@ -79,6 +79,19 @@ public final class MckoiConnection {
     connection.setVerboseColumnNames(status);
   }
 
+  /**
+   * This method is used to enable result prefetch.  If result prefetch is
+   * enabled, a ResultSet that is read forward requests the next block of
+   * rows from the server while the application reads the current block, and
+   * the fetch size grows with the round trip time of the connection (up to
+   * the maximum fetch size).  This only has an effect on connections to a
+   * remote server and is disabled by default.  It can also be enabled with
+   * the 'prefetch=true' connection property.
+   */
+  public void setResultPrefetch(boolean status) {
+    connection.setResultPrefetch(status);
+  }
+
   /**
    * Registers a TriggerListener to listen for any triggers that are fired
    * with the given name.  A TriggerListener may be registered to listen for
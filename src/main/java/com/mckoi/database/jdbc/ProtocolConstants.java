@@ -76,6 +76,12 @@ public interface ProtocolConstants {
    */
   public int QUERY                      = 50;
 
+  /**
+   * A batch of queries sent to the server for processing in one command.
+   * The response contains the update count of each query.
+   */
+  public int BATCH_QUERY                = 51;
+
   /**
    * Disposes the server-side resources associated with a result.
    */
@@ -125,6 +131,40 @@ public interface ProtocolConstants {
    * a part of a streamable object.
    */
   public int SERVER_REQUEST             = 80;
+
+
+
+  // ---------- Protocol features ----------
+  // These flags are sent by the client after the driver version when it
+  // connects.  A server that understands the flags replies with the flags
+  // it accepted after the server version.
+
+  /**
+   * RESULT_SECTION responses are in the column by column format of
+   * ResultPartTransfer.
+   */
+  public int COLUMNAR_RESULT_PARTS      = 0x01;
+
+  /**
+   * Large RESULT_SECTION responses in the columnar format are compressed.
+   */
+  public int COMPRESSED_RESULT_PARTS    = 0x02;
+
+  /**
+   * The rows of a query result are found as they are requested where the
+   * plan allows it.  The QUERY response has a row count of -1 if the number
+   * of rows isn't known, and each RESULT_SECTION response has the number of
+   * rows in the part and the row count of the result (or -1) after the
+   * column count.
+   */
+  public int STREAMED_RESULTS           = 0x04;
+
+  /**
+   * The server understands the BATCH_QUERY command.  A client connected to
+   * a server that doesn't accept this executes each query of a batch with
+   * a separate QUERY command.
+   */
+  public int BATCH_QUERIES              = 0x08;
   
 
 }
@@ -54,6 +54,17 @@ abstract class RemoteDatabaseInterface
    */
   private DatabaseCallBack database_call_back;
 
+  /**
+   * The protocol features (COLUMNAR_RESULT_PARTS, etc) we ask the server
+   * for when we connect.
+   */
+  private int requested_features = COLUMNAR_RESULT_PARTS | BATCH_QUERIES;
+
+  /**
+   * The protocol features the server accepted when we connected.
+   */
+  private int server_features = 0;
+
 
   /**
    * Writes the exception to the JDBC log stream.
@@ -72,6 +83,54 @@ abstract class RemoteDatabaseInterface
   }
 
 
+  /**
+   * Sets whether the server should compress large result parts sent to this
+   * connection.  This is useful when the connection is slow compared to the
+   * time it takes to compress the data.  Must be called before 'login'.
+   */
+  void setCompressResults(boolean status) {
+    if (status) {
+      requested_features |= COMPRESSED_RESULT_PARTS;
+    }
+    else {
+      requested_features &= ~COMPRESSED_RESULT_PARTS;
+    }
+  }
+
+  /**
+   * Sets whether the server should find the rows of a query result as they
+   * are requested rather than when the query is executed, where the plan of
+   * the query allows it.  When a result is streamed the row count of the
+   * QueryResponse is -1 until the end of the result is found, and a part of
+   * the result may have fewer rows than were asked for.  Must be called
+   * before 'login'.
+   */
+  void setStreamResults(boolean status) {
+    if (status) {
+      requested_features |= STREAMED_RESULTS;
+    }
+    else {
+      requested_features &= ~STREAMED_RESULTS;
+    }
+  }
+
+  /**
+   * Returns true if the server accepted the request to stream results.
+   */
+  boolean isStreamingResults() {
+    return (server_features & STREAMED_RESULTS) != 0;
+  }
+
+  /**
+   * Returns true if the server accepts the BATCH_QUERY command.  Servers
+   * before this command was introduced do not, and 'execBatch' must not be
+   * used with them.
+   */
+  boolean isBatchQuerySupported() {
+    return (server_features & BATCH_QUERIES) != 0;
+  }
+
+
   // ---------- Abstract methods ----------
 
   /**
@@ -109,6 +168,8 @@ abstract class RemoteDatabaseInterface
       // Write out the JDBC driver version
       out.writeInt(MDriver.DRIVER_MAJOR_VERSION);
       out.writeInt(MDriver.DRIVER_MINOR_VERSION);
+      // Write out the protocol features we'd like to use
+      out.writeInt(requested_features);
       byte[] arr = bout.toByteArray();
       writeCommandToServer(arr, 0, arr.length);
 
@@ -133,6 +194,11 @@ abstract class RemoteDatabaseInterface
         if (response.length > 4 && response[4] == 1) {
           // Yes so read the server version
           server_version = ByteArrayUtil.getInt(response, 5);
+          // Did the server accept any of the protocol features?
+          if (response.length > 13 && response[9] == 1) {
+            server_features = ByteArrayUtil.getInt(response, 10) &
+                              requested_features;
+          }
         }
 
         // Send the username and password to the server
@@ -300,14 +366,87 @@ abstract class RemoteDatabaseInterface
 
   }
 
+  public int[] execBatch(SQLQuery[] queries) throws SQLException {
+
+    try {
+      // Execute the batch
+      int dispatch_id = connection_thread.executeBatch(queries);
+      // Get the response
+      ServerCommand command =
+              connection_thread.getCommand(MDriver.QUERY_TIMEOUT, dispatch_id);
+      // If command == null then we timed out
+      if (command == null) {
+        throw new SQLException("Query timed out after " +
+                               MDriver.QUERY_TIMEOUT + " seconds.");
+      }
+
+      DataInputStream in = new DataInputStream(command.getInputStream());
+
+      // Batch response protocol...
+      int status = in.readInt();
+      if (status == SUCCESS) {
+        int count = in.readInt();
+        int[] update_counts = new int[count];
+        for (int i = 0; i < count; ++i) {
+          update_counts[i] = in.readInt();
+        }
+        return update_counts;
+      }
+      else if (status == EXCEPTION) {
+        int db_code = in.readInt();
+        String message = in.readUTF();
+        String stack_trace = in.readUTF();
+        throw new MSQLException(message, null, db_code, stack_trace);
+      }
+      else {
+        throw new SQLException("Illegal response code from server.");
+      }
+
+    }
+    catch (IOException e) {
+      logException(e);
+      throw new SQLException("IO Error: " + e.getMessage());
+    }
+
+  }
+
   public ResultPart getResultPart(int result_id, int start_row, int count_rows)
                                                         throws SQLException {
+    // Send the request and wait for the response.
+    int dispatch_id = sendResultPartRequest(result_id, start_row, count_rows);
+    return receiveResultPart(dispatch_id, count_rows);
+  }
 
+  /**
+   * Sends a request for a part of a result to the server and returns
+   * immediately without waiting for the response.  The response is matched
+   * to the request by the returned dispatch id, so the caller may do other
+   * work (or send other requests) before collecting it with
+   * 'receiveResultPart'.
+   * <p>
+   * Every request sent must eventually be received, otherwise the response
+   * will remain in the command list of the connection.
+   */
+  int sendResultPartRequest(int result_id, int start_row, int count_rows)
+                                                        throws SQLException {
     try {
+      return connection_thread.getResultPart(result_id, start_row, count_rows);
+    }
+    catch (IOException e) {
+      logException(e);
+      throw new SQLException("IO Error: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Blocks until the response to a request sent by 'sendResultPartRequest'
+   * has been received and returns the part of the result.  'count_rows' is
+   * the number of rows that were requested.
+   */
+  ResultPart receiveResultPart(int dispatch_id, int count_rows)
+                                                        throws SQLException {
 
-      // Get the first few rows of the result..
-      int dispatch_id = connection_thread.getResultPart(result_id,
-                                                        start_row, count_rows);
+    try {
 
       // Get the response
       ServerCommand command =
@@ -325,11 +464,29 @@ abstract class RemoteDatabaseInterface
       if (status == SUCCESS) {
         // Return the contents of the response.
         int col_count = din.readInt();
-        int size = count_rows * col_count;
-        ResultPart list = new ResultPart(size);
-        for (int i = 0; i < size; ++i) {
-          list.addElement(ObjectTransfer.readFrom(din));
+        int offset = 12;
+        int result_row_count = -1;
+        if ((server_features & STREAMED_RESULTS) != 0) {
+          // The number of rows in the part and the row count of the result
+          count_rows = din.readInt();
+          result_row_count = din.readInt();
+          offset = 20;
+        }
+        ResultPart list;
+        if ((server_features & COLUMNAR_RESULT_PARTS) != 0) {
+          // The columnar result part follows the header.
+          byte[] buf = command.getBuf();
+          list = ResultPartTransfer.readFrom(buf, offset, buf.length,
+                                             col_count, count_rows);
+        }
+        else {
+          int size = count_rows * col_count;
+          list = new ResultPart(size);
+          for (int i = 0; i < size; ++i) {
+            list.addElement(ObjectTransfer.readFrom(din));
+          }
         }
+        list.setResultRowCount(result_row_count);
         return list;
       }
       else if (status == EXCEPTION) {
@@ -618,6 +775,22 @@ abstract class RemoteDatabaseInterface
       return dispatch_id;
     }
 
+    /**
+     * Sends a command to the server to process a batch of queries.  The
+     * response from the server will contain the update count of each query.
+     * <p>
+     * Returns the dispatch id key for the response from the server.
+     */
+    synchronized int executeBatch(SQLQuery[] queries) throws IOException {
+      int dispatch_id = nextDispatchID();
+      com_data.writeInt(BATCH_QUERY);
+      com_data.writeInt(dispatch_id);
+      SQLQuery.writeBatchTo(com_data, queries);
+      flushCommand();
+
+      return dispatch_id;
+    }
+
     /**
      * Releases the server side resources associated with a given query key
      * returned by the server.  This should be called when the ResultSet is
@@ -28,6 +28,12 @@ package com.mckoi.database.jdbc;
 
 public class ResultPart extends java.util.Vector {
 
+  /**
+   * The number of rows in the whole result, or -1 if it isn't known.  This is
+   * only set for parts of a streamed result.
+   */
+  private int result_row_count = -1;
+
   public ResultPart() {
     super();
   }
@@ -36,4 +42,19 @@ public class ResultPart extends java.util.Vector {
     super(initial_size);
   }
 
+  /**
+   * Sets the number of rows in the whole result, or -1 if it isn't known yet.
+   */
+  public void setResultRowCount(int row_count) {
+    this.result_row_count = row_count;
+  }
+
+  /**
+   * Returns the number of rows in the whole result, or -1 if it isn't known
+   * yet.
+   */
+  public int getResultRowCount() {
+    return result_row_count;
+  }
+
 }
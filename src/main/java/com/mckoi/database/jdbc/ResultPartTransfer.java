@@ -0,0 +1,603 @@
+/**
+ * com.mckoi.database.jdbc.ResultPartTransfer  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.jdbc;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import com.mckoi.database.global.ObjectTransfer;
+import com.mckoi.database.global.StringObject;
+import com.mckoi.util.BigNumber;
+import com.mckoi.util.ByteArrayUtil;
+
+/**
+ * Provides static methods for transfering a ResultPart over a stream in a
+ * column by column format.  This is the format of a RESULT_SECTION response
+ * when the client asks for COLUMNAR_RESULT_PARTS at connect time.
+ * <p>
+ * The ObjectTransfer format writes a type tag and a fixed size value for
+ * every cell.  In this format the type is written once for each column and
+ * the values are packed;
+ * <ul>
+ * <li>Nulls are a bitmap, and a column that is all null takes one byte.
+ * <li>Integer and date columns are written as variable length deltas from
+ *   the previous value.  Decimals are the scale and the delta of the
+ *   unscaled value.
+ * <li>Booleans are a bitmap.
+ * <li>String columns with many repeated values are written as a dictionary
+ *   and an index into the dictionary for each row.  Other strings are
+ *   written with a variable length encoding of each char.
+ * <li>Any other column is written with ObjectTransfer.
+ * </ul>
+ * If the client asks for COMPRESSED_RESULT_PARTS, large blocks are
+ * compressed with a Deflater.
+ * <p>
+ * The format of a block is a flags byte followed by the columns.  If the
+ * flags byte is DEFLATED then the size of the uncompressed columns and the
+ * compressed columns follow instead.
+ *
+ * @author Tobias Downer
+ */
+
+public final class ResultPartTransfer {
+
+  /**
+   * Column encodings.
+   */
+  private static final byte ALL_NULL          = 0;
+  private static final byte INTEGER           = 1;
+  private static final byte DECIMAL           = 2;
+  private static final byte DATE              = 3;
+  private static final byte BOOLEAN           = 4;
+  private static final byte STRING            = 5;
+  private static final byte STRING_DICTIONARY = 6;
+  private static final byte OBJECT            = 7;
+
+  /**
+   * Block flags.
+   */
+  private static final byte PLAIN    = 0;
+  private static final byte DEFLATED = 1;
+
+  /**
+   * Blocks smaller than this many bytes are never compressed.
+   */
+  private static final int COMPRESS_THRESHOLD = 8 * 1024;
+
+  /**
+   * Writes the given block of 'col_count' columns to the output stream.  If
+   * 'compress' is true and the block is large it is compressed.
+   */
+  public static void writeTo(DataOutputStream out, ResultPart block,
+                    int col_count, boolean compress) throws IOException {
+
+    int row_count = (col_count == 0) ? 0 : block.size() / col_count;
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream(1024);
+    for (int c = 0; c < col_count; ++c) {
+      writeColumn(bout, block, c, col_count, row_count);
+    }
+
+    if (compress && bout.size() >= COMPRESS_THRESHOLD) {
+      byte[] raw = bout.toByteArray();
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      ByteArrayOutputStream cout = new ByteArrayOutputStream(raw.length / 2);
+      try {
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buf = new byte[4096];
+        while (!deflater.finished()) {
+          int len = deflater.deflate(buf);
+          cout.write(buf, 0, len);
+        }
+      }
+      finally {
+        deflater.end();
+      }
+      // Only send the compressed form if it's worth it
+      if (cout.size() < raw.length - (raw.length / 8)) {
+        out.writeByte(DEFLATED);
+        out.writeInt(raw.length);
+        cout.writeTo(out);
+        return;
+      }
+    }
+
+    out.writeByte(PLAIN);
+    bout.writeTo(out);
+  }
+
+  /**
+   * Reads a block of 'row_count' rows of 'col_count' columns that was
+   * written by 'writeTo' from the given byte array.  The block starts at
+   * 'offset' and ends at 'end'.
+   * <p>
+   * The block is decoded directly from the array.  Objects are only created
+   * for the values of cells, and cells with the same value share one object
+   * where the object is immutable (repeated numbers, booleans and the
+   * strings in a dictionary).
+   */
+  public static ResultPart readFrom(byte[] buf, int offset, int end,
+                    int col_count, int row_count) throws IOException {
+
+    Reader in;
+    byte flags = buf[offset];
+    if (flags == DEFLATED) {
+      int raw_length = ByteArrayUtil.getInt(buf, offset + 1);
+      byte[] raw = new byte[raw_length];
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(buf, offset + 5, end - (offset + 5));
+        int len = 0;
+        while (len < raw_length && !inflater.finished()) {
+          int n = inflater.inflate(raw, len, raw_length - len);
+          if (n == 0 &&
+              (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          len += n;
+        }
+        if (len != raw_length) {
+          throw new IOException("Compressed result part is corrupt.");
+        }
+      }
+      catch (DataFormatException e) {
+        throw new IOException("Compressed result part is corrupt: " +
+                              e.getMessage());
+      }
+      finally {
+        inflater.end();
+      }
+      in = new Reader(raw, 0, raw_length);
+    }
+    else if (flags == PLAIN) {
+      in = new Reader(buf, offset + 1, end);
+    }
+    else {
+      throw new IOException("Unrecognised result part format: " + flags);
+    }
+
+    ResultPart block = new ResultPart(row_count * col_count);
+    block.setSize(row_count * col_count);
+    for (int c = 0; c < col_count; ++c) {
+      readColumn(in, block, c, col_count, row_count);
+    }
+    return block;
+  }
+
+  // ---------- Writing ----------
+
+  /**
+   * Returns the encoding to use for the given column of the block.
+   */
+  private static byte columnEncoding(ResultPart block, int col,
+                                     int col_count, int row_count) {
+    byte encoding = ALL_NULL;
+    for (int r = 0; r < row_count; ++r) {
+      Object ob = block.elementAt((r * col_count) + col);
+      if (ob == null) {
+        continue;
+      }
+
+      byte ob_encoding;
+      if (ob instanceof BigNumber) {
+        BigNumber n = (BigNumber) ob;
+        if (n.canBeRepresentedAsLong()) {
+          ob_encoding = INTEGER;
+        }
+        else if (n.getState() == 0 &&
+                 n.asBigDecimal().unscaledValue().bitLength() < 64) {
+          ob_encoding = DECIMAL;
+        }
+        else {
+          return OBJECT;
+        }
+      }
+      else if (ob instanceof StringObject) {
+        ob_encoding = STRING;
+      }
+      else if (ob instanceof Date) {
+        ob_encoding = DATE;
+      }
+      else if (ob instanceof Boolean) {
+        ob_encoding = BOOLEAN;
+      }
+      else {
+        return OBJECT;
+      }
+
+      if (encoding == ALL_NULL) {
+        encoding = ob_encoding;
+      }
+      else if (encoding != ob_encoding) {
+        // Integers may be written as decimals
+        if ((encoding == INTEGER && ob_encoding == DECIMAL) ||
+            (encoding == DECIMAL && ob_encoding == INTEGER)) {
+          encoding = DECIMAL;
+        }
+        else {
+          return OBJECT;
+        }
+      }
+    }
+    return encoding;
+  }
+
+  /**
+   * Writes the given column of the block.
+   */
+  private static void writeColumn(ByteArrayOutputStream out, ResultPart block,
+              int col, int col_count, int row_count) throws IOException {
+
+    byte encoding = columnEncoding(block, col, col_count, row_count);
+
+    // Count the nulls
+    int null_count = 0;
+    for (int r = 0; r < row_count; ++r) {
+      if (block.elementAt((r * col_count) + col) == null) {
+        ++null_count;
+      }
+    }
+
+    // Strings with many repeated values are written as a dictionary
+    HashMap dictionary = null;
+    if (encoding == STRING) {
+      dictionary = new HashMap();
+      int max_size = (row_count - null_count) / 2;
+      for (int r = 0; r < row_count && dictionary.size() <= max_size; ++r) {
+        Object ob = block.elementAt((r * col_count) + col);
+        if (ob != null) {
+          String str = ob.toString();
+          if (!dictionary.containsKey(str)) {
+            dictionary.put(str, new Integer(dictionary.size()));
+          }
+        }
+      }
+      if (dictionary.size() <= max_size) {
+        encoding = STRING_DICTIONARY;
+      }
+      else {
+        dictionary = null;
+      }
+    }
+
+    out.write(encoding);
+    if (encoding == ALL_NULL) {
+      return;
+    }
+
+    // The null bitmap
+    if (null_count == 0) {
+      out.write(0);
+    }
+    else {
+      out.write(1);
+      int bits = 0;
+      for (int r = 0; r < row_count; ++r) {
+        if (block.elementAt((r * col_count) + col) == null) {
+          bits |= (1 << (r & 7));
+        }
+        if ((r & 7) == 7) {
+          out.write(bits);
+          bits = 0;
+        }
+      }
+      if ((row_count & 7) != 0) {
+        out.write(bits);
+      }
+    }
+
+    if (encoding == BOOLEAN) {
+      int bits = 0;
+      int i = 0;
+      for (int r = 0; r < row_count; ++r) {
+        Object ob = block.elementAt((r * col_count) + col);
+        if (ob != null) {
+          if (((Boolean) ob).booleanValue()) {
+            bits |= (1 << (i & 7));
+          }
+          if ((i & 7) == 7) {
+            out.write(bits);
+            bits = 0;
+          }
+          ++i;
+        }
+      }
+      if ((i & 7) != 0) {
+        out.write(bits);
+      }
+    }
+    else if (encoding == STRING_DICTIONARY) {
+      // The dictionary in index order
+      String[] entries = new String[dictionary.size()];
+      Iterator i = dictionary.keySet().iterator();
+      while (i.hasNext()) {
+        String str = (String) i.next();
+        entries[((Integer) dictionary.get(str)).intValue()] = str;
+      }
+      writeVarLong(out, entries.length);
+      for (int n = 0; n < entries.length; ++n) {
+        writeString(out, entries[n]);
+      }
+      for (int r = 0; r < row_count; ++r) {
+        Object ob = block.elementAt((r * col_count) + col);
+        if (ob != null) {
+          writeVarLong(out,
+                       ((Integer) dictionary.get(ob.toString())).intValue());
+        }
+      }
+    }
+    else if (encoding == OBJECT) {
+      DataOutputStream dout = new DataOutputStream(out);
+      for (int r = 0; r < row_count; ++r) {
+        Object ob = block.elementAt((r * col_count) + col);
+        if (ob != null) {
+          ObjectTransfer.writeTo(dout, ob);
+        }
+      }
+      dout.flush();
+    }
+    else {
+      long last = 0;
+      for (int r = 0; r < row_count; ++r) {
+        Object ob = block.elementAt((r * col_count) + col);
+        if (ob == null) {
+          continue;
+        }
+        if (encoding == INTEGER) {
+          long v = ((BigNumber) ob).longValue();
+          writeVarLong(out, zigZag(v - last));
+          last = v;
+        }
+        else if (encoding == DECIMAL) {
+          BigDecimal d = ((BigNumber) ob).asBigDecimal();
+          long v = d.unscaledValue().longValue();
+          writeVarLong(out, d.scale());
+          writeVarLong(out, zigZag(v - last));
+          last = v;
+        }
+        else if (encoding == DATE) {
+          long v = ((Date) ob).getTime();
+          writeVarLong(out, zigZag(v - last));
+          last = v;
+        }
+        else if (encoding == STRING) {
+          writeString(out, ob.toString());
+        }
+        else {
+          throw new Error("Unknown encoding: " + encoding);
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Writes a string as its length followed by each char as a variable
+   * length integer.  This is as compact as UTF-8 for ASCII and keeps every
+   * char exactly.
+   */
+  private static void writeString(ByteArrayOutputStream out, String str) {
+    int len = str.length();
+    writeVarLong(out, len);
+    for (int i = 0; i < len; ++i) {
+      writeVarLong(out, str.charAt(i));
+    }
+  }
+
+  /**
+   * Writes an unsigned variable length integer, 7 bits per byte.
+   */
+  private static void writeVarLong(ByteArrayOutputStream out, long v) {
+    while ((v & ~0x07FL) != 0) {
+      out.write((int) ((v & 0x07F) | 0x080));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+  /**
+   * Maps a signed value to an unsigned value so small negative numbers are
+   * small.
+   */
+  private static long zigZag(long v) {
+    return (v << 1) ^ (v >> 63);
+  }
+
+  // ---------- Reading ----------
+
+  /**
+   * Reads a column into the block.
+   */
+  private static void readColumn(Reader in, ResultPart block,
+              int col, int col_count, int row_count) throws IOException {
+
+    byte encoding = (byte) in.readByte();
+    if (encoding == ALL_NULL) {
+      // The block is already all null
+      return;
+    }
+
+    // The null bitmap
+    int null_bitmap = -1;
+    if (in.readByte() != 0) {
+      null_bitmap = in.pos;
+      in.pos += (row_count + 7) / 8;
+    }
+
+    if (encoding == BOOLEAN) {
+      int bitmap = in.pos;
+      int i = 0;
+      for (int r = 0; r < row_count; ++r) {
+        if (!isNull(in.buf, null_bitmap, r)) {
+          boolean b = (in.buf[bitmap + (i >> 3)] & (1 << (i & 7))) != 0;
+          block.setElementAt(b ? Boolean.TRUE : Boolean.FALSE,
+                             (r * col_count) + col);
+          ++i;
+        }
+      }
+      in.pos += (i + 7) / 8;
+    }
+    else if (encoding == STRING_DICTIONARY) {
+      int size = (int) in.readVarLong();
+      StringObject[] entries = new StringObject[size];
+      for (int n = 0; n < size; ++n) {
+        entries[n] = StringObject.fromString(in.readString());
+      }
+      for (int r = 0; r < row_count; ++r) {
+        if (!isNull(in.buf, null_bitmap, r)) {
+          block.setElementAt(entries[(int) in.readVarLong()],
+                             (r * col_count) + col);
+        }
+      }
+    }
+    else if (encoding == OBJECT) {
+      ByteArrayInputStream bin =
+                   new ByteArrayInputStream(in.buf, in.pos, in.end - in.pos);
+      DataInputStream din = new DataInputStream(bin);
+      for (int r = 0; r < row_count; ++r) {
+        if (!isNull(in.buf, null_bitmap, r)) {
+          block.setElementAt(ObjectTransfer.readFrom(din),
+                             (r * col_count) + col);
+        }
+      }
+      in.pos = in.end - bin.available();
+    }
+    else {
+      long last = 0;
+      int last_scale = -1;
+      Object last_ob = null;
+      for (int r = 0; r < row_count; ++r) {
+        if (isNull(in.buf, null_bitmap, r)) {
+          continue;
+        }
+        Object ob;
+        if (encoding == INTEGER) {
+          long delta = unZigZag(in.readVarLong());
+          if (delta != 0 || last_ob == null) {
+            last += delta;
+            last_ob = BigNumber.fromLong(last);
+          }
+          ob = last_ob;
+        }
+        else if (encoding == DECIMAL) {
+          int scale = (int) in.readVarLong();
+          long delta = unZigZag(in.readVarLong());
+          if (delta != 0 || scale != last_scale || last_ob == null) {
+            last += delta;
+            last_scale = scale;
+            last_ob = BigNumber.fromBigDecimal(
+                        new BigDecimal(BigInteger.valueOf(last), scale));
+          }
+          ob = last_ob;
+        }
+        else if (encoding == DATE) {
+          last += unZigZag(in.readVarLong());
+          // Dates are mutable so are never shared
+          ob = new Date(last);
+        }
+        else if (encoding == STRING) {
+          ob = StringObject.fromString(in.readString());
+        }
+        else {
+          throw new IOException("Unrecognised column encoding: " + encoding);
+        }
+        block.setElementAt(ob, (r * col_count) + col);
+      }
+    }
+
+  }
+
+  /**
+   * Returns true if the given row is set in the null bitmap starting at
+   * 'bitmap', or false if 'bitmap' is -1 (there are no nulls).
+   */
+  private static boolean isNull(byte[] buf, int bitmap, int row) {
+    return bitmap != -1 && (buf[bitmap + (row >> 3)] & (1 << (row & 7))) != 0;
+  }
+
+  /**
+   * The inverse of 'zigZag'.
+   */
+  private static long unZigZag(long v) {
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /**
+   * Reads the values of a block from a byte array.
+   */
+  private static final class Reader {
+
+    final byte[] buf;
+    int pos;
+    final int end;
+
+    /**
+     * A buffer for reading strings.
+     */
+    private char[] chars;
+
+    Reader(byte[] buf, int pos, int end) {
+      this.buf = buf;
+      this.pos = pos;
+      this.end = end;
+    }
+
+    int readByte() throws IOException {
+      if (pos >= end) {
+        throw new EOFException();
+      }
+      return buf[pos++] & 0x0FF;
+    }
+
+    long readVarLong() throws IOException {
+      long v = 0;
+      int shift = 0;
+      while (true) {
+        int b = readByte();
+        v |= ((long) (b & 0x07F)) << shift;
+        if ((b & 0x080) == 0) {
+          return v;
+        }
+        shift += 7;
+      }
+    }
+
+    String readString() throws IOException {
+      int len = (int) readVarLong();
+      if (chars == null || chars.length < len) {
+        chars = new char[Math.max(len, 64)];
+      }
+      for (int i = 0; i < len; ++i) {
+        chars[i] = (char) readVarLong();
+      }
+      return new String(chars, 0, len);
+    }
+
+  }
+
+}
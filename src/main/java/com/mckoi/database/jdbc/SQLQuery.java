@@ -368,6 +368,56 @@ public final class SQLQuery {
     return query;
   }
 
+  /**
+   * Writes a batch of SQLQuery objects to the data output stream.  The query
+   * string is only written when it is different to the query string of the
+   * previous query in the batch, so a batch of executions of the same
+   * prepared statement only sends the query string once.
+   */
+  public static void writeBatchTo(DataOutputStream out, SQLQuery[] queries)
+                                                          throws IOException {
+    out.writeInt(queries.length);
+    String last_query = null;
+    for (int n = 0; n < queries.length; ++n) {
+      SQLQuery query = queries[n];
+      if (query.query.equals(last_query)) {
+        out.writeBoolean(false);
+      }
+      else {
+        out.writeBoolean(true);
+        out.writeUTF(query.query);
+        last_query = query.query;
+      }
+      out.writeInt(query.parameter_count);
+      for (int i = 0; i < query.parameter_count; ++i) {
+        ObjectTransfer.writeTo(out, query.parameters[i]);
+      }
+    }
+  }
+
+  /**
+   * Reads a batch of SQLQuery objects written by 'writeBatchTo' from the data
+   * input stream.
+   */
+  public static SQLQuery[] readBatchFrom(DataInputStream in)
+                                                          throws IOException {
+    int count = in.readInt();
+    SQLQuery[] queries = new SQLQuery[count];
+    String query_string = null;
+    for (int n = 0; n < count; ++n) {
+      if (in.readBoolean()) {
+        query_string = in.readUTF();
+      }
+      SQLQuery query = new SQLQuery(query_string);
+      int arg_length = in.readInt();
+      for (int i = 0; i < arg_length; ++i) {
+        query.addVar(ObjectTransfer.readFrom(in));
+      }
+      queries[n] = query;
+    }
+    return queries;
+  }
+
   /**
    * Serializes an SQLQuery object to a ByteLongObject.
    */
@@ -65,6 +65,8 @@ class TCPStreamDatabaseInterface extends StreamDatabaseInterface {
     try {
       // Open a socket connection to the server.
       socket = new Socket(host, port);
+      // Commands are flushed as complete messages so send them immediately.
+      socket.setTcpNoDelay(true);
       // Setup the stream with the given input and output streams.
       setup(socket.getInputStream(), socket.getOutputStream());
     }
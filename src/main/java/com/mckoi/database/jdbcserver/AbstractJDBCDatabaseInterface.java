@@ -28,6 +28,7 @@ import com.mckoi.database.sql.SQL;
 import com.mckoi.database.sql.ParseException;
 import com.mckoi.database.jdbc.*;
 import com.mckoi.util.IntegerVector;
+import com.mckoi.util.BigNumber;
 import com.mckoi.util.StringUtil;
 import com.mckoi.debug.*;
 
@@ -115,6 +116,13 @@ public abstract class AbstractJDBCDatabaseInterface
    */
   private boolean disposed;
 
+  /**
+   * If true, the results of SELECT queries that can be streamed are found
+   * as they are read (see StreamingResult).  The row count of such a result
+   * is -1 until its end is found.
+   */
+  private boolean stream_results;
+
 
   /**
    * Sets up the database interface.
@@ -125,6 +133,7 @@ public abstract class AbstractJDBCDatabaseInterface
     blob_id_map = new HashMap();
     unique_result_id = 1;
     disposed = false;
+    stream_results = false;
   }
 
   // ---------- Utility methods ----------
@@ -165,6 +174,18 @@ public abstract class AbstractJDBCDatabaseInterface
     return getDatabase().Debug();
   }
 
+  /**
+   * Sets whether the results of queries that can be streamed are found as
+   * they are read.  This must only be enabled if the client understands
+   * that the row count of a result may be -1 (unknown).  The parts of such
+   * a result may be requested past its end, and a request for a part of 0
+   * rows finds the end of the result.  Every ResultPart reports the row
+   * count of the result, or -1 if it still isn't known.
+   */
+  public void setStreamResults(boolean status) {
+    stream_results = status;
+  }
+
   /**
    * Returns the DatabaseConnection objcet for this connection.
    */
@@ -454,14 +475,21 @@ public abstract class AbstractJDBCDatabaseInterface
     try {
 
       // Evaluate the sql query.
-      Table result = sql_executor.execute(database_connection, query);
+      Object result =
+             sql_executor.execute(database_connection, query, stream_results);
 
       // Put the result in the result cache...  This will lock this object
       // until it is removed from the result set cache.  Returns an id that
       // uniquely identifies this result set in future communication.
       // NOTE: This locks the roots of the table so that its contents
       //   may not be altered.
-      result_set_info = new ResultSetInfo(query, result);
+      if (result instanceof StreamingResult) {
+        result_set_info =
+                     new ResultSetInfo(query, (StreamingResult) result);
+      }
+      else {
+        result_set_info = new ResultSetInfo(query, (Table) result);
+      }
       result_id = addResultSet(result_set_info);
 
     }
@@ -485,6 +513,42 @@ public abstract class AbstractJDBCDatabaseInterface
   }
 
 
+  public int[] execBatch(SQLQuery[] queries) throws SQLException {
+
+    int[] update_counts = new int[queries.length];
+    for (int i = 0; i < queries.length; ++i) {
+      // Execute the query.  This goes through 'execQuery' so any locking and
+      // auto-commit behaviour of the implementation happens for each query
+      // in the batch.
+      QueryResponse response = execQuery(queries[i]);
+      int result_id = response.getResultID();
+      try {
+        // The result must be an update count.
+        ResultSetInfo result = getResultSet(result_id);
+        if (result.getRowCount() != 1 || result.getColumnCount() != 1 ||
+            !result.getFields()[0].getName().equals("@aresult")) {
+          throw new SQLException(
+                  "Unable to format query result as an update value.");
+        }
+        Object ob = result.getCellContents(0, 0).getObject();
+        if (ob instanceof BigNumber) {
+          update_counts[i] = ((BigNumber) ob).intValue();
+        }
+        else {
+          // The query succeeded but the number of rows it changed is not
+          // known.
+          update_counts[i] = java.sql.Statement.SUCCESS_NO_INFO;
+        }
+      }
+      finally {
+        disposeResultSet(result_id);
+      }
+    }
+    return update_counts;
+
+  }
+
+
   public ResultPart getResultPart(int result_id, int row_number,
                                   int row_count) throws SQLException {
 
@@ -496,17 +560,43 @@ public abstract class AbstractJDBCDatabaseInterface
                               (Throwable) null);
     }
 
-    int row_end = row_number + row_count;
-
-    if (row_number < 0 || row_number >= table.getRowCount() ||
-        row_end > table.getRowCount()) {
-      throw new MSQLException("Result part out of range.", null, 4,
-                              (Throwable) null);
+    if (table.isStreamed()) {
+      // The rows of a streamed result may be requested past the rows that
+      // have been found so far.
+      if (row_number < 0 || row_count < 0) {
+        throw new MSQLException("Result part out of range.", null, 4,
+                                (Throwable) null);
+      }
+    }
+    else {
+      int row_end = row_number + row_count;
+      if (row_number < 0 || row_number >= table.getRowCount() ||
+          row_end > table.getRowCount()) {
+        throw new MSQLException("Result part out of range.", null, 4,
+                                (Throwable) null);
+      }
     }
 
     try {
+      if (table.isStreamed()) {
+        // Find the rows of the part.  A part of 0 rows finds the end of the
+        // result.  The part has fewer rows than asked for if the end of the
+        // result is reached.
+        if (row_count == 0) {
+          table.ensureRows(Integer.MAX_VALUE);
+        }
+        else {
+          table.ensureRows((int) Math.min((long) row_number + row_count,
+                                          (long) Integer.MAX_VALUE));
+        }
+        row_count = Math.max(0,
+               Math.min(row_count, table.getFoundRowCount() - row_number));
+      }
+      int row_end = row_number + row_count;
+
       int col_count = table.getColumnCount();
       ResultPart block = new ResultPart(row_count * col_count);
+      block.setResultRowCount(table.getRowCount());
       for (int r = row_number; r < row_end; ++r) {
         for (int c = 0; c < col_count; ++c) {
           TObject t_object = table.getCellContents(c, r);
@@ -721,9 +811,21 @@ public abstract class AbstractJDBCDatabaseInterface
     private boolean result_is_simple_enum;
 
     /**
-     * The number of rows in the result.
+     * The number of rows in the result, or -1 if the result is streamed and
+     * its end hasn't been found.
      */
     private int result_row_count;
+
+    /**
+     * If the result is streamed, the StreamingResult rows are found from.
+     * This is set to null when the end of the result is found.
+     */
+    private StreamingResult streaming;
+
+    /**
+     * True if the result is streamed.
+     */
+    private boolean is_streamed;
     
     /**
      * Incremented when we lock roots.
@@ -772,6 +874,48 @@ public abstract class AbstractJDBCDatabaseInterface
         }
       }
 
+      is_streamed = false;
+      setColumnDescriptions();
+      locked = 0;
+    }
+
+    /**
+     * Constructs a streamed result set.  The rows are found as they are
+     * requested through 'ensureRows'.
+     */
+    ResultSetInfo(SQLQuery query, StreamingResult streaming) {
+      this.query = query;
+      this.result = streaming.getTable();
+      this.streamable_blob_map = new HashMap();
+      this.streaming = streaming;
+      this.is_streamed = true;
+
+      // The row count isn't known until the end of the result is found
+      result_row_count = -1;
+      result_is_simple_enum = false;
+      row_index_map = new IntegerVector();
+
+      // Find the first row and read its contents for the same reasons as
+      // above.  This also picks up any errors evaluating the query against
+      // the first rows.
+      ensureRows(1);
+      if (row_index_map.size() > 0) {
+        int row_index = row_index_map.intAt(0);
+        for (int c = 0; c < result.getColumnCount(); ++c) {
+          result.getCellContents(c, row_index);
+        }
+      }
+
+      setColumnDescriptions();
+      locked = 0;
+    }
+
+    /**
+     * Sets up the ColumnDescription of each column in the result.
+     */
+    private void setColumnDescriptions() {
+      Table table = result;
+
       // This is a safe operation provides we are shared.
       // Copy all the TableField columns from the table to our own
       // ColumnDescription array, naming each column by what is returned from
@@ -793,8 +937,6 @@ public abstract class AbstractJDBCDatabaseInterface
                    table.getColumnDefAt(i).columnDescriptionValue(field_name);
 //        col_desc[i] = new ColumnDescription(field_name, table.getFieldAt(i));
       }
-
-      locked = 0;
     }
 
     /**
@@ -829,6 +971,7 @@ public abstract class AbstractJDBCDatabaseInterface
       }
       result = null;
       row_index_map = null;
+      streaming = null;
       col_desc = null;
     }
 
@@ -870,12 +1013,49 @@ public abstract class AbstractJDBCDatabaseInterface
     }
 
     /**
-     * Returns the row count.
+     * Returns the row count, or -1 if the result is streamed and its end
+     * hasn't been found.
      */
     int getRowCount() {
       return result_row_count;
     }
 
+    /**
+     * Returns true if the result is streamed.
+     */
+    boolean isStreamed() {
+      return is_streamed;
+    }
+
+    /**
+     * Finds the rows of a streamed result until 'row_count' rows have been
+     * found or the end of the result is found.
+     */
+    void ensureRows(int row_count) {
+      while (streaming != null && row_index_map.size() < row_count) {
+        int row_index = streaming.nextRowIndex();
+        if (row_index == -1) {
+          // The end of the result
+          result_row_count = row_index_map.size();
+          streaming = null;
+        }
+        else {
+          row_index_map.addInt(row_index);
+        }
+      }
+    }
+
+    /**
+     * Returns the number of rows that have been found.  This is the row
+     * count unless the result is streamed and its end hasn't been found.
+     */
+    int getFoundRowCount() {
+      if (result_row_count != -1) {
+        return result_row_count;
+      }
+      return row_index_map.size();
+    }
+
     /**
      * Returns the ColumnDescription array of all the columns in the result.
      */
@@ -28,6 +28,7 @@ import com.mckoi.database.jdbc.DatabaseCallBack;
 import com.mckoi.database.jdbc.DatabaseInterface;
 import com.mckoi.database.jdbc.QueryResponse;
 import com.mckoi.database.jdbc.ResultPart;
+import com.mckoi.database.jdbc.ResultPartTransfer;
 import com.mckoi.database.jdbc.SQLQuery;
 import com.mckoi.debug.*;
 import com.mckoi.util.ByteArrayUtil;
@@ -59,6 +60,12 @@ abstract class JDBCProcessor implements ProtocolConstants {
    */
   private int state;
 
+  /**
+   * The protocol features (COLUMNAR_RESULT_PARTS, etc) the client asked
+   * for when it connected.
+   */
+  private int client_features;
+
   /**
    * Number of authentications tried.
    */
@@ -81,6 +88,7 @@ abstract class JDBCProcessor implements ProtocolConstants {
     this.debug = logger;
     this.db_interface = db_interface;
     state = 0;
+    client_features = 0;
     authentication_tries = 0;
   }
 
@@ -129,12 +137,32 @@ abstract class JDBCProcessor implements ProtocolConstants {
       int maj_ver = ByteArrayUtil.getInt(command, 4);
       int min_ver = ByteArrayUtil.getInt(command, 8);
 
-      byte[] ack_command = new byte[4 + 1 + 4 + 1];
+      byte[] ack_command;
+      if (command.length >= 16) {
+        // The client sent the protocol features it would like to use.  We
+        // reply with the features we accept.  Older clients don't send
+        // features and are sent the original acknowledgement.
+        client_features = ByteArrayUtil.getInt(command, 12) &
+                          (COLUMNAR_RESULT_PARTS | COMPRESSED_RESULT_PARTS |
+                           BATCH_QUERIES);
+        if ((ByteArrayUtil.getInt(command, 12) & STREAMED_RESULTS) != 0 &&
+            db_interface instanceof AbstractJDBCDatabaseInterface) {
+          client_features |= STREAMED_RESULTS;
+          ((AbstractJDBCDatabaseInterface) db_interface).setStreamResults(
+                                                                      true);
+        }
+        ack_command = new byte[4 + 1 + 4 + 1 + 4];
+        ack_command[9] = 1;
+        ByteArrayUtil.setInt(client_features, ack_command, 10);
+      }
+      else {
+        ack_command = new byte[4 + 1 + 4 + 1];
+        ack_command[9] = 0;
+      }
       // Send back an acknowledgement and the version number of the server
       ByteArrayUtil.setInt(ACKNOWLEDGEMENT, ack_command, 0);
       ack_command[4] = 1;
       ByteArrayUtil.setInt(SERVER_VERSION, ack_command, 5);
-      ack_command[9] = 0;
 
       // Set to the next state.
       state = 4;
@@ -288,6 +316,9 @@ abstract class JDBCProcessor implements ProtocolConstants {
     else if (ins == QUERY) {
       result = queryCommand(dispatch_id, command);
     }
+    else if (ins == BATCH_QUERY) {
+      result = batchQueryCommand(dispatch_id, command);
+    }
     else if (ins == PUSH_STREAMABLE_OBJECT_PART) {
       result = pushStreamableObjectPart(dispatch_id, command);
     }
@@ -375,6 +406,48 @@ abstract class JDBCProcessor implements ProtocolConstants {
 
   }
 
+  /**
+   * Executes a batch of queries and returns the update count of each query
+   * in the response.  The results of the queries are disposed on the server
+   * so there are no result sets for the client to dispose.
+   * <p>
+   * 'dispatch_id' is the number we need to respond with.
+   */
+  private byte[] batchQueryCommand(int dispatch_id,
+                                   byte[] command) throws IOException {
+
+    // Read the queries from the command.
+    ByteArrayInputStream bin =
+                     new ByteArrayInputStream(command, 8, command.length - 8);
+    DataInputStream din = new DataInputStream(bin);
+    SQLQuery[] queries = SQLQuery.readBatchFrom(din);
+
+    try {
+      // Do the queries
+      int[] update_counts = db_interface.execBatch(queries);
+
+      // Prepare the stream to output the response to,
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      DataOutputStream dout = new DataOutputStream(bout);
+
+      dout.writeInt(dispatch_id);
+      dout.writeInt(SUCCESS);
+
+      // The response sends the update count of each query.
+      dout.writeInt(update_counts.length);
+      for (int i = 0; i < update_counts.length; ++i) {
+        dout.writeInt(update_counts[i]);
+      }
+
+      return bout.toByteArray();
+
+    }
+    catch (SQLException e) {
+      return exception(dispatch_id, e);
+    }
+
+  }
+
   /**
    * Pushes a part of a streamable object onto the server.
    * <p>
@@ -430,13 +503,37 @@ abstract class JDBCProcessor implements ProtocolConstants {
       dout.writeInt(SUCCESS);
 
       // Send the contents of the result set.
-      // HACK - Work out column count by dividing number of entries in block
-      //   by number of rows.
-      int col_count = block.size() / row_count;
-      dout.writeInt(col_count);
-      int bsize = block.size();
-      for (int index = 0; index < bsize; ++index) {
-        ObjectTransfer.writeTo(dout, block.elementAt(index));
+      int col_count;
+      if ((client_features & STREAMED_RESULTS) != 0) {
+        // The part of a streamed result may have fewer rows than were asked
+        // for, so the rows in the part and the size of the result are sent.
+        int part_rows = row_count;
+        int total_rows = block.getResultRowCount();
+        if (total_rows != -1) {
+          part_rows = Math.max(0, Math.min(row_count,
+                                           total_rows - row_number));
+        }
+        col_count = (part_rows == 0) ? 0 : block.size() / part_rows;
+        dout.writeInt(col_count);
+        dout.writeInt(part_rows);
+        dout.writeInt(total_rows);
+      }
+      else {
+        // HACK - Work out column count by dividing number of entries in
+        //   block by number of rows.
+        col_count = block.size() / row_count;
+        dout.writeInt(col_count);
+      }
+      if ((client_features & COLUMNAR_RESULT_PARTS) != 0) {
+        // Column by column format
+        ResultPartTransfer.writeTo(dout, block, col_count,
+                      (client_features & COMPRESSED_RESULT_PARTS) != 0);
+      }
+      else {
+        int bsize = block.size();
+        for (int index = 0; index < bsize; ++index) {
+          ObjectTransfer.writeTo(dout, block.elementAt(index));
+        }
       }
 
       return bout.toByteArray();
@@ -0,0 +1,398 @@
+/**
+ * com.mckoi.database.jdbcserver.NIOConnectionPoolServer  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.jdbcserver;
+
+import com.mckoi.database.Database;
+import com.mckoi.debug.*;
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * A connection pool server that services all its connections from a single
+ * thread that waits on a java.nio Selector.  When a connection is readable
+ * the selector thread reads what has arrived and splits it into commands.
+ * Complete commands are dispatched to a database worker thread, the same
+ * way SingleThreadedConnectionPoolServer does, but without polling.
+ * <p>
+ * An idle connection has no thread and only a small read buffer, so this
+ * server can hold many more connections than the multi-threaded server.
+ * Responses the client isn't ready to receive are written by the selector
+ * thread when the channel becomes writable, so a worker thread never blocks
+ * on a slow client (this includes events sent by 'sendEvent').  While a
+ * connection has too much output queued, the selector thread stops reading
+ * its commands until the output has been written.  The selector thread
+ * also stops reading while a connection has many commands waiting.
+ * <p>
+ * This pool server only works with NIOJDBCServerConnection connections.  It
+ * is chosen by setting 'tcp_connection_pool_thread_model' to 'nio'.
+ *
+ * @author Tobias Downer
+ */
+
+final class NIOConnectionPoolServer implements ConnectionPoolServer {
+
+  /**
+   * The Database context.
+   */
+  private Database database;
+
+  /**
+   * The Selector that all the connection channels are registered with.
+   */
+  private Selector selector;
+
+  /**
+   * The list of NIOJDBCServerConnection objects that are pending to be
+   * registered with the selector.
+   */
+  private ArrayList pending_connections_list;
+
+  /**
+   * The list of NIOJDBCServerConnection objects whose output has changed so
+   * the operations the selector waits for on them must be updated.
+   */
+  private ArrayList pending_updates_list;
+
+  /**
+   * Set to true when this server is closed.
+   */
+  private boolean server_closed;
+
+  /**
+   * The Constructor.
+   */
+  NIOConnectionPoolServer(Database database) {
+    this.database = database;
+    pending_connections_list = new ArrayList();
+    pending_updates_list = new ArrayList();
+    server_closed = false;
+    try {
+      selector = Selector.open();
+    }
+    catch (IOException e) {
+      Debug().writeException(e);
+      throw new Error(e.getMessage());
+    }
+    // Create the thread that services all the connections.
+    SelectorThread selector_thread = new SelectorThread();
+    selector_thread.start();
+  }
+
+  /**
+   * Returns a DebugLogger object that we can log debug messages to.
+   */
+  public final DebugLogger Debug() {
+    return database.Debug();
+  }
+
+  /**
+   * Connects a new ServerConnection into the pool of connections to clients
+   * that this server maintains.  The connection must be a
+   * NIOJDBCServerConnection.
+   */
+  public void addConnection(ServerConnection connection) {
+    NIOJDBCServerConnection nio_connection =
+                                     (NIOJDBCServerConnection) connection;
+    nio_connection.setPoolServer(this);
+    synchronized (pending_connections_list) {
+      pending_connections_list.add(nio_connection);
+    }
+    selector.wakeup();
+  }
+
+  /**
+   * Called by a connection when it has output that couldn't be written to
+   * the channel, when its command queue is no longer full, or when it is
+   * closing because its output is full.  The selector thread writes the
+   * output when the channel is writable.
+   */
+  void requestUpdate(NIOJDBCServerConnection connection) {
+    synchronized (pending_updates_list) {
+      pending_updates_list.add(connection);
+    }
+    selector.wakeup();
+  }
+
+  /**
+   * Closes this connection pool server down.
+   */
+  public void close() {
+    synchronized (this) {
+      server_closed = true;
+    }
+    selector.wakeup();
+  }
+
+  /**
+   * Dispatches the commands pending on the given connection to a database
+   * worker thread.  The state must be locked and not processing a request.
+   */
+  private void dispatch(final ConnectionState state) {
+    state.processing = true;
+
+    database.execute(null, null, new Runnable() {
+      public void run() {
+
+        try {
+          // Process the requests that are pending.
+          state.connection.processRequest();
+        }
+        catch (IOException e) {
+          Debug().writeException(Lvl.INFORMATION, e);
+        }
+        finally {
+          synchronized (state) {
+            state.processing = false;
+            // If the client disconnected while we were processing, close
+            // the connection now, otherwise process anything that arrived
+            // in the meantime.
+            if (state.closed) {
+              closeConnection(state.connection);
+            }
+            else if (state.connection.hasCommand() &&
+                     !state.connection.isOutputFull()) {
+              dispatch(state);
+            }
+          }
+        }
+
+      }
+    });
+  }
+
+  /**
+   * Closes the given connection, ignoring any errors.
+   */
+  private void closeConnection(NIOJDBCServerConnection connection) {
+    try {
+      connection.close();
+    }
+    catch (IOException e) { /* ignore */ }
+  }
+
+  // ---------- Inner classes ----------
+
+  /**
+   * The state of a connection, attached to its SelectionKey.
+   */
+  private static final class ConnectionState {
+
+    /**
+     * The connection.
+     */
+    final NIOJDBCServerConnection connection;
+
+    /**
+     * True if the commands of this connection are being processed by a
+     * worker thread.
+     */
+    boolean processing;
+
+    /**
+     * True if the client has disconnected.
+     */
+    boolean closed;
+
+    ConnectionState(NIOJDBCServerConnection connection) {
+      this.connection = connection;
+      processing = false;
+      closed = false;
+    }
+
+  }
+
+  /**
+   * The thread that waits on the selector and services the connections.
+   */
+  private class SelectorThread extends Thread {
+
+    /**
+     * The Constructor.
+     */
+    public SelectorThread() {
+      super();
+      setName("Mckoi - NIO Connection Selector");
+    }
+
+    /**
+     * Registers any connections in 'pending_connections_list' with the
+     * selector.
+     */
+    private void establishPendingConnections() {
+      synchronized (pending_connections_list) {
+        int len = pending_connections_list.size();
+        for (int i = 0; i < len; ++i) {
+          NIOJDBCServerConnection connection =
+                 (NIOJDBCServerConnection) pending_connections_list.get(i);
+          try {
+            connection.getChannel().register(selector, SelectionKey.OP_READ,
+                                             new ConnectionState(connection));
+          }
+          catch (IOException e) {
+            closeConnection(connection);
+            Debug().writeException(Lvl.INFORMATION, e);
+          }
+        }
+        pending_connections_list.clear();
+      }
+    }
+
+    /**
+     * Sets the operations the selector waits for on the given connection.
+     * The selector waits to write if there is output queued, and waits to
+     * read unless there's too much output or too many commands queued.
+     */
+    private void updateInterest(SelectionKey key,
+                                NIOJDBCServerConnection connection) {
+      int ops = 0;
+      if (!connection.isReadPaused()) {
+        ops |= SelectionKey.OP_READ;
+      }
+      if (connection.hasOutput()) {
+        ops |= SelectionKey.OP_WRITE;
+      }
+      key.interestOps(ops);
+    }
+
+    /**
+     * Updates the operations the selector waits for on any connections in
+     * 'pending_updates_list'.
+     */
+    private void updatePendingInterest() {
+      synchronized (pending_updates_list) {
+        int len = pending_updates_list.size();
+        for (int i = 0; i < len; ++i) {
+          NIOJDBCServerConnection connection =
+                     (NIOJDBCServerConnection) pending_updates_list.get(i);
+          SelectionKey key = connection.getChannel().keyFor(selector);
+          if (key != null && key.isValid()) {
+            updateInterest(key, connection);
+          }
+        }
+        pending_updates_list.clear();
+      }
+    }
+
+    /**
+     * Services a connection that the selector says is ready.
+     */
+    private void service(SelectionKey key) {
+      ConnectionState state = (ConnectionState) key.attachment();
+      NIOJDBCServerConnection connection = state.connection;
+      try {
+        if (key.isWritable()) {
+          connection.writeOutput();
+        }
+        if (key.isReadable()) {
+          if (!connection.readCommands()) {
+            throw new IOException("Connection closed by client.");
+          }
+        }
+        updateInterest(key, connection);
+        // Process any commands that have arrived, or that were waiting for
+        // the output to be written.
+        synchronized (state) {
+          if (!state.processing && connection.hasCommand() &&
+              !connection.isOutputFull()) {
+            dispatch(state);
+          }
+        }
+      }
+      catch (IOException e) {
+        // The connection is closed, so stop servicing it.  If a worker
+        // is processing a command then it closes the connection when it
+        // finishes.
+        key.cancel();
+        synchronized (state) {
+          state.closed = true;
+          if (!state.processing) {
+            closeConnection(connection);
+          }
+        }
+        Debug().write(Lvl.INFORMATION, this,
+                      "IOException generated while servicing connection, " +
+                      "removing provider.");
+        Debug().writeException(Lvl.INFORMATION, e);
+      }
+      catch (CancelledKeyException e) {
+        // The connection was closed by a worker thread.
+      }
+    }
+
+    /**
+     * Closes all the connections and the selector.
+     */
+    private void closeAll() {
+      Iterator i = selector.keys().iterator();
+      while (i.hasNext()) {
+        SelectionKey key = (SelectionKey) i.next();
+        closeConnection(((ConnectionState) key.attachment()).connection);
+      }
+      try {
+        selector.close();
+      }
+      catch (IOException e) { /* ignore */ }
+    }
+
+    /**
+     * The Runnable method of the selector thread.
+     */
+    public void run() {
+      while (true) {
+        try {
+
+          synchronized (NIOConnectionPoolServer.this) {
+            // Exit if the server has been closed...
+            if (server_closed) {
+              closeAll();
+              return;
+            }
+          }
+
+          establishPendingConnections();
+          updatePendingInterest();
+
+          selector.select();
+
+          Iterator i = selector.selectedKeys().iterator();
+          while (i.hasNext()) {
+            SelectionKey key = (SelectionKey) i.next();
+            i.remove();
+            if (key.isValid()) {
+              service(key);
+            }
+          }
+
+        }
+        catch (Throwable e) {
+          Debug().write(Lvl.ERROR, this, "Connection Pool Selector Error");
+          Debug().writeException(e);
+        }
+      }
+    }
+
+  }
+
+}
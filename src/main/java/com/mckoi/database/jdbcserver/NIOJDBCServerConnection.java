@@ -0,0 +1,460 @@
+/**
+ * com.mckoi.database.jdbcserver.NIOJDBCServerConnection  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.database.jdbcserver;
+
+import com.mckoi.debug.DebugLogger;
+import com.mckoi.database.jdbc.ProtocolConstants;
+import com.mckoi.database.jdbc.DatabaseInterface;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+
+/**
+ * A ServerConnection that processes JDBC queries from a client over a
+ * non-blocking SocketChannel.  This is used by NIOConnectionPoolServer.
+ * <p>
+ * The protocol is the same as StreamJDBCServerConnection; each command is
+ * preceeded by its length.  The selector thread of the pool server calls
+ * 'readCommands' when the channel is readable, and every complete command
+ * that has arrived is put on a queue.  The commands are then processed by
+ * 'processRequest' on a database worker thread.
+ * <p>
+ * Responses are written to the channel immediately if it will take them.
+ * Anything the channel won't take is queued and written by the selector
+ * thread when the channel becomes writable, so writing to a client that
+ * isn't reading never blocks a worker thread.
+ * <p>
+ * The queues are bounded.  While MAX_PENDING_COMMANDS commands are waiting
+ * to be processed no more commands are read.  While more than
+ * OUTPUT_PAUSE_SIZE bytes of output are queued no more commands are read or
+ * processed, so a client that sends commands but doesn't read the responses
+ * can't make the output queue grow.  Events and pings are not responses to
+ * commands, so if they would make the queue larger than MAX_OUTPUT_SIZE the
+ * connection is closed.
+ *
+ * @author Tobias Downer
+ */
+
+final class NIOJDBCServerConnection extends JDBCProcessor
+                                                 implements ServerConnection {
+
+  /**
+   * The initial size of the buffer commands are read into.  The buffer
+   * grows if a larger command arrives.  This is small because a server may
+   * have many idle connections.
+   */
+  private static final int INITIAL_BUFFER_SIZE = 512;
+
+  /**
+   * The maximum number of commands processed in sequence by
+   * 'processRequest' before the worker is freed.
+   */
+  private static final int SEQUENCE_LIMIT = 8;
+
+  /**
+   * While this number of commands are waiting to be processed, no more
+   * commands are read from the client.
+   */
+  private static final int MAX_PENDING_COMMANDS = 32;
+
+  /**
+   * While more than this number of bytes are waiting to be written to the
+   * client, no more commands are read from the client or processed.
+   */
+  private static final int OUTPUT_PAUSE_SIZE = 64 * 1024;
+
+  /**
+   * The maximum number of bytes of events and pings that may be waiting to
+   * be written to the client.  If this is exceeded then the client isn't
+   * reading and the connection is closed.
+   */
+  private static final int MAX_OUTPUT_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The channel to the client.
+   */
+  private final SocketChannel channel;
+
+  /**
+   * The buffer that data from the channel is read into.  Only accessed by
+   * the selector thread.
+   */
+  private ByteBuffer input;
+
+  /**
+   * The list of complete commands (byte[]) that have been received but not
+   * processed.
+   */
+  private final LinkedList commands;
+
+  /**
+   * The list of ByteBuffer messages waiting to be written to the channel.
+   * This is also the lock for writing to the channel.
+   */
+  private final LinkedList output;
+
+  /**
+   * The number of bytes in 'output' that are waiting to be written.
+   */
+  private int output_size;
+
+  /**
+   * Is set to true when the output queue became too large and the
+   * connection is being closed.
+   */
+  private boolean output_overflow = false;
+
+  /**
+   * The pool server that services this connection.
+   */
+  private NIOConnectionPoolServer pool_server;
+
+  /**
+   * Is set to true when the connection to the client is closed.
+   */
+  private boolean is_closed = false;
+
+  /**
+   * Constructs the ServerConnection object.
+   */
+  NIOJDBCServerConnection(DatabaseInterface db_interface,
+             SocketChannel channel, DebugLogger logger) throws IOException {
+    super(db_interface, logger);
+    this.channel = channel;
+    channel.configureBlocking(false);
+    input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    commands = new LinkedList();
+    output = new LinkedList();
+    output_size = 0;
+  }
+
+  /**
+   * Sets the pool server that services this connection.
+   */
+  void setPoolServer(NIOConnectionPoolServer pool_server) {
+    this.pool_server = pool_server;
+  }
+
+  /**
+   * Returns the channel to the client.
+   */
+  SocketChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Reads everything that is available on the channel and puts any complete
+   * commands on the command queue.  Returns false if the end of the stream
+   * has been reached.  This is called by the selector thread when the
+   * channel is readable.
+   */
+  boolean readCommands() throws IOException {
+    while (true) {
+      int n = channel.read(input);
+      if (n == -1) {
+        return false;
+      }
+
+      // Split the buffer into commands.
+      input.flip();
+      int needed = 0;
+      while (input.remaining() >= 4) {
+        int length = input.getInt(input.position());
+        if (length < 0) {
+          throw new IOException("Invalid command length: " + length);
+        }
+        if (input.remaining() < 4 + length) {
+          needed = 4 + length;
+          break;
+        }
+        input.getInt();
+        byte[] command = new byte[length];
+        input.get(command);
+        synchronized (commands) {
+          commands.add(command);
+          commands.notifyAll();
+        }
+      }
+      input.compact();
+
+      // Grow the buffer if the next command won't fit.
+      if (needed > input.capacity()) {
+        ByteBuffer new_input = ByteBuffer.allocate(needed);
+        input.flip();
+        new_input.put(input);
+        input = new_input;
+      }
+
+      // If the buffer wasn't filled then there's nothing more to read.
+      // Stop reading if enough commands are waiting.
+      if (n == 0 || input.hasRemaining() ||
+          pendingCommandCount() >= MAX_PENDING_COMMANDS) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Writes as much of the pending output to the channel as the channel
+   * will take.  This is called by the selector thread when the channel is
+   * writable.
+   */
+  void writeOutput() throws IOException {
+    synchronized (output) {
+      while (!output.isEmpty()) {
+        ByteBuffer buf = (ByteBuffer) output.getFirst();
+        output_size -= channel.write(buf);
+        if (buf.hasRemaining()) {
+          return;
+        }
+        output.removeFirst();
+      }
+    }
+  }
+
+  /**
+   * Returns true if there is output waiting to be written to the channel.
+   */
+  boolean hasOutput() {
+    synchronized (output) {
+      return !output.isEmpty();
+    }
+  }
+
+  /**
+   * Returns true if so much output is waiting to be written that no more
+   * commands should be processed until it has been written.  This is false
+   * if the connection is being closed.
+   */
+  boolean isOutputFull() {
+    synchronized (output) {
+      return output_size > OUTPUT_PAUSE_SIZE && !output_overflow;
+    }
+  }
+
+  /**
+   * Returns true if no more commands should be read from the client, either
+   * because the output is full or because enough commands are waiting to be
+   * processed.
+   */
+  boolean isReadPaused() {
+    return isOutputFull() ||
+           pendingCommandCount() >= MAX_PENDING_COMMANDS;
+  }
+
+  /**
+   * Sends a message to the client.  The message is written to the channel
+   * if it will take it, otherwise it is queued and the pool server is asked
+   * to write it when the channel is writable.  If 'limit_output' is true and
+   * queueing the message would make the output larger than MAX_OUTPUT_SIZE
+   * then the message isn't sent and the connection is closed.
+   */
+  private void send(ByteBuffer buf, boolean limit_output) throws IOException {
+    buf.flip();
+    boolean request_update = false;
+    boolean overflow = false;
+    synchronized (output) {
+      if (is_closed || output_overflow) {
+        throw new IOException("Connection is closed.");
+      }
+      // Only write now if there's nothing queued before this message
+      if (output.isEmpty()) {
+        channel.write(buf);
+      }
+      if (buf.hasRemaining()) {
+        if (limit_output &&
+            output_size + buf.remaining() > MAX_OUTPUT_SIZE) {
+          // The client isn't reading.  Shutting down the input makes the
+          // selector thread read the end of the stream and close the
+          // connection.
+          output_overflow = true;
+          overflow = true;
+          channel.socket().shutdownInput();
+          request_update = true;
+        }
+        else {
+          request_update = output.isEmpty();
+          output.add(buf);
+          output_size += buf.remaining();
+        }
+      }
+    }
+    if (request_update) {
+      pool_server.requestUpdate(this);
+    }
+    if (overflow) {
+      throw new IOException("Output queue is full, client isn't reading.");
+    }
+  }
+
+  /**
+   * Sends the response to a command to the client.
+   */
+  private void sendResponse(byte[] response) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(4 + response.length);
+    buf.putInt(response.length);
+    buf.put(response);
+    send(buf, false);
+  }
+
+  /**
+   * Sends a message that isn't a response to a command (an event or a ping)
+   * to the client.
+   */
+  private void sendServerMessage(int command, byte[] msg) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(4 + 4 + 4 + msg.length);
+    // Command length...
+    buf.putInt(4 + 4 + msg.length);
+    // Dispatch id...
+    buf.putInt(-1);
+    // Command id...
+    buf.putInt(command);
+    // The message...
+    buf.put(msg);
+    send(buf, true);
+  }
+
+  /**
+   * Returns the number of commands waiting to be processed.
+   */
+  private int pendingCommandCount() {
+    synchronized (commands) {
+      return commands.size();
+    }
+  }
+
+  /**
+   * Returns true if there is a command waiting to be processed.
+   */
+  boolean hasCommand() {
+    synchronized (commands) {
+      return !commands.isEmpty();
+    }
+  }
+
+  // ---------- Implemented from JDBCConnection ----------
+
+  public void sendEvent(byte[] event_msg) throws IOException {
+    sendServerMessage(ProtocolConstants.DATABASE_EVENT, event_msg);
+  }
+
+  // ---------- Implemented from ServerConnection ----------
+
+  /**
+   * Returns true if a complete command has been received.
+   */
+  public boolean requestPending() throws IOException {
+    return hasCommand();
+  }
+
+  /**
+   * Processes the commands that have been received.  This never blocks
+   * waiting for a command.
+   */
+  public void processRequest() throws IOException {
+    // Only allow a limited number of commands to execute in sequence before
+    // we free this worker to the worker pool.
+    for (int i = 0; i < SEQUENCE_LIMIT; ++i) {
+      // Stop if the client hasn't read the responses already sent.  The
+      // pool server dispatches the rest when the output has been written.
+      if (isOutputFull()) {
+        return;
+      }
+      byte[] command;
+      boolean resume_read;
+      synchronized (commands) {
+        if (commands.isEmpty()) {
+          return;
+        }
+        resume_read = (commands.size() == MAX_PENDING_COMMANDS);
+        command = (byte[]) commands.removeFirst();
+      }
+      // If the selector stopped reading because the command queue was full
+      // then ask it to read again.
+      if (resume_read) {
+        pool_server.requestUpdate(this);
+      }
+
+      // Process the command
+      byte[] response = processJDBCCommand(command);
+      if (response != null) {
+        sendResponse(response);
+      }
+    }
+  }
+
+  /**
+   * Blocks until a complete command has been received.  The pool server
+   * never calls this because it is told when commands arrive.
+   */
+  public void blockForRequest() throws IOException {
+    synchronized (commands) {
+      while (commands.isEmpty()) {
+        if (isClosed()) {
+          throw new IOException("Connection is closed.");
+        }
+        try {
+          commands.wait(1000);
+        }
+        catch (InterruptedException e) { /* ignore */ }
+      }
+    }
+  }
+
+  /**
+   * Pings the client to check it's still alive.
+   */
+  public void ping() throws IOException {
+    sendServerMessage(ProtocolConstants.PING, new byte[0]);
+  }
+
+  /**
+   * Completely closes the connection to the client.
+   */
+  public void close() throws IOException {
+    synchronized (output) {
+      if (is_closed) {
+        return;
+      }
+      is_closed = true;
+      output.clear();
+      output_size = 0;
+    }
+    try {
+      // Dispose the processor
+      dispose();
+    }
+    catch (Throwable e) { e.printStackTrace(); }
+    // Close the channel
+    channel.close();
+  }
+
+  /**
+   * Returns true if the connection to the client has been closed.
+   */
+  public boolean isClosed() throws IOException {
+    synchronized (output) {
+      return is_closed;
+    }
+  }
+
+}
@@ -26,6 +26,8 @@ import com.mckoi.debug.*;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.ResourceBundle;
@@ -157,10 +159,29 @@ public final class TCPServer {
     else if (connection_pool_model.equals("single_threaded")) {
       this.connection_pool = new SingleThreadedConnectionPoolServer(database);
     }
+    else if (connection_pool_model.equals("nio")) {
+      this.connection_pool = new NIOConnectionPoolServer(database);
+    }
+    else {
+      // Multi-threaded if the model is anything else
+      Debug().write(Lvl.WARNING, this,
+                    "Unknown connection pool model '" +
+                    connection_pool_model + "', using multi_threaded.");
+      this.connection_pool_model = "multi_threaded";
+      this.connection_pool = new MultiThreadedConnectionPoolServer(database);
+    }
 
     try {
       // Bind the ServerSocket object to the port.
-      server_socket = new ServerSocket(port, 50, bind_address);
+      if (connection_pool_model.equals("nio")) {
+        // The sockets accepted from a channel's server socket have a
+        // SocketChannel, which the NIO connection pool needs.
+        server_socket = ServerSocketChannel.open().socket();
+        server_socket.bind(new InetSocketAddress(bind_address, port), 50);
+      }
+      else {
+        server_socket = new ServerSocket(port, 50, bind_address);
+      }
       server_socket.setSoTimeout(0);
     }
     catch (IOException e) {
@@ -198,6 +219,9 @@ public final class TCPServer {
    * Called whenever a new connection has been received on the port.
    */
   private void portConnection(Socket socket) throws IOException {
+    // Responses are flushed as complete messages so don't delay sending
+    // the last part of a message until the client acknowledges the rest.
+    socket.setTcpNoDelay(true);
     // TCP connections are formatted as;
     // 'TCP/[ip address]:[remote port]:[local port]'
     String host_string = "TCP/" + socket.getInetAddress().getHostAddress() +
@@ -210,8 +234,14 @@ public final class TCPServer {
     // Make a new DatabaseInterface for this connection,
     JDBCDatabaseInterface db_interface =
                              new JDBCDatabaseInterface(database, host_string);
-    TCPJDBCServerConnection connection =
-                   new TCPJDBCServerConnection(db_interface, socket, Debug());
+    ServerConnection connection;
+    if (connection_pool_model.equals("nio")) {
+      connection = new NIOJDBCServerConnection(db_interface,
+                                               socket.getChannel(), Debug());
+    }
+    else {
+      connection = new TCPJDBCServerConnection(db_interface, socket, Debug());
+    }
     // Add the provider onto the queue of providers that are serviced by
     // the server.
     connection_pool.addConnection(connection);
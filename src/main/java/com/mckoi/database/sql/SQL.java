@@ -208,9 +208,15 @@ public class SQL implements SQLConstants {
       ob = ShutDown();
       break;
     default:
-      jj_la1[0] = jj_gen;
-      jj_consume_token(-1);
-      throw new ParseException();
+      if (getToken(1).kind == IDENTIFIER &&
+          getToken(1).image.equalsIgnoreCase("analyze")) {
+        ob = Analyze();
+      }
+      else {
+        jj_la1[0] = jj_gen;
+        jj_consume_token(-1);
+        throw new ParseException();
+      }
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
     case 207:
@@ -312,6 +318,8 @@ public class SQL implements SQLConstants {
   StatementTree cmd = new StatementTree("com.mckoi.database.interpret.Select");
   TableSelectExpression table_expr;
   ArrayList order_by = new ArrayList();
+  int limit = -1;
+  int offset = 0;
     table_expr = GetTableSelectExpression();
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
     case ORDERBY:
@@ -322,8 +330,26 @@ public class SQL implements SQLConstants {
       jj_la1[4] = jj_gen;
       ;
     }
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case LIMIT:
+      jj_consume_token(LIMIT);
+      limit = PositiveIntegerConstant();
+      if (getToken(1).kind == IDENTIFIER &&
+                     getToken(1).image.equalsIgnoreCase("offset")) {
+        jj_consume_token(IDENTIFIER);
+        offset = PositiveIntegerConstant();
+      } else {
+        ;
+      }
+      break;
+    default:
+      jj_la1[5] = jj_gen;
+      ;
+    }
     cmd.putObject("table_expression", table_expr);
     cmd.putObject("order_by", order_by);
+    cmd.putInt("limit", limit);
+    cmd.putInt("offset", offset);
     {if (true) return cmd;}
     throw new Error("Missing return statement in function");
   }
@@ -344,7 +370,7 @@ public class SQL implements SQLConstants {
       ConditionsExpression(where_clause);
       break;
     default:
-      jj_la1[5] = jj_gen;
+      jj_la1[6] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -353,7 +379,7 @@ public class SQL implements SQLConstants {
       limit = PositiveIntegerConstant();
       break;
     default:
-      jj_la1[6] = jj_gen;
+      jj_la1[7] = jj_gen;
       ;
     }
     cmd.putObject("table_name", table_name);
@@ -376,7 +402,7 @@ public class SQL implements SQLConstants {
       cmd = AlterUser();
       break;
     default:
-      jj_la1[7] = jj_gen;
+      jj_la1[8] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -403,7 +429,7 @@ public class SQL implements SQLConstants {
         cmd.putObject("create_statement", create_statement);
       break;
     default:
-      jj_la1[8] = jj_gen;
+      jj_la1[9] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -422,6 +448,24 @@ public class SQL implements SQLConstants {
     throw new Error("Missing return statement in function");
   }
 
+// ANALYZE is matched as an identifier so it isn't a reserved word.
+  final public StatementTree Analyze() throws ParseException {
+  StatementTree cmd = new StatementTree("com.mckoi.database.interpret.Analyze");
+  String table_name = null;
+    jj_consume_token(IDENTIFIER);
+    int kind = getToken(1).kind;
+    if (kind == TABLE) {
+      jj_consume_token(TABLE);
+      table_name = TableName();
+    }
+    else if (kind != 207 && kind != EOF) {
+      table_name = TableName();
+    }
+    cmd.putObject("table_name", table_name);
+    {if (true) return cmd;}
+    throw new Error("Missing return statement in function");
+  }
+
   final public StatementTree CreateTable() throws ParseException {
   StatementTree cmd = new StatementTree("com.mckoi.database.interpret.CreateTable");
   boolean temporary = false;
@@ -436,7 +480,7 @@ public class SQL implements SQLConstants {
                      temporary = true;
       break;
     default:
-      jj_la1[9] = jj_gen;
+      jj_la1[10] = jj_gen;
       ;
     }
     jj_consume_token(TABLE);
@@ -448,7 +492,7 @@ public class SQL implements SQLConstants {
                              only_if_not_exists = true;
       break;
     default:
-      jj_la1[10] = jj_gen;
+      jj_la1[11] = jj_gen;
       ;
     }
     table_name = TableName();
@@ -462,7 +506,7 @@ public class SQL implements SQLConstants {
               constraint_list.add(check_constraint);
       break;
     default:
-      jj_la1[11] = jj_gen;
+      jj_la1[12] = jj_gen;
       ;
     }
     cmd.putBoolean("temporary", temporary);
@@ -515,7 +559,7 @@ public class SQL implements SQLConstants {
       cmd.putObject("procedure_args", procedure_args);
       break;
     default:
-      jj_la1[12] = jj_gen;
+      jj_la1[13] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -546,7 +590,7 @@ public class SQL implements SQLConstants {
     {if (true) return cmd;}
       break;
     default:
-      jj_la1[13] = jj_gen;
+      jj_la1[14] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -572,7 +616,7 @@ public class SQL implements SQLConstants {
       return_type = GetTType();
       break;
     default:
-      jj_la1[14] = jj_gen;
+      jj_la1[15] = jj_gen;
       ;
     }
     jj_consume_token(LANGUAGE);
@@ -637,7 +681,7 @@ public class SQL implements SQLConstants {
       jj_consume_token(209);
       break;
     default:
-      jj_la1[15] = jj_gen;
+      jj_la1[16] = jj_gen;
       ;
     }
     jj_consume_token(AS);
@@ -662,22 +706,32 @@ public class SQL implements SQLConstants {
   }
 
   final public StatementTree CreateIndex() throws ParseException {
-  StatementTree cmd = new StatementTree("com.mckoi.database.interpret.NoOp");
+  StatementTree cmd =
+               new StatementTree("com.mckoi.database.interpret.CreateIndex");
+  boolean unique = false;
+  String index_name;
+  String table_name;
+  ArrayList column_list = new ArrayList();
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
     case UNIQUE:
       jj_consume_token(UNIQUE);
+                    unique = true;
       break;
     default:
-      jj_la1[16] = jj_gen;
+      jj_la1[17] = jj_gen;
       ;
     }
     jj_consume_token(INDEX);
-    IndexName();
+    index_name = IndexName();
     jj_consume_token(ON);
-    TableName();
+    table_name = TableName();
     jj_consume_token(208);
-    BasicColumnList(new ArrayList());
+    BasicColumnList(column_list);
     jj_consume_token(209);
+    cmd.putBoolean("unique", unique);
+    cmd.putObject("index_name", index_name);
+    cmd.putObject("table_name", table_name);
+    cmd.putObject("column_list", column_list);
     {if (true) return cmd;}
     throw new Error("Missing return statement in function");
   }
@@ -695,7 +749,7 @@ public class SQL implements SQLConstants {
                            only_if_exists = true;
       break;
     default:
-      jj_la1[17] = jj_gen;
+      jj_la1[18] = jj_gen;
       ;
     }
     table_name = TableName();
@@ -707,7 +761,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[18] = jj_gen;
+        jj_la1[19] = jj_gen;
         break label_1;
       }
       jj_consume_token(210);
@@ -721,11 +775,16 @@ public class SQL implements SQLConstants {
   }
 
   final public StatementTree DropIndex() throws ParseException {
-  StatementTree cmd = new StatementTree("com.mckoi.database.interpret.NoOp");
+  StatementTree cmd =
+                 new StatementTree("com.mckoi.database.interpret.DropIndex");
+  String index_name;
+  String table_name;
     jj_consume_token(INDEX);
-    IndexName();
+    index_name = IndexName();
     jj_consume_token(ON);
-    TableName();
+    table_name = TableName();
+    cmd.putObject("index_name", index_name);
+    cmd.putObject("table_name", table_name);
     {if (true) return cmd;}
     throw new Error("Missing return statement in function");
   }
@@ -760,7 +819,7 @@ public class SQL implements SQLConstants {
                                      cmd.putObject("increment", v);
       break;
     default:
-      jj_la1[19] = jj_gen;
+      jj_la1[20] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -770,7 +829,7 @@ public class SQL implements SQLConstants {
                                     cmd.putObject("min_value", v);
       break;
     default:
-      jj_la1[20] = jj_gen;
+      jj_la1[21] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -780,7 +839,7 @@ public class SQL implements SQLConstants {
                                     cmd.putObject("max_value", v);
       break;
     default:
-      jj_la1[21] = jj_gen;
+      jj_la1[22] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -790,7 +849,7 @@ public class SQL implements SQLConstants {
                                  cmd.putObject("start", v);
       break;
     default:
-      jj_la1[22] = jj_gen;
+      jj_la1[23] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -800,7 +859,7 @@ public class SQL implements SQLConstants {
                                  cmd.putObject("cache", v);
       break;
     default:
-      jj_la1[23] = jj_gen;
+      jj_la1[24] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -809,7 +868,7 @@ public class SQL implements SQLConstants {
               cmd.putObject("cycle", "yes");
       break;
     default:
-      jj_la1[24] = jj_gen;
+      jj_la1[25] = jj_gen;
       ;
     }
     {if (true) return cmd;}
@@ -886,13 +945,13 @@ public class SQL implements SQLConstants {
                                                                       lock_status="UNLOCK";
         break;
       default:
-        jj_la1[25] = jj_gen;
+        jj_la1[26] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
       break;
     default:
-      jj_la1[26] = jj_gen;
+      jj_la1[27] = jj_gen;
       ;
     }
     cmd.putObject("username", username);
@@ -915,7 +974,7 @@ public class SQL implements SQLConstants {
       ConditionsExpression(where_clause);
       break;
     default:
-      jj_la1[27] = jj_gen;
+      jj_la1[28] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -924,7 +983,7 @@ public class SQL implements SQLConstants {
       limit = PositiveIntegerConstant();
       break;
     default:
-      jj_la1[28] = jj_gen;
+      jj_la1[29] = jj_gen;
       ;
     }
     cmd.putObject("table_name", table_name);
@@ -948,7 +1007,7 @@ public class SQL implements SQLConstants {
       jj_consume_token(INTO);
       break;
     default:
-      jj_la1[29] = jj_gen;
+      jj_la1[30] = jj_gen;
       ;
     }
     table_name = TableName();
@@ -963,7 +1022,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(209);
         break;
       default:
-        jj_la1[30] = jj_gen;
+        jj_la1[31] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -977,7 +1036,7 @@ public class SQL implements SQLConstants {
                                                      type = "from_select";
         break;
       default:
-        jj_la1[31] = jj_gen;
+        jj_la1[32] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -988,7 +1047,7 @@ public class SQL implements SQLConstants {
                                                      type = "from_set";
       break;
     default:
-      jj_la1[32] = jj_gen;
+      jj_la1[33] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1028,7 +1087,7 @@ public class SQL implements SQLConstants {
       t = jj_consume_token(SCHEMA);
       break;
     default:
-      jj_la1[33] = jj_gen;
+      jj_la1[34] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1039,7 +1098,7 @@ public class SQL implements SQLConstants {
       jj_consume_token(209);
       break;
     default:
-      jj_la1[34] = jj_gen;
+      jj_la1[35] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1048,7 +1107,7 @@ public class SQL implements SQLConstants {
       ConditionsExpression(where_clause);
       break;
     default:
-      jj_la1[35] = jj_gen;
+      jj_la1[36] = jj_gen;
       ;
     }
     cmd.putObject("show", t.image);
@@ -1078,7 +1137,7 @@ public class SQL implements SQLConstants {
                                 grant_option = true;
       break;
     default:
-      jj_la1[36] = jj_gen;
+      jj_la1[37] = jj_gen;
       ;
     }
     cmd.putObject("command", "GRANT");
@@ -1105,7 +1164,7 @@ public class SQL implements SQLConstants {
                                         revoke_grant_option = true;
       break;
     default:
-      jj_la1[37] = jj_gen;
+      jj_la1[38] = jj_gen;
       ;
     }
     PrivList(priv_list);
@@ -1135,7 +1194,7 @@ public class SQL implements SQLConstants {
                    command = "rollback";
       break;
     default:
-      jj_la1[38] = jj_gen;
+      jj_la1[39] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1177,7 +1236,7 @@ public class SQL implements SQLConstants {
         t1 = jj_consume_token(IDENTIFIER);
         break;
       default:
-        jj_la1[39] = jj_gen;
+        jj_la1[40] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1191,7 +1250,7 @@ public class SQL implements SQLConstants {
           cmd.putObject("value", name);
       break;
     default:
-      jj_la1[40] = jj_gen;
+      jj_la1[41] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1223,7 +1282,7 @@ public class SQL implements SQLConstants {
                  {if (true) return "update";}
       break;
     default:
-      jj_la1[41] = jj_gen;
+      jj_la1[42] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1241,7 +1300,7 @@ public class SQL implements SQLConstants {
                 {if (true) return "after";}
       break;
     default:
-      jj_la1[42] = jj_gen;
+      jj_la1[43] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1261,7 +1320,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[43] = jj_gen;
+        jj_la1[44] = jj_gen;
         break label_2;
       }
       jj_consume_token(OR);
@@ -1298,7 +1357,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(TABLE);
         break;
       default:
-        jj_la1[44] = jj_gen;
+        jj_la1[45] = jj_gen;
         ;
       }
       table_name = TableName();
@@ -1310,7 +1369,7 @@ public class SQL implements SQLConstants {
                                           {if (true) return "S:" + schema_name;}
       break;
     default:
-      jj_la1[45] = jj_gen;
+      jj_la1[46] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1327,7 +1386,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[46] = jj_gen;
+        jj_la1[47] = jj_gen;
         break label_3;
       }
       jj_consume_token(210);
@@ -1366,12 +1425,12 @@ public class SQL implements SQLConstants {
         jj_consume_token(PRIVILEGES);
         break;
       default:
-        jj_la1[47] = jj_gen;
+        jj_la1[48] = jj_gen;
         ;
       }
       break;
     default:
-      jj_la1[48] = jj_gen;
+      jj_la1[49] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1391,7 +1450,7 @@ public class SQL implements SQLConstants {
       table_expr.distinct = SetQuantifier();
       break;
     default:
-      jj_la1[49] = jj_gen;
+      jj_la1[50] = jj_gen;
       ;
     }
     SelectColumnList(table_expr.columns);
@@ -1401,7 +1460,7 @@ public class SQL implements SQLConstants {
       SelectTableList(table_expr.from_clause);
       break;
     default:
-      jj_la1[50] = jj_gen;
+      jj_la1[51] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1410,7 +1469,7 @@ public class SQL implements SQLConstants {
       ConditionsExpression(table_expr.where_clause);
       break;
     default:
-      jj_la1[51] = jj_gen;
+      jj_la1[52] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1423,7 +1482,7 @@ public class SQL implements SQLConstants {
         table_expr.group_max = GroupMaxColumn();
         break;
       default:
-        jj_la1[52] = jj_gen;
+        jj_la1[53] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1432,12 +1491,12 @@ public class SQL implements SQLConstants {
         ConditionsExpression(table_expr.having_clause);
         break;
       default:
-        jj_la1[53] = jj_gen;
+        jj_la1[54] = jj_gen;
         ;
       }
       break;
     default:
-      jj_la1[54] = jj_gen;
+      jj_la1[55] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1451,14 +1510,14 @@ public class SQL implements SQLConstants {
                                                is_all = true;
         break;
       default:
-        jj_la1[55] = jj_gen;
+        jj_la1[56] = jj_gen;
         ;
       }
       next_composite_expression = GetTableSelectExpression();
             table_expr.chainComposite(next_composite_expression, composite, is_all);
       break;
     default:
-      jj_la1[56] = jj_gen;
+      jj_la1[57] = jj_gen;
       ;
     }
     {if (true) return table_expr;}
@@ -1494,7 +1553,7 @@ public class SQL implements SQLConstants {
           jj_consume_token(SQLCOLUMN);
           break;
         default:
-          jj_la1[57] = jj_gen;
+          jj_la1[58] = jj_gen;
           ;
         }
         column_def = ColumnDefinition();
@@ -1511,7 +1570,7 @@ public class SQL implements SQLConstants {
             action.addElement(constraint_def);
         break;
       default:
-        jj_la1[58] = jj_gen;
+        jj_la1[59] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1523,7 +1582,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(SQLCOLUMN);
         break;
       default:
-        jj_la1[59] = jj_gen;
+        jj_la1[60] = jj_gen;
         ;
       }
       col_name = ColumnName();
@@ -1542,7 +1601,7 @@ public class SQL implements SQLConstants {
             action.addElement(col_name);
         break;
       default:
-        jj_la1[60] = jj_gen;
+        jj_la1[61] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -1569,7 +1628,7 @@ public class SQL implements SQLConstants {
           jj_consume_token(SQLCOLUMN);
           break;
         default:
-          jj_la1[61] = jj_gen;
+          jj_la1[62] = jj_gen;
           ;
         }
         col_name = ColumnName();
@@ -1588,13 +1647,13 @@ public class SQL implements SQLConstants {
             action.setAction("DROP_CONSTRAINT_PRIMARY_KEY");
         break;
       default:
-        jj_la1[62] = jj_gen;
+        jj_la1[63] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
       break;
     default:
-      jj_la1[63] = jj_gen;
+      jj_la1[64] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1649,7 +1708,7 @@ public class SQL implements SQLConstants {
                             {if (true) return e;}
       break;
     default:
-      jj_la1[64] = jj_gen;
+      jj_la1[65] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1704,7 +1763,7 @@ public class SQL implements SQLConstants {
           ;
           break;
         default:
-          jj_la1[65] = jj_gen;
+          jj_la1[66] = jj_gen;
           break label_4;
         }
         jj_consume_token(210);
@@ -1713,7 +1772,7 @@ public class SQL implements SQLConstants {
       }
       break;
     default:
-      jj_la1[66] = jj_gen;
+      jj_la1[67] = jj_gen;
       ;
     }
     {if (true) return list;}
@@ -1734,7 +1793,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[67] = jj_gen;
+        jj_la1[68] = jj_gen;
         break label_5;
       }
       jj_consume_token(210);
@@ -1757,7 +1816,7 @@ public class SQL implements SQLConstants {
                   {if (true) return false;}
       break;
     default:
-      jj_la1[68] = jj_gen;
+      jj_la1[69] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1775,7 +1834,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[69] = jj_gen;
+        jj_la1[70] = jj_gen;
         break label_6;
       }
       jj_consume_token(210);
@@ -1829,7 +1888,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(AS);
         break;
       default:
-        jj_la1[70] = jj_gen;
+        jj_la1[71] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -1847,7 +1906,7 @@ public class SQL implements SQLConstants {
         col.alias = TableAliasName();
         break;
       default:
-        jj_la1[71] = jj_gen;
+        jj_la1[72] = jj_gen;
         ;
       }
       break;
@@ -1864,7 +1923,7 @@ public class SQL implements SQLConstants {
                                  col.glob_name = caseCheck(Util.asNonQuotedRef(t));
       break;
     default:
-      jj_la1[72] = jj_gen;
+      jj_la1[73] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -1886,7 +1945,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[73] = jj_gen;
+        jj_la1[74] = jj_gen;
         break label_7;
       }
       jj_consume_token(210);
@@ -1919,7 +1978,7 @@ public class SQL implements SQLConstants {
       ascending = OrderingSpec();
       break;
     default:
-      jj_la1[74] = jj_gen;
+      jj_la1[75] = jj_gen;
       ;
     }
                            col = new ByColumn();
@@ -1933,7 +1992,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[75] = jj_gen;
+        jj_la1[76] = jj_gen;
         break label_8;
       }
       jj_consume_token(210);
@@ -1945,7 +2004,7 @@ public class SQL implements SQLConstants {
         ascending = OrderingSpec();
         break;
       default:
-        jj_la1[76] = jj_gen;
+        jj_la1[77] = jj_gen;
         ;
       }
                            col = new ByColumn();
@@ -1966,7 +2025,7 @@ public class SQL implements SQLConstants {
                                       {if (true) return false;}
       break;
     default:
-      jj_la1[77] = jj_gen;
+      jj_la1[78] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2001,7 +2060,7 @@ public class SQL implements SQLConstants {
       jj_consume_token(209);
       break;
     default:
-      jj_la1[78] = jj_gen;
+      jj_la1[79] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2027,13 +2086,13 @@ public class SQL implements SQLConstants {
         jj_consume_token(AS);
         break;
       default:
-        jj_la1[79] = jj_gen;
+        jj_la1[80] = jj_gen;
         ;
       }
       declare_as = TableName();
       break;
     default:
-      jj_la1[80] = jj_gen;
+      jj_la1[81] = jj_gen;
       ;
     }
     from_clause.addTableDeclaration(table, select_stmt, declare_as);
@@ -2050,7 +2109,7 @@ public class SQL implements SQLConstants {
       FromClauseJoin(from_clause);
       break;
     default:
-      jj_la1[81] = jj_gen;
+      jj_la1[82] = jj_gen;
       ;
     }
   }
@@ -2081,7 +2140,7 @@ public class SQL implements SQLConstants {
         SelectTableList(from_clause);
         break;
       default:
-        jj_la1[82] = jj_gen;
+        jj_la1[83] = jj_gen;
         ;
       }
       break;
@@ -2092,7 +2151,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(INNER);
         break;
       default:
-        jj_la1[83] = jj_gen;
+        jj_la1[84] = jj_gen;
         ;
       }
       jj_consume_token(JOIN);
@@ -2109,7 +2168,7 @@ public class SQL implements SQLConstants {
         FromClauseJoin(from_clause);
         break;
       default:
-        jj_la1[84] = jj_gen;
+        jj_la1[85] = jj_gen;
         ;
       }
       break;
@@ -2120,7 +2179,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(OUTER);
         break;
       default:
-        jj_la1[85] = jj_gen;
+        jj_la1[86] = jj_gen;
         ;
       }
       jj_consume_token(JOIN);
@@ -2137,7 +2196,7 @@ public class SQL implements SQLConstants {
         FromClauseJoin(from_clause);
         break;
       default:
-        jj_la1[86] = jj_gen;
+        jj_la1[87] = jj_gen;
         ;
       }
       break;
@@ -2148,7 +2207,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(OUTER);
         break;
       default:
-        jj_la1[87] = jj_gen;
+        jj_la1[88] = jj_gen;
         ;
       }
       jj_consume_token(JOIN);
@@ -2165,12 +2224,12 @@ public class SQL implements SQLConstants {
         FromClauseJoin(from_clause);
         break;
       default:
-        jj_la1[88] = jj_gen;
+        jj_la1[89] = jj_gen;
         ;
       }
       break;
     default:
-      jj_la1[89] = jj_gen;
+      jj_la1[90] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2239,7 +2298,7 @@ public class SQL implements SQLConstants {
         name = ProcArgumentName();
         break;
       default:
-        jj_la1[90] = jj_gen;
+        jj_la1[91] = jj_gen;
         ;
       }
       type = GetTType();
@@ -2252,7 +2311,7 @@ public class SQL implements SQLConstants {
           ;
           break;
         default:
-          jj_la1[91] = jj_gen;
+          jj_la1[92] = jj_gen;
           break label_9;
         }
         jj_consume_token(210);
@@ -2272,7 +2331,7 @@ public class SQL implements SQLConstants {
           name = ProcArgumentName();
           break;
         default:
-          jj_la1[92] = jj_gen;
+          jj_la1[93] = jj_gen;
           ;
         }
         type = GetTType();
@@ -2281,7 +2340,7 @@ public class SQL implements SQLConstants {
       }
       break;
     default:
-      jj_la1[93] = jj_gen;
+      jj_la1[94] = jj_gen;
       ;
     }
   }
@@ -2300,7 +2359,7 @@ public class SQL implements SQLConstants {
       AssignmentList(assignment_list);
       break;
     default:
-      jj_la1[94] = jj_gen;
+      jj_la1[95] = jj_gen;
       ;
     }
   }
@@ -2317,7 +2376,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[95] = jj_gen;
+        jj_la1[96] = jj_gen;
         break label_10;
       }
       jj_consume_token(210);
@@ -2355,7 +2414,7 @@ public class SQL implements SQLConstants {
                                               constraint_list.add(condef);
       break;
     default:
-      jj_la1[96] = jj_gen;
+      jj_la1[97] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2377,7 +2436,7 @@ public class SQL implements SQLConstants {
                                                   column.setDefaultExpression(default_exp);
       break;
     default:
-      jj_la1[97] = jj_gen;
+      jj_la1[98] = jj_gen;
       ;
     }
     label_11:
@@ -2390,7 +2449,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[98] = jj_gen;
+        jj_la1[99] = jj_gen;
         break label_11;
       }
       ColumnConstraint(column);
@@ -2406,14 +2465,14 @@ public class SQL implements SQLConstants {
         t = jj_consume_token(INDEX_NONE);
         break;
       default:
-        jj_la1[99] = jj_gen;
+        jj_la1[100] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
                                              column.setIndex(t);
       break;
     default:
-      jj_la1[100] = jj_gen;
+      jj_la1[101] = jj_gen;
       ;
     }
     {if (true) return column;}
@@ -2445,7 +2504,7 @@ public class SQL implements SQLConstants {
                    column.addConstraint("UNIQUE");
       break;
     default:
-      jj_la1[101] = jj_gen;
+      jj_la1[102] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2470,7 +2529,7 @@ public class SQL implements SQLConstants {
                               {if (true) return java.text.Collator.IDENTICAL;}
       break;
     default:
-      jj_la1[102] = jj_gen;
+      jj_la1[103] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2492,7 +2551,7 @@ public class SQL implements SQLConstants {
                                   {if (true) return java.text.Collator.FULL_DECOMPOSITION;}
       break;
     default:
-      jj_la1[103] = jj_gen;
+      jj_la1[104] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2525,7 +2584,7 @@ public class SQL implements SQLConstants {
           jj_consume_token(LONGVARCHAR);
           break;
         default:
-          jj_la1[104] = jj_gen;
+          jj_la1[105] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -2541,7 +2600,7 @@ public class SQL implements SQLConstants {
           jj_consume_token(CHARACTER);
           break;
         default:
-          jj_la1[105] = jj_gen;
+          jj_la1[106] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -2556,7 +2615,7 @@ public class SQL implements SQLConstants {
              {if (true) return SQLTypes.CLOB;}
         break;
       default:
-        jj_la1[106] = jj_gen;
+        jj_la1[107] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -2576,7 +2635,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(INTEGER);
         break;
       default:
-        jj_la1[107] = jj_gen;
+        jj_la1[108] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -2615,7 +2674,7 @@ public class SQL implements SQLConstants {
                 {if (true) return SQLTypes.DECIMAL;}
       break;
     default:
-      jj_la1[108] = jj_gen;
+      jj_la1[109] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2631,7 +2690,7 @@ public class SQL implements SQLConstants {
       jj_consume_token(BIT);
       break;
     default:
-      jj_la1[109] = jj_gen;
+      jj_la1[110] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2654,7 +2713,7 @@ public class SQL implements SQLConstants {
              {if (true) return SQLTypes.DATE;}
       break;
     default:
-      jj_la1[110] = jj_gen;
+      jj_la1[111] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2690,7 +2749,7 @@ public class SQL implements SQLConstants {
              {if (true) return SQLTypes.BLOB;}
         break;
       default:
-        jj_la1[111] = jj_gen;
+        jj_la1[112] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -2724,14 +2783,14 @@ public class SQL implements SQLConstants {
           class_tok = jj_consume_token(JAVA_OBJECT_ARRAY_REF);
           break;
         default:
-          jj_la1[112] = jj_gen;
+          jj_la1[113] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
         jj_consume_token(209);
         break;
       default:
-        jj_la1[113] = jj_gen;
+        jj_la1[114] = jj_gen;
         ;
       }
         String class_str = "java.lang.Object";
@@ -2741,7 +2800,7 @@ public class SQL implements SQLConstants {
         {if (true) return TType.javaObjectType(class_str);}
       break;
     default:
-      jj_la1[121] = jj_gen;
+      jj_la1[122] = jj_gen;
       if (jj_2_6(2147483647)) {
         data_type = GetStringSQLType();
         switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -2751,7 +2810,7 @@ public class SQL implements SQLConstants {
           jj_consume_token(209);
           break;
         default:
-          jj_la1[114] = jj_gen;
+          jj_la1[115] = jj_gen;
           ;
         }
         switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -2767,7 +2826,7 @@ public class SQL implements SQLConstants {
             strength = GetCollateStrength();
             break;
           default:
-            jj_la1[115] = jj_gen;
+            jj_la1[116] = jj_gen;
             ;
           }
           switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -2777,12 +2836,12 @@ public class SQL implements SQLConstants {
             decomposition = GetCollateDecomposition();
             break;
           default:
-            jj_la1[116] = jj_gen;
+            jj_la1[117] = jj_gen;
             ;
           }
           break;
         default:
-          jj_la1[117] = jj_gen;
+          jj_la1[118] = jj_gen;
           ;
         }
         {if (true) return TType.stringType(data_type, size, loc, strength, decomposition);}
@@ -2809,13 +2868,13 @@ public class SQL implements SQLConstants {
               scale = PositiveIntegerConstant();
               break;
             default:
-              jj_la1[118] = jj_gen;
+              jj_la1[119] = jj_gen;
               ;
             }
             jj_consume_token(209);
             break;
           default:
-            jj_la1[119] = jj_gen;
+            jj_la1[120] = jj_gen;
             ;
           }
         {if (true) return TType.numericType(data_type, size, scale);}
@@ -2844,13 +2903,13 @@ public class SQL implements SQLConstants {
             jj_consume_token(209);
             break;
           default:
-            jj_la1[120] = jj_gen;
+            jj_la1[121] = jj_gen;
             ;
           }
         {if (true) return TType.binaryType(data_type, size);}
           break;
         default:
-          jj_la1[122] = jj_gen;
+          jj_la1[123] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -2884,7 +2943,7 @@ public class SQL implements SQLConstants {
                                                         constraint.setName(constraint_name);
       break;
     default:
-      jj_la1[123] = jj_gen;
+      jj_la1[124] = jj_gen;
       ;
     }
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -2925,7 +2984,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(209);
         break;
       default:
-        jj_la1[124] = jj_gen;
+        jj_la1[125] = jj_gen;
         ;
       }
       switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -2941,7 +3000,7 @@ public class SQL implements SQLConstants {
             update_rule = ReferentialTrigger();
             break;
           default:
-            jj_la1[125] = jj_gen;
+            jj_la1[126] = jj_gen;
             ;
           }
         } else {
@@ -2957,25 +3016,25 @@ public class SQL implements SQLConstants {
               delete_rule = ReferentialTrigger();
               break;
             default:
-              jj_la1[126] = jj_gen;
+              jj_la1[127] = jj_gen;
               ;
             }
             break;
           default:
-            jj_la1[127] = jj_gen;
+            jj_la1[128] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
         }
         break;
       default:
-        jj_la1[128] = jj_gen;
+        jj_la1[129] = jj_gen;
         ;
       }
           constraint.setForeignKey(reference_table, column_list, column_list2, delete_rule, update_rule);
       break;
     default:
-      jj_la1[129] = jj_gen;
+      jj_la1[130] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -2986,7 +3045,7 @@ public class SQL implements SQLConstants {
       ConstraintAttributes(constraint);
       break;
     default:
-      jj_la1[130] = jj_gen;
+      jj_la1[131] = jj_gen;
       ;
     }
     {if (true) return constraint;}
@@ -3011,7 +3070,7 @@ public class SQL implements SQLConstants {
                                           trigger_str="CASCADE";
       break;
     default:
-      jj_la1[131] = jj_gen;
+      jj_la1[132] = jj_gen;
       if (jj_2_8(2)) {
         jj_consume_token(SET);
         jj_consume_token(NULL_LITERAL);
@@ -3024,7 +3083,7 @@ public class SQL implements SQLConstants {
                                           trigger_str="SET DEFAULT";
           break;
         default:
-          jj_la1[132] = jj_gen;
+          jj_la1[133] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -3047,7 +3106,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(IMMEDIATE);
         break;
       default:
-        jj_la1[133] = jj_gen;
+        jj_la1[134] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -3064,13 +3123,13 @@ public class SQL implements SQLConstants {
           jj_consume_token(DEFERRABLE);
           break;
         default:
-          jj_la1[134] = jj_gen;
+          jj_la1[135] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
         break;
       default:
-        jj_la1[135] = jj_gen;
+        jj_la1[136] = jj_gen;
         ;
       }
       break;
@@ -3086,7 +3145,7 @@ public class SQL implements SQLConstants {
         jj_consume_token(DEFERRABLE);
         break;
       default:
-        jj_la1[136] = jj_gen;
+        jj_la1[137] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -3102,18 +3161,18 @@ public class SQL implements SQLConstants {
           jj_consume_token(IMMEDIATE);
           break;
         default:
-          jj_la1[137] = jj_gen;
+          jj_la1[138] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
         break;
       default:
-        jj_la1[138] = jj_gen;
+        jj_la1[139] = jj_gen;
         ;
       }
       break;
     default:
-      jj_la1[139] = jj_gen;
+      jj_la1[140] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -3131,7 +3190,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[140] = jj_gen;
+        jj_la1[141] = jj_gen;
         break label_12;
       }
       jj_consume_token(210);
@@ -3154,7 +3213,7 @@ public class SQL implements SQLConstants {
         ;
         break;
       default:
-        jj_la1[141] = jj_gen;
+        jj_la1[142] = jj_gen;
         break label_13;
       }
       jj_consume_token(210);
@@ -3239,7 +3298,7 @@ public class SQL implements SQLConstants {
         NumericOperator(exp, stack);
         break;
       default:
-        jj_la1[142] = jj_gen;
+        jj_la1[143] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -3279,7 +3338,7 @@ public class SQL implements SQLConstants {
         StringOperator(exp, stack);
         break;
       default:
-        jj_la1[143] = jj_gen;
+        jj_la1[144] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -3303,13 +3362,13 @@ public class SQL implements SQLConstants {
                           exp.addElement(regex_ob);
           break;
         default:
-          jj_la1[144] = jj_gen;
+          jj_la1[145] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
         break;
       default:
-        jj_la1[145] = jj_gen;
+        jj_la1[146] = jj_gen;
         if (jj_2_12(2)) {
           SubQueryOperator(exp, stack);
           SubQueryExpression(exp, stack);
@@ -3320,7 +3379,7 @@ public class SQL implements SQLConstants {
             BetweenPredicate(exp, stack);
             break;
           default:
-            jj_la1[146] = jj_gen;
+            jj_la1[147] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -3351,7 +3410,7 @@ public class SQL implements SQLConstants {
             exp.text().append('?');
       break;
     default:
-      jj_la1[153] = jj_gen;
+      jj_la1[154] = jj_gen;
       if (jj_2_13(2)) {
         jj_consume_token(NOT);
         expOperator(exp, stack, Operator.get("not"));
@@ -3379,7 +3438,7 @@ public class SQL implements SQLConstants {
                          time_fname="TIMESTAMPOB";
             break;
           default:
-            jj_la1[147] = jj_gen;
+            jj_la1[148] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -3407,7 +3466,7 @@ public class SQL implements SQLConstants {
                                  time_fname="DATEOB";
             break;
           default:
-            jj_la1[148] = jj_gen;
+            jj_la1[149] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -3435,7 +3494,7 @@ public class SQL implements SQLConstants {
             t = jj_consume_token(NULL_LITERAL);
             break;
           default:
-            jj_la1[149] = jj_gen;
+            jj_la1[150] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -3471,13 +3530,13 @@ public class SQL implements SQLConstants {
                                negative = true;
               break;
             default:
-              jj_la1[150] = jj_gen;
+              jj_la1[151] = jj_gen;
               jj_consume_token(-1);
               throw new ParseException();
             }
             break;
           default:
-            jj_la1[151] = jj_gen;
+            jj_la1[152] = jj_gen;
             ;
           }
           switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -3506,7 +3565,7 @@ public class SQL implements SQLConstants {
             t = SQLIdentifier();
             break;
           default:
-            jj_la1[152] = jj_gen;
+            jj_la1[153] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
@@ -3531,7 +3590,7 @@ public class SQL implements SQLConstants {
           exp.text().append(t.image);
           break;
         default:
-          jj_la1[154] = jj_gen;
+          jj_la1[155] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -3550,7 +3609,7 @@ public class SQL implements SQLConstants {
         exp.text().append(" [SELECT]");
       break;
     default:
-      jj_la1[155] = jj_gen;
+      jj_la1[156] = jj_gen;
       exp_arr = ExpressionList();
         exp.addElement(Util.toArrayParamObject(exp_arr));
         exp.text().append(" (" + Util.expressionListToString(exp_arr) + ")");
@@ -3585,7 +3644,7 @@ public class SQL implements SQLConstants {
                                     op = Operator.get("NOT IN");
         break;
       default:
-        jj_la1[156] = jj_gen;
+        jj_la1[157] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -3615,20 +3674,20 @@ public class SQL implements SQLConstants {
             t = jj_consume_token(SOME);
             break;
           default:
-            jj_la1[157] = jj_gen;
+            jj_la1[158] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
                                          query_type=t.image;
           break;
         default:
-          jj_la1[158] = jj_gen;
+          jj_la1[159] = jj_gen;
           ;
         }
       op = op.getSubQueryForm(query_type);
         break;
       default:
-        jj_la1[159] = jj_gen;
+        jj_la1[160] = jj_gen;
         jj_consume_token(-1);
         throw new ParseException();
       }
@@ -3646,7 +3705,7 @@ public class SQL implements SQLConstants {
               not_s = true;
       break;
     default:
-      jj_la1[160] = jj_gen;
+      jj_la1[161] = jj_gen;
       ;
     }
     jj_consume_token(BETWEEN);
@@ -3735,7 +3794,7 @@ public class SQL implements SQLConstants {
       t = jj_consume_token(NOTEQ);
       break;
     default:
-      jj_la1[161] = jj_gen;
+      jj_la1[162] = jj_gen;
       if (jj_2_16(2)) {
         jj_consume_token(IS);
         jj_consume_token(NOT);
@@ -3760,7 +3819,7 @@ public class SQL implements SQLConstants {
           t = jj_consume_token(OR);
           break;
         default:
-          jj_la1[162] = jj_gen;
+          jj_la1[163] = jj_gen;
           jj_consume_token(-1);
           throw new ParseException();
         }
@@ -3795,7 +3854,7 @@ public class SQL implements SQLConstants {
       t = jj_consume_token(NOTEQ);
       break;
     default:
-      jj_la1[163] = jj_gen;
+      jj_la1[164] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -3819,7 +3878,7 @@ public class SQL implements SQLConstants {
       t = jj_consume_token(STAR);
       break;
     default:
-      jj_la1[164] = jj_gen;
+      jj_la1[165] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -3847,7 +3906,7 @@ public class SQL implements SQLConstants {
       t = jj_consume_token(IDENTIFIER);
       break;
     default:
-      jj_la1[165] = jj_gen;
+      jj_la1[166] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -3871,7 +3930,7 @@ public class SQL implements SQLConstants {
                                        t.image="distinct_count";
         break;
       default:
-        jj_la1[166] = jj_gen;
+        jj_la1[167] = jj_gen;
         ;
       }
       exp_list = FunctionParams();
@@ -3896,13 +3955,13 @@ public class SQL implements SQLConstants {
             t2 = jj_consume_token(TRAILING);
             break;
           default:
-            jj_la1[167] = jj_gen;
+            jj_la1[168] = jj_gen;
             jj_consume_token(-1);
             throw new ParseException();
           }
           break;
         default:
-          jj_la1[168] = jj_gen;
+          jj_la1[169] = jj_gen;
           ;
         }
         switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -3910,7 +3969,7 @@ public class SQL implements SQLConstants {
           t3 = jj_consume_token(STRING_LITERAL);
           break;
         default:
-          jj_la1[169] = jj_gen;
+          jj_la1[170] = jj_gen;
           ;
         }
         jj_consume_token(FROM);
@@ -3953,7 +4012,7 @@ public class SQL implements SQLConstants {
       jj_consume_token(209);
       break;
     default:
-      jj_la1[170] = jj_gen;
+      jj_la1[171] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -3987,7 +4046,7 @@ public class SQL implements SQLConstants {
              exp_list = FunctionFactory.GLOB_LIST;
       break;
     default:
-      jj_la1[171] = jj_gen;
+      jj_la1[172] = jj_gen;
       exp_list = ExpressionList();
     }
     {if (true) return exp_list;}
@@ -4041,7 +4100,7 @@ public class SQL implements SQLConstants {
           ;
           break;
         default:
-          jj_la1[172] = jj_gen;
+          jj_la1[173] = jj_gen;
           break label_16;
         }
         jj_consume_token(210);
@@ -4050,7 +4109,7 @@ public class SQL implements SQLConstants {
       }
       break;
     default:
-      jj_la1[173] = jj_gen;
+      jj_la1[174] = jj_gen;
       ;
     }
     {if (true) return (Expression[]) list.toArray(new Expression[list.size()]);}
@@ -4070,7 +4129,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(EXCEPT);
       break;
     default:
-      jj_la1[174] = jj_gen;
+      jj_la1[175] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4109,7 +4168,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(QUOTED_DELIMINATED_REF);
       break;
     default:
-      jj_la1[175] = jj_gen;
+      jj_la1[176] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4142,7 +4201,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(QUOTED_DELIMINATED_REF);
       break;
     default:
-      jj_la1[176] = jj_gen;
+      jj_la1[177] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4169,7 +4228,7 @@ public class SQL implements SQLConstants {
       name = SQLIdentifier();
       break;
     default:
-      jj_la1[177] = jj_gen;
+      jj_la1[178] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4196,7 +4255,7 @@ public class SQL implements SQLConstants {
       name = SQLIdentifier();
       break;
     default:
-      jj_la1[178] = jj_gen;
+      jj_la1[179] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4218,7 +4277,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(PUBLIC);
       break;
     default:
-      jj_la1[179] = jj_gen;
+      jj_la1[180] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4246,7 +4305,7 @@ public class SQL implements SQLConstants {
       name = SQLIdentifier();
       break;
     default:
-      jj_la1[180] = jj_gen;
+      jj_la1[181] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4274,7 +4333,7 @@ public class SQL implements SQLConstants {
       name = SQLIdentifier();
       break;
     default:
-      jj_la1[181] = jj_gen;
+      jj_la1[182] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4308,7 +4367,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(QUOTED_DELIMINATED_REF);
       break;
     default:
-      jj_la1[182] = jj_gen;
+      jj_la1[183] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4342,7 +4401,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(QUOTED_DELIMINATED_REF);
       break;
     default:
-      jj_la1[183] = jj_gen;
+      jj_la1[184] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4370,7 +4429,7 @@ public class SQL implements SQLConstants {
       name = SQLIdentifier();
       break;
     default:
-      jj_la1[184] = jj_gen;
+      jj_la1[185] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4404,7 +4463,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(QUOTED_DELIMINATED_REF);
       break;
     default:
-      jj_la1[185] = jj_gen;
+      jj_la1[186] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4438,7 +4497,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(QUOTED_DELIMINATED_REF);
       break;
     default:
-      jj_la1[186] = jj_gen;
+      jj_la1[187] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4466,7 +4525,7 @@ public class SQL implements SQLConstants {
       name = SQLIdentifier();
       break;
     default:
-      jj_la1[187] = jj_gen;
+      jj_la1[188] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -4509,7 +4568,7 @@ public class SQL implements SQLConstants {
       name = jj_consume_token(ACTION);
       break;
     default:
-      jj_la1[188] = jj_gen;
+      jj_la1[189] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -5845,14 +5904,14 @@ public class SQL implements SQLConstants {
   public boolean lookingAhead = false;
   private boolean jj_semLA;
   private int jj_gen;
-  final private int[] jj_la1 = new int[189];
-  final private int[] jj_la1_0 = {0xffc00000,0x1,0x0,0x0,0x0,0x0,0x0,0x8000000,0x8000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x2000000,0x2000000,0x0,0x0,0x0,0x0,0x0,0x40000000,0x0,0x0,0x34000000,0x0,0x0,0x0,0x0,0x0,0x0,0x36000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x400000,0x0,0x0,0x1400000,0x1b0000,0x0,0x1b0000,0x0,0x0,0x0,0x0,0x0,0x1b0080,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x100000,0x0,0x0,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x78080,0x7ff80,0x200000,0x200000,0x0,0x0,0x0,0x180000,0x30000,0x30000,0x0,0x0,0x1b0000,0x2000000,0x0,0x0,0x0,0x7f00,0x0,0x7f00,0x0,0x7f00,0x38080,0x0,0x0,0x0,0x0,0x0,0x0,0x80,0x0,0x1b0000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,};
-  final private int[] jj_la1_1 = {0x40201a,0x0,0x80000000,0x80000000,0x0,0x0,0x0,0x0,0x0,0x0,0x100,0x0,0x0,0x0,0x0,0x0,0x0,0x100,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x2000,0x0,0x0,0x10000000,0x0,0x0,0x2000,0x0,0x0,0x0,0x0,0x0,0x2,0x80,0x0,0x0,0x0,0x0,0x0,0x30000,0x0,0x0,0x800,0x800,0x2000000,0x0,0x0,0x0,0x0,0x800,0x0,0x0,0x0,0x0,0x2000,0x0,0x0,0x40000,0x40020100,0x0,0x40020100,0x0,0x800,0x0,0x40,0x0,0x40020100,0x0,0x8008000,0x0,0x8008000,0x8008000,0x30000,0x40,0x30040,0x24000000,0x30000,0x0,0x24000000,0x0,0x24000000,0x0,0x24000000,0x24000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80,0x80,0x80,0x80,0x0,0x0,0x400,0x2000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20000,0x0,0x0,0x1001800,0x1001800,0x0,0x0,0x0,0x20,0x0,0x0,0x100,0x0,0x800000,0x800000,0x0,0x40000100,0x0,0x0,0x40020100,0x0,0x30000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,};
-  final private int[] jj_la1_2 = {0x40800000,0x0,0x24004,0x24004,0x0,0x400,0x8000,0x4004,0x4000,0x0,0x0,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x100,0x1000,0x800,0x8000001,0x0,0x400,0x8000,0x0,0x0,0x0,0x0,0x0,0x0,0x400,0x2,0x800000,0x0,0x0,0x0,0x0,0x4000080,0x0,0x4000,0xb0004060,0x0,0x0,0x1000000,0x0,0x0,0x400,0x0,0x0,0x0,0x0,0x400000,0x0,0xb0100060,0x0,0x0,0x0,0xb0000060,0x0,0xb000026c,0x0,0xb000026c,0x0,0x0,0x0,0x0,0xb0000060,0xb000026c,0x0,0x0,0x0,0x0,0x0,0xb0000060,0x0,0xb0000060,0x12000,0xb0000060,0x10000,0x12000,0x80000,0x12000,0x80000,0x12000,0x12000,0xb0000060,0x0,0xb0000060,0xb0000070,0x0,0x0,0xb0100060,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10,0x0,0x0,0x0,0x0,0x0,0x0,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xb0000060,0x0,0xb0000060,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x4,0x0,0x0,0x0,0x0,0x20c,0x0,0x0,0xb000026c,0x400000,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0x0,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,};
-  final private int[] jj_la1_3 = {0x0,0x0,0x644088,0x644008,0x8000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x44000,0x44000,0x200,0x0,0x80,0x0,0x0,0x80000000,0x80000,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20,0x20,0x8,0x0,0x0,0x0,0x0,0x0,0x0,0x8,0x0,0x0,0x0,0x0,0x41000408,0x0,0x0,0x0,0x20000000,0x0,0x0,0x0,0x40,0x4000000,0x0,0x2,0x100,0x41000580,0x100,0x0,0x100,0x41000500,0x0,0x41008400,0x0,0x41008400,0x0,0x20000000,0x0,0x0,0x41000400,0x41000400,0x0,0x0,0x0,0x0,0x0,0x41000400,0x0,0x41000400,0x0,0x41000400,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x41000400,0x0,0x41000400,0x41000400,0x0,0x0,0x41000480,0x8000,0x80,0x0,0x0,0x80,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80,0x0,0x800000,0x0,0x10000000,0x0,0x0,0x0,0x10000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x2000,0x0,0x0,0x0,0x0,0x0,0x41000400,0x0,0x41000400,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20000000,0x2000800,0x2000800,0x0,0x0,0x0,0x0,0x41000400,0x2,0x41000400,0x41000400,0x41000400,0x41000400,0x1,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,};
-  final private int[] jj_la1_4 = {0x0,0x0,0x10,0x0,0x0,0x0,0x0,0x0,0x0,0x10,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x40,0x0,0x40,0x200,0x0,0x0,0x0,0x8000,0x0,0x0,0x0,0x20,0x0,0xcc0,0x0,0x0,0x0,0x4c0,0x0,0x80000040,0x0,0x80000040,0x0,0x0,0x0,0x0,0x40,0x80000040,0x0,0x0,0x0,0x0,0x0,0x40,0x0,0x40,0x0,0x40,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x40,0x0,0x40,0xff000042,0x0,0x0,0xcc0,0x0,0x400,0x6000,0x6000,0x400,0x1e0000,0xe00000,0x40000000,0x20000002,0x68000002,0x2000000,0x6000000,0x1000000,0x80000000,0x10000000,0x0,0x0,0x0,0x1e0000,0xe00000,0x10000,0x0,0x0,0x0,0x0,0x97000000,0x80,0x0,0x0,0x0,0x0,0x0,0xc00,0x108,0x0,0x0,0x4,0x100,0x100,0x100,0x4,0x8,0x108,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80000000,0x0,0x0,0x0,0x0,0x40,0x0,0x80000040,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80000040,0x20,0x40,0x40,0x40,0x40,0x0,0x40,0x40,0x40,0x40,0x40,0x40,0x40,0x40,0x40,};
-  final private int[] jj_la1_5 = {0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xc0000,0x0,0x0,0x80000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x3ffff,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10010,0x0,0x10810,0x400,0x16ce,0x100,0x4001,0x22020,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x8000,0x277ef,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xd0000000,0x20000000,0x20000000,0x0,0x4001,0xe000000,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xd0000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,};
-  final private int[] jj_la1_6 = {0x0,0x8000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10000,0x0,0x0,0x40000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10000,0x0,0x10000,0x20,0x10000,0x0,0x0,0x0,0x0,0x20,0x20,0x0,0x0,0x0,0x0,0xf0,0x40000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xf0,0x0,0x0,0x0,0xf0,0x0,0x110fe,0x40000,0x110fe,0x40000,0x0,0x40000,0x0,0x30,0x11cfe,0x40000,0x0,0x40000,0x0,0x0,0x100f0,0x0,0xf0,0x40000,0x100f0,0x0,0x40000,0x0,0x40000,0x0,0x40000,0x40000,0x30,0x40000,0x30,0x30,0x40000,0x40000,0xf0,0x0,0x2,0x0,0x0,0x2,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x140,0x10000,0x10000,0x0,0x0,0x0,0x40000,0x10000,0x10000,0x0,0x0,0x0,0x10000,0x0,0x0,0x0,0x0,0x0,0x2,0x0,0x0,0x0,0x2,0x2,0x2,0x0,0x0,0x2,0x40000,0x40000,0x0,0x2,0x0,0x0,0x2,0x0,0x0,0x8,0x0,0x0,0xf4,0x11000,0xfc,0x0,0x3,0x0,0x0,0x0,0x2,0x0,0x2,0x0,0x0,0x20,0x0,0x0,0x0,0x8,0x20,0x0,0x40000,0x110fe,0x0,0xf0,0xf0,0x30,0x30,0x30,0x30,0x30,0xf0,0xf0,0x30,0xf0,0xf0,0x30,0x20,};
+  final private int[] jj_la1 = new int[190];
+  final private int[] jj_la1_0 = {0xffc00000,0x1,0x0,0x0,0x0,0x0,0x0,0x0,0x8000000,0x8000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x2000000,0x2000000,0x0,0x0,0x0,0x0,0x0,0x40000000,0x0,0x0,0x34000000,0x0,0x0,0x0,0x0,0x0,0x0,0x36000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x400000,0x0,0x0,0x1400000,0x1b0000,0x0,0x1b0000,0x0,0x0,0x0,0x0,0x0,0x1b0080,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x100000,0x0,0x0,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x78080,0x7ff80,0x200000,0x200000,0x0,0x0,0x0,0x180000,0x30000,0x30000,0x0,0x0,0x1b0000,0x2000000,0x0,0x0,0x0,0x7f00,0x0,0x7f00,0x0,0x7f00,0x38080,0x0,0x0,0x0,0x0,0x0,0x0,0x80,0x0,0x1b0000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,};
+  final private int[] jj_la1_1 = {0x40201a,0x0,0x80000000,0x80000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x100,0x0,0x0,0x0,0x0,0x0,0x0,0x100,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x2000,0x0,0x0,0x10000000,0x0,0x0,0x2000,0x0,0x0,0x0,0x0,0x0,0x2,0x80,0x0,0x0,0x0,0x0,0x0,0x30000,0x0,0x0,0x800,0x800,0x2000000,0x0,0x0,0x0,0x0,0x800,0x0,0x0,0x0,0x0,0x2000,0x0,0x0,0x40000,0x40020100,0x0,0x40020100,0x0,0x800,0x0,0x40,0x0,0x40020100,0x0,0x8008000,0x0,0x8008000,0x8008000,0x30000,0x40,0x30040,0x24000000,0x30000,0x0,0x24000000,0x0,0x24000000,0x0,0x24000000,0x24000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80,0x80,0x80,0x80,0x0,0x0,0x400,0x2000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20000,0x0,0x0,0x1001800,0x1001800,0x0,0x0,0x0,0x20,0x0,0x0,0x100,0x0,0x800000,0x800000,0x0,0x40000100,0x0,0x0,0x40020100,0x0,0x30000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,};
+  final private int[] jj_la1_2 = {0x40800000,0x0,0x24004,0x24004,0x0,0x8000,0x400,0x8000,0x4004,0x4000,0x0,0x0,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x100,0x1000,0x800,0x8000001,0x0,0x400,0x8000,0x0,0x0,0x0,0x0,0x0,0x0,0x400,0x2,0x800000,0x0,0x0,0x0,0x0,0x4000080,0x0,0x4000,0xb0004060,0x0,0x0,0x1000000,0x0,0x0,0x400,0x0,0x0,0x0,0x0,0x400000,0x0,0xb0100060,0x0,0x0,0x0,0xb0000060,0x0,0xb000026c,0x0,0xb000026c,0x0,0x0,0x0,0x0,0xb0000060,0xb000026c,0x0,0x0,0x0,0x0,0x0,0xb0000060,0x0,0xb0000060,0x12000,0xb0000060,0x10000,0x12000,0x80000,0x12000,0x80000,0x12000,0x12000,0xb0000060,0x0,0xb0000060,0xb0000070,0x0,0x0,0xb0100060,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10,0x0,0x0,0x0,0x0,0x0,0x0,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xb0000060,0x0,0xb0000060,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x4,0x0,0x0,0x0,0x0,0x20c,0x0,0x0,0xb000026c,0x400000,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0x0,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,0xb0000060,};
+  final private int[] jj_la1_3 = {0x0,0x0,0x644088,0x644008,0x8000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x44000,0x44000,0x200,0x0,0x80,0x0,0x0,0x80000000,0x80000,0x100000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20,0x20,0x8,0x0,0x0,0x0,0x0,0x0,0x0,0x8,0x0,0x0,0x0,0x0,0x41000408,0x0,0x0,0x0,0x20000000,0x0,0x0,0x0,0x40,0x4000000,0x0,0x2,0x100,0x41000580,0x100,0x0,0x100,0x41000500,0x0,0x41008400,0x0,0x41008400,0x0,0x20000000,0x0,0x0,0x41000400,0x41000400,0x0,0x0,0x0,0x0,0x0,0x41000400,0x0,0x41000400,0x0,0x41000400,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x41000400,0x0,0x41000400,0x41000400,0x0,0x0,0x41000480,0x8000,0x80,0x0,0x0,0x80,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80,0x0,0x800000,0x0,0x10000000,0x0,0x0,0x0,0x10000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x2000,0x0,0x0,0x0,0x0,0x0,0x41000400,0x0,0x41000400,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x20000000,0x2000800,0x2000800,0x0,0x0,0x0,0x0,0x41000400,0x2,0x41000400,0x41000400,0x41000400,0x41000400,0x1,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,0x41000400,};
+  final private int[] jj_la1_4 = {0x0,0x0,0x10,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x40,0x0,0x40,0x200,0x0,0x0,0x0,0x8000,0x0,0x0,0x0,0x20,0x0,0xcc0,0x0,0x0,0x0,0x4c0,0x0,0x80000040,0x0,0x80000040,0x0,0x0,0x0,0x0,0x40,0x80000040,0x0,0x0,0x0,0x0,0x0,0x40,0x0,0x40,0x0,0x40,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x40,0x0,0x40,0xff000042,0x0,0x0,0xcc0,0x0,0x400,0x6000,0x6000,0x400,0x1e0000,0xe00000,0x40000000,0x20000002,0x68000002,0x2000000,0x6000000,0x1000000,0x80000000,0x10000000,0x0,0x0,0x0,0x1e0000,0xe00000,0x10000,0x0,0x0,0x0,0x0,0x97000000,0x80,0x0,0x0,0x0,0x0,0x0,0xc00,0x108,0x0,0x0,0x4,0x100,0x100,0x100,0x4,0x8,0x108,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80000000,0x0,0x0,0x0,0x0,0x40,0x0,0x80000040,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x80000040,0x20,0x40,0x40,0x40,0x40,0x0,0x40,0x40,0x40,0x40,0x40,0x40,0x40,0x40,0x40,};
+  final private int[] jj_la1_5 = {0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xc0000,0x0,0x0,0x80000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x3ffff,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10010,0x0,0x10810,0x400,0x16ce,0x100,0x4001,0x22020,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x8000,0x277ef,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x1000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xd0000000,0x20000000,0x20000000,0x0,0x4001,0xe000000,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xd0000000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xe004001,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,};
+  final private int[] jj_la1_6 = {0x0,0x8000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10000,0x0,0x0,0x40000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x10000,0x0,0x10000,0x20,0x10000,0x0,0x0,0x0,0x0,0x20,0x20,0x0,0x0,0x0,0x0,0xf0,0x40000,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0xf0,0x0,0x0,0x0,0xf0,0x0,0x110fe,0x40000,0x110fe,0x40000,0x0,0x40000,0x0,0x30,0x11cfe,0x40000,0x0,0x40000,0x0,0x0,0x100f0,0x0,0xf0,0x40000,0x100f0,0x0,0x40000,0x0,0x40000,0x0,0x40000,0x40000,0x30,0x40000,0x30,0x30,0x40000,0x40000,0xf0,0x0,0x2,0x0,0x0,0x2,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x140,0x10000,0x10000,0x0,0x0,0x0,0x40000,0x10000,0x10000,0x0,0x0,0x0,0x10000,0x0,0x0,0x0,0x0,0x0,0x2,0x0,0x0,0x0,0x2,0x2,0x2,0x0,0x0,0x2,0x40000,0x40000,0x0,0x2,0x0,0x0,0x2,0x0,0x0,0x8,0x0,0x0,0xf4,0x11000,0xfc,0x0,0x3,0x0,0x0,0x0,0x2,0x0,0x2,0x0,0x0,0x20,0x0,0x0,0x0,0x8,0x20,0x0,0x40000,0x110fe,0x0,0xf0,0xf0,0x30,0x30,0x30,0x30,0x30,0xf0,0xf0,0x30,0xf0,0xf0,0x30,0x20,};
   final private JJCalls[] jj_2_rtns = new JJCalls[17];
   private boolean jj_rescan = false;
   private int jj_gc = 0;
@@ -5863,7 +5922,7 @@ public class SQL implements SQLConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 189; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 190; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -5873,7 +5932,7 @@ public class SQL implements SQLConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 189; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 190; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -5883,7 +5942,7 @@ public class SQL implements SQLConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 189; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 190; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -5893,7 +5952,7 @@ public class SQL implements SQLConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 189; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 190; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -5902,7 +5961,7 @@ public class SQL implements SQLConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 189; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 190; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -5911,7 +5970,7 @@ public class SQL implements SQLConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 189; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 190; i++) jj_la1[i] = -1;
     for (int i = 0; i < jj_2_rtns.length; i++) jj_2_rtns[i] = new JJCalls();
   }
 
@@ -6026,7 +6085,7 @@ public class SQL implements SQLConstants {
       la1tokens[jj_kind] = true;
       jj_kind = -1;
     }
-    for (int i = 0; i < 189; i++) {
+    for (int i = 0; i < 190; i++) {
       if (jj_la1[i] == jj_gen) {
         for (int j = 0; j < 32; j++) {
           if ((jj_la1_0[i] & (1<<j)) != 0) {
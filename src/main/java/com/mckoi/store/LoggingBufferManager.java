@@ -70,6 +70,14 @@ public class LoggingBufferManager {
    * NOTE: This MUST be final for the 'fetchPage' method to be safe.
    */
   private final BMPage[] page_map;
+
+  /**
+   * The pages that were evicted from the cache while they were in use, so
+   * couldn't be removed from 'page_map' at the time.  The removal is tried
+   * again the next time pages are evicted and at each check point.  This is
+   * locked by 'page_map'.
+   */
+  private final ArrayList deferred_removals;
   
   /**
    * A unique id key counter for all stores using this buffer manager.
@@ -92,6 +100,39 @@ public class LoggingBufferManager {
    */
   private final int page_size;
 
+  // ---------- Page replacement ----------
+
+  /**
+   * The page replacement policy that sorts all the pages in the cache by
+   * their access frequency and time since last access and purges the
+   * bottom 20% when the cache is full.
+   */
+  public static final String SORT_POLICY = "sort";
+
+  /**
+   * The page replacement policy that keeps the pages in a ring and evicts
+   * the first page the clock hand finds that has not been accessed since the
+   * hand last passed it.
+   */
+  public static final String CLOCK_POLICY = "clock";
+
+  /**
+   * True if the CLOCK page replacement policy is being used, false if the
+   * sort policy is being used.
+   */
+  private final boolean clock_policy;
+
+  /**
+   * The ring of pages for the CLOCK policy.  The first 'current_page_count'
+   * entries are used.
+   */
+  private final BMPage[] clock_ring;
+
+  /**
+   * The position of the clock hand in 'clock_ring'.
+   */
+  private int clock_hand;
+
   // ---------- Write locks ----------
   
   /**
@@ -110,17 +151,38 @@ public class LoggingBufferManager {
    * A mutex for when modifying the write lock information.
    */
   private final Object write_lock = new Object();
+
+  // ---------- Dirty pages ----------
+
+  /**
+   * The list of pages that have been written to since the last check point
+   * (BMPage).  A page is added to this list the first time it is written to
+   * after a check point, so a check point only needs to visit the pages that
+   * have changed rather than every page in the cache.
+   */
+  private ArrayList dirty_pages;
+
+  /**
+   * A lock used when accessing the 'dirty_pages' list.
+   */
+  private final Object dirty_lock = new Object();
   
   
-//  /**
-//   * The number of cache hits.
-//   */
-//  private long cache_hit_count;
-//
-//  /**
-//   * The number of cache misses.
-//   */
-//  private long cache_miss_count;
+  /**
+   * The number of cache hits.  Updated while 'page_map' is locked.
+   */
+  private long cache_hit_count;
+
+  /**
+   * The number of cache misses.  Updated while 'page_map' is locked.
+   */
+  private long cache_miss_count;
+
+  /**
+   * The number of pages evicted from the cache.  Updated while 'T_lock' is
+   * locked.
+   */
+  private long cache_eviction_count;
 
 
   
@@ -131,15 +193,44 @@ public class LoggingBufferManager {
                               int max_pages, int page_size,
                               StoreDataAccessorFactory sda_factory,
                               DebugLogger debug, boolean enable_logging) {
+    this(journal_path, read_only, max_pages, page_size, SORT_POLICY,
+         sda_factory, debug, enable_logging);
+  }
+
+  /**
+   * Constructs the manager with the given page replacement policy (either
+   * SORT_POLICY or CLOCK_POLICY).
+   */
+  public LoggingBufferManager(File journal_path, boolean read_only,
+                              int max_pages, int page_size,
+                              String replacement_policy,
+                              StoreDataAccessorFactory sda_factory,
+                              DebugLogger debug, boolean enable_logging) {
     this.max_pages = max_pages;
     this.page_size = page_size;
 
+    if (replacement_policy.equalsIgnoreCase(CLOCK_POLICY)) {
+      clock_policy = true;
+      clock_ring = new BMPage[Math.max(max_pages, 2)];
+    }
+    else if (replacement_policy.equalsIgnoreCase(SORT_POLICY)) {
+      clock_policy = false;
+      clock_ring = null;
+    }
+    else {
+      throw new RuntimeException(
+                 "Unknown page replacement policy: " + replacement_policy);
+    }
+    clock_hand = 0;
+
     check_point_in_progress = false;
     write_lock_count = 0;
     
     current_T = 0;
     page_list = new ArrayList();
     page_map = new BMPage[257];
+    deferred_removals = new ArrayList();
+    dirty_pages = new ArrayList();
     unique_id_seq = 0;
 
     journalled_system = new JournalledSystem(journal_path, read_only,
@@ -154,11 +245,28 @@ public class LoggingBufferManager {
         final File journal_path, final boolean read_only, final int max_pages,
         final int page_size, final String file_ext, final long max_slice_size,
         DebugLogger debug, boolean enable_logging) {
-    this(journal_path, read_only, max_pages, page_size,
+    this(resource_path, journal_path, read_only, max_pages, page_size,
+         SORT_POLICY, false, file_ext, max_slice_size, debug,
+         enable_logging);
+  }
+
+  /**
+   * Constructs the manager with a scattering store implementation that
+   * converts the resource to a file in the given path, and the given page
+   * replacement policy.  If 'memory_mapped' is true, the files are accessed
+   * through memory mapped regions using the NIO API.
+   */
+  public LoggingBufferManager(final File resource_path,
+        final File journal_path, final boolean read_only, final int max_pages,
+        final int page_size, final String replacement_policy,
+        final boolean memory_mapped,
+        final String file_ext, final long max_slice_size,
+        DebugLogger debug, boolean enable_logging) {
+    this(journal_path, read_only, max_pages, page_size, replacement_policy,
          new StoreDataAccessorFactory() {
       public StoreDataAccessor createStoreDataAccessor(String resource_name) {
         return new ScatteringStoreDataAccessor(resource_path, resource_name,
-                                               file_ext, max_slice_size);
+                                 file_ext, max_slice_size, memory_mapped);
       }
     }, debug, enable_logging);
   }
@@ -177,6 +285,34 @@ public class LoggingBufferManager {
     journalled_system.stop();
   }
 
+  /**
+   * Returns the number of page requests that found the page in the cache.
+   */
+  public long getCacheHitCount() {
+    synchronized (page_map) {
+      return cache_hit_count;
+    }
+  }
+
+  /**
+   * Returns the number of page requests that had to set up a new page in
+   * the cache.
+   */
+  public long getCacheMissCount() {
+    synchronized (page_map) {
+      return cache_miss_count;
+    }
+  }
+
+  /**
+   * Returns the number of pages that have been evicted from the cache.
+   */
+  public long getCacheEvictionCount() {
+    synchronized (T_lock) {
+      return cache_eviction_count;
+    }
+  }
+
   // ----------
 
   /**
@@ -238,42 +374,32 @@ public class LoggingBufferManager {
     }
     
     try {
-//      System.out.println("SET CHECKPOINT");
-      synchronized (page_map) {
-        // Flush all the pages out to the log.
-        for (int i = 0; i < page_map.length; ++i) {
-          BMPage page = page_map[i];
-          BMPage prev = null;
-
-          while (page != null) {
-            boolean deleted_hash = false;
-            synchronized (page) {
-              // Flush the page (will only actually flush if there are changes)
-              page.flush();
-
-              // Remove this page if it is no longer in use
-              if (page.notInUse()) {
-                deleted_hash = true;
-                if (prev == null) {
-                  page_map[i] = page.hash_next;
-                }
-                else {
-                  prev.hash_next = page.hash_next;
-                }
-              }
+      // Take the list of pages that were written to since the last check
+      // point.
+      ArrayList to_flush;
+      synchronized (dirty_lock) {
+        to_flush = dirty_pages;
+        dirty_pages = new ArrayList();
+      }
 
-            }
-            // Go to next page in hash chain
-            if (!deleted_hash) {
-              prev = page;
-            }
-            page = page.hash_next;
-          }
+      // Flush the modified pages out to the log.
+      int sz = to_flush.size();
+      for (int i = 0; i < sz; ++i) {
+        BMPage page = (BMPage) to_flush.get(i);
+        synchronized (page) {
+          page.dirty_listed = false;
+          // Flush the page (will only actually flush if there are changes)
+          page.flush();
         }
       }
 
       journalled_system.setCheckPoint(flush_journals);
 
+      // Remove the evicted pages that were in use when they were evicted.
+      synchronized (page_map) {
+        retryDeferredRemovals();
+      }
+
     }
     finally {
       // Make sure we unset the 'check_point_in_progress' boolean and notify
@@ -291,6 +417,8 @@ public class LoggingBufferManager {
    * Called when a new page is created.
    */
   private void pageCreated(final BMPage page) throws IOException {
+    // The pages purged from the cache
+    Object[] purged_pages = null;
     synchronized (T_lock) {
 
       if (PARANOID_CHECKS) {
@@ -306,45 +434,174 @@ public class LoggingBufferManager {
         }
       }
 
-      page.t = current_T;
-      ++current_T;
+      if (clock_policy) {
+        purged_pages = clockPageCreated(page);
+      }
+      else {
+        purged_pages = sortPageCreated(page);
+      }
+    }
 
-      ++current_page_count;
-      page_list.add(page);
-
-      // Below is the page purge algorithm.  If the maximum number of pages
-      // has been created we sort the page list weighting each page by time
-      // since last accessed and total number of accesses and clear the bottom
-      // 20% of this list.
-
-      // Check if we should purge old pages and purge some if we do...
-      if (current_page_count > max_pages) {
-        // Purge 20% of the cache
-        // Sort the pages by the current formula,
-        //  ( 1 / page_access_count ) * (current_t - page_t)
-        // Further, if the page has written data then we multiply by 0.75.
-        // This scales down page writes so they have a better chance of
-        // surviving in the cache than page writes.
-        Object[] pages = page_list.toArray();
-        Arrays.sort(pages, PAGE_CACHE_COMPARATOR);
-
-        int purge_size = Math.max((int) (pages.length * 0.20f), 2);
-        for (int i = 0; i < purge_size; ++i) {
-          BMPage dpage = (BMPage) pages[pages.length - (i + 1)];
-          synchronized (dpage) {
-            dpage.dispose();
+    // Remove the purged pages from the page map if they are no longer in
+    // use.
+    if (purged_pages != null) {
+      synchronized (page_map) {
+        retryDeferredRemovals();
+        for (int i = 0; i < purged_pages.length; ++i) {
+          BMPage dpage = (BMPage) purged_pages[i];
+          if (!removeFromPageMap(dpage)) {
+            deferred_removals.add(dpage);
           }
         }
+      }
+    }
+  }
 
-        // Remove all the elements from page_list and set it with the sorted
-        // list (minus the elements we removed).
-        page_list.clear();
-        for (int i = 0; i < pages.length - purge_size; ++i) {
-          page_list.add(pages[i]);
+  /**
+   * Adds a new page to the page list used by the sort policy.  If the
+   * maximum number of pages is exceeded, the bottom 20% of the pages by
+   * weight are disposed.  Returns the disposed pages or null if no pages
+   * were purged.  This should be called while 'T_lock' is locked.
+   */
+  private Object[] sortPageCreated(final BMPage page) throws IOException {
+    Object[] purged_pages = null;
+
+    page.t = current_T;
+    ++current_T;
+
+    ++current_page_count;
+    page_list.add(page);
+
+    // Below is the page purge algorithm.  If the maximum number of pages
+    // has been created we sort the page list weighting each page by time
+    // since last accessed and total number of accesses and clear the bottom
+    // 20% of this list.
+
+    // Check if we should purge old pages and purge some if we do...
+    if (current_page_count > max_pages) {
+      // Purge 20% of the cache
+      // Sort the pages by the current formula,
+      //  ( 1 / page_access_count ) * (current_t - page_t)
+      // Further, if the page has written data then we multiply by 0.75.
+      // This scales down page writes so they have a better chance of
+      // surviving in the cache than page writes.
+      Object[] pages = page_list.toArray();
+      Arrays.sort(pages, PAGE_CACHE_COMPARATOR);
+
+      int purge_size = Math.max((int) (pages.length * 0.20f), 2);
+      purged_pages = new Object[purge_size];
+      for (int i = 0; i < purge_size; ++i) {
+        BMPage dpage = (BMPage) pages[pages.length - (i + 1)];
+        synchronized (dpage) {
+          dpage.dispose();
         }
+        purged_pages[i] = dpage;
+      }
 
-        current_page_count -= purge_size;
-      
+      // Remove all the elements from page_list and set it with the sorted
+      // list (minus the elements we removed).
+      page_list.clear();
+      for (int i = 0; i < pages.length - purge_size; ++i) {
+        page_list.add(pages[i]);
+      }
+
+      current_page_count -= purge_size;
+      cache_eviction_count += purge_size;
+
+    }
+    return purged_pages;
+  }
+
+  /**
+   * Adds a new page to the CLOCK ring.  If the ring is full, the clock hand
+   * is advanced, clearing the 'referenced' flag of each page it passes,
+   * until a page is found that hasn't been referenced since the hand last
+   * passed it.  That page is disposed and replaced with the new page.
+   * Returns the disposed page in an array or null if no page was evicted.
+   * This should be called while 'T_lock' is locked.
+   */
+  private Object[] clockPageCreated(final BMPage page) throws IOException {
+    page.referenced = false;
+    // If the ring isn't full, put the page in the next empty slot
+    if (current_page_count < clock_ring.length) {
+      clock_ring[current_page_count] = page;
+      ++current_page_count;
+      return null;
+    }
+    // Find a victim
+    while (true) {
+      BMPage dpage = clock_ring[clock_hand];
+      if (dpage.referenced) {
+        // Give the page a second chance
+        dpage.referenced = false;
+        clock_hand = (clock_hand + 1) % clock_ring.length;
+      }
+      else {
+        clock_ring[clock_hand] = page;
+        clock_hand = (clock_hand + 1) % clock_ring.length;
+        synchronized (dpage) {
+          dpage.dispose();
+        }
+        ++cache_eviction_count;
+        return new Object[] { dpage };
+      }
+    }
+  }
+
+  /**
+   * Removes the given page from the page map if it's not in use.  Returns
+   * false if the page is in the page map and in use, otherwise true.  This
+   * should be called while 'page_map' is locked.
+   */
+  private boolean removeFromPageMap(BMPage dpage) {
+    final int p = (calcHashCode(dpage.getID(), dpage.page) & 0x07FFFFFFF) %
+                                                             page_map.length;
+    BMPage page = page_map[p];
+    BMPage prev = null;
+    while (page != null && page != dpage) {
+      prev = page;
+      page = page.hash_next;
+    }
+    if (page != null) {
+      synchronized (page) {
+        if (!page.notInUse()) {
+          return false;
+        }
+        if (prev == null) {
+          page_map[p] = page.hash_next;
+        }
+        else {
+          prev.hash_next = page.hash_next;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tries again to remove the pages that were in use when they were evicted
+   * from the cache.  A page that is cached holds a reference to itself, so
+   * a page that is no longer in use is not cached and can be removed.  This
+   * should be called while 'page_map' is locked.
+   */
+  private void retryDeferredRemovals() {
+    for (int i = deferred_removals.size() - 1; i >= 0; --i) {
+      if (removeFromPageMap((BMPage) deferred_removals.get(i))) {
+        deferred_removals.remove(i);
+      }
+    }
+  }
+
+  /**
+   * Called after a page has been written to.  If this is the first write to
+   * the page since the last check point, the page is added to the list of
+   * dirty pages.  This should be called while the page is locked.
+   */
+  private void pageWritten(BMPage page) {
+    if (!page.dirty_listed) {
+      page.dirty_listed = true;
+      synchronized (dirty_lock) {
+        dirty_pages.add(page);
       }
     }
   }
@@ -353,6 +610,12 @@ public class LoggingBufferManager {
    * Called when a page is accessed.
    */
   private void pageAccessed(BMPage page) {
+    // The CLOCK policy only needs to mark the page as referenced, which
+    // doesn't require a lock.
+    if (clock_policy) {
+      page.referenced = true;
+      return;
+    }
     synchronized (T_lock) {
       page.t = current_T;
       ++current_T;
@@ -419,6 +682,13 @@ public class LoggingBufferManager {
         page.referenceAdd();
       }
 
+      if (new_page) {
+        ++cache_miss_count;
+      }
+      else {
+        ++cache_hit_count;
+      }
+
     }
 
     // If the page is new,
@@ -522,6 +792,7 @@ public class LoggingBufferManager {
       try {
         page.initialize();
         page.write((int) (position % page_size), (byte) b);
+        pageWritten(page);
       }
       finally {
         page.dispose();
@@ -550,6 +821,7 @@ public class LoggingBufferManager {
       try {
         page.initialize();
         page.write(start_offset, buf, off, to_write);
+        pageWritten(page);
       }
       finally {
         page.dispose();
@@ -568,6 +840,7 @@ public class LoggingBufferManager {
         try {
           page.initialize();
           page.write(0, buf, off, to_write);
+          pageWritten(page);
         }
         finally {
           page.dispose();
@@ -688,6 +961,18 @@ public class LoggingBufferManager {
      */
     int access_count;
 
+    /**
+     * True if this page is in the list of pages written to since the last
+     * check point.
+     */
+    boolean dirty_listed;
+
+    /**
+     * Set to true when the page is accessed, and cleared by the clock hand
+     * of the CLOCK page replacement policy.
+     */
+    volatile boolean referenced;
+
 
     /**
      * The first position in the buffer that was last written.
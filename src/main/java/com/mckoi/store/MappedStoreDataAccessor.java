@@ -0,0 +1,264 @@
+/**
+ * com.mckoi.store.MappedStoreDataAccessor  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.store;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An implementation of StoreDataAccessor that uses the Java NIO API to map
+ * an underlying file in the filesystem into memory.  The file is mapped in
+ * fixed size regions that are created when they are first accessed.  Reads
+ * and writes are copied directly from and to the mapped memory, so the data
+ * is only buffered once by the OS page cache and there is no file system
+ * call per access.  The copy is made under the same lock as 'setSize' so a
+ * mapped region is never accessed after the file is truncated under it.
+ * <p>
+ * A region that extends past the end of the file is only mapped up to the
+ * end of the file.  When the size of the file changes, the partial region is
+ * remapped the next time it is accessed.
+ *
+ * @author Tobias Downer
+ */
+
+class MappedStoreDataAccessor implements StoreDataAccessor {
+
+  /**
+   * The size of each mapped region of the file.
+   */
+  private static final int REGION_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * A lock because access to the region list is stateful.
+   */
+  private Object lock = new Object();
+
+  /**
+   * The File object representing the file in the file system.
+   */
+  private File file;
+
+  /**
+   * The underlying RandomAccessFile containing the data.
+   */
+  private RandomAccessFile data;
+
+  /**
+   * The FileChannel of the underlying file.
+   */
+  private FileChannel channel;
+
+  /**
+   * True if the file is mapped read only.
+   */
+  private boolean read_only;
+
+  /**
+   * The mapped regions of the file.  An entry is null if the region has not
+   * been mapped yet.
+   */
+  private MappedByteBuffer[] regions;
+
+  /**
+   * The size of the data area.
+   */
+  private long size;
+
+  /**
+   * True if the file is open.
+   */
+  private boolean is_open;
+
+  /**
+   * Constructor.
+   */
+  MappedStoreDataAccessor(File file) {
+    this.file = file;
+    this.is_open = false;
+  }
+
+  /**
+   * Returns a view of the mapped region of the file that contains the given
+   * position.  The position of the returned buffer is set to the offset of
+   * the given position within the region and the limit is set to the end of
+   * the file within the region.  Returns null if the position is at or past
+   * the end of the file.  This should be called while 'lock' is locked.
+   */
+  private ByteBuffer regionFor(long position) throws IOException {
+    if (position < 0 || position >= size) {
+      return null;
+    }
+    int region_i = (int) (position / REGION_SIZE);
+    long region_start = (long) region_i * REGION_SIZE;
+    int region_len = (int) Math.min((long) REGION_SIZE, size - region_start);
+
+    if (region_i >= regions.length) {
+      MappedByteBuffer[] new_regions = new MappedByteBuffer[region_i + 1];
+      System.arraycopy(regions, 0, new_regions, 0, regions.length);
+      regions = new_regions;
+    }
+    MappedByteBuffer region = regions[region_i];
+    // Map the region if it isn't mapped or it was mapped when the file was
+    // smaller.
+    if (region == null || region.capacity() < region_len) {
+      region = channel.map(read_only ? FileChannel.MapMode.READ_ONLY
+                                     : FileChannel.MapMode.READ_WRITE,
+                           region_start, region_len);
+      regions[region_i] = region;
+    }
+
+    // Return a view of the region so the position of the mapped buffer
+    // itself isn't changed.
+    ByteBuffer view = region.duplicate();
+    view.limit(region_len);
+    view.position((int) (position - region_start));
+    return view;
+  }
+
+  // ---------- Implemented from StoreDataAccessor ----------
+
+  public void open(boolean is_read_only) throws IOException {
+    synchronized (lock) {
+      data = new RandomAccessFile(file, is_read_only ? "r" : "rw");
+      channel = data.getChannel();
+      read_only = is_read_only;
+      regions = new MappedByteBuffer[0];
+      size = file.length();
+      is_open = true;
+    }
+  }
+
+  public void close() throws IOException {
+    synchronized (lock) {
+      // The mapped regions are released when they are garbage collected.
+      regions = null;
+      channel = null;
+      data.close();
+      data = null;
+      is_open = false;
+    }
+  }
+
+  public boolean delete() {
+    if (!is_open) {
+      return file.delete();
+    }
+    return false;
+  }
+
+  public boolean exists() {
+    return file.exists();
+  }
+
+
+  public void read(long position, byte[] buf, int off, int len)
+                                                          throws IOException {
+    // Reads the array (potentially across multiple regions).  Reads past the
+    // end of the file are ignored.  The copy is made while 'lock' is locked
+    // so 'setSize' can't truncate the file under the mapped region.
+    synchronized (lock) {
+      while (len > 0) {
+        ByteBuffer view = regionFor(position);
+        if (view == null) {
+          return;
+        }
+        int to_read = Math.min(len, view.remaining());
+        view.get(buf, off, to_read);
+        position += to_read;
+        off += to_read;
+        len -= to_read;
+      }
+    }
+  }
+
+  public void write(long position, byte[] buf, int off, int len)
+                                                          throws IOException {
+    // Writes the array (potentially across multiple regions).  Writes past
+    // the end of the file are ignored.  The copy is made while 'lock' is
+    // locked so 'setSize' can't truncate the file under the mapped region.
+    synchronized (lock) {
+      while (len > 0) {
+        ByteBuffer view = regionFor(position);
+        if (view == null) {
+          return;
+        }
+        int to_write = Math.min(len, view.remaining());
+        view.put(buf, off, to_write);
+        position += to_write;
+        off += to_write;
+        len -= to_write;
+      }
+    }
+  }
+
+  public void setSize(long new_size) throws IOException {
+    synchronized (lock) {
+      // If expanding the size of the file,
+      if (new_size > this.size) {
+        // Seek to the new size - 1 and write a single byte to the end of the
+        // file.
+        long p = new_size - 1;
+        if (p > 0) {
+          data.seek(p);
+          data.write(0);
+          this.size = new_size;
+        }
+      }
+      else if (new_size < this.size) {
+        // Forget the mapped regions before the file is truncated.  Accessing
+        // a mapped region past the end of a file is undefined.
+        regions = new MappedByteBuffer[0];
+        data.setLength(new_size);
+        this.size = new_size;
+      }
+    }
+  }
+
+  public long getSize() throws IOException {
+    synchronized (lock) {
+      if (is_open) {
+        return size;
+      }
+      else {
+        return file.length();
+      }
+    }
+  }
+
+  public void synch() throws IOException {
+    synchronized (lock) {
+      // Force the changes in the mapped regions to the disk.
+      for (int i = 0; i < regions.length; ++i) {
+        MappedByteBuffer region = regions[i];
+        if (region != null && !read_only) {
+          region.force();
+        }
+      }
+      channel.force(false);
+    }
+  }
+
+
+}
@@ -58,6 +58,12 @@ public class ScatteringStoreDataAccessor implements StoreDataAccessor {
    * The maximum size a file slice can grow too before a new slice is created.
    */
   private final long max_slice_size;
+
+  /**
+   * True if the slices are accessed through memory mapped files (using
+   * MappedStoreDataAccessor), otherwise the Java IO API is used.
+   */
+  private final boolean memory_mapped;
   
   /**
    * The list of RandomAccessFile objects for each file that represents a
@@ -87,11 +93,22 @@ public class ScatteringStoreDataAccessor implements StoreDataAccessor {
    */
   public ScatteringStoreDataAccessor(File path, String file_name,
                                      String first_ext, long max_slice_size) {
+    this(path, file_name, first_ext, max_slice_size, false);
+  }
+
+  /**
+   * Constructs the store data accessor.  If 'memory_mapped' is true then
+   * each slice is accessed as a memory mapped file.
+   */
+  public ScatteringStoreDataAccessor(File path, String file_name,
+                                     String first_ext, long max_slice_size,
+                                     boolean memory_mapped) {
     slice_list = new ArrayList();
     this.path = path;
     this.file_name = file_name;
     this.first_ext = first_ext;
     this.max_slice_size = max_slice_size;
+    this.memory_mapped = memory_mapped;
   }
 
   /**
@@ -185,7 +202,9 @@ public class ScatteringStoreDataAccessor implements StoreDataAccessor {
    * Creates a StoreDataAccessor object for accessing a given slice.
    */
   private StoreDataAccessor createSliceDataAccessor(File file) {
-    // Currently we only support an IOStoreDataAccessor object.
+    if (memory_mapped) {
+      return new MappedStoreDataAccessor(file);
+    }
     return new IOStoreDataAccessor(file);
   }
 
@@ -0,0 +1,228 @@
+/**
+ * com.mckoi.util.HyperLogLog  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.util;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct values in a
+ * set using a fixed amount of memory.  Each value is added as a 64-bit
+ * hash.  A sketch with a precision of 'p' has 2^p one byte registers and the
+ * estimate has a standard error of about 1.04 / sqrt(2^p), for example 0.8%
+ * for the default precision of 14 (16KB).
+ * <p>
+ * Two sketches of the same precision can be merged, and the result is the
+ * sketch of the union of the two sets.  A sketch can be written to and
+ * read from a byte array, so sketches of different groups or of different
+ * tables can be stored and combined later.
+ *
+ * @author Tobias Downer
+ */
+
+public final class HyperLogLog {
+
+  /**
+   * The smallest and largest precision of a sketch.
+   */
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 16;
+
+  /**
+   * The default precision.
+   */
+  public static final int DEFAULT_PRECISION = 14;
+
+  /**
+   * The precision of this sketch.
+   */
+  private final int precision;
+
+  /**
+   * The registers.  Each register is the largest rank of the hashes that
+   * were added to it.
+   */
+  private final byte[] registers;
+
+  /**
+   * Constructs an empty sketch with the given precision.
+   */
+  public HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+            "HyperLogLog precision must be between " + MIN_PRECISION +
+            " and " + MAX_PRECISION + ".");
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  /**
+   * Returns the precision of this sketch.
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * Adds a value with the given 64-bit hash to the sketch.  The bits of the
+   * hash should be evenly distributed (see 'hash').
+   */
+  public void add(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    // The rank is the position of the first 1 bit after the index bits.
+    long w = hash << precision;
+    int rank = 1;
+    int max_rank = 64 - precision + 1;
+    while (rank < max_rank && w >= 0) {
+      ++rank;
+      w <<= 1;
+    }
+    if (rank > registers[index]) {
+      registers[index] = (byte) rank;
+    }
+  }
+
+  /**
+   * Merges the given sketch in to this sketch.  The sketches must have the
+   * same precision.
+   */
+  public void merge(HyperLogLog sketch) {
+    if (sketch.precision != precision) {
+      throw new IllegalArgumentException(
+                  "Can't merge HyperLogLog sketches of different precision.");
+    }
+    byte[] other = sketch.registers;
+    for (int i = 0; i < registers.length; ++i) {
+      if (other[i] > registers[i]) {
+        registers[i] = other[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the estimate of the number of distinct values added to this
+   * sketch.
+   */
+  public long estimate() {
+    final int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (int i = 0; i < m; ++i) {
+      int r = registers[i];
+      if (r == 0) {
+        ++zeros;
+      }
+      sum += 1.0 / (1L << r);
+    }
+    double alpha;
+    if (m == 16) {
+      alpha = 0.673;
+    }
+    else if (m == 32) {
+      alpha = 0.697;
+    }
+    else if (m == 64) {
+      alpha = 0.709;
+    }
+    else {
+      alpha = 0.7213 / (1.0 + 1.079 / m);
+    }
+    double estimate = alpha * m * m / sum;
+    // Small ranges are estimated better by linear counting.
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * Returns this sketch as a byte array.  The first byte is the precision
+   * and the rest are the registers.
+   */
+  public byte[] toByteArray() {
+    byte[] buf = new byte[registers.length + 1];
+    buf[0] = (byte) precision;
+    System.arraycopy(registers, 0, buf, 1, registers.length);
+    return buf;
+  }
+
+  /**
+   * Returns the sketch that was written to the given byte array by
+   * 'toByteArray'.
+   */
+  public static HyperLogLog fromByteArray(byte[] buf) {
+    if (buf.length < 1) {
+      throw new IllegalArgumentException("Not a HyperLogLog sketch.");
+    }
+    int precision = buf[0];
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION ||
+        buf.length != (1 << precision) + 1) {
+      throw new IllegalArgumentException("Not a HyperLogLog sketch.");
+    }
+    // A register holds a rank between 0 and 64 - precision + 1
+    int max_rank = 64 - precision + 1;
+    for (int i = 1; i < buf.length; ++i) {
+      if (buf[i] < 0 || buf[i] > max_rank) {
+        throw new IllegalArgumentException("Not a HyperLogLog sketch.");
+      }
+    }
+    HyperLogLog sketch = new HyperLogLog(precision);
+    System.arraycopy(buf, 1, sketch.registers, 0, sketch.registers.length);
+    return sketch;
+  }
+
+  // ---------- Hashing ----------
+
+  /**
+   * Mixes the bits of the given value so every bit of the result depends on
+   * every bit of the value.
+   */
+  public static long hash(long v) {
+    v ^= (v >>> 33);
+    v *= 0xff51afd7ed558ccdL;
+    v ^= (v >>> 33);
+    v *= 0xc4ceb9fe1a85ec53L;
+    v ^= (v >>> 33);
+    return v;
+  }
+
+  /**
+   * Returns a 64-bit hash of the given bytes.
+   */
+  public static long hash(byte[] buf) {
+    long h = 0x9e3779b97f4a7c15L ^ buf.length;
+    for (int i = 0; i < buf.length; ++i) {
+      h = (h ^ (buf[i] & 0x0FF)) * 0x100000001b3L;
+    }
+    return hash(h);
+  }
+
+  /**
+   * Returns a 64-bit hash of the given string.
+   */
+  public static long hash(String str) {
+    long h = 0x9e3779b97f4a7c15L ^ str.length();
+    final int len = str.length();
+    for (int i = 0; i < len; ++i) {
+      h = (h ^ str.charAt(i)) * 0x100000001b3L;
+    }
+    return hash(h);
+  }
+
+}
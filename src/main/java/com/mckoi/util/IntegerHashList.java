@@ -0,0 +1,193 @@
+/**
+ * com.mckoi.util.IntegerHashList  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.util;
+
+/**
+ * A hash table that maps an integer hash key to a list of integer values.
+ * Any number of values may be stored against the same key.  This is
+ * implemented entirely with int arrays so adding an entry does not allocate
+ * an object, which makes it suitable for building a hash over every row of a
+ * large table.
+ * <p>
+ * To enumerate the values stored against a key;
+ * <p><pre>
+ *   for (int e = list.first(key); e != -1; e = list.next(e)) {
+ *     int value = list.valueAt(e);
+ *     ...
+ *   }
+ * </pre>
+ *
+ * @author Tobias Downer
+ */
+
+public final class IntegerHashList {
+
+  /**
+   * The head entry of the chain for each bucket (-1 if the bucket is empty).
+   */
+  private int[] buckets;
+
+  /**
+   * The key of each entry.
+   */
+  private int[] entry_key;
+
+  /**
+   * The value of each entry.
+   */
+  private int[] entry_value;
+
+  /**
+   * The next entry in the bucket chain (-1 for the end of the chain).
+   */
+  private int[] entry_next;
+
+  /**
+   * The number of entries in the table.
+   */
+  private int size;
+
+  /**
+   * Constructs the table sized to hold the given number of entries before
+   * it needs to grow.
+   */
+  public IntegerHashList(int expected_size) {
+    int bucket_count = 16;
+    while (bucket_count < expected_size) {
+      bucket_count <<= 1;
+    }
+    buckets = new int[bucket_count];
+    for (int i = 0; i < bucket_count; ++i) {
+      buckets[i] = -1;
+    }
+    int entry_count = Math.max(expected_size, 16);
+    entry_key = new int[entry_count];
+    entry_value = new int[entry_count];
+    entry_next = new int[entry_count];
+    size = 0;
+  }
+
+  public IntegerHashList() {
+    this(64);
+  }
+
+  /**
+   * Spreads the bits of the key so keys that only differ in their high bits
+   * don't all fall in the same bucket.
+   */
+  private static int spread(int key) {
+    key ^= (key >>> 20) ^ (key >>> 12);
+    return key ^ (key >>> 7) ^ (key >>> 4);
+  }
+
+  /**
+   * Doubles the size of the bucket array and rehashes the chains.
+   */
+  private void growBuckets() {
+    int bucket_count = buckets.length << 1;
+    int mask = bucket_count - 1;
+    int[] new_buckets = new int[bucket_count];
+    for (int i = 0; i < bucket_count; ++i) {
+      new_buckets[i] = -1;
+    }
+    // Rehash the entries in reverse so each chain keeps its insert order
+    for (int i = size - 1; i >= 0; --i) {
+      int b = spread(entry_key[i]) & mask;
+      entry_next[i] = new_buckets[b];
+      new_buckets[b] = i;
+    }
+    buckets = new_buckets;
+  }
+
+  /**
+   * Grows the entry arrays.
+   */
+  private void growEntries() {
+    int new_size = entry_key.length + (entry_key.length >> 1) + 16;
+    int[] nk = new int[new_size];
+    int[] nv = new int[new_size];
+    int[] nn = new int[new_size];
+    System.arraycopy(entry_key, 0, nk, 0, size);
+    System.arraycopy(entry_value, 0, nv, 0, size);
+    System.arraycopy(entry_next, 0, nn, 0, size);
+    entry_key = nk;
+    entry_value = nv;
+    entry_next = nn;
+  }
+
+  /**
+   * Adds a value to the list of values stored against the given key.
+   */
+  public void add(int key, int value) {
+    if (size >= entry_key.length) {
+      growEntries();
+    }
+    if (size >= buckets.length) {
+      growBuckets();
+    }
+    int b = spread(key) & (buckets.length - 1);
+    entry_key[size] = key;
+    entry_value[size] = value;
+    entry_next[size] = buckets[b];
+    buckets[b] = size;
+    ++size;
+  }
+
+  /**
+   * Returns the number of entries in the table.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the first entry stored against the given key, or -1 if there are
+   * no entries with the key.
+   */
+  public int first(int key) {
+    int e = buckets[spread(key) & (buckets.length - 1)];
+    while (e != -1 && entry_key[e] != key) {
+      e = entry_next[e];
+    }
+    return e;
+  }
+
+  /**
+   * Returns the entry after the given entry that is stored against the same
+   * key, or -1 if there are no more entries with the key.
+   */
+  public int next(int entry) {
+    int key = entry_key[entry];
+    int e = entry_next[entry];
+    while (e != -1 && entry_key[e] != key) {
+      e = entry_next[e];
+    }
+    return e;
+  }
+
+  /**
+   * Returns the value of the given entry.
+   */
+  public int valueAt(int entry) {
+    return entry_value[entry];
+  }
+
+}
@@ -132,7 +132,7 @@ public final class Stats {
   /**
    * Sets the given stat name with the given value.
    */
-  public synchronized void set(int value, String stat_name) {
+  public synchronized void set(long value, String stat_name) {
     IntegerStat stat = (IntegerStat) properties.get(stat_name);
     if (stat != null) {
       stat.value = value;
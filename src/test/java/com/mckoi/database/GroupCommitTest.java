@@ -0,0 +1,290 @@
+/**
+ * com.mckoi.database.GroupCommitTest  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000, 2001, 2002  Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mckoi.database;
+
+import com.mckoi.store.Store;
+import com.mckoi.database.control.DefaultDBConfig;
+import com.mckoi.util.BigNumber;
+import java.io.IOException;
+
+/**
+ * A test of group commit when many transactions commit at the same time
+ * and the check point that covers them fails.  Every commit covered by the
+ * failed check point must fail, and the commits that follow it must succeed
+ * with a new check point.
+ * <p>
+ * This is in the com.mckoi.database package because it replaces the store
+ * system of the conglomerate with one that fails a check point on request.
+ *
+ * @author Tobias Downer
+ */
+
+public class GroupCommitTest {
+
+  /**
+   * The name of the table the transactions insert into.
+   */
+  private static final TableName TABLE_NAME =
+                                   new TableName("APP", "GroupCommitTest");
+
+  /**
+   * The number of threads that commit at the same time.
+   */
+  private static final int THREAD_COUNT = 8;
+
+  /**
+   * A StoreSystem that wraps another and fails the next 'fail_count' check
+   * points.
+   */
+  private static class FailingStoreSystem implements StoreSystem {
+
+    private final StoreSystem parent;
+    private int fail_count = 0;
+    private int check_point_count = 0;
+
+    FailingStoreSystem(StoreSystem parent) {
+      this.parent = parent;
+    }
+
+    synchronized void failCheckPoints(int count) {
+      fail_count = count;
+    }
+
+    synchronized int getCheckPointCount() {
+      return check_point_count;
+    }
+
+    public boolean storeExists(String name) {
+      return parent.storeExists(name);
+    }
+
+    public Store createStore(String name) {
+      return parent.createStore(name);
+    }
+
+    public Store openStore(String name) {
+      return parent.openStore(name);
+    }
+
+    public boolean closeStore(Store store) {
+      return parent.closeStore(store);
+    }
+
+    public boolean deleteStore(Store store) {
+      return parent.deleteStore(store);
+    }
+
+    public void setCheckPoint() {
+      synchronized (this) {
+        ++check_point_count;
+        if (fail_count > 0) {
+          --fail_count;
+          throw new RuntimeException("Simulated check point failure");
+        }
+      }
+      parent.setCheckPoint();
+    }
+
+    public void lock(String lock_name) throws IOException {
+      parent.lock(lock_name);
+    }
+
+    public void unlock(String lock_name) throws IOException {
+      parent.unlock(lock_name);
+    }
+
+  }
+
+  /**
+   * A thread that inserts a row in a transaction and commits it.
+   */
+  private static class CommitThread extends Thread {
+
+    private final TableDataConglomerate conglomerate;
+    private final int id;
+    private final Object start_lock;
+    private final boolean[] started;
+    String failure = null;
+    boolean finished = false;
+
+    CommitThread(TableDataConglomerate conglomerate, int id,
+                 Object start_lock, boolean[] started) {
+      this.conglomerate = conglomerate;
+      this.id = id;
+      this.start_lock = start_lock;
+      this.started = started;
+    }
+
+    public void run() {
+      try {
+        Transaction transaction = conglomerate.createTransaction();
+        insertRow(transaction, id);
+        // Wait until all the threads are ready to commit
+        synchronized (start_lock) {
+          while (!started[0]) {
+            start_lock.wait();
+          }
+        }
+        transaction.closeAndCommit();
+      }
+      catch (Throwable e) {
+        failure = e.getMessage();
+      }
+      finished = true;
+    }
+
+  }
+
+  /**
+   * Inserts a row with the given id into the test table.
+   */
+  private static void insertRow(Transaction transaction, int id) {
+    MutableTableDataSource table = transaction.getTable(TABLE_NAME);
+    RowData row_data = new RowData(table);
+    row_data.setColumnDataFromObject(0, BigNumber.fromInt(id));
+    table.addRow(row_data);
+  }
+
+  /**
+   * Commits a transaction from each of THREAD_COUNT threads at the same time
+   * and returns the threads after they have finished.
+   */
+  private static CommitThread[] commitConcurrently(
+                TableDataConglomerate conglomerate, int first_id)
+                                                throws InterruptedException {
+    Object start_lock = new Object();
+    boolean[] started = new boolean[] { false };
+    CommitThread[] threads = new CommitThread[THREAD_COUNT];
+    for (int i = 0; i < THREAD_COUNT; ++i) {
+      threads[i] = new CommitThread(conglomerate, first_id + i,
+                                    start_lock, started);
+      threads[i].start();
+    }
+    // Give the threads time to make their changes
+    Thread.sleep(200);
+    synchronized (start_lock) {
+      started[0] = true;
+      start_lock.notifyAll();
+    }
+    for (int i = 0; i < THREAD_COUNT; ++i) {
+      threads[i].join(10000);
+      if (!threads[i].finished) {
+        throw new RuntimeException("Commit thread " + i + " is blocked.");
+      }
+    }
+    return threads;
+  }
+
+  /**
+   * Returns the number of threads that failed to commit.
+   */
+  private static int failureCount(CommitThread[] threads) {
+    int count = 0;
+    for (int i = 0; i < threads.length; ++i) {
+      if (threads[i].failure != null) {
+        System.out.println("  Commit " + threads[i].id + " failed: " +
+                           threads[i].failure);
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      System.out.println("FAILED: " + message);
+      System.exit(1);
+    }
+    System.out.println("OK: " + message);
+  }
+
+  public static void main(String[] args) {
+
+    DefaultDBConfig config = new DefaultDBConfig();
+    config.setValue("storage_system", "v1javaheap");
+    config.setValue("group_commit_batch_size",
+                    Integer.toString(THREAD_COUNT));
+    config.setValue("group_commit_max_wait", "1000");
+    config.setValue("debug_level", "50");
+
+    TransactionSystem system = new TransactionSystem();
+    system.init(config);
+
+    FailingStoreSystem store_system =
+                             new FailingStoreSystem(new V1HeapStoreSystem());
+    TableDataConglomerate conglomerate =
+                       new TableDataConglomerate(system, store_system);
+
+    try {
+      conglomerate.create("GroupCommitTest");
+
+      // Create the test table
+      Transaction transaction = conglomerate.createTransaction();
+      transaction.createSchema("APP", "USER");
+      DataTableDef table_def = new DataTableDef();
+      table_def.setTableName(TABLE_NAME);
+      table_def.addColumn(DataTableColumnDef.createNumericColumn("id"));
+      transaction.createTable(table_def);
+      transaction.closeAndCommit();
+
+      // Concurrent commits that all succeed
+      CommitThread[] threads = commitConcurrently(conglomerate, 0);
+      check(failureCount(threads) == 0,
+            "Concurrent commits with no check point failure");
+
+      // Concurrent commits where the check point fails.  The batch size is
+      // the number of threads so a single check point covers them all, and
+      // every one of them must fail.
+      int check_points_before = store_system.getCheckPointCount();
+      store_system.failCheckPoints(1);
+      threads = commitConcurrently(conglomerate, 100);
+      check(store_system.getCheckPointCount() - check_points_before == 1,
+            "One check point covers the concurrent commits");
+      check(failureCount(threads) == THREAD_COUNT,
+            "A failed check point fails every commit it covered");
+      Object failures = system.stats().get(
+                       "TableDataConglomerate.group_check_point_failures");
+      check(failures != null && failures.toString().equals("1"),
+            "The check point failure is counted");
+
+      // Commits after the failure succeed
+      threads = commitConcurrently(conglomerate, 200);
+      check(failureCount(threads) == 0,
+            "Concurrent commits after a check point failure");
+
+      // The changes of a commit that failed at the check point are still
+      // committed, they just weren't made stable.
+      transaction = conglomerate.createTransaction();
+      long row_count = transaction.getTable(TABLE_NAME).getRowCount();
+      transaction.closeAndCommit();
+      check(row_count == (THREAD_COUNT * 3),
+            "The rows of every commit are visible");
+
+      conglomerate.close();
+      system.dispose();
+    }
+    catch (Throwable e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+
+  }
+
+}
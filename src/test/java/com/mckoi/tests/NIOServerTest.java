@@ -0,0 +1,337 @@
+/**
+ * com.mckoi.tests.NIOServerTest  18 Oct 2026
+ *
+ * Mckoi SQL Database ( http://www.mckoi.com/database )
+ * Copyright (C) 2000-2018 Diehl and Associates, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.mckoi.tests;
+
+import com.mckoi.database.control.*;
+import com.mckoi.database.jdbc.ProtocolConstants;
+import com.mckoi.database.jdbc.SQLQuery;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.sql.*;
+
+/**
+ * Tests the JDBC server when 'tcp_connection_pool_thread_model' is 'nio'.
+ * <p>
+ * Many JDBC clients use the server at the same time, then a client that
+ * sends commands without reading the responses checks that the server stops
+ * reading its commands until it reads the responses.  Finally a server with
+ * an unknown connection pool model is checked to fall back to the
+ * multi-threaded model.
+ * <p>
+ * Usage: NIOServerTest [database path] [tcp port]
+ *
+ * @author Tobias Downer
+ */
+
+public class NIOServerTest {
+
+  /**
+   * The number of rows in the test table.
+   */
+  private static final int ROW_COUNT = 2000;
+
+  /**
+   * The number of JDBC clients that use the server at the same time.
+   */
+  private static final int CLIENT_COUNT = 16;
+
+  /**
+   * The number of commands the client that doesn't read sends.
+   */
+  private static final int COMMAND_COUNT = 500000;
+
+  /**
+   * The number of rows requested by each command of the client that doesn't
+   * read.
+   */
+  private static final int SECTION_SIZE = 20;
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      System.out.println("FAILED: " + message);
+      System.exit(1);
+    }
+    System.out.println("OK: " + message);
+  }
+
+  /**
+   * A JDBC client that checks the whole test table a number of times.
+   */
+  private static class ClientThread extends Thread {
+
+    private final String url;
+    String failure = null;
+
+    ClientThread(String url) {
+      this.url = url;
+    }
+
+    public void run() {
+      try {
+        Connection connection =
+                        DriverManager.getConnection(url, "test", "test");
+        Statement stmt = connection.createStatement();
+        for (int n = 0; n < 5; ++n) {
+          ResultSet rs = stmt.executeQuery(
+                                "SELECT id, name FROM NIOTest ORDER BY id");
+          int i = 0;
+          while (rs.next()) {
+            if (rs.getInt(1) != i || !rs.getString(2).equals("name" + i)) {
+              failure = "Unexpected row " + i;
+            }
+            ++i;
+          }
+          rs.close();
+          if (i != ROW_COUNT) {
+            failure = "Expected " + ROW_COUNT + " rows, got " + i;
+          }
+        }
+        connection.close();
+      }
+      catch (Throwable e) {
+        failure = e.toString();
+      }
+    }
+
+  }
+
+  /**
+   * Writes a command to the server preceeded by its length.
+   */
+  private static void writeCommand(DataOutputStream out, byte[] command)
+                                                         throws IOException {
+    out.writeInt(command.length);
+    out.write(command);
+  }
+
+  /**
+   * Reads a response from the server.
+   */
+  private static byte[] readResponse(DataInputStream in) throws IOException {
+    byte[] response = new byte[in.readInt()];
+    in.readFully(response);
+    return response;
+  }
+
+  /**
+   * A thread that sends the same command a number of times.
+   */
+  private static class CommandWriter extends Thread {
+
+    private final DataOutputStream out;
+    private final byte[] command;
+    volatile int sent = 0;
+    volatile boolean finished = false;
+
+    CommandWriter(DataOutputStream out, byte[] command) {
+      this.out = out;
+      this.command = command;
+    }
+
+    public void run() {
+      try {
+        for (int i = 0; i < COMMAND_COUNT; ++i) {
+          writeCommand(out, command);
+          ++sent;
+        }
+        out.flush();
+      }
+      catch (IOException e) {
+        e.printStackTrace();
+      }
+      finished = true;
+    }
+
+  }
+
+  /**
+   * Connects to the server with a socket and sends many commands without
+   * reading the responses.  The server must stop reading the commands, and
+   * must answer all of them once the responses are read.
+   */
+  private static void testUnreadResponses(int port) throws Exception {
+    Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port);
+    DataOutputStream out = new DataOutputStream(
+                  new BufferedOutputStream(socket.getOutputStream(), 4096));
+    DataInputStream in = new DataInputStream(
+                  new BufferedInputStream(socket.getInputStream(), 4096));
+
+    // The handshake
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    DataOutputStream dout = new DataOutputStream(bout);
+    dout.writeInt(0x0ced007);
+    dout.writeInt(1);
+    dout.writeInt(0);
+    writeCommand(out, bout.toByteArray());
+    out.flush();
+    readResponse(in);
+
+    // Log in
+    bout.reset();
+    dout.writeUTF("APP");
+    dout.writeUTF("test");
+    dout.writeUTF("test");
+    writeCommand(out, bout.toByteArray());
+    out.flush();
+    byte[] response = readResponse(in);
+    check(new DataInputStream(new ByteArrayInputStream(response)).readInt()
+          == ProtocolConstants.USER_AUTHENTICATION_PASSED,
+          "Logged in with a socket");
+
+    // Make a result
+    bout.reset();
+    dout.writeInt(ProtocolConstants.QUERY);
+    dout.writeInt(1);
+    new SQLQuery("SELECT id, name FROM NIOTest").writeTo(dout);
+    writeCommand(out, bout.toByteArray());
+    out.flush();
+    DataInputStream rin =
+              new DataInputStream(new ByteArrayInputStream(readResponse(in)));
+    rin.readInt();
+    check(rin.readInt() == ProtocolConstants.SUCCESS, "Made a result");
+    int result_id = rin.readInt();
+
+    // Ask for a section of the result many times without reading the
+    // responses.
+    bout.reset();
+    dout.writeInt(ProtocolConstants.RESULT_SECTION);
+    dout.writeInt(2);
+    dout.writeInt(result_id);
+    dout.writeInt(0);
+    dout.writeInt(SECTION_SIZE);
+    CommandWriter writer = new CommandWriter(out, bout.toByteArray());
+    writer.start();
+
+    // Wait until the writer stops making progress.
+    int last_sent = -1;
+    while (!writer.finished && writer.sent != last_sent) {
+      last_sent = writer.sent;
+      Thread.sleep(1000);
+    }
+    check(!writer.finished,
+          "The server stops reading commands while responses are unread (" +
+          writer.sent + " of " + COMMAND_COUNT + " sent)");
+
+    // Read all the responses
+    int count = 0;
+    for (int i = 0; i < COMMAND_COUNT; ++i) {
+      rin = new DataInputStream(new ByteArrayInputStream(readResponse(in)));
+      if (rin.readInt() == 2 && rin.readInt() == ProtocolConstants.SUCCESS) {
+        ++count;
+      }
+    }
+    writer.join();
+    check(count == COMMAND_COUNT, "Every command is answered");
+
+    socket.close();
+  }
+
+  /**
+   * Starts a JDBC server with the given connection pool model, checks it
+   * with CLIENT_COUNT clients and stops it.
+   */
+  private static void testClients(DBSystem database, DefaultDBConfig config,
+                            String model, int port) throws Exception {
+    config.setValue("tcp_connection_pool_thread_model", model);
+    TCPJDBCServer server = new TCPJDBCServer(database,
+                                   InetAddress.getByName("127.0.0.1"), port);
+    server.start();
+    try {
+      String url = "jdbc:mckoi://127.0.0.1:" + port + "/";
+      ClientThread[] clients = new ClientThread[CLIENT_COUNT];
+      for (int i = 0; i < CLIENT_COUNT; ++i) {
+        clients[i] = new ClientThread(url);
+        clients[i].start();
+      }
+      boolean success = true;
+      for (int i = 0; i < CLIENT_COUNT; ++i) {
+        clients[i].join();
+        if (clients[i].failure != null) {
+          System.out.println("  Client " + i + ": " + clients[i].failure);
+          success = false;
+        }
+      }
+      check(success, CLIENT_COUNT + " clients with the '" + model +
+                     "' model read every row");
+
+      if (model.equals("nio")) {
+        testUnreadResponses(port);
+      }
+    }
+    finally {
+      server.stop();
+    }
+  }
+
+  public static void main(String[] args) {
+
+    String path = args.length > 0 ? args[0] : "./nio_test_data";
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 19157;
+
+    DBController controller = DBController.getDefault();
+    DefaultDBConfig config = new DefaultDBConfig();
+    config.setDatabasePath(path);
+    config.setLogPath(path);
+    config.setMinimumDebugLevel(40000);
+
+    DBSystem database;
+    if (controller.databaseExists(config)) {
+      database = controller.startDatabase(config);
+      database.setDeleteOnClose(true);
+      database.close();
+    }
+    database = controller.createDatabase(config, "test", "test");
+    database.setDeleteOnClose(true);
+
+    try {
+      Class.forName("com.mckoi.JDBCDriver");
+
+      // Make the test table
+      Connection connection = database.getConnection("test", "test");
+      connection.setAutoCommit(false);
+      Statement stmt = connection.createStatement();
+      stmt.executeQuery(
+            "CREATE TABLE NIOTest ( id INTEGER, name VARCHAR(100) )");
+      PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO NIOTest ( id, name ) VALUES ( ?, ? )");
+      for (int i = 0; i < ROW_COUNT; ++i) {
+        insert.setInt(1, i);
+        insert.setString(2, "name" + i);
+        insert.executeUpdate();
+      }
+      connection.commit();
+      connection.close();
+
+      testClients(database, config, "nio", port);
+      testClients(database, config, "unknown", port + 1);
+
+      database.close();
+    }
+    catch (Throwable e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+
+    System.exit(0);
+  }
+
+}